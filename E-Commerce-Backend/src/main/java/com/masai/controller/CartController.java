@@ -1,17 +1,21 @@
 package com.masai.controller;
 
+import jakarta.validation.Valid;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.masai.models.Cart;
 import com.masai.dto.CartDTO;
+import com.masai.dto.CartUpdateDTO;
 import com.masai.service.CartService;
 
 @RestController
@@ -41,6 +45,15 @@ public class CartController {
 	}
 	
 	
+	// Sets the quantity of every listed product in one call; 0 removes the product
+	@PutMapping(value = "/cart")
+	public ResponseEntity<Cart> updateCartHandler(@Valid @RequestBody CartUpdateDTO cartUpdate ,@RequestHeader("token")String token){
+		
+		Cart cart = cartService.updateCart(cartUpdate, token);
+		return new ResponseEntity<Cart>(cart,HttpStatus.OK);
+	}
+	
+	
 	@DeleteMapping(value = "/cart/clear")
 	public ResponseEntity<Cart> clearCartHandler(@RequestHeader("token") String token){
 		return new ResponseEntity<>(cartService.clearCart(token), HttpStatus.ACCEPTED);
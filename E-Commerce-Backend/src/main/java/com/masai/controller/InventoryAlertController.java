@@ -6,6 +6,7 @@ import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,7 +18,10 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.masai.dto.InventoryAlertBulkRequestDTO;
+import com.masai.dto.InventoryAlertBulkResultDTO;
 import com.masai.dto.InventoryAlertRequestDTO;
 import com.masai.dto.InventoryAlertResponseDTO;
 import com.masai.dto.InventoryAlertSummaryDTO;
@@ -48,6 +52,20 @@ public class InventoryAlertController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    /**
+     * Apply one threshold rule to all or a filtered subset of the seller's products
+     * @param token Seller's session token
+     * @param requestDTO Threshold rule and optional category/product filters
+     * @return Created and updated alert counts with HTTP 200
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<InventoryAlertBulkResultDTO> bulkConfigureAlerts(
+            @RequestHeader("token") String token,
+            @Valid @RequestBody InventoryAlertBulkRequestDTO requestDTO) {
+        InventoryAlertBulkResultDTO response = inventoryAlertService.bulkConfigureAlerts(token, requestDTO);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     /**
      * Update an existing inventory alert
      * @param token Seller's session token
@@ -114,6 +132,19 @@ public class InventoryAlertController {
         return new ResponseEntity<>(alerts, HttpStatus.OK);
     }
 
+    /**
+     * Stream the logged-in seller's triggered alerts as Server-Sent Events.
+     * The first "snapshot" event lists every triggered alert; "triggered" and
+     * "cleared" events follow as alerts change. A later "snapshot" replaces the
+     * client's state if the stream fell behind.
+     * @param token Seller's session token
+     * @return Event stream
+     */
+    @GetMapping(value = "/triggered/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTriggeredAlerts(@RequestHeader("token") String token) {
+        return inventoryAlertService.subscribeToTriggeredAlerts(token);
+    }
+
     /**
      * Get a specific alert by ID
      * @param token Seller's session token
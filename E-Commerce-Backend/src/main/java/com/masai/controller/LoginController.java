@@ -1,5 +1,6 @@
 package com.masai.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,8 +43,8 @@ public class LoginController {
 	// Handler to login a user
 	
 	@PostMapping(value = "/login/customer", consumes = "application/json")
-	public ResponseEntity<UserSession> loginCustomerHandler(@Valid @RequestBody CustomerDTO customerdto){
-		return new ResponseEntity<>(loginService.loginCustomer(customerdto), HttpStatus.ACCEPTED);
+	public ResponseEntity<UserSession> loginCustomerHandler(@Valid @RequestBody CustomerDTO customerdto, HttpServletRequest request){
+		return new ResponseEntity<>(loginService.loginCustomer(customerdto, request.getRemoteAddr()), HttpStatus.ACCEPTED);
 	}
 	
 	
@@ -68,8 +69,8 @@ public class LoginController {
 	// Handler to login a user
 	
 	@PostMapping(value = "/login/seller", consumes = "application/json")
-	public ResponseEntity<UserSession> loginSellerHandler(@Valid @RequestBody SellerDTO seller){
-		return new ResponseEntity<>(loginService.loginSeller(seller), HttpStatus.ACCEPTED);
+	public ResponseEntity<UserSession> loginSellerHandler(@Valid @RequestBody SellerDTO seller, HttpServletRequest request){
+		return new ResponseEntity<>(loginService.loginSeller(seller, request.getRemoteAddr()), HttpStatus.ACCEPTED);
 	}
 		
 		
@@ -20,6 +20,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.masai.models.CategoryEnum;
 import com.masai.models.Product;
+import com.masai.dto.AlsoBoughtProductDTO;
+import com.masai.dto.MostWishlistedProductDTO;
 import com.masai.dto.ProductDTO;
 import com.masai.dto.ProductSearchFilterDTO;
 import com.masai.models.ProductStatus;
@@ -96,6 +98,26 @@ public class ProductController {
 		return new ResponseEntity<List<ProductDTO>>(list, HttpStatus.OK);
 	}
 
+	// Most wanted rail: served from the in-memory wishlist leaderboard, optionally per category
+	@GetMapping("/products/most-wishlisted")
+	public ResponseEntity<List<MostWishlistedProductDTO>> getMostWishlistedHandler(
+			@RequestParam(required = false) String category,
+			@RequestParam(defaultValue = "10") int limit) {
+
+		CategoryEnum ce = category == null ? null : CategoryEnum.valueOf(category.toUpperCase());
+		List<MostWishlistedProductDTO> list = pService.getMostWishlisted(ce, limit);
+		return new ResponseEntity<List<MostWishlistedProductDTO>>(list, HttpStatus.OK);
+	}
+
+	// Customers also bought rail: served from the in-memory co-purchase matrix
+	@GetMapping("/products/{id}/also-bought")
+	public ResponseEntity<List<AlsoBoughtProductDTO>> getAlsoBoughtHandler(@PathVariable("id") Integer id,
+			@RequestParam(defaultValue = "10") int limit) {
+
+		List<AlsoBoughtProductDTO> list = pService.getAlsoBought(id, limit);
+		return new ResponseEntity<List<AlsoBoughtProductDTO>>(list, HttpStatus.OK);
+	}
+
 	@GetMapping("/products/{catenum}")
 	public ResponseEntity<List<ProductDTO>> getAllProductsInCategory(@PathVariable("catenum") String catenum) {
 		CategoryEnum ce = CategoryEnum.valueOf(catenum.toUpperCase());
@@ -19,6 +19,9 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.masai.dto.CursorPageDTO;
+import com.masai.dto.ReviewModerationRequestDTO;
+import com.masai.dto.ReviewModerationResultDTO;
 import com.masai.dto.ReviewRequestDTO;
 import com.masai.dto.ReviewResponseDTO;
 import com.masai.dto.ReviewSummaryDTO;
@@ -86,6 +89,36 @@ public class ReviewController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    // POST /reviews/{id}/helpful - Mark review as helpful (one vote per customer)
+    @Operation(summary = "Mark a review as helpful", description = "Requires valid customer token. Repeat votes are ignored.")
+    @PostMapping("/reviews/{reviewId}/helpful")
+    public ResponseEntity<ReviewResponseDTO> markReviewHelpfulHandler(
+            @PathVariable("reviewId") Long reviewId,
+            @RequestHeader("token") String token) {
+        
+        ReviewResponseDTO response = reviewService.markReviewHelpful(reviewId, token);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // POST /reviews/moderation - Bulk approve or reject (soft delete) reviews
+    @Operation(summary = "Approve or reject a batch of reviews",
+        description = "Requires valid seller token. Each affected product's rating is updated once per batch.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch moderated",
+            content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = ReviewModerationResultDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Empty or oversized batch"),
+        @ApiResponse(responseCode = "403", description = "Invalid token")
+    })
+    @PostMapping("/reviews/moderation")
+    public ResponseEntity<ReviewModerationResultDTO> moderateReviewsHandler(
+            @Valid @RequestBody ReviewModerationRequestDTO request,
+            @Parameter(description = "Auth token") @RequestHeader("token") String token) {
+        
+        ReviewModerationResultDTO result = reviewService.moderateReviews(request, token);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     // GET /products/{id}/reviews - Paginated reviews for product (with sorting)
     @GetMapping("/products/{productId}/reviews")
     public ResponseEntity<Page<ReviewResponseDTO>> getProductReviewsHandler(
@@ -101,6 +134,20 @@ public class ReviewController {
         return new ResponseEntity<>(reviews, HttpStatus.OK);
     }
 
+    // GET /products/{id}/reviews/cursor - Keyset-paginated reviews (no OFFSET, no COUNT)
+    @Operation(summary = "List a product's reviews with cursor pagination",
+        description = "sort is 'newest' (default) or 'helpful'. Pass nextCursor from the previous page to continue.")
+    @GetMapping("/products/{productId}/reviews/cursor")
+    public ResponseEntity<CursorPageDTO<ReviewResponseDTO>> getProductReviewsByCursorHandler(
+            @PathVariable("productId") Integer productId,
+            @RequestParam(defaultValue = "newest") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPageDTO<ReviewResponseDTO> reviews = reviewService.getProductReviewsByCursor(productId, sort, cursor, size);
+        return new ResponseEntity<>(reviews, HttpStatus.OK);
+    }
+
     // GET /products/{id}/reviews/summary - Rating summary
     @GetMapping("/products/{productId}/reviews/summary")
     public ResponseEntity<ReviewSummaryDTO> getProductReviewSummaryHandler(
@@ -10,11 +10,14 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.masai.models.Cart;
+import com.masai.dto.CursorPageDTO;
 import com.masai.dto.WishlistResponseDTO;
 import com.masai.service.WishlistService;
 
@@ -57,6 +60,22 @@ public class WishlistController {
         return new ResponseEntity<>(items, HttpStatus.OK);
     }
 
+    /**
+     * GET /wishlist/cursor?cursor=&size=20
+     * One page of the wishlist, most recently added first. Pass nextCursor from
+     * the previous page to continue; it is null on the last page.
+     * Returns 400 BAD REQUEST for a malformed cursor.
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDTO<WishlistResponseDTO>> getWishlistPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader("token") String token) {
+
+        CursorPageDTO<WishlistResponseDTO> page = wishlistService.getWishlistPage(cursor, size, token);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
     /**
      * DELETE /wishlist/{productId}
      * Remove a single product from the customer's wishlist.
@@ -85,6 +104,22 @@ public class WishlistController {
         return new ResponseEntity<>(updatedCart, HttpStatus.OK);
     }
 
+    /**
+     * POST /wishlist/move-to-cart
+     * Moves the product ids in the body, or the whole wishlist when the body is
+     * absent or empty, to the cart in one transaction. Out-of-stock products
+     * stay in the wishlist.
+     * Returns 200 OK with the updated cart.
+     */
+    @PostMapping("/move-to-cart")
+    public ResponseEntity<Cart> moveAllToCart(
+            @RequestBody(required = false) List<Integer> productIds,
+            @RequestHeader("token") String token) {
+
+        Cart updatedCart = wishlistService.moveAllToCart(productIds, token);
+        return new ResponseEntity<>(updatedCart, HttpStatus.OK);
+    }
+
     /**
      * GET /wishlist/{productId}/check
      * Returns {"wishlisted": true/false} indicating whether the product
@@ -98,4 +133,19 @@ public class WishlistController {
         boolean result = wishlistService.isWishlisted(productId, token);
         return new ResponseEntity<>(Map.of("wishlisted", result), HttpStatus.OK);
     }
+
+    /**
+     * GET /wishlist/check?productIds=1,2,3
+     * Returns {"1": true, "2": false, ...} for up to 500 products, so a listing
+     * page can flag every tile with one call.
+     * Returns 400 BAD REQUEST if more products are requested.
+     */
+    @GetMapping("/check")
+    public ResponseEntity<Map<Integer, Boolean>> checkWishlisted(
+            @RequestParam List<Integer> productIds,
+            @RequestHeader("token") String token) {
+
+        Map<Integer, Boolean> result = wishlistService.checkWishlisted(productIds, token);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
 }
@@ -0,0 +1,25 @@
+package com.masai.dto;
+
+import com.masai.models.CategoryEnum;
+import com.masai.models.ProductStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A product customers also bought with the requested one
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlsoBoughtProductDTO {
+
+    private Integer productId;
+    private String productName;
+    private CategoryEnum category;
+    private Double price;
+    private ProductStatus status;
+    private Double averageRating;
+    private Long boughtTogetherCount;
+}
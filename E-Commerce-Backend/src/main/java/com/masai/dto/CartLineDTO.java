@@ -0,0 +1,24 @@
+package com.masai.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Target quantity of one product in the cart; 0 removes the product
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLineDTO {
+
+    @NotNull(message = "Product ID is required")
+    private Integer productId;
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 0, message = "Quantity must be at least 0")
+    private Integer quantity;
+}
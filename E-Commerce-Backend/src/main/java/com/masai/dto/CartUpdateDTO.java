@@ -0,0 +1,25 @@
+package com.masai.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for setting several cart lines in one call. Products not listed keep
+ * their current quantity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartUpdateDTO {
+
+    @NotEmpty(message = "At least one cart line is required")
+    @Size(max = 100, message = "At most 100 cart lines can be updated at once")
+    private List<@Valid CartLineDTO> items;
+}
@@ -0,0 +1,20 @@
+package com.masai.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a keyset-paginated listing.
+ * nextCursor is null on the last page; otherwise pass it back to fetch the next page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    private List<T> items;
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.masai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lightweight view of the authenticated customer, resolved once per request.
+ * Carries only the ids services need to reach the customer's aggregates.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerPrincipal {
+
+    private Integer customerId;
+    private Integer cartId;
+    private Integer wishlistId;
+}
@@ -0,0 +1,20 @@
+package com.masai.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Units of one product sold on one day, as streamed to warm SalesVelocityTracker
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class DailyProductSalesDTO {
+
+    private final LocalDate date;
+    private final Integer productId;
+    private final Long units;
+}
@@ -0,0 +1,40 @@
+package com.masai.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import com.masai.models.CategoryEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for applying one threshold rule to many of a seller's products.
+ * Without filters the rule applies to all of the seller's products; category
+ * and productIds narrow it down. Existing alerts are overwritten unless
+ * updateExisting is false.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryAlertBulkRequestDTO {
+
+    @NotNull(message = "Threshold quantity is required")
+    @Min(value = 0, message = "Threshold must be at least 0")
+    private Integer thresholdQuantity;
+
+    private Boolean alertEnabled = true;
+
+    private CategoryEnum category;
+
+    @Size(max = 1000, message = "At most 1000 product IDs can be listed; use a category or omit the filter")
+    private List<Integer> productIds;
+
+    private Boolean updateExisting = true;
+}
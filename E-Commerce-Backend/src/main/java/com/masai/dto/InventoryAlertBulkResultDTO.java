@@ -0,0 +1,19 @@
+package com.masai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Outcome of a bulk alert configuration request
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryAlertBulkResultDTO {
+
+    private Integer createdAlerts;
+    private Integer updatedAlerts;
+}
@@ -0,0 +1,24 @@
+package com.masai.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One notification to a seller covering every alert that triggered for them
+ * during a digest interval
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryAlertDigestDTO {
+
+    private Integer sellerId;
+    private LocalDateTime generatedAt;
+    private List<InventoryAlertSummaryDTO> alerts;
+}
@@ -0,0 +1,37 @@
+package com.masai.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.With;
+
+/**
+ * Everything needed to evaluate an inventory alert and list it as triggered,
+ * without loading InventoryAlert, Product or Seller entities.
+ * Instances are immutable; use the with* methods to derive an updated copy.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+@With
+public class InventoryAlertStateDTO {
+
+    private final Integer alertId;
+    private final Integer productId;
+    private final String productName;
+    private final Integer sellerId;
+    private final Integer thresholdQuantity;
+    private final Boolean alertEnabled;
+    private final Integer currentQuantity;
+    private final LocalDateTime lastAlertSentAt;
+    private final Integer alertCount;
+
+    public boolean isTriggered() {
+        return Boolean.TRUE.equals(alertEnabled) && currentQuantity != null && thresholdQuantity != null
+                && currentQuantity <= thresholdQuantity;
+    }
+}
@@ -1,5 +1,6 @@
 package com.masai.dto;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import lombok.AllArgsConstructor;
@@ -25,4 +26,9 @@ public class InventoryAlertSummaryDTO {
     private Integer currentQuantity;
     private Integer quantityToRestock;
     private LocalDateTime lastAlertSentAt;
+
+    // Forecast from recent sales; projectedStockOutDate is null when the product is not selling
+    private Double dailySalesVelocity;
+    private LocalDate projectedStockOutDate;
+    private Integer suggestedReorderQuantity;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.masai.dto;
+
+import com.masai.models.CategoryEnum;
+import com.masai.models.ProductStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of the most-wishlisted leaderboard
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MostWishlistedProductDTO {
+
+    private Integer productId;
+    private String productName;
+    private CategoryEnum category;
+    private Double price;
+    private ProductStatus status;
+    private Double averageRating;
+    private Long wishlistCount;
+}
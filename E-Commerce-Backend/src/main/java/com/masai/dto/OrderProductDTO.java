@@ -0,0 +1,17 @@
+package com.masai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One product of a confirmed order, as read to rebuild CoPurchaseMatrix
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OrderProductDTO {
+
+    private final Integer orderId;
+    private final Integer productId;
+}
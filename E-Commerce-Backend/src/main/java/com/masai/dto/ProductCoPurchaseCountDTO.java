@@ -0,0 +1,17 @@
+package com.masai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A product bought together with another, and in how many confirmed orders
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductCoPurchaseCountDTO {
+
+    private final Integer productId;
+    private final Long orderCount;
+}
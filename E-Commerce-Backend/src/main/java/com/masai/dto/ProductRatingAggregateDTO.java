@@ -0,0 +1,39 @@
+package com.masai.dto;
+
+import java.util.Arrays;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Rating sum, count and star histogram of approved, non-deleted reviews for a product.
+ * Used to reconcile the counters stored on Product against the review table.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRatingAggregateDTO {
+
+    private Integer productId;
+    private Long ratingSum;
+    private Long reviewCount;
+    private Long oneStar;
+    private Long twoStar;
+    private Long threeStar;
+    private Long fourStar;
+    private Long fiveStar;
+
+    // Aggregate for a product with no approved reviews
+    public static ProductRatingAggregateDTO empty(Integer productId) {
+        return new ProductRatingAggregateDTO(productId, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+    }
+
+    public boolean sameCounters(ProductRatingAggregateDTO other) {
+        return Arrays.equals(counters(), other.counters());
+    }
+
+    private long[] counters() {
+        return new long[] { ratingSum, reviewCount, oneStar, twoStar, threeStar, fourStar, fiveStar };
+    }
+}
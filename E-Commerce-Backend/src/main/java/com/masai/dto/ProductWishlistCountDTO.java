@@ -0,0 +1,21 @@
+package com.masai.dto;
+
+import com.masai.models.CategoryEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A product's wishlist count, either as stored on the product or as counted
+ * from wishlist_item during reconciliation
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductWishlistCountDTO {
+
+    private final Integer productId;
+    private final CategoryEnum category;
+    private final Long wishlistCount;
+}
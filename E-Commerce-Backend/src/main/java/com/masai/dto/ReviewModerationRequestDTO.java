@@ -0,0 +1,29 @@
+package com.masai.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import com.masai.models.ReviewModerationAction;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for bulk review moderation: approve or reject (soft delete) a batch of reviews.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewModerationRequestDTO {
+
+    @NotEmpty(message = "At least one review ID is required")
+    @Size(max = 500, message = "At most 500 reviews can be moderated at once")
+    private List<Long> reviewIds;
+
+    @NotNull(message = "Action is required")
+    private ReviewModerationAction action;
+}
@@ -0,0 +1,26 @@
+package com.masai.dto;
+
+import java.util.List;
+
+import com.masai.models.ReviewModerationAction;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk moderation request.
+ * updatedReviews counts reviews whose state changed; reviews already in the
+ * requested state are skipped, and unknown IDs are listed in notFound.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewModerationResultDTO {
+
+    private ReviewModerationAction action;
+    private Integer requestedReviews;
+    private Integer updatedReviews;
+    private Integer affectedProducts;
+    private List<Long> notFound;
+}
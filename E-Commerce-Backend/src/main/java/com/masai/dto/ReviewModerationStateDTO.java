@@ -0,0 +1,20 @@
+package com.masai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Moderation-relevant state of a review, read without loading the Review entity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewModerationStateDTO {
+
+    private Long id;
+    private Integer productId;
+    private Integer rating;
+    private Boolean isApproved;
+    private Boolean isDeleted;
+}
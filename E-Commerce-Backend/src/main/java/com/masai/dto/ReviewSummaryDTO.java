@@ -1,5 +1,8 @@
 package com.masai.dto;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -7,6 +10,7 @@ import lombok.NoArgsConstructor;
 /**
  * DTO for review summary (average rating + total count) - useful for product pages.
  * Avoids exposing full review lists/entities.
+ * ratingHistogram maps each star rating (1-5) to its number of approved reviews.
  */
 @Data
 @NoArgsConstructor
@@ -16,4 +20,30 @@ public class ReviewSummaryDTO {
     private Double averageRating;
     private Long totalReviews;
     private Integer productId;  // Associated product
+    private Map<Integer, Long> ratingHistogram = emptyHistogram();
+
+    public ReviewSummaryDTO(Double averageRating, Long totalReviews, Integer productId) {
+        this.averageRating = averageRating;
+        this.totalReviews = totalReviews;
+        this.productId = productId;
+    }
+
+    // Constructor projection used by ProductRepository.getReviewSummary
+    public ReviewSummaryDTO(Double averageRating, Long totalReviews, Integer productId,
+            Long oneStar, Long twoStar, Long threeStar, Long fourStar, Long fiveStar) {
+        this(averageRating, totalReviews, productId);
+        ratingHistogram.put(1, oneStar != null ? oneStar : 0L);
+        ratingHistogram.put(2, twoStar != null ? twoStar : 0L);
+        ratingHistogram.put(3, threeStar != null ? threeStar : 0L);
+        ratingHistogram.put(4, fourStar != null ? fourStar : 0L);
+        ratingHistogram.put(5, fiveStar != null ? fiveStar : 0L);
+    }
+
+    private static Map<Integer, Long> emptyHistogram() {
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        for (int stars = 1; stars <= 5; stars++) {
+            histogram.put(stars, 0L);
+        }
+        return histogram;
+    }
 }
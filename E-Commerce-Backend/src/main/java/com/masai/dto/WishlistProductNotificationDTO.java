@@ -0,0 +1,36 @@
+package com.masai.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.With;
+
+/**
+ * One batch of customers to tell that a product on their wishlist is back in
+ * stock or cheaper. previousPrice is only set for price drops.
+ */
+@Getter
+@Setter
+@Builder
+@With
+@NoArgsConstructor
+@AllArgsConstructor
+public class WishlistProductNotificationDTO {
+
+    public static final String BACK_IN_STOCK = "BACK_IN_STOCK";
+    public static final String PRICE_DROP = "PRICE_DROP";
+
+    private String type;
+    private Integer productId;
+    private String productName;
+    private Double previousPrice;
+    private Double price;
+    private Integer quantity;
+    private LocalDateTime generatedAt;
+    private List<Integer> customerIds;
+}
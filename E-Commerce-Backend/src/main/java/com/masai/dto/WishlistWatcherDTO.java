@@ -0,0 +1,17 @@
+package com.masai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A wishlist holding a given product and the customer who owns it
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class WishlistWatcherDTO {
+
+    private final Integer wishlistId;
+    private final Integer customerId;
+}
@@ -0,0 +1,16 @@
+package com.masai.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when an inventory alert is deleted.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class InventoryAlertDeletedEvent {
+
+    private final Integer alertId;
+}
@@ -0,0 +1,18 @@
+package com.masai.event;
+
+import com.masai.dto.InventoryAlertStateDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when an inventory alert is created, updated or toggled.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class InventoryAlertSavedEvent {
+
+    private final InventoryAlertStateDTO alert;
+}
@@ -0,0 +1,22 @@
+package com.masai.event;
+
+import com.masai.dto.InventoryAlertStateDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by InventoryAlertIndex whenever a triggered alert changes: when it
+ * triggers, when its snapshot changes while it stays triggered, and when it
+ * clears (restocked, disabled, moved or deleted). A cleared alert carries its
+ * last known snapshot.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class InventoryAlertStatusChangedEvent {
+
+    private final InventoryAlertStateDTO alert;
+    private final boolean triggered;
+}
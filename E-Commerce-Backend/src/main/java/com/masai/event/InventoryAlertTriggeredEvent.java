@@ -0,0 +1,26 @@
+package com.masai.event;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a stock change takes an enabled alert's product from above its
+ * threshold to at or below it. Fired once per crossing, not on every sale while
+ * the product stays low.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class InventoryAlertTriggeredEvent {
+
+    private final Integer alertId;
+    private final Integer productId;
+    private final String productName;
+    private final Integer sellerId;
+    private final Integer thresholdQuantity;
+    private final Integer currentQuantity;
+    private final LocalDateTime triggeredAt;
+}
@@ -0,0 +1,20 @@
+package com.masai.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a product that was out of stock becomes available again.
+ * Listeners receive it after the changing transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductBackInStockEvent {
+
+    private final Integer productId;
+    private final String productName;
+    private final Double price;
+    private final Integer quantity;
+}
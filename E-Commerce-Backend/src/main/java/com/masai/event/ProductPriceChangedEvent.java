@@ -0,0 +1,19 @@
+package com.masai.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a catalog update changes a product's price in either
+ * direction. Listeners receive it after the changing transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductPriceChangedEvent {
+
+    private final Integer productId;
+    private final Double previousPrice;
+    private final Double price;
+}
@@ -0,0 +1,20 @@
+package com.masai.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a catalog update lowers a product's price. Listeners receive
+ * it after the changing transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductPriceDroppedEvent {
+
+    private final Integer productId;
+    private final String productName;
+    private final Double previousPrice;
+    private final Double price;
+}
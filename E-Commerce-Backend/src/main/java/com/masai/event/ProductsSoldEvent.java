@@ -0,0 +1,23 @@
+package com.masai.event;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when an order's sale is confirmed or reversed. Units are per product
+ * and negative when a confirmed order is cancelled; the date is the order date,
+ * so a cancellation is booked against the day of the original sale.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductsSoldEvent {
+
+    private final Integer orderId;
+    private final LocalDate soldOn;
+    private final Map<Integer, Integer> unitsByProduct;
+}
@@ -0,0 +1,26 @@
+package com.masai.event;
+
+import com.masai.models.Product;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published whenever a product's stock quantity is changed (order placement,
+ * cancellation, seller restock or catalog update). Listeners receive it after
+ * the changing transaction commits.
+ */
+@Getter
+@ToString
+public class StockChangedEvent {
+
+    private final Integer productId;
+    private final String productName;
+    private final Integer quantity;
+
+    public StockChangedEvent(Product product) {
+        this.productId = product.getProductId();
+        this.productName = product.getProductName();
+        this.quantity = product.getQuantity();
+    }
+}
@@ -0,0 +1,19 @@
+package com.masai.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a product is added to or removed from a wishlist (including
+ * removal by move-to-cart). Listeners receive it after the change commits.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class WishlistChangedEvent {
+
+    private final Integer wishlistId;
+    private final Integer productId;
+    private final boolean added;
+}
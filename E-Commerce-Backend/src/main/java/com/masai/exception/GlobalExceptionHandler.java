@@ -2,6 +2,8 @@ package com.masai.exception;
 
 import java.time.LocalDateTime;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -91,6 +93,18 @@ public class GlobalExceptionHandler {
 		ErrorDetails err = new ErrorDetails(LocalDateTime.now(), iae.getMessage(), wr.getDescription(false));
 		return new ResponseEntity<>(err, HttpStatus.BAD_REQUEST);
 	}
+
+	@ExceptionHandler(TooManyRequestsException.class)
+	public ResponseEntity<ErrorDetails> tooManyRequestsExceptionHandler(TooManyRequestsException tmre, WebRequest wr){
+		ErrorDetails err = new ErrorDetails(LocalDateTime.now(), tmre.getMessage(), wr.getDescription(false));
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(err);
+	}
+
+	@ExceptionHandler(ServiceBusyException.class)
+	public ResponseEntity<ErrorDetails> serviceBusyExceptionHandler(ServiceBusyException sbe, WebRequest wr){
+		ErrorDetails err = new ErrorDetails(LocalDateTime.now(), sbe.getMessage(), wr.getDescription(false));
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(err);
+	}
 	// Custom Exception Handler Area Ends
 	
 	
@@ -111,6 +125,14 @@ public class GlobalExceptionHandler {
 	
 	
 	
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<ErrorDetails> optimisticLockingFailureExceptionHandler(OptimisticLockingFailureException olfe, WebRequest wr){
+		ErrorDetails err = new ErrorDetails(LocalDateTime.now(), "This was changed by another request at the same time, please try again", wr.getDescription(false));
+		return new ResponseEntity<ErrorDetails>(err, HttpStatus.CONFLICT);
+	}
+	
+	
+	
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<ErrorDetails> exceptionHandler(Exception e, WebRequest wr){
 		ErrorDetails err = new ErrorDetails(LocalDateTime.now(), e.getMessage(), wr.getDescription(false));
@@ -0,0 +1,16 @@
+package com.masai.exception;
+
+/**
+ * Thrown when a request is shed because the server is at capacity for the work
+ * it needs (e.g. password hashing), rather than because of the caller's own
+ * request rate. Mapped to HTTP 503 by the GlobalExceptionHandler.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException() {
+    }
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.masai.exception;
+
+/**
+ * Thrown when a caller has made too many requests (e.g. login attempts for one
+ * account). Mapped to HTTP 429 by the GlobalExceptionHandler.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException() {
+    }
+
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
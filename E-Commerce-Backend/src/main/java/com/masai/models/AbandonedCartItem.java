@@ -0,0 +1,72 @@
+package com.masai.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A line of a cart that was cleared after sitting idle, kept for win-back and
+ * reporting once its cart_item row is gone. Rows are written in bulk by
+ * AbandonedCartSweeper and hold ids rather than references, so the archive
+ * never pins customers or products.
+ */
+@Entity
+@Table(name = "abandoned_cart_item")
+@IdClass(AbandonedCartItem.LineKey.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class AbandonedCartItem {
+
+    @Id
+    @Column(name = "cart_id", nullable = false)
+    private Integer cartId;
+
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Integer productId;
+
+    @Id
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(name = "customer_id")
+    private Integer customerId;
+
+    @Column(name = "quantity")
+    private Integer quantity;
+
+    @Column(name = "unit_price_cents")
+    private Long unitPriceCents;
+
+    // When the cart was last changed
+    @Column(name = "last_modified")
+    private LocalDateTime lastModified;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class LineKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Integer cartId;
+        private Integer productId;
+        private LocalDateTime archivedAt;
+    }
+}
@@ -1,16 +1,24 @@
 package com.masai.models;
 
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinTable;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+import org.hibernate.annotations.ColumnDefault;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -23,6 +31,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Data
 @Entity
+@Table(indexes = @Index(name = "idx_cart_last_modified", columnList = "last_modified"))
 public class Cart {
 
 	@Id
@@ -30,6 +39,7 @@ public class Cart {
 	private Integer cartId;	
 	
 	@OneToMany(cascade = CascadeType.ALL)
+	@JoinTable(indexes = @Index(name = "idx_cart_cart_items_cart", columnList = "cart_cart_id"))
 	private List<CartItem> cartItems = new ArrayList<>();
 	
 	private Double cartTotal;
@@ -37,6 +47,17 @@ public class Cart {
 	@OneToOne(cascade = CascadeType.ALL)
 	@JsonIgnore
 	private Customer customer;
+	
+	// Concurrent changes to the same cart fail instead of overwriting each other
+	@Version
+	@ColumnDefault("0")
+	@JsonIgnore
+	private Long version;
+	
+	// Stamped by the cart store on every customer change; the abandoned cart sweeper finds idle carts by it
+	@Column(name = "last_modified")
+	@JsonIgnore
+	private LocalDateTime lastModified;
 
 }
 
@@ -6,6 +6,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToOne;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import lombok.AllArgsConstructor;
@@ -38,4 +39,8 @@ public class CartItem {
 	
 	private Integer cartItemQuantity;
 	
+	// Unit price when the line was added or last repriced, in cents; see CartPricing
+	@JsonIgnore
+	private Long unitPriceCents;
+	
 }
@@ -11,6 +11,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -33,7 +34,10 @@ import lombok.ToString;
 @AllArgsConstructor
 @ToString
 @Entity
-@Table(name="orders")
+@Table(name="orders", indexes = {
+	// Range scan for the sales history streamed at startup by SalesVelocityTracker
+	@Index(name = "idx_orders_date", columnList = "date")
+})
 public class Order {
 	@Id
 	@GeneratedValue
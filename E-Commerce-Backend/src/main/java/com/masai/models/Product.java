@@ -2,6 +2,7 @@ package com.masai.models;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -16,6 +17,8 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.AllArgsConstructor;
@@ -73,11 +76,29 @@ public class Product {
 	@JsonIgnore
 	private List<Review> reviews = new ArrayList<>();
 
-	// Aggregated review stats (auto-updated after review CRUD)
-	@Column(name = "average_rating")
+	// Aggregated review stats over approved, non-deleted reviews.
+	// Maintained only through ProductRepository.applyRatingDelta, so a product
+	// update never overwrites them with stale values.
+	@Column(name = "average_rating", updatable = false)
+	@ColumnDefault("0")
 	private Double averageRating = 0.0;
 
-	@Column(name = "review_count")
+	@Column(name = "review_count", updatable = false)
+	@ColumnDefault("0")
 	private Long reviewCount = 0L;
 
+	@Column(name = "rating_sum", updatable = false)
+	@ColumnDefault("0")
+	@JsonIgnore
+	private Long ratingSum = 0L;
+
+	@Embedded
+	private RatingHistogram ratingHistogram = new RatingHistogram();
+
+	// Number of wishlists holding this product. Maintained only through
+	// ProductRepository.adjustWishlistCounts and reconciled against wishlist_item.
+	@Column(name = "wishlist_count", updatable = false)
+	@ColumnDefault("0")
+	private Long wishlistCount = 0L;
+
 }
@@ -0,0 +1,43 @@
+package com.masai.models;
+
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-product count of approved, non-deleted reviews for each star rating.
+ * Like the other rating aggregates on Product it is only written through
+ * ProductRepository.applyRatingDelta, never through the entity.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Embeddable
+public class RatingHistogram {
+
+	@Column(name = "one_star_count", updatable = false)
+	@ColumnDefault("0")
+	private Long oneStar = 0L;
+
+	@Column(name = "two_star_count", updatable = false)
+	@ColumnDefault("0")
+	private Long twoStar = 0L;
+
+	@Column(name = "three_star_count", updatable = false)
+	@ColumnDefault("0")
+	private Long threeStar = 0L;
+
+	@Column(name = "four_star_count", updatable = false)
+	@ColumnDefault("0")
+	private Long fourStar = 0L;
+
+	@Column(name = "five_star_count", updatable = false)
+	@ColumnDefault("0")
+	private Long fiveStar = 0L;
+
+}
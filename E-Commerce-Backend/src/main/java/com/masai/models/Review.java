@@ -5,9 +5,11 @@ import java.util.Objects;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -32,6 +34,10 @@ import lombok.ToString;
 @Entity
 @Table(name = "reviews", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"customer_id", "product_id"})
+}, indexes = {
+    // Keyset listing of a product's visible reviews, newest first or most helpful first
+    @Index(name = "idx_reviews_product_created", columnList = "product_id, is_approved, is_deleted, created_at, id"),
+    @Index(name = "idx_reviews_product_helpful", columnList = "product_id, is_approved, is_deleted, helpful_count, id")
 })
 @Getter
 @Setter
@@ -70,16 +76,20 @@ public class Review {
     @Column(name = "is_approved")
     private Boolean isApproved = false;  // For admin moderation
 
-    @Column(name = "helpful_count")
+    // Only incremented by HelpfulVoteBuffer's batched UPDATE, so saving an edited
+    // review never overwrites votes flushed since it was loaded
+    @Column(name = "helpful_count", updatable = false)
     private Integer helpfulCount = 0;
 
     // Many-to-one with Product (reviewed product)
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
-    // Many-to-one with Customer (reviewer; acting as "User" in this context)
-    @ManyToOne
+    // Many-to-one with Customer (reviewer; acting as "User" in this context).
+    // Both associations are lazy so loading a review does not pull in the product,
+    // or the customer with its eager cart and wishlist.
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;  // Reviewer is a Customer/User
 
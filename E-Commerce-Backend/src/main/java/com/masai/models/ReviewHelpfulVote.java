@@ -0,0 +1,59 @@
+package com.masai.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Records that a customer marked a review as helpful.
+ * The (review, customer) primary key makes the table the source of truth for
+ * deduplication; votes are written in batches by HelpfulVoteBuffer, never one
+ * request at a time.
+ */
+// A composite primary key rather than a unique constraint: the SQLite dialect
+// only emits constraints that are part of CREATE TABLE
+@Entity
+@Table(name = "review_helpful_votes")
+@IdClass(ReviewHelpfulVote.VoteKey.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class ReviewHelpfulVote {
+
+    @Id
+    @Column(name = "review_id", nullable = false)
+    private Long reviewId;
+
+    @Id
+    @Column(name = "customer_id", nullable = false)
+    private Integer customerId;
+
+    @Column(name = "voted_at")
+    private LocalDateTime votedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class VoteKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long reviewId;
+        private Integer customerId;
+    }
+}
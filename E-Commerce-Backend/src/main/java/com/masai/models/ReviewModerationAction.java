@@ -0,0 +1,7 @@
+package com.masai.models;
+
+public enum ReviewModerationAction {
+
+	APPROVE, REJECT
+
+}
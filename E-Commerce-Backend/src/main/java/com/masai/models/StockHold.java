@@ -0,0 +1,59 @@
+package com.masai.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Units of a product held for a cart until expiresAt. The in-memory holds in
+ * TimingWheelStockHolds are the source of truth; this table is rewritten from
+ * them in batches and only read back at startup.
+ */
+@Entity
+@Table(name = "stock_hold")
+@IdClass(StockHold.HoldKey.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class StockHold {
+
+    @Id
+    @Column(name = "cart_id", nullable = false)
+    private Integer cartId;
+
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Integer productId;
+
+    @Column(name = "units", nullable = false)
+    private Integer units;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class HoldKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Integer cartId;
+        private Integer productId;
+    }
+}
@@ -7,6 +7,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -24,7 +25,12 @@ import lombok.ToString;
  * Tracks when the product was added so the list can be sorted by most recently added.
  */
 @Entity
-@Table(name = "wishlist_item")
+@Table(name = "wishlist_item", indexes = {
+        // Keyset pages of a wishlist, most recently added first
+        @Index(name = "idx_wishlist_item_wishlist_added", columnList = "wishlist_id, added_at"),
+        // Product lookup for wishlist back-in-stock and price-drop notifications
+        @Index(name = "idx_wishlist_item_product", columnList = "product_id, wishlist_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
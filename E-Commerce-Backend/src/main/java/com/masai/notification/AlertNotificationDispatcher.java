@@ -0,0 +1,240 @@
+package com.masai.notification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.dto.InventoryAlertDigestDTO;
+import com.masai.dto.InventoryAlertSummaryDTO;
+import com.masai.event.InventoryAlertTriggeredEvent;
+import com.masai.repository.InventoryAlertDao;
+import com.masai.util.InventoryAlertIndex;
+import com.masai.util.SalesVelocityTracker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Turns inventory alert triggers into seller notifications.
+ *
+ * A trigger is suppressed if the same alert was accepted within the debounce
+ * window, so a product hovering around its threshold notifies at most once per
+ * window. Accepted triggers are coalesced per seller and delivered as one digest
+ * per seller each digest interval through the configured {@link NotificationSink}.
+ * The alerts in delivered digests are then recorded as sent with one UPDATE.
+ *
+ * A digest the sink fails to take is queued again for its seller, who is then
+ * skipped for retry-backoff-ms, doubling with each further failure up to
+ * max-retry-backoff-ms, so an outage delays alerts rather than losing them.
+ */
+@Component
+public class AlertNotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertNotificationDispatcher.class);
+
+    // sellerId -> (alertId -> latest trigger); inner maps are only touched inside pending.compute or after removal
+    private final Map<Integer, Map<Integer, InventoryAlertTriggeredEvent>> pending = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> acceptedAtNanos = new ConcurrentHashMap<>();
+    // Only touched by dispatch
+    private final Map<Integer, Retry> retries = new HashMap<>();
+
+    private final NotificationSink notificationSink;
+    private final InventoryAlertDao inventoryAlertDao;
+    private final InventoryAlertIndex inventoryAlertIndex;
+    private final SalesVelocityTracker salesVelocityTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final long debounceWindowNanos;
+    private final long retryBackoffNanos;
+    private final long maxRetryBackoffNanos;
+
+    private final Counter deliveredCounter;
+    private final Counter suppressedCounter;
+    private final Counter failedCounter;
+    private final Counter digestCounter;
+
+    @Autowired
+    public AlertNotificationDispatcher(NotificationSink notificationSink,
+            InventoryAlertDao inventoryAlertDao,
+            InventoryAlertIndex inventoryAlertIndex,
+            SalesVelocityTracker salesVelocityTracker,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.inventory-alerts.notifications.debounce-window-ms:900000}") long debounceWindowMillis,
+            @Value("${app.inventory-alerts.notifications.retry-backoff-ms:60000}") long retryBackoffMillis,
+            @Value("${app.inventory-alerts.notifications.max-retry-backoff-ms:3600000}") long maxRetryBackoffMillis,
+            MeterRegistry meterRegistry) {
+
+        this.notificationSink = notificationSink;
+        this.inventoryAlertDao = inventoryAlertDao;
+        this.inventoryAlertIndex = inventoryAlertIndex;
+        this.salesVelocityTracker = salesVelocityTracker;
+        this.transactionTemplate = transactionTemplate;
+        this.debounceWindowNanos = TimeUnit.MILLISECONDS.toNanos(debounceWindowMillis);
+        this.retryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(retryBackoffMillis);
+        this.maxRetryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxRetryBackoffMillis);
+
+        this.deliveredCounter = notificationCounter(meterRegistry, "delivered");
+        this.suppressedCounter = notificationCounter(meterRegistry, "suppressed");
+        this.failedCounter = notificationCounter(meterRegistry, "failed");
+        this.digestCounter = Counter.builder("inventory.alerts.digests")
+                .description("Seller digests delivered")
+                .register(meterRegistry);
+    }
+
+    private static Counter notificationCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("inventory.alerts.notifications")
+                .description("Inventory alert triggers by notification outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a trigger for the seller's next digest unless the alert is inside its debounce window.
+     *
+     * @param event The trigger published by InventoryAlertIndex
+     */
+    @EventListener
+    public void onAlertTriggered(InventoryAlertTriggeredEvent event) {
+        long now = System.nanoTime();
+        boolean[] accepted = new boolean[1];
+        acceptedAtNanos.compute(event.getAlertId(), (alertId, last) -> {
+            accepted[0] = last == null || now - last >= debounceWindowNanos;
+            return accepted[0] ? now : last;
+        });
+
+        if (!accepted[0]) {
+            suppressedCounter.increment();
+            return;
+        }
+
+        pending.compute(event.getSellerId(), (sellerId, alerts) -> {
+            Map<Integer, InventoryAlertTriggeredEvent> queued = alerts != null ? alerts : new LinkedHashMap<>();
+            queued.put(event.getAlertId(), event);
+            return queued;
+        });
+    }
+
+    /**
+     * Delivers one digest per seller with queued triggers, except sellers backing
+     * off after a failed delivery, then records every delivered alert as sent in
+     * a single statement.
+     *
+     * @return The number of alerts delivered
+     */
+    @Scheduled(fixedDelayString = "${app.inventory-alerts.notifications.digest-interval-ms:60000}")
+    public synchronized int dispatch() {
+        LocalDateTime sentAt = LocalDateTime.now();
+        long now = System.nanoTime();
+        List<Integer> deliveredAlertIds = new ArrayList<>();
+        List<Integer> deliveredProductIds = new ArrayList<>();
+
+        for (Integer sellerId : pending.keySet()) {
+            Retry retry = retries.get(sellerId);
+            if (retry != null && now - retry.nextAttemptNanos < 0) {
+                continue;
+            }
+            Map<Integer, InventoryAlertTriggeredEvent> queued = pending.remove(sellerId);
+            if (queued == null || queued.isEmpty()) {
+                continue;
+            }
+
+            List<InventoryAlertSummaryDTO> alerts = new ArrayList<>();
+            queued.values().forEach(event -> alerts.add(toSummary(event, sentAt)));
+
+            try {
+                notificationSink.deliver(new InventoryAlertDigestDTO(sellerId, sentAt, alerts));
+            } catch (RuntimeException e) {
+                Retry failed = retries.computeIfAbsent(sellerId, id -> new Retry());
+                failed.attempts++;
+                long backoff = retryBackoffNanos << Math.min(failed.attempts - 1, 20);
+                failed.nextAttemptNanos = now + Math.min(backoff, maxRetryBackoffNanos);
+                log.warn("Failed to deliver {} inventory alerts to seller {} (attempt {}); they will be retried",
+                        alerts.size(), sellerId, failed.attempts, e);
+                failedCounter.increment(alerts.size());
+                requeue(sellerId, queued);
+                continue;
+            }
+
+            retries.remove(sellerId);
+            digestCounter.increment();
+            deliveredCounter.increment(alerts.size());
+            for (InventoryAlertTriggeredEvent event : queued.values()) {
+                deliveredAlertIds.add(event.getAlertId());
+                deliveredProductIds.add(event.getProductId());
+            }
+        }
+
+        if (!deliveredAlertIds.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        inventoryAlertDao.recordAlertsSent(deliveredAlertIds, sentAt));
+                inventoryAlertIndex.recordAlertsSent(deliveredProductIds, sentAt);
+            } catch (RuntimeException e) {
+                log.error("Delivered {} inventory alerts but failed to record them as sent", deliveredAlertIds.size(), e);
+            }
+        }
+
+        evictExpiredDebounces();
+        return deliveredAlertIds.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatch();
+    }
+
+    // Triggers queued since the digest was taken are newer, so they win
+    private void requeue(Integer sellerId, Map<Integer, InventoryAlertTriggeredEvent> failed) {
+        pending.compute(sellerId, (id, alerts) -> {
+            Map<Integer, InventoryAlertTriggeredEvent> queued = alerts != null ? alerts : new LinkedHashMap<>();
+            failed.forEach(queued::putIfAbsent);
+            return queued;
+        });
+    }
+
+    int debouncedAlerts() {
+        return acceptedAtNanos.size();
+    }
+
+    private void evictExpiredDebounces() {
+        long now = System.nanoTime();
+        acceptedAtNanos.entrySet().removeIf(entry -> now - entry.getValue() >= debounceWindowNanos);
+    }
+
+    private InventoryAlertSummaryDTO toSummary(InventoryAlertTriggeredEvent event, LocalDateTime sentAt) {
+        int quantityToRestock = Math.max(0, event.getThresholdQuantity() - event.getCurrentQuantity() + 1);
+        return InventoryAlertSummaryDTO.builder()
+                .alertId(event.getAlertId())
+                .productId(event.getProductId())
+                .productName(event.getProductName())
+                .thresholdQuantity(event.getThresholdQuantity())
+                .currentQuantity(event.getCurrentQuantity())
+                .quantityToRestock(quantityToRestock)
+                .lastAlertSentAt(sentAt)
+                .dailySalesVelocity(salesVelocityTracker.dailyRate(event.getProductId()))
+                .projectedStockOutDate(salesVelocityTracker.projectedStockOutDate(event.getProductId(), event.getCurrentQuantity()))
+                .suggestedReorderQuantity(Math.max(quantityToRestock,
+                        salesVelocityTracker.suggestedReorderQuantity(event.getProductId(), event.getCurrentQuantity())))
+                .build();
+    }
+
+    private static final class Retry {
+        private int attempts;
+        private long nextAttemptNanos;
+    }
+}
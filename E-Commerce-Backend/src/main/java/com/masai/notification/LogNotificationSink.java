@@ -0,0 +1,29 @@
+package com.masai.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.masai.dto.InventoryAlertDigestDTO;
+import com.masai.dto.InventoryAlertSummaryDTO;
+
+/**
+ * Writes each digest to the "inventory-alerts" log category, which can be
+ * routed to its own file in the logging configuration. This is the default sink.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory-alerts.notifications.sink", havingValue = "log", matchIfMissing = true)
+public class LogNotificationSink implements NotificationSink {
+
+    private static final Logger log = LoggerFactory.getLogger("inventory-alerts");
+
+    @Override
+    public void deliver(InventoryAlertDigestDTO digest) {
+        log.info("Seller {}: {} products at or below their alert threshold", digest.getSellerId(), digest.getAlerts().size());
+        for (InventoryAlertSummaryDTO alert : digest.getAlerts()) {
+            log.info("  product {} '{}': {} left (threshold {}), restock {}", alert.getProductId(), alert.getProductName(),
+                    alert.getCurrentQuantity(), alert.getThresholdQuantity(), alert.getQuantityToRestock());
+        }
+    }
+}
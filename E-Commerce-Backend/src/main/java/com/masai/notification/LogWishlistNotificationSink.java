@@ -0,0 +1,31 @@
+package com.masai.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.masai.dto.WishlistProductNotificationDTO;
+
+/**
+ * Writes each notification batch to the "wishlist-notifications" log category.
+ * This is the default sink.
+ */
+@Component
+@ConditionalOnProperty(name = "app.wishlist.notifications.sink", havingValue = "log", matchIfMissing = true)
+public class LogWishlistNotificationSink implements WishlistNotificationSink {
+
+    private static final Logger log = LoggerFactory.getLogger("wishlist-notifications");
+
+    @Override
+    public void deliver(WishlistProductNotificationDTO notification) {
+        if (WishlistProductNotificationDTO.PRICE_DROP.equals(notification.getType())) {
+            log.info("Product {} '{}' dropped from {} to {}: notifying {} customers", notification.getProductId(),
+                    notification.getProductName(), notification.getPreviousPrice(), notification.getPrice(),
+                    notification.getCustomerIds().size());
+        } else {
+            log.info("Product {} '{}' is back in stock ({} left): notifying {} customers", notification.getProductId(),
+                    notification.getProductName(), notification.getQuantity(), notification.getCustomerIds().size());
+        }
+    }
+}
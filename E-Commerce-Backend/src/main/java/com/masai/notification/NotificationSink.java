@@ -0,0 +1,16 @@
+package com.masai.notification;
+
+import com.masai.dto.InventoryAlertDigestDTO;
+
+/**
+ * Delivers inventory alert digests to sellers. The active implementation is
+ * chosen with app.inventory-alerts.notifications.sink (log or webhook).
+ */
+public interface NotificationSink {
+
+    /**
+     * @param digest The alerts to deliver to one seller
+     * @throws RuntimeException if delivery failed; the alerts are not recorded as sent
+     */
+    void deliver(InventoryAlertDigestDTO digest);
+}
@@ -0,0 +1,375 @@
+package com.masai.notification;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.masai.dto.InventoryAlertSummaryDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Fans triggered/cleared inventory alert changes out to sellers' open
+ * Server-Sent Events streams.
+ *
+ * Publishing never writes to a connection: it only queues the change on each of
+ * the seller's subscribers. Queues are drained on a fixed pool of writer-threads
+ * with a bounded queue, at most one drain in flight per subscriber, so thousands
+ * of idle streams cost no threads. A stream whose drain the full pool rejects is
+ * closed rather than given a thread of its own. The small shared scheduler only
+ * queues heartbeats and drops streams whose write has been blocked longer than
+ * write-timeout-ms; the blocked writer completes the stream once its write
+ * returns, so a stalled client holds one writer and nobody else's events.
+ *
+ * Each queue keeps the latest change per alert, so a product flapping around its
+ * threshold occupies one slot. If a slow client still falls more than the queue
+ * capacity behind, its queue is dropped and it is sent a fresh snapshot instead.
+ */
+@Component
+public class SellerAlertStreamHub {
+
+    private static final Logger log = LoggerFactory.getLogger(SellerAlertStreamHub.class);
+
+    public static final String SNAPSHOT = "snapshot";
+    public static final String TRIGGERED = "triggered";
+    public static final String CLEARED = "cleared";
+
+    private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService writers;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+    private final long writeTimeoutNanos;
+
+    private final Counter sentCounter;
+    private final Counter resyncCounter;
+    private final Counter stalledCounter;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public SellerAlertStreamHub(@Value("${app.inventory-alerts.stream.threads:2}") int threads,
+            @Value("${app.inventory-alerts.stream.queue-capacity:256}") int queueCapacity,
+            @Value("${app.inventory-alerts.stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${app.inventory-alerts.stream.heartbeat-interval-ms:25000}") long heartbeatIntervalMillis,
+            @Value("${app.inventory-alerts.stream.write-timeout-ms:10000}") long writeTimeoutMillis,
+            @Value("${app.inventory-alerts.stream.writer-threads:4}") int writerThreads,
+            @Value("${app.inventory-alerts.stream.writer-queue-capacity:1024}") int writerQueueCapacity,
+            MeterRegistry meterRegistry) {
+
+        this(Executors.newScheduledThreadPool(threads, streamThreads("alert-stream-")),
+                new ThreadPoolExecutor(writerThreads, writerThreads, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(writerQueueCapacity), streamThreads("alert-stream-writer-")),
+                queueCapacity, timeoutMillis, heartbeatIntervalMillis, writeTimeoutMillis, meterRegistry);
+    }
+
+    SellerAlertStreamHub(ScheduledExecutorService scheduler, ExecutorService writers, int queueCapacity, long timeoutMillis,
+            long heartbeatIntervalMillis, long writeTimeoutMillis, MeterRegistry meterRegistry) {
+
+        this.scheduler = scheduler;
+        this.writers = writers;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+
+        this.sentCounter = Counter.builder("inventory.alerts.stream.events")
+                .description("Inventory alert events written to seller streams")
+                .register(meterRegistry);
+        this.resyncCounter = Counter.builder("inventory.alerts.stream.resyncs")
+                .description("Seller streams that fell behind and were resent a snapshot")
+                .register(meterRegistry);
+        this.stalledCounter = Counter.builder("inventory.alerts.stream.stalled")
+                .description("Seller streams closed because a write stayed blocked past the write timeout")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("inventory.alerts.stream.rejected")
+                .description("Seller streams closed because the writer pool was full")
+                .register(meterRegistry);
+        Gauge.builder("inventory.alerts.stream.subscribers", subscribers,
+                        map -> map.values().stream().mapToInt(Set::size).sum())
+                .description("Open seller inventory alert streams")
+                .register(meterRegistry);
+
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMillis, heartbeatIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        long stallCheckMillis = Math.max(1, writeTimeoutMillis / 2);
+        scheduler.scheduleWithFixedDelay(this::closeStalled, stallCheckMillis, stallCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory streamThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Opens a stream for the seller. The first event is a snapshot of the
+     * seller's triggered alerts; the same supplier is used to resync the stream
+     * if it falls behind.
+     *
+     * @param sellerId The subscribing seller
+     * @param snapshot Supplies the seller's currently triggered alerts
+     * @return The emitter to return from the controller
+     */
+    public SseEmitter subscribe(Integer sellerId, Supplier<List<InventoryAlertSummaryDTO>> snapshot) {
+        return subscribe(sellerId, snapshot, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Integer sellerId, Supplier<List<InventoryAlertSummaryDTO>> snapshot, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(sellerId, emitter, snapshot);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        subscribers.compute(sellerId, (id, set) -> {
+            Set<Subscriber> open = set != null ? set : ConcurrentHashMap.newKeySet();
+            open.add(subscriber);
+            return open;
+        });
+        schedule(subscriber, subscriber.requestSnapshot());
+        return emitter;
+    }
+
+    /**
+     * Queues an alert change for every open stream of the seller.
+     *
+     * @param sellerId The seller owning the alert
+     * @param eventName {@link #TRIGGERED} or {@link #CLEARED}
+     * @param alert The alert's latest summary
+     */
+    public void publish(Integer sellerId, String eventName, InventoryAlertSummaryDTO alert) {
+        for (Subscriber subscriber : subscribers.getOrDefault(sellerId, Set.of())) {
+            schedule(subscriber, subscriber.offer(eventName, alert));
+        }
+    }
+
+    /**
+     * Queues a comment on every stream so proxies and clients see traffic on idle
+     * connections, and so dead connections are detected by the failed write.
+     */
+    void heartbeat() {
+        for (Set<Subscriber> open : subscribers.values()) {
+            for (Subscriber subscriber : open) {
+                schedule(subscriber, subscriber.requestHeartbeat());
+            }
+        }
+    }
+
+    /**
+     * Drops streams whose current write has been blocked longer than the write
+     * timeout, so nothing more is queued for them. The emitter stays locked while
+     * the blocked write holds it, so the writer completes it once the write returns.
+     */
+    void closeStalled() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> open : subscribers.values()) {
+            for (Subscriber subscriber : open) {
+                long started = subscriber.writeStartedNanos;
+                if (started != 0 && now - started > writeTimeoutNanos) {
+                    log.debug("Closing stalled inventory alert stream for seller {}", subscriber.sellerId);
+                    stalledCounter.increment();
+                    subscriber.stalled = true;
+                    unsubscribe(subscriber);
+                }
+            }
+        }
+    }
+
+    int subscriberCount(Integer sellerId) {
+        return subscribers.getOrDefault(sellerId, Set.of()).size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        writers.shutdownNow();
+        for (Set<Subscriber> open : subscribers.values()) {
+            open.forEach(subscriber -> subscriber.emitter.complete());
+        }
+        subscribers.clear();
+    }
+
+    private void schedule(Subscriber subscriber, boolean pending) {
+        if (!pending || !subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writers.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // No drain is in flight, so completing the emitter here cannot block
+            subscriber.scheduled.set(false);
+            if (!writers.isShutdown()) {
+                log.debug("Closing inventory alert stream for seller {}: writer pool is full", subscriber.sellerId);
+                rejectedCounter.increment();
+                unsubscribe(subscriber);
+                subscriber.emitter.completeWithError(new IOException("Writer pool is full"));
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.writeStartedNanos = System.nanoTime();
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            subscriber.writeStartedNanos = 0;
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            for (Batch batch; (batch = subscriber.take()) != null; ) {
+                if (batch.snapshot) {
+                    send(subscriber, SseEmitter.event().name(SNAPSHOT).data(subscriber.snapshot.get()));
+                    sentCounter.increment();
+                }
+                for (Change change : batch.changes) {
+                    send(subscriber, SseEmitter.event()
+                            .name(change.eventName)
+                            .id(String.valueOf(change.alert.getAlertId()))
+                            .data(change.alert));
+                    sentCounter.increment();
+                }
+                if (batch.heartbeat && !batch.snapshot && batch.changes.isEmpty()) {
+                    send(subscriber, SseEmitter.event().comment("heartbeat"));
+                }
+            }
+            if (subscriber.stalled) {
+                subscriber.emitter.completeWithError(new IOException("Write timed out"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Closing inventory alert stream for seller {}: {}", subscriber.sellerId, e.getMessage());
+            unsubscribe(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.close();
+        subscribers.computeIfPresent(subscriber.sellerId, (id, open) -> {
+            open.remove(subscriber);
+            return open.isEmpty() ? null : open;
+        });
+    }
+
+    private static final class Change {
+
+        private final String eventName;
+        private final InventoryAlertSummaryDTO alert;
+
+        private Change(String eventName, InventoryAlertSummaryDTO alert) {
+            this.eventName = eventName;
+            this.alert = alert;
+        }
+    }
+
+    private static final class Batch {
+
+        private final boolean snapshot;
+        private final boolean heartbeat;
+        private final List<Change> changes;
+
+        private Batch(boolean snapshot, boolean heartbeat, List<Change> changes) {
+            this.snapshot = snapshot;
+            this.heartbeat = heartbeat;
+            this.changes = changes;
+        }
+    }
+
+    // Queue state is guarded by the subscriber's monitor; scheduled marks a drain in flight
+    private final class Subscriber {
+
+        private final Integer sellerId;
+        private final SseEmitter emitter;
+        private final Supplier<List<InventoryAlertSummaryDTO>> snapshot;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // When the write in flight started, or 0 when none is
+        private volatile long writeStartedNanos;
+        // Dropped by closeStalled; completed by its writer once the blocked write returns
+        private volatile boolean stalled;
+
+        private final Map<Integer, Change> pending = new LinkedHashMap<>();
+        private boolean snapshotDue;
+        private boolean heartbeatDue;
+        private boolean closed;
+
+        private Subscriber(Integer sellerId, SseEmitter emitter, Supplier<List<InventoryAlertSummaryDTO>> snapshot) {
+            this.sellerId = sellerId;
+            this.emitter = emitter;
+            this.snapshot = snapshot;
+        }
+
+        private synchronized boolean offer(String eventName, InventoryAlertSummaryDTO alert) {
+            if (closed || snapshotDue) {
+                // A queued snapshot is taken at send time and already reflects this change
+                return !closed;
+            }
+            // Re-insert so the queue stays in order of each alert's latest change
+            pending.remove(alert.getAlertId());
+            pending.put(alert.getAlertId(), new Change(eventName, alert));
+            if (pending.size() > queueCapacity) {
+                pending.clear();
+                snapshotDue = true;
+                resyncCounter.increment();
+            }
+            return true;
+        }
+
+        private synchronized boolean requestSnapshot() {
+            pending.clear();
+            snapshotDue = true;
+            return !closed;
+        }
+
+        private synchronized boolean requestHeartbeat() {
+            heartbeatDue = true;
+            return !closed;
+        }
+
+        // Returns null, and clears the scheduled flag, once there is nothing left to send
+        private synchronized Batch take() {
+            if (closed || (!snapshotDue && !heartbeatDue && pending.isEmpty())) {
+                scheduled.set(false);
+                return null;
+            }
+            Batch batch = new Batch(snapshotDue, heartbeatDue, new ArrayList<>(pending.values()));
+            pending.clear();
+            snapshotDue = false;
+            heartbeatDue = false;
+            return batch;
+        }
+
+        private synchronized void close() {
+            closed = true;
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.masai.notification;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import com.masai.dto.InventoryAlertDigestDTO;
+
+/**
+ * POSTs each digest as JSON to a configured webhook URL.
+ * Enabled with app.inventory-alerts.notifications.sink=webhook.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory-alerts.notifications.sink", havingValue = "webhook")
+public class WebhookNotificationSink implements NotificationSink {
+
+    private final RestClient restClient;
+
+    @Autowired
+    public WebhookNotificationSink(RestClient.Builder restClientBuilder,
+            @Value("${app.inventory-alerts.notifications.webhook-url}") String webhookUrl) {
+        this.restClient = restClientBuilder.baseUrl(webhookUrl).build();
+    }
+
+    @Override
+    public void deliver(InventoryAlertDigestDTO digest) {
+        restClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(digest)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
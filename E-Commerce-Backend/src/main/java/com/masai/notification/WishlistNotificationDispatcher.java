@@ -0,0 +1,297 @@
+package com.masai.notification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.masai.dto.WishlistProductNotificationDTO;
+import com.masai.dto.WishlistWatcherDTO;
+import com.masai.event.ProductBackInStockEvent;
+import com.masai.event.ProductPriceDroppedEvent;
+import com.masai.repository.WishlistItemRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Notifies customers when a product on their wishlist is back in stock or has
+ * dropped in price.
+ *
+ * Product changes are queued after commit and fanned out by a single background
+ * worker, so a product wishlisted by many customers never delays the request
+ * that changed it. The worker pages through the product's wishlists by keyset on
+ * the (product_id, wishlist_id) index and delivers one notification per page.
+ * Changes still queued for the same product and type are coalesced to the latest.
+ *
+ * A page the sink rejects is not dropped at once: the change is queued again to
+ * resume from that page after retry-backoff-ms, doubling per failure up to
+ * max-retry-backoff-ms, unless a newer change for the product has been queued
+ * meanwhile, which is sent to every page anyway. A page that fails max-attempts
+ * times is given up on, along with the pages after it, and counted as dropped.
+ */
+@Component
+public class WishlistNotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(WishlistNotificationDispatcher.class);
+
+    // type:productId -> latest queued change; guarded by this
+    private final Map<String, Queued> pending = new LinkedHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final WishlistNotificationSink notificationSink;
+    private final WishlistItemRepository wishlistItemRepository;
+    private final ExecutorService worker;
+    private final int batchSize;
+    private final long retryBackoffNanos;
+    private final long maxRetryBackoffNanos;
+    private final int maxAttempts;
+
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+    private final Counter droppedCounter;
+
+    @Autowired
+    public WishlistNotificationDispatcher(WishlistNotificationSink notificationSink,
+            WishlistItemRepository wishlistItemRepository,
+            @Value("${app.wishlist.notifications.batch-size:500}") int batchSize,
+            @Value("${app.wishlist.notifications.retry-backoff-ms:30000}") long retryBackoffMillis,
+            @Value("${app.wishlist.notifications.max-retry-backoff-ms:3600000}") long maxRetryBackoffMillis,
+            @Value("${app.wishlist.notifications.max-attempts:10}") int maxAttempts,
+            MeterRegistry meterRegistry) {
+
+        this(notificationSink, wishlistItemRepository, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wishlist-notifications");
+            thread.setDaemon(true);
+            return thread;
+        }), batchSize, retryBackoffMillis, maxRetryBackoffMillis, maxAttempts, meterRegistry);
+    }
+
+    WishlistNotificationDispatcher(WishlistNotificationSink notificationSink,
+            WishlistItemRepository wishlistItemRepository, ExecutorService worker, int batchSize,
+            long retryBackoffMillis, long maxRetryBackoffMillis, int maxAttempts, MeterRegistry meterRegistry) {
+
+        this.notificationSink = notificationSink;
+        this.wishlistItemRepository = wishlistItemRepository;
+        this.worker = worker;
+        this.batchSize = batchSize;
+        this.retryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(retryBackoffMillis);
+        this.maxRetryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxRetryBackoffMillis);
+        this.maxAttempts = maxAttempts;
+
+        this.deliveredCounter = notificationCounter(meterRegistry, "delivered");
+        this.failedCounter = notificationCounter(meterRegistry, "failed");
+        this.droppedCounter = notificationCounter(meterRegistry, "dropped");
+    }
+
+    private static Counter notificationCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("wishlist.notifications")
+                .description("Wishlist customers notified of a restock or price drop, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBackInStock(ProductBackInStockEvent event) {
+        enqueue(WishlistProductNotificationDTO.builder()
+                .type(WishlistProductNotificationDTO.BACK_IN_STOCK)
+                .productId(event.getProductId())
+                .productName(event.getProductName())
+                .price(event.getPrice())
+                .quantity(event.getQuantity())
+                .build());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceDropped(ProductPriceDroppedEvent event) {
+        enqueue(WishlistProductNotificationDTO.builder()
+                .type(WishlistProductNotificationDTO.PRICE_DROP)
+                .productId(event.getProductId())
+                .productName(event.getProductName())
+                .previousPrice(event.getPreviousPrice())
+                .price(event.getPrice())
+                .build());
+    }
+
+    /**
+     * Sends every queued change that is not waiting out a retry backoff to all
+     * customers wishlisting the product, one page of customers per notification.
+     *
+     * @return The number of customers notified
+     */
+    int dispatch() {
+        int notified = 0;
+        for (Queued queued; (queued = take()) != null; ) {
+            notified += fanOut(queued);
+        }
+        return notified;
+    }
+
+    /**
+     * Wakes the worker for changes whose retry backoff has passed.
+     */
+    @Scheduled(fixedDelayString = "${app.wishlist.notifications.retry-backoff-ms:30000}")
+    public void retryFailed() {
+        if (dueChanges() > 0) {
+            schedule();
+        }
+    }
+
+    synchronized int pendingChanges() {
+        return pending.size();
+    }
+
+    synchronized int dueChanges() {
+        long now = System.nanoTime();
+        int due = 0;
+        for (Queued queued : pending.values()) {
+            if (queued.isDue(now)) {
+                due++;
+            }
+        }
+        return due;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        worker.shutdown();
+        worker.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void enqueue(WishlistProductNotificationDTO change) {
+        synchronized (this) {
+            String key = change.getType() + ":" + change.getProductId();
+            Queued queued = pending.remove(key);
+            // Successive queued drops are reported as one drop from the earliest price
+            if (queued != null && queued.change.getPreviousPrice() != null
+                    && queued.change.getPreviousPrice() > change.getPreviousPrice()) {
+                change = change.withPreviousPrice(queued.change.getPreviousPrice());
+            }
+            pending.put(key, new Queued(change, 0, 0, System.nanoTime()));
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            worker.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            dispatch();
+        } catch (RuntimeException e) {
+            log.error("Wishlist notification fan-out failed", e);
+        } finally {
+            scheduled.set(false);
+        }
+        // A change queued after the last take() but before the flag was cleared must not wait for the next one
+        if (dueChanges() > 0) {
+            schedule();
+        }
+    }
+
+    private synchronized Queued take() {
+        long now = System.nanoTime();
+        for (Iterator<Queued> it = pending.values().iterator(); it.hasNext(); ) {
+            Queued queued = it.next();
+            if (queued.isDue(now)) {
+                it.remove();
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    // Queues a change again from its failed page; a newer change for the product takes precedence
+    private synchronized void requeue(Queued failed, Integer afterWishlistId) {
+        int attempts = failed.attempts + 1;
+        long backoff = Math.min(retryBackoffNanos << Math.min(attempts - 1, 20), maxRetryBackoffNanos);
+        pending.putIfAbsent(failed.change.getType() + ":" + failed.change.getProductId(),
+                new Queued(failed.change, afterWishlistId, attempts, System.nanoTime() + backoff));
+    }
+
+    private int fanOut(Queued queued) {
+        WishlistProductNotificationDTO change = queued.change.withGeneratedAt(LocalDateTime.now());
+        Pageable page = PageRequest.of(0, batchSize);
+        int notified = 0;
+        Integer afterWishlistId = queued.afterWishlistId;
+
+        List<WishlistWatcherDTO> watchers = wishlistItemRepository.findWatchersAfter(change.getProductId(), afterWishlistId, page);
+        while (!watchers.isEmpty()) {
+            List<Integer> customerIds = new ArrayList<>(watchers.size());
+            watchers.forEach(watcher -> customerIds.add(watcher.getCustomerId()));
+
+            try {
+                notificationSink.deliver(change.withCustomerIds(customerIds));
+                deliveredCounter.increment(customerIds.size());
+                notified += customerIds.size();
+            } catch (RuntimeException e) {
+                failedCounter.increment(customerIds.size());
+                if (queued.attempts + 1 >= maxAttempts) {
+                    log.error("Failed to notify {} customers about product {} after {} attempts; giving up",
+                            customerIds.size(), change.getProductId(), maxAttempts, e);
+                    droppedCounter.increment(customerIds.size());
+                } else {
+                    log.warn("Failed to notify {} customers about product {}; retrying from this page",
+                            customerIds.size(), change.getProductId(), e);
+                    requeue(queued, afterWishlistId);
+                }
+                break;
+            }
+
+            if (watchers.size() < batchSize) {
+                break;
+            }
+            afterWishlistId = watchers.get(watchers.size() - 1).getWishlistId();
+            watchers = wishlistItemRepository.findWatchersAfter(change.getProductId(), afterWishlistId, page);
+        }
+        return notified;
+    }
+
+    private static final class Queued {
+
+        final WishlistProductNotificationDTO change;
+        // The page to resume from: wishlists after this id
+        final Integer afterWishlistId;
+        // Failed deliveries of that page so far
+        final int attempts;
+        final long notBeforeNanos;
+
+        Queued(WishlistProductNotificationDTO change, Integer afterWishlistId, int attempts, long notBeforeNanos) {
+            this.change = change;
+            this.afterWishlistId = afterWishlistId;
+            this.attempts = attempts;
+            this.notBeforeNanos = notBeforeNanos;
+        }
+
+        boolean isDue(long now) {
+            return now - notBeforeNanos >= 0;
+        }
+    }
+}
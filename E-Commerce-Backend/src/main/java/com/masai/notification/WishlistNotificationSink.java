@@ -0,0 +1,17 @@
+package com.masai.notification;
+
+import com.masai.dto.WishlistProductNotificationDTO;
+
+/**
+ * Delivers back-in-stock and price-drop notifications to customers who
+ * wishlisted the product. The active implementation is chosen with
+ * app.wishlist.notifications.sink.
+ */
+public interface WishlistNotificationSink {
+
+    /**
+     * @param notification The product change and one batch of customers to notify
+     * @throws RuntimeException if delivery failed
+     */
+    void deliver(WishlistProductNotificationDTO notification);
+}
@@ -0,0 +1,31 @@
+package com.masai.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.masai.models.AbandonedCartItem;
+
+@Repository
+public interface AbandonedCartItemRepository extends JpaRepository<AbandonedCartItem, AbandonedCartItem.LineKey> {
+
+    // Copies the lines of the listed carts still idle since the cutoff, in one INSERT ... SELECT;
+    // lines for the same product are summed into one row so they never collide on the key
+    @Modifying
+    @Query(value = "INSERT INTO abandoned_cart_item (cart_id, product_id, archived_at, customer_id, quantity, "
+                 + "unit_price_cents, last_modified) "
+                 + "SELECT c.cart_id, ci.cart_product_product_id, :archivedAt, c.customer_customer_id, "
+                 + "SUM(ci.cart_item_quantity), MAX(ci.unit_price_cents), c.last_modified "
+                 + "FROM cart c JOIN cart_cart_items cci ON cci.cart_cart_id = c.cart_id "
+                 + "JOIN cart_item ci ON ci.cart_item_id = cci.cart_items_cart_item_id "
+                 + "WHERE c.cart_id IN (:cartIds) AND c.last_modified < :cutoff "
+                 + "GROUP BY c.cart_id, ci.cart_product_product_id", nativeQuery = true)
+    int archiveIdleCarts(@Param("cartIds") Collection<Integer> cartIds,
+                         @Param("cutoff") LocalDateTime cutoff,
+                         @Param("archivedAt") LocalDateTime archivedAt);
+}
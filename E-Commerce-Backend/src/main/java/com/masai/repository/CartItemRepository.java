@@ -1,9 +1,23 @@
 package com.masai.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.masai.models.CartItem;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Integer>{
 
+	// Deletes the item rows of the listed carts still idle since the cutoff; rows an order shares are kept
+	@Modifying
+	@Query(value = "DELETE FROM cart_item WHERE cart_item_id IN (SELECT cci.cart_items_cart_item_id "
+			+ "FROM cart_cart_items cci JOIN cart c ON c.cart_id = cci.cart_cart_id "
+			+ "WHERE c.cart_id IN (:cartIds) AND c.last_modified < :cutoff) "
+			+ "AND cart_item_id NOT IN (SELECT ordercart_items_cart_item_id FROM orders_ordercart_items)",
+			nativeQuery = true)
+	int deleteIdleCartItems(@Param("cartIds") Collection<Integer> cartIds, @Param("cutoff") LocalDateTime cutoff);
 }
@@ -1,10 +1,48 @@
 package com.masai.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.masai.models.Cart;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart,Integer> {
+
+	// Keyset page of the carts holding a product, by its cart_item rows and their join table entries
+	@Query("select distinct c.cartId from Cart c join c.cartItems i "
+			+ "where i.cartProduct.productId = :productId and c.cartId > :afterCartId order by c.cartId")
+	List<Integer> findCartIdsWithProductAfter(@Param("productId") Integer productId,
+			@Param("afterCartId") Integer afterCartId, Pageable pageable);
+
+	// Oldest non-empty carts unchanged since the cutoff, read from the last_modified index
+	@Query(value = "SELECT c.cart_id FROM cart c WHERE c.last_modified < :cutoff "
+			+ "AND EXISTS (SELECT 1 FROM cart_cart_items cci WHERE cci.cart_cart_id = c.cart_id) "
+			+ "ORDER BY c.last_modified LIMIT :limit", nativeQuery = true)
+	List<Integer> findIdleCartIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+	// Starts the idle clock of up to limit carts last changed before last_modified was tracked
+	@Modifying
+	@Query(value = "UPDATE cart SET last_modified = :now WHERE cart_id IN "
+			+ "(SELECT cart_id FROM cart WHERE last_modified IS NULL LIMIT :limit)", nativeQuery = true)
+	int stampUntrackedCarts(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+	// Unlinks the items of the listed carts still idle since the cutoff
+	@Modifying
+	@Query(value = "DELETE FROM cart_cart_items WHERE cart_cart_id IN "
+			+ "(SELECT cart_id FROM cart WHERE cart_id IN (:cartIds) AND last_modified < :cutoff)", nativeQuery = true)
+	int unlinkIdleCartItems(@Param("cartIds") Collection<Integer> cartIds, @Param("cutoff") LocalDateTime cutoff);
+
+	// Zeroes the listed idle carts and bumps their version, so a change read before the sweep conflicts
+	@Modifying
+	@Query(value = "UPDATE cart SET cart_total = 0, version = COALESCE(version, 0) + 1 "
+			+ "WHERE cart_id IN (:cartIds) AND last_modified < :cutoff", nativeQuery = true)
+	int resetIdleCarts(@Param("cartIds") Collection<Integer> cartIds, @Param("cutoff") LocalDateTime cutoff);
 }
@@ -3,8 +3,11 @@ package com.masai.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.masai.dto.CustomerPrincipal;
 import com.masai.models.Customer;
 
 @Repository
@@ -16,4 +19,10 @@ public interface CustomerRepository extends JpaRepository<Customer, Integer>{
 	
 	Optional<Customer> findByMobileNoOrEmailId(String mobileNo, String emailId);
 	
+	// Id-only projection so callers don't hydrate the customer with its eager cart and wishlist
+	@Query("SELECT new com.masai.dto.CustomerPrincipal(c.customerId, cart.cartId, w.wishlistId) " +
+	       "FROM Customer c LEFT JOIN c.customerCart cart LEFT JOIN c.customerWishlist w " +
+	       "WHERE c.customerId = :customerId")
+	Optional<CustomerPrincipal> findPrincipalById(@Param("customerId") Integer customerId);
+	
 }
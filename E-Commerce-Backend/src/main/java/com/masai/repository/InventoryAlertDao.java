@@ -1,13 +1,18 @@
 package com.masai.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.masai.dto.InventoryAlertStateDTO;
+import com.masai.models.CategoryEnum;
 import com.masai.models.InventoryAlert;
 
 /**
@@ -16,6 +21,11 @@ import com.masai.models.InventoryAlert;
 @Repository
 public interface InventoryAlertDao extends JpaRepository<InventoryAlert, Integer> {
 
+    // FROM/WHERE shared by the bulk statements: the seller's products, optionally narrowed by category and id
+    String SELLER_PRODUCTS_MATCHING = "FROM product p WHERE p.seller_seller_id = :sellerId "
+            + "AND (:category IS NULL OR p.category = :category) "
+            + "AND (:allProducts OR p.product_id IN (:productIds))";
+
     /**
      * Find all alerts for a specific seller
      */
@@ -49,6 +59,70 @@ public interface InventoryAlertDao extends JpaRepository<InventoryAlert, Integer
     @Query("SELECT ia FROM InventoryAlert ia WHERE ia.seller.sellerId = :sellerId AND ia.alertEnabled = true AND ia.product.quantity <= ia.thresholdQuantity")
     List<InventoryAlert> findTriggeredAlertsBySellerId(@Param("sellerId") Integer sellerId);
 
+    /**
+     * Load the evaluation state of every alert for the in-memory alert index
+     */
+    @Query("SELECT new com.masai.dto.InventoryAlertStateDTO(ia.alertId, p.productId, p.productName, ia.seller.sellerId, "
+            + "ia.thresholdQuantity, ia.alertEnabled, p.quantity, ia.lastAlertSentAt, ia.alertCount) "
+            + "FROM InventoryAlert ia JOIN ia.product p")
+    List<InventoryAlertStateDTO> findAllAlertStates();
+
+    /**
+     * Record that a batch of alerts was sent, in one statement for the whole batch
+     */
+    @Modifying
+    @Query("UPDATE InventoryAlert ia SET ia.lastAlertSentAt = :sentAt, ia.alertCount = COALESCE(ia.alertCount, 0) + 1 "
+            + "WHERE ia.alertId IN :alertIds")
+    int recordAlertsSent(@Param("alertIds") Collection<Integer> alertIds, @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Set the threshold on every existing alert for the seller's matching products, in one statement.
+     * A null category matches all categories; productIds is ignored when allProducts is true.
+     */
+    @Modifying
+    @Query(value = "UPDATE inventory_alert SET threshold_quantity = :threshold, alert_enabled = :enabled, updated_at = :now "
+            + "WHERE seller_id = :sellerId AND product_id IN (SELECT p.product_id " + SELLER_PRODUCTS_MATCHING + ")",
+            nativeQuery = true)
+    int bulkUpdateAlerts(@Param("sellerId") Integer sellerId,
+                         @Param("category") String category,
+                         @Param("allProducts") boolean allProducts,
+                         @Param("productIds") Collection<Integer> productIds,
+                         @Param("threshold") Integer threshold,
+                         @Param("enabled") Boolean enabled,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Create an alert for every matching seller product that has none, in one INSERT ... SELECT.
+     * Filters as for bulkUpdateAlerts.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO inventory_alert (product_id, seller_id, threshold_quantity, alert_enabled, "
+            + "created_at, updated_at, alert_count) "
+            + "SELECT p.product_id, p.seller_seller_id, :threshold, :enabled, :now, :now, 0 " + SELLER_PRODUCTS_MATCHING
+            + " AND NOT EXISTS (SELECT 1 FROM inventory_alert ia WHERE ia.product_id = p.product_id)",
+            nativeQuery = true)
+    int bulkInsertAlerts(@Param("sellerId") Integer sellerId,
+                         @Param("category") String category,
+                         @Param("allProducts") boolean allProducts,
+                         @Param("productIds") Collection<Integer> productIds,
+                         @Param("threshold") Integer threshold,
+                         @Param("enabled") Boolean enabled,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Load the index snapshots of the seller's alerts on matching products, the rows the
+     * bulk statements above write. Filters as for bulkUpdateAlerts.
+     */
+    @Query("SELECT new com.masai.dto.InventoryAlertStateDTO(ia.alertId, p.productId, p.productName, ia.seller.sellerId, "
+            + "ia.thresholdQuantity, ia.alertEnabled, p.quantity, ia.lastAlertSentAt, ia.alertCount) "
+            + "FROM InventoryAlert ia JOIN ia.product p WHERE ia.seller.sellerId = :sellerId "
+            + "AND p.seller.sellerId = :sellerId AND (:category IS NULL OR p.category = :category) "
+            + "AND (:allProducts = true OR p.productId IN :productIds)")
+    List<InventoryAlertStateDTO> findAlertStatesMatching(@Param("sellerId") Integer sellerId,
+                                                         @Param("category") CategoryEnum category,
+                                                         @Param("allProducts") boolean allProducts,
+                                                         @Param("productIds") Collection<Integer> productIds);
+
     /**
      * Delete alert by product id
      */
@@ -1,13 +1,22 @@
 package com.masai.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.masai.dto.DailyProductSalesDTO;
+import com.masai.dto.OrderProductDTO;
 import com.masai.models.Customer;
 import com.masai.models.Order;
 
@@ -19,4 +28,26 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
 	@Query("select c from Customer c where c.customerId = customerId")
 	public Customer getCustomerByOrderid(@Param("customerId") Integer customerId);
 	
+	// Confirmed units per product per day, oldest first; aggregated in the database and
+	// streamed so a year of history is never held in memory. Must run in a transaction.
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("SELECT new com.masai.dto.DailyProductSalesDTO(o.date, ci.cartProduct.productId, SUM(ci.cartItemQuantity)) "
+			+ "FROM Order o JOIN o.ordercartItems ci "
+			+ "WHERE o.orderStatus = com.masai.models.OrderStatusValues.SUCCESS AND o.date >= :since "
+			+ "GROUP BY o.date, ci.cartProduct.productId ORDER BY o.date")
+	public Stream<DailyProductSalesDTO> streamDailySalesSince(@Param("since") LocalDate since);
+	
+	@Query("SELECT MAX(o.orderId) FROM Order o")
+	public Integer findMaxOrderId();
+	
+	// Keyset page of confirmed order ids up to a bound, used to rebuild the co-purchase matrix in short reads
+	@Query("SELECT o.orderId FROM Order o WHERE o.orderStatus = com.masai.models.OrderStatusValues.SUCCESS "
+			+ "AND o.orderId > :afterOrderId AND o.orderId <= :lastOrderId ORDER BY o.orderId")
+	public List<Integer> findSuccessfulOrderIdsBetween(@Param("afterOrderId") Integer afterOrderId,
+			@Param("lastOrderId") Integer lastOrderId, Pageable pageable);
+	
+	@Query("SELECT new com.masai.dto.OrderProductDTO(o.orderId, ci.cartProduct.productId) "
+			+ "FROM Order o JOIN o.ordercartItems ci WHERE o.orderId IN :orderIds ORDER BY o.orderId")
+	public List<OrderProductDTO> findOrderProducts(@Param("orderIds") Collection<Integer> orderIds);
+	
 }
@@ -1,10 +1,13 @@
 package com.masai.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,6 +15,9 @@ import org.springframework.stereotype.Repository;
 import com.masai.models.CategoryEnum;
 import com.masai.models.Product;
 import com.masai.dto.ProductDTO;
+import com.masai.dto.ProductRatingAggregateDTO;
+import com.masai.dto.ProductWishlistCountDTO;
+import com.masai.dto.ReviewSummaryDTO;
 import com.masai.dto.ProductSearchResponseDTO;
 import com.masai.models.ProductStatus;
 
@@ -64,5 +70,87 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
 			@Param("manufacturer") String manufacturer,
 			@Param("sellerId") Integer sellerId,
 			Pageable pageable);
+	
+	
+	/**
+	 * Applies one review state transition to the product's rating aggregates and
+	 * star histogram in a single statement, so concurrent transitions never
+	 * overwrite each other. The right-hand sides all read the pre-update row.
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query("UPDATE Product p SET "
+			+ "p.ratingSum = COALESCE(p.ratingSum, 0L) + :sumDelta, "
+			+ "p.reviewCount = COALESCE(p.reviewCount, 0L) + :countDelta, "
+			+ "p.averageRating = CASE WHEN COALESCE(p.reviewCount, 0L) + :countDelta > 0 "
+			+ "  THEN (COALESCE(p.ratingSum, 0L) + :sumDelta) * 1.0 / (COALESCE(p.reviewCount, 0L) + :countDelta) "
+			+ "  ELSE 0.0 END, "
+			+ "p.ratingHistogram.oneStar = COALESCE(p.ratingHistogram.oneStar, 0L) + :oneStarDelta, "
+			+ "p.ratingHistogram.twoStar = COALESCE(p.ratingHistogram.twoStar, 0L) + :twoStarDelta, "
+			+ "p.ratingHistogram.threeStar = COALESCE(p.ratingHistogram.threeStar, 0L) + :threeStarDelta, "
+			+ "p.ratingHistogram.fourStar = COALESCE(p.ratingHistogram.fourStar, 0L) + :fourStarDelta, "
+			+ "p.ratingHistogram.fiveStar = COALESCE(p.ratingHistogram.fiveStar, 0L) + :fiveStarDelta "
+			+ "WHERE p.productId = :productId")
+	public int applyRatingDelta(@Param("productId") Integer productId,
+			@Param("sumDelta") long sumDelta,
+			@Param("countDelta") long countDelta,
+			@Param("oneStarDelta") long oneStarDelta,
+			@Param("twoStarDelta") long twoStarDelta,
+			@Param("threeStarDelta") long threeStarDelta,
+			@Param("fourStarDelta") long fourStarDelta,
+			@Param("fiveStarDelta") long fiveStarDelta);
+	
+	
+	@Modifying(flushAutomatically = true)
+	@Query("UPDATE Product p SET p.ratingSum = :#{#agg.ratingSum}, p.reviewCount = :#{#agg.reviewCount}, "
+			+ "p.averageRating = :averageRating, "
+			+ "p.ratingHistogram.oneStar = :#{#agg.oneStar}, "
+			+ "p.ratingHistogram.twoStar = :#{#agg.twoStar}, "
+			+ "p.ratingHistogram.threeStar = :#{#agg.threeStar}, "
+			+ "p.ratingHistogram.fourStar = :#{#agg.fourStar}, "
+			+ "p.ratingHistogram.fiveStar = :#{#agg.fiveStar} "
+			+ "WHERE p.productId = :#{#agg.productId}")
+	public int setRatingAggregate(@Param("agg") ProductRatingAggregateDTO aggregate,
+			@Param("averageRating") double averageRating);
+	
+	
+	@Query("select new com.masai.dto.ReviewSummaryDTO(p.averageRating, p.reviewCount, p.productId, "
+			+ "p.ratingHistogram.oneStar, p.ratingHistogram.twoStar, p.ratingHistogram.threeStar, "
+			+ "p.ratingHistogram.fourStar, p.ratingHistogram.fiveStar) "
+			+ "from Product p where p.productId = :productId")
+	public Optional<ReviewSummaryDTO> getReviewSummary(@Param("productId") Integer productId);
+	
+	
+	// Keyset page of stored rating counters, used by the reconciliation job
+	@Query("select new com.masai.dto.ProductRatingAggregateDTO(p.productId, COALESCE(p.ratingSum, 0L), COALESCE(p.reviewCount, 0L), "
+			+ "COALESCE(p.ratingHistogram.oneStar, 0L), COALESCE(p.ratingHistogram.twoStar, 0L), "
+			+ "COALESCE(p.ratingHistogram.threeStar, 0L), COALESCE(p.ratingHistogram.fourStar, 0L), "
+			+ "COALESCE(p.ratingHistogram.fiveStar, 0L)) "
+			+ "from Product p where p.productId > :afterId order by p.productId")
+	public List<ProductRatingAggregateDTO> getRatingAggregatesAfter(@Param("afterId") Integer afterId, Pageable pageable);
+	
+	
+	/**
+	 * Adds delta to the wishlist count of each product in one statement, so
+	 * concurrent wishlist changes never overwrite each other.
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query("UPDATE Product p SET p.wishlistCount = COALESCE(p.wishlistCount, 0L) + :delta "
+			+ "WHERE p.productId IN :productIds")
+	public int adjustWishlistCounts(@Param("productIds") Collection<Integer> productIds, @Param("delta") long delta);
+	
+	
+	@Modifying(flushAutomatically = true)
+	@Query("UPDATE Product p SET p.wishlistCount = :wishlistCount WHERE p.productId = :productId")
+	public int setWishlistCount(@Param("productId") Integer productId, @Param("wishlistCount") long wishlistCount);
+	
+	
+	// Keyset page of stored wishlist counts, used to warm the leaderboard and by reconciliation
+	@Query("select new com.masai.dto.ProductWishlistCountDTO(p.productId, p.category, COALESCE(p.wishlistCount, 0L)) "
+			+ "from Product p where p.productId > :afterId order by p.productId")
+	public List<ProductWishlistCountDTO> getWishlistCountsAfter(@Param("afterId") Integer afterId, Pageable pageable);
+	
+	
+	@Query("select p.category from Product p where p.productId = :productId")
+	public Optional<CategoryEnum> findCategoryByProductId(@Param("productId") Integer productId);
 
 }
@@ -0,0 +1,28 @@
+package com.masai.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.masai.models.ReviewHelpfulVote;
+
+@Repository
+public interface ReviewHelpfulVoteRepository extends JpaRepository<ReviewHelpfulVote, ReviewHelpfulVote.VoteKey> {
+
+    // Customers who already voted on a review; used to warm the in-memory seen-set
+    @Query("SELECT v.customerId FROM ReviewHelpfulVote v WHERE v.reviewId = :reviewId")
+    List<Integer> findVoterIds(@Param("reviewId") Long reviewId);
+
+    // Returns 0 when the customer's vote is already stored, so a replayed vote is never counted twice
+    @Modifying
+    @Query(value = "INSERT OR IGNORE INTO review_helpful_votes (review_id, customer_id, voted_at) "
+                 + "VALUES (:reviewId, :customerId, :votedAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("reviewId") Long reviewId,
+                       @Param("customerId") Integer customerId,
+                       @Param("votedAt") LocalDateTime votedAt);
+}
@@ -1,12 +1,20 @@
 package com.masai.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.masai.dto.ProductRatingAggregateDTO;
+import com.masai.dto.ReviewModerationStateDTO;
+import com.masai.dto.ReviewResponseDTO;
 import com.masai.models.Customer;
 import com.masai.models.Product;
 import com.masai.models.Review;
@@ -17,9 +25,14 @@ import com.masai.models.Review;
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
 
+    String REVIEW_PROJECTION = "r.id, r.rating, r.title, r.comment, r.createdAt, r.updatedAt, "
+                             + "r.isApproved, r.helpfulCount, r.product.productId, r.customer.customerId";
+
     // Check if customer already reviewed this product
     boolean existsByCustomerAndProduct(Customer customer, Product product);
 
+    boolean existsByCustomer_CustomerIdAndProduct_ProductId(Integer customerId, Integer productId);
+
     // Find reviews for a product (excluding deleted), pageable
     // NOTE: Spring Data misparses "findByProductId" as product.id; use explicit JPQL instead.
     @Query("SELECT r FROM Review r WHERE r.product.productId = :productId AND r.isDeleted = false")
@@ -29,6 +42,63 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("SELECT r FROM Review r WHERE r.product.productId = :productId AND r.isApproved = true")
     Page<Review> findByProductIdAndIsApprovedTrue(@Param("productId") Integer productId, Pageable pageable);
 
+    // Applies a batch of buffered helpful votes in one statement
+    @Modifying
+    @Query("UPDATE Review r SET r.helpfulCount = COALESCE(r.helpfulCount, 0) + :delta WHERE r.id = :reviewId")
+    int incrementHelpfulCount(@Param("reviewId") Long reviewId, @Param("delta") int delta);
+
+    // ── Review listing projections ───────────────────────────────────────────
+    // r.product.productId and r.customer.customerId resolve to the foreign key
+    // columns, so these never join or load Product or Customer rows.
+
+    @Query(value = "SELECT new com.masai.dto.ReviewResponseDTO(" + REVIEW_PROJECTION + ") FROM Review r "
+         + "WHERE r.product.productId = :productId AND r.isApproved = true AND r.isDeleted = false",
+           countQuery = "SELECT COUNT(r) FROM Review r "
+         + "WHERE r.product.productId = :productId AND r.isApproved = true AND r.isDeleted = false")
+    Page<ReviewResponseDTO> findVisibleReviewDTOs(@Param("productId") Integer productId, Pageable pageable);
+
+    // Keyset pages, newest first; backed by idx_reviews_product_created
+    @Query("SELECT new com.masai.dto.ReviewResponseDTO(" + REVIEW_PROJECTION + ") FROM Review r "
+         + "WHERE r.product.productId = :productId AND r.isApproved = true AND r.isDeleted = false "
+         + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewResponseDTO> findNewestReviews(@Param("productId") Integer productId, Pageable limit);
+
+    @Query("SELECT new com.masai.dto.ReviewResponseDTO(" + REVIEW_PROJECTION + ") FROM Review r "
+         + "WHERE r.product.productId = :productId AND r.isApproved = true AND r.isDeleted = false "
+         + "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) "
+         + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewResponseDTO> findNewestReviewsAfter(@Param("productId") Integer productId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable limit);
+
+    // Keyset pages, most helpful first; backed by idx_reviews_product_helpful
+    @Query("SELECT new com.masai.dto.ReviewResponseDTO(" + REVIEW_PROJECTION + ") FROM Review r "
+         + "WHERE r.product.productId = :productId AND r.isApproved = true AND r.isDeleted = false "
+         + "ORDER BY r.helpfulCount DESC, r.id DESC")
+    List<ReviewResponseDTO> findMostHelpfulReviews(@Param("productId") Integer productId, Pageable limit);
+
+    @Query("SELECT new com.masai.dto.ReviewResponseDTO(" + REVIEW_PROJECTION + ") FROM Review r "
+         + "WHERE r.product.productId = :productId AND r.isApproved = true AND r.isDeleted = false "
+         + "AND (r.helpfulCount < :helpfulCount OR (r.helpfulCount = :helpfulCount AND r.id < :id)) "
+         + "ORDER BY r.helpfulCount DESC, r.id DESC")
+    List<ReviewResponseDTO> findMostHelpfulReviewsAfter(@Param("productId") Integer productId,
+            @Param("helpfulCount") Integer helpfulCount, @Param("id") Long id, Pageable limit);
+
+    // ── Bulk moderation ───────────────────────────────────────────────────────
+    @Query("SELECT new com.masai.dto.ReviewModerationStateDTO(r.id, r.product.productId, r.rating, r.isApproved, r.isDeleted) "
+         + "FROM Review r WHERE r.id IN :reviewIds")
+    List<ReviewModerationStateDTO> findModerationStates(@Param("reviewIds") Collection<Long> reviewIds);
+
+    // The state guards make a review that changed since it was read drop out of the update count
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Review r SET r.isApproved = true, r.updatedAt = :now "
+         + "WHERE r.id IN :reviewIds AND r.isApproved = false AND r.isDeleted = false")
+    int approveReviews(@Param("reviewIds") Collection<Long> reviewIds, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Review r SET r.isDeleted = true, r.updatedAt = :now "
+         + "WHERE r.id IN :reviewIds AND r.isDeleted = false")
+    int softDeleteReviews(@Param("reviewIds") Collection<Long> reviewIds, @Param("now") LocalDateTime now);
+
     // Count reviews for a product
     @Query("SELECT COUNT(r) FROM Review r WHERE r.product.productId = :productId")
     long countByProductId(@Param("productId") Integer productId);
@@ -36,4 +106,13 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     // Custom JPQL for average rating of approved/non-deleted reviews for a product
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.product.productId = :productId AND r.isDeleted = false AND r.isApproved = true")
     Double calculateAverageRating(@Param("productId") Integer productId);
+
+    // Ground-truth rating sum, count and histogram per product, used to reconcile Product's counters
+    @Query("SELECT new com.masai.dto.ProductRatingAggregateDTO(r.product.productId, SUM(r.rating), COUNT(r), "
+         + "SUM(CASE WHEN r.rating = 1 THEN 1L ELSE 0L END), SUM(CASE WHEN r.rating = 2 THEN 1L ELSE 0L END), "
+         + "SUM(CASE WHEN r.rating = 3 THEN 1L ELSE 0L END), SUM(CASE WHEN r.rating = 4 THEN 1L ELSE 0L END), "
+         + "SUM(CASE WHEN r.rating = 5 THEN 1L ELSE 0L END)) "
+         + "FROM Review r WHERE r.product.productId IN :productIds AND r.isApproved = true AND r.isDeleted = false "
+         + "GROUP BY r.product.productId")
+    List<ProductRatingAggregateDTO> aggregateApprovedRatings(@Param("productIds") Collection<Integer> productIds);
 }
@@ -0,0 +1,37 @@
+package com.masai.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.masai.models.StockHold;
+
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHold, StockHold.HoldKey> {
+
+    List<StockHold> findByExpiresAtAfter(LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM StockHold h WHERE h.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // Clears the listed carts' rows so they can be rewritten from memory
+    @Modifying
+    @Query("DELETE FROM StockHold h WHERE h.cartId IN :cartIds")
+    int deleteByCartIds(@Param("cartIds") Collection<Integer> cartIds);
+
+    // A plain insert; save() would read each row back first because the key is assigned
+    @Modifying
+    @Query(value = "INSERT OR REPLACE INTO stock_hold (cart_id, product_id, units, expires_at) "
+                 + "VALUES (:cartId, :productId, :units, :expiresAt)", nativeQuery = true)
+    int insertHold(@Param("cartId") Integer cartId,
+                   @Param("productId") Integer productId,
+                   @Param("units") Integer units,
+                   @Param("expiresAt") LocalDateTime expiresAt);
+}
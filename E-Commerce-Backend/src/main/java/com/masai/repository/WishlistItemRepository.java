@@ -1,24 +1,82 @@
 package com.masai.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.masai.dto.ProductWishlistCountDTO;
+import com.masai.dto.WishlistResponseDTO;
+import com.masai.dto.WishlistWatcherDTO;
 import com.masai.models.WishlistItem;
 
 @Repository
 public interface WishlistItemRepository extends JpaRepository<WishlistItem, Integer> {
 
+    String WISHLIST_PROJECTION = "wi.wishlistItemId, p.productId, p.productName, p.price, p.description, "
+                               + "p.manufacturer, p.category, p.status, p.averageRating, p.reviewCount, wi.addedAt";
+
     /**
-     * Find all items belonging to a wishlist, sorted by addedAt descending
-     * (most recently added first).
+     * Wishlist items as response DTOs, most recently added first, reading only
+     * the product columns the response needs. Pass Pageable.unpaged() for the
+     * whole wishlist, or a limit for the first keyset page; keyset pages are
+     * backed by idx_wishlist_item_wishlist_added.
      */
-    List<WishlistItem> findByWishlist_WishlistIdOrderByAddedAtDesc(Integer wishlistId);
+    @Query("SELECT new com.masai.dto.WishlistResponseDTO(" + WISHLIST_PROJECTION + ") "
+            + "FROM WishlistItem wi JOIN wi.product p WHERE wi.wishlist.wishlistId = :wishlistId "
+            + "ORDER BY wi.addedAt DESC, wi.wishlistItemId DESC")
+    List<WishlistResponseDTO> findNewestItems(@Param("wishlistId") Integer wishlistId, Pageable limit);
+
+    @Query("SELECT new com.masai.dto.WishlistResponseDTO(" + WISHLIST_PROJECTION + ") "
+            + "FROM WishlistItem wi JOIN wi.product p WHERE wi.wishlist.wishlistId = :wishlistId "
+            + "AND (wi.addedAt < :addedAt OR (wi.addedAt = :addedAt AND wi.wishlistItemId < :id)) "
+            + "ORDER BY wi.addedAt DESC, wi.wishlistItemId DESC")
+    List<WishlistResponseDTO> findNewestItemsAfter(@Param("wishlistId") Integer wishlistId,
+            @Param("addedAt") LocalDateTime addedAt, @Param("id") Integer id, Pageable limit);
 
     /**
      * Check whether a specific product is already in a specific wishlist.
      */
     Optional<WishlistItem> findByWishlist_WishlistIdAndProduct_ProductId(Integer wishlistId, Integer productId);
+
+    /**
+     * Product ids in a wishlist, without loading the items or products.
+     */
+    @Query("SELECT wi.product.productId FROM WishlistItem wi WHERE wi.wishlist.wishlistId = :wishlistId")
+    List<Integer> findProductIdsByWishlistId(@Param("wishlistId") Integer wishlistId);
+
+    /**
+     * Keyset page of the wishlists holding a product, with their owners,
+     * used to fan out back-in-stock and price-drop notifications.
+     */
+    @Query("SELECT new com.masai.dto.WishlistWatcherDTO(w.wishlistId, w.customer.customerId) "
+            + "FROM WishlistItem wi JOIN wi.wishlist w "
+            + "WHERE wi.product.productId = :productId AND w.wishlistId > :afterWishlistId "
+            + "ORDER BY w.wishlistId")
+    List<WishlistWatcherDTO> findWatchersAfter(@Param("productId") Integer productId,
+            @Param("afterWishlistId") Integer afterWishlistId, Pageable pageable);
+
+    /**
+     * Remove several products from a wishlist in one statement.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM WishlistItem wi WHERE wi.wishlist.wishlistId = :wishlistId AND wi.product.productId IN :productIds")
+    int deleteByWishlistIdAndProductIds(@Param("wishlistId") Integer wishlistId,
+            @Param("productIds") Collection<Integer> productIds);
+
+    /**
+     * Wishlists holding each of the given products, counted from wishlist_item.
+     * Products in no wishlist are absent from the result.
+     */
+    @Query("SELECT new com.masai.dto.ProductWishlistCountDTO(p.productId, p.category, COUNT(wi)) "
+            + "FROM WishlistItem wi JOIN wi.product p WHERE p.productId IN :productIds "
+            + "GROUP BY p.productId, p.category")
+    List<ProductWishlistCountDTO> countWishlistsByProductIds(@Param("productIds") Collection<Integer> productIds);
 }
@@ -3,6 +3,7 @@ package com.masai.service;
 import com.masai.exception.CartItemNotFound;
 import com.masai.models.Cart;
 import com.masai.dto.CartDTO;
+import com.masai.dto.CartUpdateDTO;
 
 
 
@@ -15,4 +16,7 @@ public interface CartService {
 	
 	public Cart clearCart(String token);
 	
+	// Sets each listed product's quantity (0 removes it) after checking stock for all of them
+	public Cart updateCart(CartUpdateDTO cartUpdate, String token) throws CartItemNotFound;
+	
 }
@@ -1,80 +1,94 @@
 package com.masai.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.masai.exception.CartItemNotFound;
-import com.masai.exception.CustomerNotFoundException;
+import com.masai.exception.ProductNotFoundException;
 import com.masai.models.Cart;
 import com.masai.dto.CartDTO;
+import com.masai.dto.CartLineDTO;
+import com.masai.dto.CartUpdateDTO;
+import com.masai.dto.CustomerPrincipal;
 import com.masai.models.CartItem;
-import com.masai.models.Customer;
-import com.masai.models.UserSession;
-import com.masai.repository.CartRepository;
-import com.masai.repository.CustomerRepository;
-import com.masai.util.TokenValidationUtil;
-import org.springframework.transaction.annotation.Transactional;
+import com.masai.models.Product;
+import com.masai.models.ProductStatus;
+import com.masai.repository.ProductRepository;
+import com.masai.util.CartPricing;
+import com.masai.util.CartStore;
+import com.masai.util.CustomerPrincipalResolver;
+import com.masai.util.StockHolds;
 
 @Service
 public class CartServiceImpl implements CartService {
 
 	@Autowired
-	private CartRepository cartRepository;
+	private CartStore cartStore;
 	
 	@Autowired
-	private TokenValidationUtil tokenValidationUtil;
+	private CustomerPrincipalResolver customerPrincipalResolver;
 	
 	@Autowired
 	private CartItemService cartItemService;
 	
+	@Autowired
+	private ProductRepository productRepository;
 	
 	@Autowired
-	private CustomerRepository customerRepository;
+	private StockHolds stockHolds;
 	
-
 	
+	// Resolves only the logged-in customer's cart id, not the customer aggregate
+	private Integer customerCartId(String token) {
+		
+		CustomerPrincipal principal = customerPrincipalResolver.resolve(token);
+		
+		if(principal.getCartId() == null)
+			throw new CartItemNotFound("cart Not found for customer");
+		
+		return principal.getCartId();
+	}
 	
 
 	@Override
-	@Transactional
 	public Cart addProductToCart(CartDTO cartDto, String token) {
 
-		UserSession user = tokenValidationUtil.validateCustomerToken(token);
-		
-		Customer existingCustomer = customerRepository.findById(user.getUserId())
-				.orElseThrow(() -> new CustomerNotFoundException("Customer does not exist"));
-		
-		Cart customerCart = existingCustomer.getCustomerCart();
-		
-		List<CartItem> cartItems = customerCart.getCartItems();
+		Integer cartId = customerCartId(token);
 		
 		CartItem item = cartItemService.createItemforCart(cartDto);
 		
-		
-		if(cartItems.size() == 0) {
-			cartItems.add(item);
-			customerCart.setCartTotal(item.getCartProduct().getPrice());
-		}
-		else {
-			boolean flag = false;
-			for(CartItem c: cartItems) {
-				if(c.getCartProduct().getProductId() == cartDto.getProductId()) {
-					c.setCartItemQuantity(c.getCartItemQuantity() + 1);
-					customerCart.setCartTotal(customerCart.getCartTotal() + c.getCartProduct().getPrice());
-					flag = true;
-				}
+		return cartStore.update(cartId, customerCart -> {
+			
+			List<CartItem> cartItems = customerCart.getCartItems();
+			
+			// A retried attempt must not reuse an item the conflicting attempt persisted
+			CartItem line = new CartItem(null, item.getCartProduct(), item.getCartItemQuantity(), item.getUnitPriceCents());
+			
+			if(cartItems.size() == 0) {
+				cartItems.add(line);
 			}
-			if(!flag) {
-				cartItems.add(item);
-				customerCart.setCartTotal(customerCart.getCartTotal() + item.getCartProduct().getPrice());
+			else {
+				boolean flag = false;
+				for(CartItem c: cartItems) {
+					if(c.getCartProduct().getProductId().equals(cartDto.getProductId())) {
+						c.setCartItemQuantity(c.getCartItemQuantity() + 1);
+						flag = true;
+					}
+				}
+				if(!flag) {
+					cartItems.add(line);
+				}
 			}
-		}
-		
-		return cartRepository.save(existingCustomer.getCustomerCart());
+			
+			CartPricing.price(customerCart);
+			stockHolds.hold(customerCart);
+		});
 		
 
 }
@@ -84,95 +98,132 @@ public class CartServiceImpl implements CartService {
 	@Override
 	public Cart getCartProduct(String token) {
 		
-		UserSession user = tokenValidationUtil.validateCustomerToken(token);
-		
-		Optional<Customer> opt = customerRepository.findById(user.getUserId());
-		
-		
-		if(opt.isEmpty())
-			throw new CustomerNotFoundException("Customer does not exist");
-		
-		Customer existingCustomer = opt.get();
-		
-		Integer cartId = existingCustomer.getCustomerCart().getCartId();
-		
-		
-		return cartRepository.findById(cartId)
-				.orElseThrow(() -> new CartItemNotFound("cart Not found by Id"));
+		return cartStore.load(customerCartId(token));
 	}
 
 	
 	
 	@Override
-	@Transactional
 	public Cart removeProductFromCart(CartDTO cartDto, String token) {
 		
-		UserSession user = tokenValidationUtil.validateCustomerToken(token);
-		
-		Customer existingCustomer = customerRepository.findById(user.getUserId())
-				.orElseThrow(() -> new CustomerNotFoundException("Customer does not exist"));
-		
-		Cart customerCart = existingCustomer.getCustomerCart();
-		
-		List<CartItem> cartItems = customerCart.getCartItems();
-		
-		if(cartItems.size() == 0) {
-			throw new CartItemNotFound("Cart is empty");
-		}
-		
-		
-		boolean flag = false;
-		
-		for(CartItem c: cartItems) {
-			if(c.getCartProduct().getProductId() == cartDto.getProductId()) {
-				c.setCartItemQuantity(c.getCartItemQuantity() - 1);
-				
-				customerCart.setCartTotal(customerCart.getCartTotal() - c.getCartProduct().getPrice());
-				if(c.getCartItemQuantity() == 0) {
-					
-					cartItems.remove(c);
-
+		return cartStore.update(customerCartId(token), customerCart -> {
+			
+			List<CartItem> cartItems = customerCart.getCartItems();
+			
+			if(cartItems.size() == 0) {
+				throw new CartItemNotFound("Cart is empty");
+			}
+			
+			
+			boolean flag = false;
+			
+			for(CartItem c: cartItems) {
+				if(c.getCartProduct().getProductId().equals(cartDto.getProductId())) {
+					c.setCartItemQuantity(c.getCartItemQuantity() - 1);
 					
-					return cartRepository.save(customerCart);
+					if(c.getCartItemQuantity() == 0) {
+						
+						cartItems.remove(c);
+						
+						CartPricing.price(customerCart);
+						stockHolds.hold(customerCart);
+						return;
+					}
+					flag = true;
 				}
-				flag = true;
 			}
-		}
-		
-		if(!flag) {
-			throw new CartItemNotFound("Product not added to cart");
-		}
-		
-		if(cartItems.size() == 0) {
-			cartRepository.save(customerCart);
-			throw new CartItemNotFound("Cart is empty now");
-		}
-		
-		return cartRepository.save(customerCart);
+			
+			if(!flag) {
+				throw new CartItemNotFound("Product not added to cart");
+			}
+			
+			if(cartItems.size() == 0) {
+				throw new CartItemNotFound("Cart is empty now");
+			}
+			
+			CartPricing.price(customerCart);
+			stockHolds.hold(customerCart);
+		});
 	}
 	
 	@Override
-	@Transactional
 	public Cart clearCart(String token) {
 		
-		UserSession user = tokenValidationUtil.validateCustomerToken(token);
-		
-		Customer existingCustomer = customerRepository.findById(user.getUserId())
-				.orElseThrow(() -> new CustomerNotFoundException("Customer does not exist"));
-		
-		Cart customerCart = existingCustomer.getCustomerCart();
+		return cartStore.update(customerCartId(token), customerCart -> {
+			
+			if(customerCart.getCartItems().size() == 0) {
+				throw new CartItemNotFound("Cart already empty");
+			}
+			
+			List<CartItem> emptyCart = new ArrayList<>();
+			
+			customerCart.setCartItems(emptyCart);
+			
+			customerCart.setCartTotal(0.0);
+			stockHolds.hold(customerCart);
+		});
+	}
+	
+	@Override
+	public Cart updateCart(CartUpdateDTO cartUpdate, String token) {
 		
-		if(customerCart.getCartItems().size() == 0) {
-			throw new CartItemNotFound("Cart already empty");
+		Map<Integer, Integer> targets = new LinkedHashMap<>();
+		for(CartLineDTO line: cartUpdate.getItems()) {
+			if(targets.put(line.getProductId(), line.getQuantity()) != null) {
+				throw new CartItemNotFound("Product " + line.getProductId() + " is listed more than once");
+			}
 		}
 		
-		List<CartItem> emptyCart = new ArrayList<>();
+		Integer cartId = customerCartId(token);
 		
-		customerCart.setCartItems(emptyCart);
+		// Stock for every line is checked before anything changes, with one IN query
+		Map<Integer, Product> products = new HashMap<>();
+		productRepository.findAllById(targets.keySet()).forEach(p -> products.put(p.getProductId(), p));
 		
-		customerCart.setCartTotal(0.0);
+		for(Map.Entry<Integer, Integer> target: targets.entrySet()) {
+			Product product = products.get(target.getKey());
+			if(product == null) {
+				throw new ProductNotFoundException("Product not found with id: " + target.getKey());
+			}
+			int quantity = target.getValue();
+			if(quantity > 0 && (product.getStatus() == ProductStatus.OUTOFSTOCK || product.getQuantity() < quantity)) {
+				throw new CartItemNotFound("Only " + product.getQuantity() + " units of product " + product.getProductId() + " are in stock");
+			}
+		}
 		
-		return cartRepository.save(customerCart);
+		// Removed lines are deleted with the save rather than left behind as unreferenced cart_item rows
+		return cartStore.updateItems(cartId, customerCart -> {
+			
+			List<CartItem> removed = new ArrayList<>();
+			Map<Integer, CartItem> itemsByProduct = new LinkedHashMap<>();
+			for(CartItem c: customerCart.getCartItems()) {
+				itemsByProduct.put(c.getCartProduct().getProductId(), c);
+			}
+			
+			for(Map.Entry<Integer, Integer> target: targets.entrySet()) {
+				CartItem item = itemsByProduct.get(target.getKey());
+				if(target.getValue() == 0) {
+					if(item != null) {
+						itemsByProduct.remove(target.getKey());
+						removed.add(item);
+					}
+				}
+				else if(item != null) {
+					item.setCartItemQuantity(target.getValue());
+				}
+				else {
+					item = new CartItem();
+					item.setCartProduct(products.get(target.getKey()));
+					item.setCartItemQuantity(target.getValue());
+					itemsByProduct.put(target.getKey(), item);
+				}
+			}
+			
+			customerCart.setCartItems(new ArrayList<>(itemsByProduct.values()));
+			CartPricing.price(customerCart);
+			stockHolds.hold(customerCart);
+			return removed;
+		});
 	}
 	
 }
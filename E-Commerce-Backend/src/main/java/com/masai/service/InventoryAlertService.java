@@ -2,6 +2,10 @@ package com.masai.service;
 
 import java.util.List;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.masai.dto.InventoryAlertBulkRequestDTO;
+import com.masai.dto.InventoryAlertBulkResultDTO;
 import com.masai.dto.InventoryAlertRequestDTO;
 import com.masai.dto.InventoryAlertResponseDTO;
 import com.masai.dto.InventoryAlertSummaryDTO;
@@ -19,6 +23,16 @@ public interface InventoryAlertService {
      */
     InventoryAlertResponseDTO createAlert(String token, InventoryAlertRequestDTO requestDTO);
 
+    /**
+     * Apply one threshold rule to all or a filtered subset of the seller's products.
+     * Alerts are created for products without one and, unless disabled, updated
+     * for products that already have one.
+     * @param token Seller's session token
+     * @param requestDTO Threshold rule and product filters
+     * @return Created and updated alert counts
+     */
+    InventoryAlertBulkResultDTO bulkConfigureAlerts(String token, InventoryAlertBulkRequestDTO requestDTO);
+
     /**
      * Update an existing inventory alert
      * @param token Seller's session token
@@ -87,4 +101,12 @@ public interface InventoryAlertService {
      * @return Alert details if exists
      */
     InventoryAlertResponseDTO getAlertByProductId(String token, Integer productId);
-}
\ No newline at end of file
+
+    /**
+     * Open a Server-Sent Events stream of the seller's triggered alerts.
+     * Sends a snapshot first, then triggered/cleared events as alerts change.
+     * @param token Seller's session token
+     * @return Emitter for the stream
+     */
+    SseEmitter subscribeToTriggeredAlerts(String token);
+}
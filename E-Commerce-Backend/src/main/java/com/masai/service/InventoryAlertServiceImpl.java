@@ -6,24 +6,39 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.masai.dto.InventoryAlertBulkRequestDTO;
+import com.masai.dto.InventoryAlertBulkResultDTO;
 import com.masai.dto.InventoryAlertRequestDTO;
 import com.masai.dto.InventoryAlertResponseDTO;
+import com.masai.dto.InventoryAlertStateDTO;
 import com.masai.dto.InventoryAlertSummaryDTO;
+import com.masai.event.InventoryAlertDeletedEvent;
+import com.masai.event.InventoryAlertSavedEvent;
+import com.masai.event.InventoryAlertStatusChangedEvent;
 import com.masai.exception.InventoryAlertException;
 import com.masai.exception.ProductNotFoundException;
 import com.masai.models.InventoryAlert;
 import com.masai.models.Product;
 import com.masai.models.Seller;
 import com.masai.models.UserSession;
+import com.masai.notification.SellerAlertStreamHub;
 import com.masai.repository.InventoryAlertDao;
 import com.masai.repository.ProductRepository;
+import com.masai.util.InventoryAlertIndex;
+import com.masai.util.SalesVelocityTracker;
 import com.masai.util.TokenValidationUtil;
 
 /**
  * Implementation of InventoryAlertService
+ * Triggered alerts are served from InventoryAlertIndex, which is kept current by
+ * the saved/deleted events published here and by stock change events. Changes
+ * to triggered alerts are forwarded from the index to SellerAlertStreamHub.
  */
 @Service
 public class InventoryAlertServiceImpl implements InventoryAlertService {
@@ -40,6 +55,18 @@ public class InventoryAlertServiceImpl implements InventoryAlertService {
     @Autowired
     private TokenValidationUtil tokenValidationUtil;
 
+    @Autowired
+    private InventoryAlertIndex inventoryAlertIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SellerAlertStreamHub sellerAlertStreamHub;
+
+    @Autowired
+    private SalesVelocityTracker salesVelocityTracker;
+
     @Override
     @Transactional
     public InventoryAlertResponseDTO createAlert(String token, InventoryAlertRequestDTO requestDTO) {
@@ -70,10 +97,45 @@ public class InventoryAlertServiceImpl implements InventoryAlertService {
         alert.prePersist();
 
         InventoryAlert savedAlert = inventoryAlertDao.save(alert);
+        eventPublisher.publishEvent(new InventoryAlertSavedEvent(convertToStateDTO(savedAlert)));
 
         return convertToResponseDTO(savedAlert);
     }
 
+    @Override
+    @Transactional
+    public InventoryAlertBulkResultDTO bulkConfigureAlerts(String token, InventoryAlertBulkRequestDTO requestDTO) {
+        // Validate seller token
+        UserSession session = tokenValidationUtil.validateSellerToken(token);
+        Seller seller = sellerService.getSellerById(session.getUserId());
+        Integer sellerId = seller.getSellerId();
+
+        // Without a productIds filter the IN list is ignored, but it still needs a value to bind
+        boolean allProducts = requestDTO.getProductIds() == null;
+        List<Integer> productIds = allProducts ? List.of(-1) : requestDTO.getProductIds();
+        if (!allProducts && productIds.isEmpty()) {
+            return new InventoryAlertBulkResultDTO(0, 0);
+        }
+        String category = requestDTO.getCategory() != null ? requestDTO.getCategory().name() : null;
+        Boolean enabled = requestDTO.getAlertEnabled() != null ? requestDTO.getAlertEnabled() : true;
+
+        // Update before inserting so newly created alerts are not also counted as updated
+        LocalDateTime now = LocalDateTime.now();
+        int updated = Boolean.FALSE.equals(requestDTO.getUpdateExisting()) ? 0
+                : inventoryAlertDao.bulkUpdateAlerts(sellerId, category, allProducts, productIds,
+                        requestDTO.getThresholdQuantity(), enabled, now);
+        int created = inventoryAlertDao.bulkInsertAlerts(sellerId, category, allProducts, productIds,
+                requestDTO.getThresholdQuantity(), enabled, now);
+
+        // Re-read the written rows by the same filters and hand them to the alert index
+        if (updated + created > 0) {
+            inventoryAlertDao.findAlertStatesMatching(sellerId, requestDTO.getCategory(), allProducts, productIds)
+                    .forEach(state -> eventPublisher.publishEvent(new InventoryAlertSavedEvent(state)));
+        }
+
+        return new InventoryAlertBulkResultDTO(created, updated);
+    }
+
     @Override
     @Transactional
     public InventoryAlertResponseDTO updateAlert(String token, Integer alertId, InventoryAlertRequestDTO requestDTO) {
@@ -116,6 +178,7 @@ public class InventoryAlertServiceImpl implements InventoryAlertService {
         alert.preUpdate();
 
         InventoryAlert updatedAlert = inventoryAlertDao.save(alert);
+        eventPublisher.publishEvent(new InventoryAlertSavedEvent(convertToStateDTO(updatedAlert)));
 
         return convertToResponseDTO(updatedAlert);
     }
@@ -137,6 +200,7 @@ public class InventoryAlertServiceImpl implements InventoryAlertService {
         }
 
         inventoryAlertDao.delete(alert);
+        eventPublisher.publishEvent(new InventoryAlertDeletedEvent(alertId));
         return "Alert deleted successfully";
     }
 
@@ -172,13 +236,35 @@ public class InventoryAlertServiceImpl implements InventoryAlertService {
         UserSession session = tokenValidationUtil.validateSellerToken(token);
         Integer sellerId = session.getUserId();
 
-        List<InventoryAlert> triggeredAlerts = inventoryAlertDao.findTriggeredAlertsBySellerId(sellerId);
+        List<InventoryAlertStateDTO> triggeredAlerts = inventoryAlertIndex.triggeredForSeller(sellerId);
 
         return triggeredAlerts.stream()
                 .map(this::convertToSummaryDTO)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public SseEmitter subscribeToTriggeredAlerts(String token) {
+        // Validate seller token
+        UserSession session = tokenValidationUtil.validateSellerToken(token);
+        Integer sellerId = session.getUserId();
+
+        return sellerAlertStreamHub.subscribe(sellerId, () -> inventoryAlertIndex.triggeredForSeller(sellerId).stream()
+                .map(this::convertToSummaryDTO)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Forward a triggered alert change to the seller's open streams
+     */
+    @EventListener
+    public void onAlertStatusChanged(InventoryAlertStatusChangedEvent event) {
+        InventoryAlertStateDTO alert = event.getAlert();
+        sellerAlertStreamHub.publish(alert.getSellerId(),
+                event.isTriggered() ? SellerAlertStreamHub.TRIGGERED : SellerAlertStreamHub.CLEARED,
+                convertToSummaryDTO(alert));
+    }
+
     @Override
     public InventoryAlertResponseDTO getAlertById(String token, Integer alertId) {
         // Validate seller token
@@ -215,13 +301,14 @@ public class InventoryAlertServiceImpl implements InventoryAlertService {
         alert.preUpdate();
 
         InventoryAlert updatedAlert = inventoryAlertDao.save(alert);
+        eventPublisher.publishEvent(new InventoryAlertSavedEvent(convertToStateDTO(updatedAlert)));
 
         return convertToResponseDTO(updatedAlert);
     }
 
     @Override
     public List<InventoryAlertSummaryDTO> getAllTriggeredAlerts() {
-        List<InventoryAlert> triggeredAlerts = inventoryAlertDao.findTriggeredAlerts();
+        List<InventoryAlertStateDTO> triggeredAlerts = inventoryAlertIndex.allTriggered();
 
         return triggeredAlerts.stream()
                 .map(this::convertToSummaryDTO)
@@ -275,21 +362,35 @@ public class InventoryAlertServiceImpl implements InventoryAlertService {
     }
 
     /**
-     * Convert InventoryAlert entity to InventoryAlertSummaryDTO
+     * Convert an indexed alert snapshot to InventoryAlertSummaryDTO, with a restock forecast
+     * from recent sales velocity
      */
-    private InventoryAlertSummaryDTO convertToSummaryDTO(InventoryAlert alert) {
-        Product product = alert.getProduct();
-        int quantityToRestock = alert.getThresholdQuantity() - product.getQuantity() + 1;
+    private InventoryAlertSummaryDTO convertToSummaryDTO(InventoryAlertStateDTO alert) {
+        int quantityToRestock = alert.getThresholdQuantity() - alert.getCurrentQuantity() + 1;
         if (quantityToRestock < 0) quantityToRestock = 0;
 
         return InventoryAlertSummaryDTO.builder()
                 .alertId(alert.getAlertId())
-                .productId(product.getProductId())
-                .productName(product.getProductName())
+                .productId(alert.getProductId())
+                .productName(alert.getProductName())
                 .thresholdQuantity(alert.getThresholdQuantity())
-                .currentQuantity(product.getQuantity())
+                .currentQuantity(alert.getCurrentQuantity())
                 .quantityToRestock(quantityToRestock)
                 .lastAlertSentAt(alert.getLastAlertSentAt())
+                .dailySalesVelocity(salesVelocityTracker.dailyRate(alert.getProductId()))
+                .projectedStockOutDate(salesVelocityTracker.projectedStockOutDate(alert.getProductId(), alert.getCurrentQuantity()))
+                .suggestedReorderQuantity(Math.max(quantityToRestock,
+                        salesVelocityTracker.suggestedReorderQuantity(alert.getProductId(), alert.getCurrentQuantity())))
                 .build();
     }
+
+    /**
+     * Convert InventoryAlert entity to the snapshot held by InventoryAlertIndex
+     */
+    private InventoryAlertStateDTO convertToStateDTO(InventoryAlert alert) {
+        Product product = alert.getProduct();
+        return new InventoryAlertStateDTO(alert.getAlertId(), product.getProductId(), product.getProductName(),
+                alert.getSeller().getSellerId(), alert.getThresholdQuantity(), alert.getAlertEnabled(),
+                product.getQuantity(), alert.getLastAlertSentAt(), alert.getAlertCount());
+    }
 }
\ No newline at end of file
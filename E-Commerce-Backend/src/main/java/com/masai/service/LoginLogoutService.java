@@ -8,7 +8,7 @@ import com.masai.models.UserSession;
 
 public interface LoginLogoutService {
 	
-	public UserSession loginCustomer(CustomerDTO customer);
+	public UserSession loginCustomer(CustomerDTO customer, String clientAddress);
 	
 	public SessionDTO logoutCustomer(SessionDTO session);
 	
@@ -17,7 +17,7 @@ public interface LoginLogoutService {
 	public void deleteExpiredTokens();
 	
 	
-	public UserSession loginSeller(SellerDTO seller);
+	public UserSession loginSeller(SellerDTO seller, String clientAddress);
 	
 	public SessionDTO logoutSeller(SessionDTO session);
 	
@@ -20,6 +20,7 @@ import com.masai.models.UserSession;
 import com.masai.repository.CustomerRepository;
 import com.masai.repository.SellerRepository;
 import com.masai.repository.SessionRepository;
+import com.masai.util.LoginRateLimiter;
 import com.masai.util.PasswordEncoderUtil;
 import com.masai.util.TokenValidationUtil;
 
@@ -41,13 +42,19 @@ public class LoginLogoutServiceImpl implements LoginLogoutService{
 	
 	@Autowired
 	private TokenValidationUtil tokenValidationUtil;
+	
+	@Autowired
+	private LoginRateLimiter loginRateLimiter;
 
  
 	
 	// Method to login a customer
 
 	@Override
-	public UserSession loginCustomer(CustomerDTO loginCustomer) {
+	public UserSession loginCustomer(CustomerDTO loginCustomer, String clientAddress) {
+		
+		// Throttle before any SQL or bcrypt work is done
+		loginRateLimiter.checkLoginAttempt(loginCustomer.getMobileId(), clientAddress);
 		
 		Customer existingCustomer = customerRepository.findByMobileNo(loginCustomer.getMobileId())
 				.orElseThrow(() -> new CustomerNotFoundException("Customer record does not exist with given mobile number"));
@@ -68,6 +75,12 @@ public class LoginLogoutServiceImpl implements LoginLogoutService{
 		
 		
 		if(passwordEncoderUtil.matchesPassword(loginCustomer.getPassword(), existingCustomer.getPassword())) {
+			
+			// Transparently upgrade hashes created with an older bcrypt cost factor
+			if(passwordEncoderUtil.needsRehash(existingCustomer.getPassword())) {
+				existingCustomer.setPassword(passwordEncoderUtil.encodePassword(loginCustomer.getPassword()));
+				customerRepository.save(existingCustomer);
+			}
 		
 			UserSession newSession = new UserSession();
 			
@@ -119,7 +132,10 @@ public class LoginLogoutServiceImpl implements LoginLogoutService{
 	// Method to login a valid seller and generate a seller token
 	
 	@Override
-	public UserSession loginSeller(SellerDTO seller) {
+	public UserSession loginSeller(SellerDTO seller, String clientAddress) {
+		
+		// Throttle before any SQL or bcrypt work is done
+		loginRateLimiter.checkLoginAttempt(seller.getMobile(), clientAddress);
 		
 		Seller existingSeller = sellerRepository.findByMobile(seller.getMobile())
 				.orElseThrow(() -> new SellerNotFoundException("Seller record does not exist with given mobile number"));
@@ -140,6 +156,12 @@ public class LoginLogoutServiceImpl implements LoginLogoutService{
 		
 		
 		if(passwordEncoderUtil.matchesPassword(seller.getPassword(), existingSeller.getPassword())) {
+			
+			// Transparently upgrade hashes created with an older bcrypt cost factor
+			if(passwordEncoderUtil.needsRehash(existingSeller.getPassword())) {
+				existingSeller.setPassword(passwordEncoderUtil.encodePassword(seller.getPassword()));
+				sellerRepository.save(existingSeller);
+			}
 		
 			UserSession newSession = new UserSession();
 			
@@ -2,15 +2,21 @@ package com.masai.service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.masai.exception.LoginException;
 import com.masai.exception.OrderException;
+import com.masai.exception.ProductNotFoundException;
 import com.masai.dto.CartDTO;
+import com.masai.event.ProductsSoldEvent;
+import com.masai.event.StockChangedEvent;
 import com.masai.models.CartItem;
 import com.masai.models.Customer;
 import com.masai.models.Order;
@@ -19,6 +25,8 @@ import com.masai.models.OrderStatusValues;
 import com.masai.models.Product;
 import com.masai.models.ProductStatus;
 import com.masai.repository.OrderRepository;
+import com.masai.util.CartStore;
+import com.masai.util.StockHolds;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -32,6 +40,15 @@ public class OrderServiceImpl implements OrderService {
 	@Autowired
 	private CartService cartService;
 	
+	@Autowired
+	private CartStore cartStore;
+	
+	@Autowired
+	private StockHolds stockHolds;
+	
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+	
 	
 	@Override
 	@Transactional
@@ -46,6 +63,8 @@ public class OrderServiceImpl implements OrderService {
 			newOrder.setCustomer(loggedInCustomer);
 			String usersCardNumber= loggedInCustomer.getCreditCard().getCardNumber();
 			String userGivenCardNumber= odto.getCardNumber().getCardNumber();
+			// The cart store may be holding changes the cart tables have not seen yet
+			cartStore.flush(loggedInCustomer.getCustomerCart().getCartId());
 			List<CartItem> productsInCart= loggedInCustomer.getCustomerCart().getCartItems();
 			List<CartItem> productsInOrder = new ArrayList<>(productsInCart);
 			
@@ -64,6 +83,15 @@ public class OrderServiceImpl implements OrderService {
 					newOrder.setDate(LocalDate.now());
 					newOrder.setOrderStatus(OrderStatusValues.SUCCESS);
 					List<CartItem> cartItemsList= loggedInCustomer.getCustomerCart().getCartItems();
+					Map<Integer, Integer> unitsSold = new HashMap<>();
+					// Holds that expired are taken again, so the order cannot buy units other carts hold
+					try {
+						stockHolds.hold(loggedInCustomer.getCustomerCart());
+					} catch (ProductNotFoundException e) {
+						throw new OrderException(e.getMessage());
+					}
+					// Registered before the stock change events, so the sold units leave the holds first
+					stockHolds.checkout(loggedInCustomer.getCustomerCart().getCartId());
 					
 					for(CartItem cartItem : cartItemsList ) {
 						Integer remainingQuantity = cartItem.getCartProduct().getQuantity()-cartItem.getCartItemQuantity();
@@ -77,10 +105,15 @@ public class OrderServiceImpl implements OrderService {
 						if(cartItem.getCartProduct().getQuantity()==0) {
 							cartItem.getCartProduct().setStatus(ProductStatus.OUTOFSTOCK);
 						}
+						eventPublisher.publishEvent(new StockChangedEvent(cartItem.getCartProduct()));
+						unitsSold.merge(cartItem.getCartProduct().getProductId(), cartItem.getCartItemQuantity(), Integer::sum);
 					}
 					cartService.clearCart(token);
 					//System.out.println(newOrder);
-					return orderRepository.save(newOrder);
+					Order savedOrder = orderRepository.save(newOrder);
+					// Published once saved, so the event carries the new order's id
+					eventPublisher.publishEvent(new ProductsSoldEvent(savedOrder.getOrderId(), savedOrder.getDate(), unitsSold));
+					return savedOrder;
 				}
 				else {
 					newOrder.setCardNumber(null);
@@ -126,6 +159,7 @@ public class OrderServiceImpl implements OrderService {
 			else if(order.getOrderStatus()==OrderStatusValues.SUCCESS) {
 				order.setOrderStatus(OrderStatusValues.CANCELLED);
 				List<CartItem> cartItemsList= order.getOrdercartItems();
+				Map<Integer, Integer> unitsReturned = new HashMap<>();
 				
 				for(CartItem cartItem : cartItemsList ) {
 					Integer addedQuantity = cartItem.getCartProduct().getQuantity()+cartItem.getCartItemQuantity();
@@ -133,7 +167,11 @@ public class OrderServiceImpl implements OrderService {
 					if(cartItem.getCartProduct().getStatus() == ProductStatus.OUTOFSTOCK) {
 						cartItem.getCartProduct().setStatus(ProductStatus.AVAILABLE);
 					}
+					eventPublisher.publishEvent(new StockChangedEvent(cartItem.getCartProduct()));
+					unitsReturned.merge(cartItem.getCartProduct().getProductId(), -cartItem.getCartItemQuantity(), Integer::sum);
 				}
+				// Booked against the original order date so the sale is reversed where it was counted
+				eventPublisher.publishEvent(new ProductsSoldEvent(order.getOrderId(), order.getDate(), unitsReturned));
 				
 				orderRepository.save(order);
 				return order;
@@ -163,8 +201,19 @@ public class OrderServiceImpl implements OrderService {
 							&& (orderdto.getCardNumber().getCardCVV().equals(loggedInCustomer.getCreditCard().getCardCVV())))) {
 				existingOrder.setCardNumber(orderdto.getCardNumber().getCardNumber());
 				existingOrder.setAddress(existingOrder.getCustomer().getAddress().get(orderdto.getAddressType()));
+				boolean confirmed = existingOrder.getOrderStatus() != OrderStatusValues.SUCCESS;
 				existingOrder.setOrderStatus(OrderStatusValues.SUCCESS);
 				List<CartItem> cartItemsList= existingOrder.getOrdercartItems();
+				Map<Integer, Integer> unitsSold = new HashMap<>();
+				for(CartItem cartItem : cartItemsList ) {
+					unitsSold.merge(cartItem.getCartProduct().getProductId(), cartItem.getCartItemQuantity(), Integer::sum);
+				}
+				// The order has no holds of its own, so it may only take units no cart holds
+				try {
+					stockHolds.sell(unitsSold);
+				} catch (ProductNotFoundException e) {
+					throw new OrderException(e.getMessage());
+				}
 				for(CartItem cartItem : cartItemsList ) {
 					Integer remainingQuantity = cartItem.getCartProduct().getQuantity()-cartItem.getCartItemQuantity();
 					if(remainingQuantity < 0 || cartItem.getCartProduct().getStatus() == ProductStatus.OUTOFSTOCK) {
@@ -177,6 +226,11 @@ public class OrderServiceImpl implements OrderService {
 					if(cartItem.getCartProduct().getQuantity()==0) {
 						cartItem.getCartProduct().setStatus(ProductStatus.OUTOFSTOCK);
 					}
+					eventPublisher.publishEvent(new StockChangedEvent(cartItem.getCartProduct()));
+				}
+				// An order already confirmed was counted as sold when it was confirmed
+				if(confirmed) {
+					eventPublisher.publishEvent(new ProductsSoldEvent(existingOrder.getOrderId(), existingOrder.getDate(), unitsSold));
 				}
 				return orderRepository.save(existingOrder);
 			}
@@ -5,6 +5,8 @@ import java.util.Map;
 
 import com.masai.models.CategoryEnum;
 import com.masai.models.Product;
+import com.masai.dto.AlsoBoughtProductDTO;
+import com.masai.dto.MostWishlistedProductDTO;
 import com.masai.dto.ProductDTO;
 import com.masai.dto.ProductSearchFilterDTO;
 import com.masai.models.ProductStatus;
@@ -37,5 +39,21 @@ public interface ProductService {
 	 * @return Map containing search results and pagination metadata
 	 */
 	public Map<String, Object> searchAndFilterProducts(ProductSearchFilterDTO filterDTO);
+	
+	/**
+	 * Most wishlisted products, answered from the in-memory leaderboard
+	 * @param category the category to rank, or null for the whole catalog
+	 * @param limit number of products to return, capped at 50
+	 * @return products ordered by wishlist count, highest first
+	 */
+	public List<MostWishlistedProductDTO> getMostWishlisted(CategoryEnum category, int limit);
+	
+	/**
+	 * Products most often bought in the same order, answered from the in-memory co-purchase matrix
+	 * @param productId the product being viewed
+	 * @param limit number of products to return, capped at 20
+	 * @return products ordered by orders bought together, highest first
+	 */
+	public List<AlsoBoughtProductDTO> getAlsoBought(Integer productId, int limit);
 
 }
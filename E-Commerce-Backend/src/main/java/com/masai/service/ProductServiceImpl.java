@@ -1,11 +1,14 @@
 package com.masai.service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -15,18 +18,32 @@ import com.masai.exception.CategoryNotFoundException;
 import com.masai.exception.ProductNotFoundException;
 import com.masai.models.CategoryEnum;
 import com.masai.models.Product;
+import com.masai.dto.AlsoBoughtProductDTO;
+import com.masai.dto.MostWishlistedProductDTO;
+import com.masai.dto.ProductCoPurchaseCountDTO;
 import com.masai.dto.ProductDTO;
+import com.masai.dto.ProductWishlistCountDTO;
+import com.masai.event.ProductBackInStockEvent;
+import com.masai.event.ProductPriceChangedEvent;
+import com.masai.event.ProductPriceDroppedEvent;
+import com.masai.event.StockChangedEvent;
 import com.masai.dto.ProductSearchFilterDTO;
 import com.masai.dto.ProductSearchResponseDTO;
 import com.masai.models.ProductStatus;
 import com.masai.models.Seller;
 import com.masai.repository.ProductRepository;
 import com.masai.repository.SellerRepository;
+import com.masai.util.CoPurchaseMatrix;
+import com.masai.util.WishlistLeaderboard;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+	private static final int MAX_MOST_WISHLISTED = 50;
+
+	private static final int MAX_ALSO_BOUGHT = 20;
+
 	@Autowired
 	private ProductRepository productRepository;
 
@@ -36,6 +53,15 @@ public class ProductServiceImpl implements ProductService {
 	@Autowired
 	private SellerRepository sellerRepository;
 
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private WishlistLeaderboard wishlistLeaderboard;
+
+	@Autowired
+	private CoPurchaseMatrix coPurchaseMatrix;
+
 	@Override
 	@Transactional
 	public Product addProductToCatalog(String token, Product product) {
@@ -99,8 +125,17 @@ public class ProductServiceImpl implements ProductService {
 		Optional<Product> opt = productRepository.findById(prod.getProductId());
 
 		if (opt.isPresent()) {
-			opt.get();
+			Product existing = opt.get();
+			ProductStatus previousStatus = existing.getStatus();
+			Double previousPrice = existing.getPrice();
+
 			Product prod1 = productRepository.save(prod);
+			eventPublisher.publishEvent(new StockChangedEvent(prod1));
+			publishWishlistChanges(prod1, previousStatus, previousPrice);
+			// Lets CartRepricer move carts holding the product to the new price
+			if (previousPrice != null && !previousPrice.equals(prod1.getPrice())) {
+				eventPublisher.publishEvent(new ProductPriceChangedEvent(prod1.getProductId(), previousPrice, prod1.getPrice()));
+			}
 			return prod1;
 		} else
 			throw new ProductNotFoundException("Product not found with given id");
@@ -147,11 +182,14 @@ public class ProductServiceImpl implements ProductService {
 		 
 		 if(opt!=null) {
 			  prod = opt.get();
+			 ProductStatus previousStatus = prod.getStatus();
 			 prod.setQuantity(prod.getQuantity()+prodDto.getQuantity());
 			 if(prod.getQuantity()>0) {
 				 prod.setStatus(ProductStatus.AVAILABLE);
 			 }
 			 productRepository.save(prod);
+			 eventPublisher.publishEvent(new StockChangedEvent(prod));
+			 publishWishlistChanges(prod, previousStatus, prod.getPrice());
 			 
 		 }
 		 else
@@ -223,4 +261,58 @@ public class ProductServiceImpl implements ProductService {
 		return response;
 	}
 
+	@Override
+	public List<MostWishlistedProductDTO> getMostWishlisted(CategoryEnum category, int limit) {
+		List<ProductWishlistCountDTO> top = wishlistLeaderboard.top(category, Math.max(1, Math.min(limit, MAX_MOST_WISHLISTED)));
+
+		// Counts come from the leaderboard; one primary-key lookup fills in the product details
+		Map<Integer, Product> products = new HashMap<>();
+		productRepository.findAllById(top.stream().map(ProductWishlistCountDTO::getProductId).collect(Collectors.toList()))
+				.forEach(product -> products.put(product.getProductId(), product));
+
+		List<MostWishlistedProductDTO> result = new ArrayList<>(top.size());
+		for (ProductWishlistCountDTO count : top) {
+			Product product = products.get(count.getProductId());
+			if (product != null) {
+				result.add(new MostWishlistedProductDTO(product.getProductId(), product.getProductName(),
+						product.getCategory(), product.getPrice(), product.getStatus(), product.getAverageRating(),
+						count.getWishlistCount()));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<AlsoBoughtProductDTO> getAlsoBought(Integer productId, int limit) {
+		List<ProductCoPurchaseCountDTO> top = coPurchaseMatrix.alsoBought(productId, Math.max(1, Math.min(limit, MAX_ALSO_BOUGHT)));
+
+		// Counts come from the co-purchase matrix; one primary-key lookup fills in the product details
+		Map<Integer, Product> products = new HashMap<>();
+		productRepository.findAllById(top.stream().map(ProductCoPurchaseCountDTO::getProductId).collect(Collectors.toList()))
+				.forEach(product -> products.put(product.getProductId(), product));
+
+		List<AlsoBoughtProductDTO> result = new ArrayList<>(top.size());
+		for (ProductCoPurchaseCountDTO count : top) {
+			Product product = products.get(count.getProductId());
+			if (product != null) {
+				result.add(new AlsoBoughtProductDTO(product.getProductId(), product.getProductName(),
+						product.getCategory(), product.getPrice(), product.getStatus(), product.getAverageRating(),
+						count.getOrderCount()));
+			}
+		}
+		return result;
+	}
+
+	// Lets WishlistNotificationDispatcher tell customers about restocks and price drops
+	private void publishWishlistChanges(Product product, ProductStatus previousStatus, Double previousPrice) {
+		if (previousStatus == ProductStatus.OUTOFSTOCK && product.getStatus() == ProductStatus.AVAILABLE) {
+			eventPublisher.publishEvent(new ProductBackInStockEvent(product.getProductId(), product.getProductName(),
+					product.getPrice(), product.getQuantity()));
+		}
+		if (previousPrice != null && product.getPrice() != null && product.getPrice() < previousPrice) {
+			eventPublisher.publishEvent(new ProductPriceDroppedEvent(product.getProductId(), product.getProductName(),
+					previousPrice, product.getPrice()));
+		}
+	}
+
 }
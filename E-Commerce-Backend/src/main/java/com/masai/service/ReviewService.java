@@ -5,6 +5,9 @@ import org.springframework.data.domain.Pageable;
 
 import com.masai.exception.LoginException;
 import com.masai.exception.ReviewException;
+import com.masai.dto.CursorPageDTO;
+import com.masai.dto.ReviewModerationRequestDTO;
+import com.masai.dto.ReviewModerationResultDTO;
 import com.masai.dto.ReviewRequestDTO;
 import com.masai.dto.ReviewResponseDTO;
 import com.masai.dto.ReviewSummaryDTO;
@@ -27,9 +30,21 @@ public interface ReviewService {
     // Get paginated reviews for a product (approved + non-deleted)
     Page<ReviewResponseDTO> getProductReviews(Integer productId, Pageable pageable);
 
+    // Get a keyset page of reviews for a product, sorted "newest" or "helpful"
+    CursorPageDTO<ReviewResponseDTO> getProductReviewsByCursor(Integer productId, String sort, String cursor, int size) throws ReviewException;
+
     // Approve a review (admin/seller moderation)
     ReviewResponseDTO approveReview(Long reviewId, String token) throws ReviewException, LoginException;
 
+    // Approve or reject (soft delete) a batch of reviews with one UPDATE and one aggregate update per product
+    ReviewModerationResultDTO moderateReviews(ReviewModerationRequestDTO request, String token) throws ReviewException, LoginException;
+
+    // Mark a review as helpful (customer only, one vote per customer per review)
+    ReviewResponseDTO markReviewHelpful(Long reviewId, String token) throws ReviewException, LoginException;
+
     // Calculate summary (avg rating + count) for a product
     ReviewSummaryDTO calculateProductRating(Integer productId);
+
+    // Verify Product's rating counters against the review table; returns the number of products corrected
+    int reconcileProductRatings();
 }
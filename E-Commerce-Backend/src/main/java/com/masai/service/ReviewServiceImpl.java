@@ -1,20 +1,41 @@
 package com.masai.service;
 
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.masai.exception.LoginException;
 import com.masai.exception.ReviewException;
-import com.masai.models.Customer;
 import com.masai.models.Product;
 import com.masai.models.Review;
+import com.masai.models.ReviewModerationAction;
+import com.masai.dto.CursorPageDTO;
+import com.masai.dto.CustomerPrincipal;
+import com.masai.dto.ProductRatingAggregateDTO;
+import com.masai.dto.ReviewModerationRequestDTO;
+import com.masai.dto.ReviewModerationResultDTO;
+import com.masai.dto.ReviewModerationStateDTO;
 import com.masai.dto.ReviewRequestDTO;
 import com.masai.dto.ReviewResponseDTO;
 import com.masai.dto.ReviewSummaryDTO;
@@ -22,16 +43,31 @@ import com.masai.models.UserSession;
 import com.masai.repository.CustomerRepository;
 import com.masai.repository.ProductRepository;
 import com.masai.repository.ReviewRepository;
+import com.masai.util.CursorCodec;
+import com.masai.util.CustomerPrincipalResolver;
+import com.masai.util.HelpfulVoteBuffer;
 import com.masai.util.TokenValidationUtil;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Full ReviewServiceImpl with all operations, validations, and exception handling.
  * Uses DTOs to avoid direct entity exposure.
+ * Product rating aggregates are maintained incrementally per review state transition
+ * and periodically reconciled against the review table.
  */
 @Service
 public class ReviewServiceImpl implements ReviewService {
 
+    private static final Logger log = LoggerFactory.getLogger(ReviewServiceImpl.class);
+
+    private static final int RECONCILE_BATCH_SIZE = 500;
+    private static final int MAX_MODERATION_BATCH_SIZE = 500;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 50;
+    private static final String SORT_NEWEST = "newest";
+    private static final String SORT_HELPFUL = "helpful";
+
     @Autowired
     private ReviewRepository reviewRepository;
 
@@ -44,15 +80,20 @@ public class ReviewServiceImpl implements ReviewService {
     @Autowired
     private TokenValidationUtil tokenValidationUtil;
 
+    @Autowired
+    private CustomerPrincipalResolver customerPrincipalResolver;
+
+    @Autowired
+    private HelpfulVoteBuffer helpfulVoteBuffer;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Override
     @Transactional
     public ReviewResponseDTO addReview(ReviewRequestDTO reviewRequest, String token) throws ReviewException, LoginException {
-        // 1. Token validation (customer only)
-        UserSession userSession = tokenValidationUtil.validateCustomerToken(token);
-
-        // 2. Get logged-in customer
-        Customer customer = customerRepository.findById(userSession.getUserId())
-            .orElseThrow(() -> new ReviewException("Customer not found"));
+        // 1. Token validation (customer only) and logged-in customer's principal
+        CustomerPrincipal principal = customerPrincipalResolver.resolve(token);
 
         // 3. Validate product exists
         Product product = productRepository.findById(reviewRequest.getProductId())
@@ -64,7 +105,7 @@ public class ReviewServiceImpl implements ReviewService {
         }
 
         // 5. Duplicate check (service + DB constraint)
-        if (reviewRepository.existsByCustomerAndProduct(customer, product)) {
+        if (reviewRepository.existsByCustomer_CustomerIdAndProduct_ProductId(principal.getCustomerId(), product.getProductId())) {
             throw new ReviewException("You have already submitted a review for this product");
         }
 
@@ -74,7 +115,7 @@ public class ReviewServiceImpl implements ReviewService {
         review.setTitle(reviewRequest.getTitle());
         review.setComment(reviewRequest.getComment());
         review.setProduct(product);
-        review.setCustomer(customer);
+        review.setCustomer(customerRepository.getReferenceById(principal.getCustomerId()));
         review.setCreatedAt(LocalDateTime.now());
         review.setUpdatedAt(LocalDateTime.now());
         review.setIsDeleted(false);
@@ -82,11 +123,9 @@ public class ReviewServiceImpl implements ReviewService {
         review.setHelpfulCount(0);
 
         // 6. Save and map to response DTO
+        // New reviews are unapproved, so the product's rating aggregates don't change yet
         Review saved = reviewRepository.save(review);
         
-        // Auto-recalculate Product rating stats
-        recalculateAndUpdateProduct(saved.getProduct());
-        
         return mapToResponseDTO(saved);
     }
 
@@ -111,6 +150,8 @@ public class ReviewServiceImpl implements ReviewService {
             throw new ReviewException("Rating must be between 1 and 5");
         }
 
+        Integer previousRating = review.getRating();
+
         // Update fields
         review.setRating(reviewRequest.getRating());
         review.setTitle(reviewRequest.getTitle());
@@ -119,8 +160,11 @@ public class ReviewServiceImpl implements ReviewService {
 
         Review updated = reviewRepository.save(review);
         
-        // Auto-recalculate Product rating stats
-        recalculateAndUpdateProduct(updated.getProduct());
+        // Rating edit on a counted review: move it from its old star bucket to the new one
+        if (isCounted(updated) && previousRating != null && updated.getRating() != null
+                && !previousRating.equals(updated.getRating())) {
+            applyRatingDelta(updated.getProduct(), updated.getRating(), previousRating);
+        }
         
         return mapToResponseDTO(updated);
     }
@@ -140,22 +184,69 @@ public class ReviewServiceImpl implements ReviewService {
             throw new ReviewException("You can only delete your own reviews");
         }
 
+        boolean wasCounted = isCounted(review);
+
         // Soft delete
         review.setIsDeleted(true);
         review.setUpdatedAt(LocalDateTime.now());
         Review deleted = reviewRepository.save(review);
         
-        // Auto-recalculate Product rating stats
-        recalculateAndUpdateProduct(deleted.getProduct());
+        // Deleting an approved review removes it from the product's rating aggregates
+        if (wasCounted) {
+            applyRatingDelta(deleted.getProduct(), null, deleted.getRating());
+        }
         
         return mapToResponseDTO(deleted);
     }
 
     @Override
     public Page<ReviewResponseDTO> getProductReviews(Integer productId, Pageable pageable) {
-        // Get approved + non-deleted reviews (paginated)
-        Page<Review> reviewsPage = reviewRepository.findByProductIdAndIsApprovedTrue(productId, pageable);
-        return reviewsPage.map(this::mapToResponseDTO);
+        // Get approved + non-deleted reviews (paginated), projected straight into DTOs
+        return reviewRepository.findVisibleReviewDTOs(productId, pageable).map(this::withPendingVotes);
+    }
+
+    @Override
+    public CursorPageDTO<ReviewResponseDTO> getProductReviewsByCursor(Integer productId, String sort, String cursor, int size)
+            throws ReviewException {
+        boolean byHelpful = SORT_HELPFUL.equalsIgnoreCase(sort);
+        if (!byHelpful && !SORT_NEWEST.equalsIgnoreCase(sort)) {
+            throw new ReviewException("Unsupported sort '" + sort + "'. Use " + SORT_NEWEST + " or " + SORT_HELPFUL);
+        }
+
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        // Fetch one extra row to learn whether another page exists, without a COUNT query
+        Pageable fetch = PageRequest.of(0, limit + 1);
+
+        List<ReviewResponseDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = byHelpful
+                ? reviewRepository.findMostHelpfulReviews(productId, fetch)
+                : reviewRepository.findNewestReviews(productId, fetch);
+        } else {
+            // Parse the cursor up front so a bad cursor is a client error, not a query failure
+            Object lastSortKey;
+            Long lastId;
+            try {
+                String[] key = CursorCodec.decode(cursor, 2);
+                lastSortKey = byHelpful ? Integer.valueOf(key[0]) : LocalDateTime.parse(key[0]);
+                lastId = Long.valueOf(key[1]);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new ReviewException("Invalid cursor");
+            }
+            rows = byHelpful
+                ? reviewRepository.findMostHelpfulReviewsAfter(productId, (Integer) lastSortKey, lastId, fetch)
+                : reviewRepository.findNewestReviewsAfter(productId, (LocalDateTime) lastSortKey, lastId, fetch);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            ReviewResponseDTO last = rows.get(limit - 1);
+            // Encode the persisted helpfulCount, which is what the keyset query compares against
+            nextCursor = CursorCodec.encode(byHelpful ? last.getHelpfulCount() : last.getCreatedAt(), last.getId());
+        }
+        rows.forEach(this::withPendingVotes);
+        return new CursorPageDTO<>(rows, nextCursor);
     }
 
     @Override
@@ -168,23 +259,156 @@ public class ReviewServiceImpl implements ReviewService {
         Review review = reviewRepository.findById(reviewId)
             .orElseThrow(() -> new ReviewException("Review not found with ID: " + reviewId));
 
+        boolean wasCounted = isCounted(review);
+
         // Approve
         review.setIsApproved(true);
         review.setUpdatedAt(LocalDateTime.now());
         Review approved = reviewRepository.save(review);
         
-        // Auto-recalculate Product rating stats (approve affects avg)
-        recalculateAndUpdateProduct(approved.getProduct());
+        // First approval of a live review adds it to the product's rating aggregates
+        if (!wasCounted && isCounted(approved)) {
+            applyRatingDelta(approved.getProduct(), approved.getRating(), null);
+        }
         
         return mapToResponseDTO(approved);
     }
 
+    @Override
+    @Transactional
+    public ReviewModerationResultDTO moderateReviews(ReviewModerationRequestDTO request, String token)
+            throws ReviewException, LoginException {
+        // Token validation (assume seller/admin; simple check for now)
+        tokenValidationUtil.validateSellerToken(token);
+
+        Set<Long> reviewIds = new LinkedHashSet<>();
+        if (request.getReviewIds() != null) {
+            request.getReviewIds().stream().filter(Objects::nonNull).forEach(reviewIds::add);
+        }
+        if (reviewIds.isEmpty()) {
+            throw new ReviewException("At least one review ID is required");
+        }
+        if (reviewIds.size() > MAX_MODERATION_BATCH_SIZE) {
+            throw new ReviewException("At most " + MAX_MODERATION_BATCH_SIZE + " reviews can be moderated at once");
+        }
+        if (request.getAction() == null) {
+            throw new ReviewException("Moderation action is required");
+        }
+        boolean approve = request.getAction() == ReviewModerationAction.APPROVE;
+        int requested = reviewIds.size();
+
+        List<ReviewModerationStateDTO> states = reviewRepository.findModerationStates(reviewIds);
+
+        // Collect the reviews whose state changes and the star deltas they cause, grouped by product
+        List<Long> changing = new ArrayList<>();
+        Set<Integer> affectedProducts = new HashSet<>();
+        Map<Integer, long[]> starDeltasByProduct = new HashMap<>();
+        for (ReviewModerationStateDTO state : states) {
+            reviewIds.remove(state.getId());
+            boolean counted = isCounted(state.getIsApproved(), state.getIsDeleted());
+            boolean changes = approve ? !counted && !Boolean.TRUE.equals(state.getIsDeleted())
+                                      : !Boolean.TRUE.equals(state.getIsDeleted());
+            if (!changes) {
+                continue;
+            }
+            changing.add(state.getId());
+            affectedProducts.add(state.getProductId());
+            if ((approve || counted) && state.getRating() != null) {
+                starDeltasByProduct.computeIfAbsent(state.getProductId(), id -> new long[6])
+                    [state.getRating()] += approve ? 1 : -1;
+            }
+        }
+
+        int updated = 0;
+        if (!changing.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            updated = approve ? reviewRepository.approveReviews(changing, now)
+                              : reviewRepository.softDeleteReviews(changing, now);
+
+            if (updated == changing.size()) {
+                // One aggregate update per product, however many of its reviews were moderated
+                starDeltasByProduct.forEach(this::applyStarDeltas);
+            } else {
+                // Some reviews changed concurrently, so the deltas are unreliable; recompute instead
+                log.warn("Bulk {} changed {} of {} reviews; recomputing ratings for {} products",
+                    request.getAction(), updated, changing.size(), affectedProducts.size());
+                recomputeRatingAggregates(affectedProducts);
+            }
+        }
+
+        return new ReviewModerationResultDTO(request.getAction(), requested, updated,
+            affectedProducts.size(), new ArrayList<>(reviewIds));
+    }
+
+    @Override
+    public ReviewResponseDTO markReviewHelpful(Long reviewId, String token) throws ReviewException, LoginException {
+        // Token validation (customer only)
+        UserSession userSession = tokenValidationUtil.validateCustomerToken(token);
+
+        Review review = reviewRepository.findById(reviewId)
+            .orElseThrow(() -> new ReviewException("Review not found with ID: " + reviewId));
+
+        if (!isCounted(review)) {
+            throw new ReviewException("Only approved reviews can be marked as helpful");
+        }
+        if (review.getCustomer().getCustomerId().equals(userSession.getUserId())) {
+            throw new ReviewException("You cannot mark your own review as helpful");
+        }
+
+        // Buffered and flushed in batches; a repeat vote by the same customer is ignored
+        helpfulVoteBuffer.recordVote(reviewId, userSession.getUserId());
+
+        return mapToResponseDTO(review);
+    }
+
     @Override
     public ReviewSummaryDTO calculateProductRating(Integer productId) {
-        // Use custom query for average + count
-        Double avg = reviewRepository.calculateAverageRating(productId);
-        long count = reviewRepository.countByProductId(productId);
-        return new ReviewSummaryDTO(avg != null ? avg : 0.0, count, productId);
+        // Read the aggregates maintained on Product instead of scanning reviews
+        return productRepository.getReviewSummary(productId)
+            .orElseGet(() -> new ReviewSummaryDTO(0.0, 0L, productId));
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${app.reviews.reconcile.initial-delay-ms:60000}",
+               fixedDelayString = "${app.reviews.reconcile.interval-ms:3600000}")
+    public int reconcileProductRatings() {
+        int corrected = 0;
+        Integer afterId = 0;
+        Pageable batch = PageRequest.of(0, RECONCILE_BATCH_SIZE);
+
+        List<ProductRatingAggregateDTO> stored = productRepository.getRatingAggregatesAfter(afterId, batch);
+        while (!stored.isEmpty()) {
+            // One transaction per batch, so the SQLite write lock is held for one batch at a time
+            List<ProductRatingAggregateDTO> counters = stored;
+            corrected += transactionTemplate.execute(status -> correctDrift(counters));
+
+            afterId = stored.get(stored.size() - 1).getProductId();
+            stored = productRepository.getRatingAggregatesAfter(afterId, batch);
+        }
+        return corrected;
+    }
+
+    // Recounts the batch's approved reviews and overwrites the counters that differ
+    private int correctDrift(List<ProductRatingAggregateDTO> stored) {
+        List<Integer> productIds = stored.stream()
+            .map(ProductRatingAggregateDTO::getProductId)
+            .collect(Collectors.toList());
+
+        Map<Integer, ProductRatingAggregateDTO> actual = aggregateApprovedRatings(productIds);
+
+        int corrected = 0;
+        for (ProductRatingAggregateDTO counters : stored) {
+            ProductRatingAggregateDTO truth = actual.getOrDefault(counters.getProductId(),
+                ProductRatingAggregateDTO.empty(counters.getProductId()));
+
+            if (!counters.sameCounters(truth)) {
+                log.warn("Rating counters drifted for product {}: stored {}, actual {}",
+                    counters.getProductId(), counters, truth);
+                productRepository.setRatingAggregate(truth, averageOf(truth));
+                corrected++;
+            }
+        }
+        return corrected;
     }
 
     // Helper mapper: Entity -> ResponseDTO
@@ -198,17 +422,71 @@ public class ReviewServiceImpl implements ReviewService {
         dto.setUpdatedAt(review.getUpdatedAt());
         dto.setIsApproved(review.getIsApproved());
         dto.setHelpfulCount(review.getHelpfulCount());
+        withPendingVotes(dto);
         dto.setProductId(review.getProduct() != null ? review.getProduct().getProductId() : null);
         dto.setCustomerId(review.getCustomer() != null ? review.getCustomer().getCustomerId() : null);
         return dto;
     }
 
-    // Auto-recalculate and update Product's rating stats after review changes
-    private void recalculateAndUpdateProduct(Product product) {
+    // Adds helpful votes that are buffered but not yet flushed to the persisted count
+    private ReviewResponseDTO withPendingVotes(ReviewResponseDTO dto) {
+        int pending = helpfulVoteBuffer.pendingVotes(dto.getId());
+        if (pending > 0) {
+            dto.setHelpfulCount((dto.getHelpfulCount() != null ? dto.getHelpfulCount() : 0) + pending);
+        }
+        return dto;
+    }
+
+    // A review contributes to the product's rating aggregates only while approved and not deleted
+    private boolean isCounted(Review review) {
+        return isCounted(review.getIsApproved(), review.getIsDeleted());
+    }
+
+    private boolean isCounted(Boolean isApproved, Boolean isDeleted) {
+        return Boolean.TRUE.equals(isApproved) && !Boolean.TRUE.equals(isDeleted);
+    }
+
+    private Map<Integer, ProductRatingAggregateDTO> aggregateApprovedRatings(Collection<Integer> productIds) {
+        return reviewRepository.aggregateApprovedRatings(productIds)
+            .stream()
+            .collect(Collectors.toMap(ProductRatingAggregateDTO::getProductId, Function.identity()));
+    }
+
+    // Overwrites the products' counters with ones computed from the review table, in one GROUP BY query
+    private void recomputeRatingAggregates(Collection<Integer> productIds) {
+        Map<Integer, ProductRatingAggregateDTO> actual = aggregateApprovedRatings(productIds);
+        for (Integer productId : productIds) {
+            ProductRatingAggregateDTO truth = actual.getOrDefault(productId, ProductRatingAggregateDTO.empty(productId));
+            productRepository.setRatingAggregate(truth, averageOf(truth));
+        }
+    }
+
+    private double averageOf(ProductRatingAggregateDTO aggregate) {
+        return aggregate.getReviewCount() > 0 ? (double) aggregate.getRatingSum() / aggregate.getReviewCount() : 0.0;
+    }
+
+    // Adds a rating to and/or removes a rating from the product's aggregates and star histogram
+    private void applyRatingDelta(Product product, Integer addedRating, Integer removedRating) {
         if (product == null) return;
-        ReviewSummaryDTO summary = calculateProductRating(product.getProductId());
-        product.setAverageRating(summary.getAverageRating());
-        product.setReviewCount(summary.getTotalReviews());
-        productRepository.save(product);
+        long[] starDeltas = new long[6];
+        if (addedRating != null) {
+            starDeltas[addedRating]++;
+        }
+        if (removedRating != null) {
+            starDeltas[removedRating]--;
+        }
+        applyStarDeltas(product.getProductId(), starDeltas);
+    }
+
+    // starDeltas[n] is the change in n-star reviews; the rating sum and count follow from it
+    private void applyStarDeltas(Integer productId, long[] starDeltas) {
+        long sumDelta = 0;
+        long countDelta = 0;
+        for (int stars = 1; stars <= 5; stars++) {
+            sumDelta += stars * starDeltas[stars];
+            countDelta += starDeltas[stars];
+        }
+        productRepository.applyRatingDelta(productId, sumDelta, countDelta,
+            starDeltas[1], starDeltas[2], starDeltas[3], starDeltas[4], starDeltas[5]);
     }
 }
@@ -1,8 +1,10 @@
 package com.masai.service;
 
 import java.util.List;
+import java.util.Map;
 
 import com.masai.models.Cart;
+import com.masai.dto.CursorPageDTO;
 import com.masai.dto.WishlistResponseDTO;
 
 /**
@@ -21,6 +23,13 @@ public interface WishlistService {
      */
     List<WishlistResponseDTO> getWishlist(String token);
 
+    /**
+     * Return one page of the wishlist, most recently added first.
+     * Pass the previous page's nextCursor to continue; null starts from the top.
+     * Throws WishlistException if the cursor is malformed.
+     */
+    CursorPageDTO<WishlistResponseDTO> getWishlistPage(String cursor, int size, String token);
+
     /**
      * Remove a single product from the customer's wishlist.
      * Throws WishlistException if the product is not in the wishlist.
@@ -33,8 +42,28 @@ public interface WishlistService {
      */
     Cart moveToCart(Integer productId, String token);
 
+    /**
+     * Move the selected products, or the whole wishlist when none are given,
+     * to the cart in one transaction. Out-of-stock products stay in the wishlist.
+     * Throws WishlistException if a selected product is not in the wishlist.
+     */
+    Cart moveAllToCart(List<Integer> productIds, String token);
+
     /**
      * Returns true if the product is currently in the customer's wishlist.
      */
     boolean isWishlisted(Integer productId, String token);
+
+    /**
+     * Returns, for each requested product, whether it is in the customer's wishlist.
+     * Throws WishlistException if more than the allowed number of products is requested.
+     */
+    Map<Integer, Boolean> checkWishlisted(List<Integer> productIds, String token);
+
+    /**
+     * Verify each product's wishlist count against wishlist_item, correcting
+     * drifted counts and resetting the leaderboard.
+     * Returns the number of products corrected.
+     */
+    int reconcileWishlistCounts();
 }
@@ -1,38 +1,69 @@
 package com.masai.service;
 
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.masai.exception.CustomerNotFoundException;
-import com.masai.exception.LoginException;
 import com.masai.exception.ProductNotFoundException;
 import com.masai.exception.WishlistException;
 import com.masai.models.Cart;
 import com.masai.dto.CartDTO;
+import com.masai.dto.CursorPageDTO;
+import com.masai.dto.ProductWishlistCountDTO;
+import com.masai.dto.CustomerPrincipal;
+import com.masai.event.WishlistChangedEvent;
 import com.masai.models.Customer;
 import com.masai.models.Product;
-import com.masai.models.UserSession;
+import com.masai.models.ProductStatus;
 import com.masai.models.Wishlist;
 import com.masai.models.WishlistItem;
 import com.masai.dto.WishlistResponseDTO;
-import com.masai.repository.CartRepository;
 import com.masai.repository.CustomerRepository;
 import com.masai.repository.ProductRepository;
 import com.masai.repository.WishlistRepository;
 import com.masai.repository.WishlistItemRepository;
-import com.masai.util.TokenValidationUtil;
+import com.masai.util.CartPricing;
+import com.masai.util.CartStore;
+import com.masai.util.CursorCodec;
+import com.masai.util.CustomerPrincipalResolver;
+import com.masai.util.StockHolds;
+import com.masai.util.WishlistLeaderboard;
+import com.masai.util.WishlistMembershipCache;
 
 @Service
 public class WishlistServiceImpl implements WishlistService {
 
+    private static final Logger log = LoggerFactory.getLogger(WishlistServiceImpl.class);
+
+    // Upper bound on productIds per membership check; a listing page holds far fewer tiles
+    private static final int MAX_MEMBERSHIP_CHECK_SIZE = 500;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
     @Autowired
-    private TokenValidationUtil tokenValidationUtil;
+    private CustomerPrincipalResolver customerPrincipalResolver;
 
     @Autowired
     private CustomerRepository customerRepository;
@@ -47,34 +78,52 @@ public class WishlistServiceImpl implements WishlistService {
     private WishlistItemRepository wishlistItemRepository;
 
     @Autowired
-    private CartRepository cartRepository;
+    private CartStore cartStore;
 
     @Autowired
     private CartItemService cartItemService;
 
+    @Autowired
+    private StockHolds stockHolds;
+
+    @Autowired
+    private WishlistMembershipCache wishlistMembershipCache;
+
+    @Autowired
+    private WishlistLeaderboard wishlistLeaderboard;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
 
 
     // -----------------------------------------------------------------------
-    // Helper: validate customer token and return the Customer entity.
+    // Helper: validate customer token and return the request's principal.
     // Also lazily creates a Wishlist for customers who registered before the
     // feature was introduced (so existing accounts always have a wishlist).
+    // Only that rare path loads the full Customer entity.
     // -----------------------------------------------------------------------
-    private Customer resolveCustomer(String token) {
-        UserSession user = tokenValidationUtil.validateCustomerToken(token);
-
-        Customer customer = customerRepository.findById(user.getUserId())
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found"));
+    private CustomerPrincipal resolveCustomer(String token) {
+        CustomerPrincipal principal = customerPrincipalResolver.resolve(token);
 
         // Lazily initialise wishlist for existing customers
-        if (customer.getCustomerWishlist() == null) {
+        if (principal.getWishlistId() == null) {
+            Customer customer = customerRepository.findById(principal.getCustomerId())
+                    .orElseThrow(() -> new CustomerNotFoundException("Customer not found"));
             Wishlist wishlist = new Wishlist();
             wishlist.setCustomer(customer);
             wishlist = wishlistRepository.save(wishlist);
             customer.setCustomerWishlist(wishlist);
             customerRepository.save(customer);
+
+            principal = new CustomerPrincipal(principal.getCustomerId(), principal.getCartId(), wishlist.getWishlistId());
+            customerPrincipalResolver.refresh(token, principal);
         }
 
-        return customer;
+        return principal;
     }
 
     // -----------------------------------------------------------------------
@@ -103,12 +152,11 @@ public class WishlistServiceImpl implements WishlistService {
     @Override
     @Transactional
     public WishlistResponseDTO addToWishlist(Integer productId, String token) {
-        Customer customer = resolveCustomer(token);
-        Wishlist wishlist = customer.getCustomerWishlist();
+        CustomerPrincipal principal = resolveCustomer(token);
 
         // Duplicate check
         Optional<WishlistItem> existing = wishlistItemRepository
-                .findByWishlist_WishlistIdAndProduct_ProductId(wishlist.getWishlistId(), productId);
+                .findByWishlist_WishlistIdAndProduct_ProductId(principal.getWishlistId(), productId);
         if (existing.isPresent()) {
             throw new WishlistException("Product is already in your wishlist");
         }
@@ -119,9 +167,11 @@ public class WishlistServiceImpl implements WishlistService {
         WishlistItem item = new WishlistItem();
         item.setProduct(product);
         item.setAddedAt(LocalDateTime.now());
-        item.setWishlist(wishlist);
+        item.setWishlist(wishlistRepository.getReferenceById(principal.getWishlistId()));
 
         WishlistItem saved = wishlistItemRepository.save(item);
+        productRepository.adjustWishlistCounts(List.of(productId), 1);
+        eventPublisher.publishEvent(new WishlistChangedEvent(principal.getWishlistId(), productId, true));
         return toDTO(saved);
     }
 
@@ -130,14 +180,45 @@ public class WishlistServiceImpl implements WishlistService {
     // -----------------------------------------------------------------------
     @Override
     public List<WishlistResponseDTO> getWishlist(String token) {
-        Customer customer = resolveCustomer(token);
-        Wishlist wishlist = customer.getCustomerWishlist();
+        CustomerPrincipal principal = resolveCustomer(token);
 
-        return wishlistItemRepository
-                .findByWishlist_WishlistIdOrderByAddedAtDesc(wishlist.getWishlistId())
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return wishlistItemRepository.findNewestItems(principal.getWishlistId(), Pageable.unpaged());
+    }
+
+    // -----------------------------------------------------------------------
+    // 2b. View wishlist one keyset page at a time (no OFFSET, no COUNT)
+    // -----------------------------------------------------------------------
+    @Override
+    public CursorPageDTO<WishlistResponseDTO> getWishlistPage(String cursor, int size, String token) {
+        // Parse the cursor up front so a bad cursor is a client error, not a query failure
+        LocalDateTime lastAddedAt = null;
+        Integer lastId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] key = CursorCodec.decode(cursor, 2);
+                lastAddedAt = LocalDateTime.parse(key[0]);
+                lastId = Integer.valueOf(key[1]);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new WishlistException("Invalid cursor");
+            }
+        }
+        CustomerPrincipal principal = resolveCustomer(token);
+
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        // Fetch one extra row to learn whether another page exists
+        Pageable fetch = PageRequest.of(0, limit + 1);
+
+        List<WishlistResponseDTO> rows = lastId == null
+                ? wishlistItemRepository.findNewestItems(principal.getWishlistId(), fetch)
+                : wishlistItemRepository.findNewestItemsAfter(principal.getWishlistId(), lastAddedAt, lastId, fetch);
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            WishlistResponseDTO last = rows.get(limit - 1);
+            nextCursor = CursorCodec.encode(last.getAddedAt(), last.getWishlistItemId());
+        }
+        return new CursorPageDTO<>(rows, nextCursor);
     }
 
     // -----------------------------------------------------------------------
@@ -146,14 +227,15 @@ public class WishlistServiceImpl implements WishlistService {
     @Override
     @Transactional
     public String removeFromWishlist(Integer productId, String token) {
-        Customer customer = resolveCustomer(token);
-        Wishlist wishlist = customer.getCustomerWishlist();
+        CustomerPrincipal principal = resolveCustomer(token);
 
         WishlistItem item = wishlistItemRepository
-                .findByWishlist_WishlistIdAndProduct_ProductId(wishlist.getWishlistId(), productId)
+                .findByWishlist_WishlistIdAndProduct_ProductId(principal.getWishlistId(), productId)
                 .orElseThrow(() -> new WishlistException("Product with id " + productId + " is not in your wishlist"));
 
         wishlistItemRepository.delete(item);
+        productRepository.adjustWishlistCounts(List.of(productId), -1);
+        eventPublisher.publishEvent(new WishlistChangedEvent(principal.getWishlistId(), productId, false));
         return "Product removed from wishlist successfully";
     }
 
@@ -163,54 +245,174 @@ public class WishlistServiceImpl implements WishlistService {
     @Override
     @Transactional
     public Cart moveToCart(Integer productId, String token) {
-        Customer customer = resolveCustomer(token);
-        Wishlist wishlist = customer.getCustomerWishlist();
+        CustomerPrincipal principal = resolveCustomer(token);
 
         // Ensure the item is actually in the wishlist
         WishlistItem item = wishlistItemRepository
-                .findByWishlist_WishlistIdAndProduct_ProductId(wishlist.getWishlistId(), productId)
+                .findByWishlist_WishlistIdAndProduct_ProductId(principal.getWishlistId(), productId)
                 .orElseThrow(() -> new WishlistException("Product with id " + productId + " is not in your wishlist"));
 
         // Remove from wishlist
         wishlistItemRepository.delete(item);
+        productRepository.adjustWishlistCounts(List.of(productId), -1);
+        eventPublisher.publishEvent(new WishlistChangedEvent(principal.getWishlistId(), productId, false));
 
         // Add to cart — reuse existing CartItemService logic
-        Cart customerCart = customer.getCustomerCart();
         CartDTO cartDTO = new CartDTO(productId, null, null, 1);
 
         com.masai.models.CartItem cartItem = cartItemService.createItemforCart(cartDTO);
 
-        List<com.masai.models.CartItem> cartItems = customerCart.getCartItems();
+        return cartStore.update(principal.getCartId(), customerCart -> {
+            List<com.masai.models.CartItem> cartItems = customerCart.getCartItems();
+
+            boolean alreadyInCart = false;
+            for (com.masai.models.CartItem c : cartItems) {
+                if (c.getCartProduct().getProductId().equals(productId)) {
+                    c.setCartItemQuantity(c.getCartItemQuantity() + 1);
+                    alreadyInCart = true;
+                    break;
+                }
+            }
 
-        boolean alreadyInCart = false;
-        for (com.masai.models.CartItem c : cartItems) {
-            if (c.getCartProduct().getProductId().equals(productId)) {
-                c.setCartItemQuantity(c.getCartItemQuantity() + 1);
-                customerCart.setCartTotal(customerCart.getCartTotal() + c.getCartProduct().getPrice());
-                alreadyInCart = true;
-                break;
+            if (!alreadyInCart) {
+                cartItems.add(cartItem);
             }
+            CartPricing.price(customerCart);
+            stockHolds.hold(customerCart);
+        });
+    }
+
+    // -----------------------------------------------------------------------
+    // 4b. Move selected/all to cart: one product query, one delete, one cart save
+    // -----------------------------------------------------------------------
+    @Override
+    @Transactional
+    public Cart moveAllToCart(List<Integer> productIds, String token) {
+        CustomerPrincipal principal = resolveCustomer(token);
+
+        Set<Integer> wishlisted = new HashSet<>(wishlistItemRepository.findProductIdsByWishlistId(principal.getWishlistId()));
+        Set<Integer> selected = productIds == null || productIds.isEmpty() ? wishlisted : new LinkedHashSet<>(productIds);
+        for (Integer productId : selected) {
+            if (!wishlisted.contains(productId)) {
+                throw new WishlistException("Product with id " + productId + " is not in your wishlist");
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new WishlistException("Your wishlist is empty");
+        }
+
+        List<Product> available = productRepository.findAllById(selected).stream()
+                .filter(p -> p.getStatus() != ProductStatus.OUTOFSTOCK && p.getQuantity() > 0)
+                .collect(Collectors.toList());
+        if (available.isEmpty()) {
+            throw new ProductNotFoundException("Product OUT OF STOCK");
         }
 
-        if (!alreadyInCart) {
-            cartItems.add(cartItem);
-            double currentTotal = customerCart.getCartTotal() == null ? 0.0 : customerCart.getCartTotal();
-            customerCart.setCartTotal(currentTotal + cartItem.getCartProduct().getPrice());
+        List<Integer> moved = available.stream().map(Product::getProductId).collect(Collectors.toList());
+        wishlistItemRepository.deleteByWishlistIdAndProductIds(principal.getWishlistId(), moved);
+        productRepository.adjustWishlistCounts(moved, -1);
+        for (Integer productId : moved) {
+            eventPublisher.publishEvent(new WishlistChangedEvent(principal.getWishlistId(), productId, false));
         }
 
-        return cartRepository.save(customerCart);
+        return cartStore.update(principal.getCartId(), customerCart -> {
+            Map<Integer, com.masai.models.CartItem> cartItemsByProduct = new HashMap<>();
+            for (com.masai.models.CartItem c : customerCart.getCartItems()) {
+                cartItemsByProduct.put(c.getCartProduct().getProductId(), c);
+            }
+
+            for (Product product : available) {
+                com.masai.models.CartItem c = cartItemsByProduct.get(product.getProductId());
+                if (c != null) {
+                    c.setCartItemQuantity(c.getCartItemQuantity() + 1);
+                } else {
+                    c = new com.masai.models.CartItem();
+                    c.setCartItemQuantity(1);
+                    c.setCartProduct(product);
+                    customerCart.getCartItems().add(c);
+                    cartItemsByProduct.put(product.getProductId(), c);
+                }
+            }
+            CartPricing.price(customerCart);
+            stockHolds.hold(customerCart);
+        });
     }
 
     // -----------------------------------------------------------------------
-    // 5. Check if wishlisted
+    // 5. Check if wishlisted (answered from the in-memory membership cache)
     // -----------------------------------------------------------------------
     @Override
     public boolean isWishlisted(Integer productId, String token) {
-        Customer customer = resolveCustomer(token);
-        Wishlist wishlist = customer.getCustomerWishlist();
+        CustomerPrincipal principal = resolveCustomer(token);
+
+        return wishlistMembershipCache.contains(principal.getWishlistId(), productId);
+    }
+
+    // -----------------------------------------------------------------------
+    // 6. Batch check for listing pages: one call for every tile on the page
+    // -----------------------------------------------------------------------
+    @Override
+    public Map<Integer, Boolean> checkWishlisted(List<Integer> productIds, String token) {
+        if (productIds.size() > MAX_MEMBERSHIP_CHECK_SIZE) {
+            throw new WishlistException("At most " + MAX_MEMBERSHIP_CHECK_SIZE + " products can be checked at once");
+        }
+        CustomerPrincipal principal = resolveCustomer(token);
+
+        return wishlistMembershipCache.containsAll(principal.getWishlistId(), productIds);
+    }
+
+    // -----------------------------------------------------------------------
+    // 7. Reconcile Product.wishlistCount and the leaderboard against wishlist_item
+    // -----------------------------------------------------------------------
+    @Override
+    @Scheduled(initialDelayString = "${app.wishlist.leaderboard.reconcile.initial-delay-ms:120000}",
+               fixedDelayString = "${app.wishlist.leaderboard.reconcile.interval-ms:3600000}")
+    public int reconcileWishlistCounts() {
+        int corrected = 0;
+        Pageable batch = PageRequest.of(0, RECONCILE_BATCH_SIZE);
+
+        List<ProductWishlistCountDTO> stored = productRepository.getWishlistCountsAfter(0, batch);
+        while (!stored.isEmpty()) {
+            // One transaction per batch, so the SQLite write lock is held for one batch at a time
+            List<ProductWishlistCountDTO> counts = stored;
+            List<ProductWishlistCountDTO> counted = new ArrayList<>(counts.size());
+            // Read before the recount; a product a wishlist change moves after this keeps its count
+            Map<Integer, Long> seen = wishlistLeaderboard.counts(counts.stream()
+                    .map(ProductWishlistCountDTO::getProductId)
+                    .collect(Collectors.toList()));
+            corrected += transactionTemplate.execute(status -> correctDrift(counts, counted));
+
+            // The leaderboard is reset too, as it can drift independently of the column,
+            // but only once the batch's counts have committed
+            counted.forEach(count -> wishlistLeaderboard.set(count, seen.get(count.getProductId())));
+
+            stored = productRepository.getWishlistCountsAfter(stored.get(stored.size() - 1).getProductId(), batch);
+        }
+        return corrected;
+    }
+
+    // Recounts the batch's wishlists, overwrites the counts that differ and adds every actual count to counted
+    private int correctDrift(List<ProductWishlistCountDTO> stored, List<ProductWishlistCountDTO> counted) {
+        List<Integer> productIds = stored.stream()
+                .map(ProductWishlistCountDTO::getProductId)
+                .collect(Collectors.toList());
 
-        return wishlistItemRepository
-                .findByWishlist_WishlistIdAndProduct_ProductId(wishlist.getWishlistId(), productId)
-                .isPresent();
+        Map<Integer, Long> actual = new HashMap<>();
+        for (ProductWishlistCountDTO count : wishlistItemRepository.countWishlistsByProductIds(productIds)) {
+            actual.put(count.getProductId(), count.getWishlistCount());
+        }
+
+        int corrected = 0;
+        for (ProductWishlistCountDTO count : stored) {
+            long truth = actual.getOrDefault(count.getProductId(), 0L);
+            if (count.getWishlistCount() != truth) {
+                log.warn("Wishlist count drifted for product {}: stored {}, actual {}",
+                        count.getProductId(), count.getWishlistCount(), truth);
+                productRepository.setWishlistCount(count.getProductId(), truth);
+                corrected++;
+            }
+            counted.add(new ProductWishlistCountDTO(count.getProductId(), count.getCategory(), truth));
+        }
+        return corrected;
     }
 }
@@ -0,0 +1,133 @@
+package com.masai.util;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.repository.AbandonedCartItemRepository;
+import com.masai.repository.CartItemRepository;
+import com.masai.repository.CartRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Empties carts nobody has changed for idle-days, so cart_item and its join
+ * table only hold carts that might still check out.
+ *
+ * Idle carts are found oldest first through the cart last_modified index and
+ * cleared batch-size carts per transaction, so the SQLite write lock is held
+ * for one batch at a time. Each batch copies the carts' lines to
+ * abandoned_cart_item, one row per cart and product, deletes the item rows no order shares, unlinks the items
+ * and zeroes the carts, all with set-based statements that re-check the cutoff,
+ * so a cart changed since it was found is left alone. Carts last changed before
+ * last_modified was tracked start their idle clock on the first run.
+ */
+@Component
+public class AbandonedCartSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(AbandonedCartSweeper.class);
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final AbandonedCartItemRepository abandonedCartItemRepository;
+    private final CartStore cartStore;
+    private final TransactionTemplate transactionTemplate;
+    private final long idleDays;
+    private final int batchSize;
+
+    private final Counter cartsCounter;
+    private final Counter archivedCounter;
+    private final Counter reclaimedCounter;
+
+    @Autowired
+    public AbandonedCartSweeper(CartRepository cartRepository,
+            CartItemRepository cartItemRepository,
+            AbandonedCartItemRepository abandonedCartItemRepository,
+            CartStore cartStore,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.cart.abandoned.idle-days:30}") long idleDays,
+            @Value("${app.cart.abandoned.batch-size:100}") int batchSize,
+            MeterRegistry meterRegistry) {
+
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.abandonedCartItemRepository = abandonedCartItemRepository;
+        this.cartStore = cartStore;
+        this.transactionTemplate = transactionTemplate;
+        this.idleDays = idleDays;
+        this.batchSize = batchSize;
+
+        this.cartsCounter = Counter.builder("cart.abandoned.carts")
+                .description("Idle carts emptied by the abandoned cart sweeper")
+                .register(meterRegistry);
+        this.archivedCounter = Counter.builder("cart.abandoned.archived")
+                .description("Cart lines copied to abandoned_cart_item")
+                .register(meterRegistry);
+        this.reclaimedCounter = Counter.builder("cart.abandoned.reclaimed")
+                .description("cart_item and cart_cart_items rows deleted by the abandoned cart sweeper")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Empties every cart idle past the configured age, stopping at the first
+     * failed batch; the rest are picked up by the next run.
+     *
+     * @return The number of rows reclaimed
+     */
+    @Scheduled(cron = "${app.cart.abandoned.sweep-cron:0 30 3 * * *}")
+    public int sweep() {
+        return sweep(LocalDateTime.now());
+    }
+
+    int sweep(LocalDateTime now) {
+        LocalDateTime cutoff = now.minusDays(idleDays);
+        int carts = 0;
+        int archived = 0;
+        int reclaimed = 0;
+
+        try {
+            int stamped;
+            do {
+                stamped = transactionTemplate.execute(status -> cartRepository.stampUntrackedCarts(now, batchSize));
+            } while (stamped == batchSize);
+
+            List<Integer> cartIds;
+            do {
+                cartIds = cartRepository.findIdleCartIds(cutoff, batchSize);
+                if (cartIds.isEmpty()) {
+                    break;
+                }
+                List<Integer> batch = cartIds;
+                int[] counts = transactionTemplate.execute(status -> {
+                    int lines = abandonedCartItemRepository.archiveIdleCarts(batch, cutoff, now);
+                    // Item rows are found through their links, so they go first
+                    int rows = cartItemRepository.deleteIdleCartItems(batch, cutoff);
+                    rows += cartRepository.unlinkIdleCartItems(batch, cutoff);
+                    return new int[] { lines, rows, cartRepository.resetIdleCarts(batch, cutoff) };
+                });
+                batch.forEach(cartStore::discard);
+
+                archived += counts[0];
+                reclaimed += counts[1];
+                carts += counts[2];
+                archivedCounter.increment(counts[0]);
+                reclaimedCounter.increment(counts[1]);
+                cartsCounter.increment(counts[2]);
+            } while (cartIds.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Abandoned cart sweep failed; remaining carts are retried on the next run", e);
+        }
+
+        log.info("Abandoned cart sweep emptied {} carts, archived {} lines and reclaimed {} rows",
+                carts, archived, reclaimed);
+        return reclaimed;
+    }
+}
@@ -0,0 +1,73 @@
+package com.masai.util;
+
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+
+/**
+ * Cart arithmetic in whole cents, so totals never drift the way repeatedly
+ * adding and subtracting double prices does.
+ *
+ * Each line keeps the unit price it was added at (or last repriced to), and the
+ * cart total is always recomputed from those snapshots rather than adjusted by
+ * the change; the Double cartTotal is only the presentation of that sum.
+ */
+public final class CartPricing {
+
+    private CartPricing() {
+    }
+
+    /**
+     * @param amount An amount in the currency unit, e.g. a product price
+     * @return The amount in cents, rounded half up
+     */
+    public static long toCents(Double amount) {
+        return amount == null ? 0L : Math.round(amount * 100);
+    }
+
+    /**
+     * @param cents An amount in cents
+     * @return The amount in the currency unit
+     */
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Snapshots the current product price on lines that have no unit price yet,
+     * then sets the cart total from the line snapshots.
+     *
+     * @param cart The cart to total
+     * @return The cart total in cents
+     */
+    public static long price(Cart cart) {
+        long totalCents = 0L;
+        for (CartItem item : cart.getCartItems()) {
+            if (item.getUnitPriceCents() == null) {
+                item.setUnitPriceCents(toCents(item.getCartProduct().getPrice()));
+            }
+            totalCents += item.getUnitPriceCents() * item.getCartItemQuantity();
+        }
+        cart.setCartTotal(toAmount(totalCents));
+        return totalCents;
+    }
+
+    /**
+     * Moves the cart's lines for a product to a new unit price and re-totals the cart.
+     *
+     * @param cart The cart to reprice
+     * @param productId The product whose price changed
+     * @param unitPriceCents The new unit price in cents
+     * @return true if the cart held the product
+     */
+    public static boolean reprice(Cart cart, Integer productId, long unitPriceCents) {
+        boolean held = false;
+        for (CartItem item : cart.getCartItems()) {
+            if (productId.equals(item.getCartProduct().getProductId())) {
+                item.setUnitPriceCents(unitPriceCents);
+                held = true;
+            }
+        }
+        price(cart);
+        return held;
+    }
+}
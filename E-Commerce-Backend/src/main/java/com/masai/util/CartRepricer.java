@@ -0,0 +1,129 @@
+package com.masai.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.masai.event.ProductPriceChangedEvent;
+import com.masai.repository.CartRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Moves carts to a product's new price after a catalog price change.
+ *
+ * Committed price changes are queued per product, keeping only the latest price.
+ * A scheduled pass pages through the carts holding each product by keyset, from
+ * the cart_item product index through the cart join table, and reprices each cart
+ * through the cart store, so the change goes through the same locking, versioning
+ * and retries as a customer's own cart changes. A product whose pass fails is
+ * queued again; repricing is idempotent.
+ */
+@Component
+public class CartRepricer {
+
+    private static final Logger log = LoggerFactory.getLogger(CartRepricer.class);
+
+    // productId -> latest unit price in cents
+    private final Map<Integer, Long> pending = new ConcurrentHashMap<>();
+
+    private final CartRepository cartRepository;
+    private final CartStore cartStore;
+    private final int batchSize;
+
+    private final Counter repricedCounter;
+    private final Counter failedCounter;
+
+    @Autowired
+    public CartRepricer(CartRepository cartRepository,
+            CartStore cartStore,
+            @Value("${app.cart.repricing.batch-size:200}") int batchSize,
+            MeterRegistry meterRegistry) {
+
+        this.cartRepository = cartRepository;
+        this.cartStore = cartStore;
+        this.batchSize = batchSize;
+
+        this.repricedCounter = repricingCounter(meterRegistry, "repriced");
+        this.failedCounter = repricingCounter(meterRegistry, "failed");
+        Gauge.builder("cart.repricing.pending", pending, Map::size)
+                .description("Products whose carts are waiting to be repriced")
+                .register(meterRegistry);
+    }
+
+    private static Counter repricingCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("cart.repricing.carts")
+                .description("Carts moved to a product's new price, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceChanged(ProductPriceChangedEvent event) {
+        pending.put(event.getProductId(), CartPricing.toCents(event.getPrice()));
+    }
+
+    /**
+     * Reprices the carts of every queued product.
+     *
+     * @return The number of carts repriced
+     */
+    @Scheduled(fixedDelayString = "${app.cart.repricing.interval-ms:5000}")
+    public int repricePending() {
+        int repriced = 0;
+        for (Integer productId : pending.keySet()) {
+            Long unitPriceCents = pending.remove(productId);
+            if (unitPriceCents != null) {
+                repriced += reprice(productId, unitPriceCents);
+            }
+        }
+        return repriced;
+    }
+
+    int pendingProducts() {
+        return pending.size();
+    }
+
+    private int reprice(Integer productId, long unitPriceCents) {
+        Pageable batch = PageRequest.of(0, batchSize);
+        int repriced = 0;
+        boolean failed = false;
+
+        List<Integer> cartIds = cartRepository.findCartIdsWithProductAfter(productId, 0, batch);
+        while (!cartIds.isEmpty()) {
+            for (Integer cartId : cartIds) {
+                try {
+                    cartStore.adjust(cartId, cart -> CartPricing.reprice(cart, productId, unitPriceCents));
+                    repriced++;
+                } catch (RuntimeException e) {
+                    log.warn("Failed to reprice cart {} for product {}", cartId, productId, e);
+                    failedCounter.increment();
+                    failed = true;
+                }
+            }
+            if (cartIds.size() < batchSize) {
+                break;
+            }
+            cartIds = cartRepository.findCartIdsWithProductAfter(productId, cartIds.get(cartIds.size() - 1), batch);
+        }
+
+        // A newer price queued meanwhile wins over the retry
+        if (failed) {
+            pending.putIfAbsent(productId, unitPriceCents);
+        }
+        repricedCounter.increment(repriced);
+        return repriced;
+    }
+}
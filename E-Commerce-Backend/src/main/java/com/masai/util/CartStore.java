@@ -0,0 +1,70 @@
+package com.masai.util;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+
+/**
+ * Where carts are read and changed. The default store works directly on the
+ * cart tables; app.cart.store=write-behind keeps active carts in memory instead.
+ */
+public interface CartStore {
+
+    /**
+     * @param cartId The cart id
+     * @return The cart, which callers must not modify; use {@link #update}
+     */
+    Cart load(Integer cartId);
+
+    /**
+     * Applies a customer's change to the cart under the cart's lock and stamps
+     * the cart's last_modified. If the mutation throws, the cart is left as it was.
+     *
+     * @param cartId The cart id
+     * @param mutation The change, applied to the cart passed to it
+     * @return The updated cart
+     */
+    Cart update(Integer cartId, Consumer<Cart> mutation);
+
+    /**
+     * Like {@link #update}, for changes the system makes to a cart, such as
+     * repricing. last_modified is left as it was, so they never keep an idle
+     * cart from being swept.
+     *
+     * @param cartId The cart id
+     * @param mutation The change, applied to the cart passed to it
+     * @return The updated cart
+     */
+    Cart adjust(Integer cartId, Consumer<Cart> mutation);
+
+    /**
+     * Like {@link #update}, for a change that removes items from the cart. The
+     * rows of the items the mutation returns are deleted along with the save,
+     * so a failed save leaves them in place.
+     *
+     * @param cartId The cart id
+     * @param mutation The change, applied to the cart passed to it, returning the items it removed
+     * @return The updated cart
+     */
+    Cart updateItems(Integer cartId, Function<Cart, Collection<CartItem>> mutation);
+
+    /**
+     * Writes any unsaved changes to the cart within the current transaction,
+     * so that the cart tables can be read directly afterwards.
+     *
+     * @param cartId The cart id
+     */
+    void flush(Integer cartId);
+
+    /**
+     * Drops any copy of the cart held outside the cart tables, after the tables
+     * were changed directly. A copy with unsaved changes is kept; writing it
+     * restores its items.
+     *
+     * @param cartId The cart id
+     */
+    void discard(Integer cartId);
+}
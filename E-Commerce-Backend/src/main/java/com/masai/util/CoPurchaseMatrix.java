@@ -0,0 +1,344 @@
+package com.masai.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.masai.dto.OrderProductDTO;
+import com.masai.dto.ProductCoPurchaseCountDTO;
+import com.masai.event.ProductsSoldEvent;
+import com.masai.repository.OrderRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Item-to-item co-occurrence counts over confirmed orders, for the "customers
+ * also bought" rail.
+ *
+ * Each product has a sparse row of productId to the number of orders holding
+ * both, in a primitive IntCountMap, and its top-n row entries, kept best first
+ * and republished as an immutable list on every change, so a read is a list
+ * lookup. A confirmed order adds one to the cell of every pair of its distinct
+ * products and a cancelled one takes it away; orders with more than
+ * max-basket-size products are skipped. A raised count moves its entry up the
+ * top list in place; a lowered top entry re-selects the row's top through a
+ * bounded heap. Each row is changed under its own lock.
+ *
+ * The matrix is rebuilt at startup and on rebuild-cron from the confirmed
+ * orders up to the highest order id when the rebuild starts, read batch-size
+ * orders at a time by order id so no read holds the SQLite lock for long. Sales
+ * and cancellations of orders above that bound are replayed onto the rebuilt
+ * matrix; those of orders at or below it are left to the read, so an order is
+ * never counted twice. A change to such an order that commits after its batch
+ * was read is only picked up by the next rebuild.
+ */
+@Component
+public class CoPurchaseMatrix {
+
+    private static final Logger log = LoggerFactory.getLogger(CoPurchaseMatrix.class);
+
+    // Worst first, so the heap root is the entry to drop
+    private static final Comparator<int[]> WORST_FIRST = (a, b) -> better(b[0], b[1], a[0], a[1]) ? -1
+            : better(a[0], a[1], b[0], b[1]) ? 1 : 0;
+
+    private volatile Map<Integer, Row> rows = new ConcurrentHashMap<>();
+
+    private final Object rebuildLock = new Object();
+    private List<Replayed> replay;
+
+    private final OrderRepository orderRepository;
+    private final int topN;
+    private final int maxBasketSize;
+    private final int batchSize;
+
+    @Autowired
+    public CoPurchaseMatrix(OrderRepository orderRepository,
+            @Value("${app.recommendations.also-bought.top-n:20}") int topN,
+            @Value("${app.recommendations.also-bought.max-basket-size:50}") int maxBasketSize,
+            @Value("${app.recommendations.also-bought.batch-size:500}") int batchSize,
+            MeterRegistry meterRegistry) {
+
+        this.orderRepository = orderRepository;
+        this.topN = topN;
+        this.maxBasketSize = maxBasketSize;
+        this.batchSize = batchSize;
+
+        Gauge.builder("recommendations.also-bought.products", this, matrix -> matrix.rows.size())
+                .description("Products with a co-purchase row")
+                .register(meterRegistry);
+        Gauge.builder("recommendations.also-bought.pairs", this, CoPurchaseMatrix::pairs)
+                .description("Non-zero co-purchase cells")
+                .register(meterRegistry);
+        Gauge.builder("recommendations.also-bought.bytes", this, CoPurchaseMatrix::estimatedBytes)
+                .description("Estimated heap held by the co-purchase matrix")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsSold(ProductsSoldEvent event) {
+        Set<Integer> basket = new LinkedHashSet<>();
+        int delta = 0;
+        for (Map.Entry<Integer, Integer> units : event.getUnitsByProduct().entrySet()) {
+            if (units.getValue() != 0) {
+                basket.add(units.getKey());
+                delta = units.getValue() > 0 ? 1 : -1;
+            }
+        }
+        record(event.getOrderId(), basket, delta);
+    }
+
+    /**
+     * @param productId The product id
+     * @param limit The number of products to return, at most top-n
+     * @return The products most often bought with it, most orders first
+     */
+    public List<ProductCoPurchaseCountDTO> alsoBought(Integer productId, int limit) {
+        Row row = rows.get(productId);
+        if (row == null) {
+            return List.of();
+        }
+        List<ProductCoPurchaseCountDTO> top = row.top;
+        return top.size() <= limit ? top : top.subList(0, limit);
+    }
+
+    /**
+     * Recounts every confirmed order into a new matrix and swaps it in. Runs
+     * once the application has started and then on rebuild-cron.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.recommendations.also-bought.rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        long started = System.nanoTime();
+        synchronized (rebuildLock) {
+            replay = new ArrayList<>();
+        }
+
+        Map<Integer, Row> rebuilt = new ConcurrentHashMap<>();
+        int orders = 0;
+        int lastOrderId;
+        try {
+            // Read after replay is on, so every order above it is replayed
+            Integer maxOrderId = orderRepository.findMaxOrderId();
+            lastOrderId = maxOrderId == null ? 0 : maxOrderId;
+            Pageable batch = PageRequest.of(0, batchSize);
+            List<Integer> orderIds = orderRepository.findSuccessfulOrderIdsBetween(0, lastOrderId, batch);
+            while (!orderIds.isEmpty()) {
+                Integer orderId = null;
+                Set<Integer> basket = new LinkedHashSet<>();
+                for (OrderProductDTO line : orderRepository.findOrderProducts(orderIds)) {
+                    if (!line.getOrderId().equals(orderId)) {
+                        count(rebuilt, basket, 1, false);
+                        basket.clear();
+                        orderId = line.getOrderId();
+                    }
+                    basket.add(line.getProductId());
+                }
+                count(rebuilt, basket, 1, false);
+                orders += orderIds.size();
+                if (orderIds.size() < batchSize) {
+                    break;
+                }
+                orderIds = orderRepository.findSuccessfulOrderIdsBetween(orderIds.get(orderIds.size() - 1), lastOrderId, batch);
+            }
+            rebuilt.values().forEach(this::selectTop);
+        } catch (RuntimeException e) {
+            synchronized (rebuildLock) {
+                replay = null;
+            }
+            log.error("Failed to rebuild the co-purchase matrix; keeping the current one", e);
+            return;
+        }
+
+        synchronized (rebuildLock) {
+            for (Replayed replayed : replay) {
+                // An order without an id was never read
+                if (replayed.orderId == null || replayed.orderId > lastOrderId) {
+                    count(rebuilt, replayed.basket, replayed.delta, true);
+                }
+            }
+            replay = null;
+            rows = rebuilt;
+        }
+        log.info("Rebuilt co-purchase matrix from {} orders in {} ms: {} products, {} pairs, ~{} KiB",
+                orders, (System.nanoTime() - started) / 1_000_000, rebuilt.size(), pairs(), estimatedBytes() / 1024);
+    }
+
+    void record(Integer orderId, Set<Integer> basket, int delta) {
+        if (basket.size() < 2 || basket.size() > maxBasketSize) {
+            return;
+        }
+        Map<Integer, Row> target;
+        synchronized (rebuildLock) {
+            if (replay != null) {
+                replay.add(new Replayed(orderId, Set.copyOf(basket), delta));
+            }
+            target = rows;
+        }
+        count(target, basket, delta, true);
+    }
+
+    /**
+     * @return Non-zero cells across all rows; each pair is counted in both products' rows
+     */
+    long pairs() {
+        long pairs = 0;
+        for (Row row : rows.values()) {
+            synchronized (row) {
+                pairs += row.counts.size();
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * @return The approximate heap held by the matrix: rows, their count arrays,
+     *         top lists and map entries, on a 64-bit JVM with compressed oops
+     */
+    long estimatedBytes() {
+        Map<Integer, Row> current = rows;
+        long bytes = 64 + 16L * current.size();
+        for (Row row : current.values()) {
+            synchronized (row) {
+                // Map node and boxed key, the row, its top arrays and the published list
+                bytes += 32 + 16 + 32 + row.counts.estimatedBytes()
+                        + 2 * (16 + 4L * row.topIds.length)
+                        + 16 + 40L * row.top.size();
+            }
+        }
+        return bytes;
+    }
+
+    private void count(Map<Integer, Row> target, Set<Integer> basket, int delta, boolean maintainTop) {
+        if (basket.size() < 2 || basket.size() > maxBasketSize) {
+            return;
+        }
+        for (Integer productId : basket) {
+            Row row = target.computeIfAbsent(productId, id -> new Row());
+            synchronized (row) {
+                for (Integer other : basket) {
+                    if (!other.equals(productId)) {
+                        int count = row.counts.add(other, delta);
+                        if (maintainTop) {
+                            adjustTop(row, other, count);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // The row's lock is held
+    private void adjustTop(Row row, int productId, int count) {
+        int[] ids = row.topIds;
+        int[] counts = row.topCounts;
+        int at = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == productId) {
+                at = i;
+                break;
+            }
+        }
+
+        if (at >= 0 && count < counts[at]) {
+            // Something outside the top may now beat it
+            selectTop(row);
+            return;
+        }
+        if (at < 0) {
+            if (count <= 0 || (ids.length == topN && !better(productId, count, ids[ids.length - 1], counts[ids.length - 1]))) {
+                return;
+            }
+            int size = Math.min(ids.length + 1, topN);
+            ids = Arrays.copyOf(ids, size);
+            counts = Arrays.copyOf(counts, size);
+            at = size - 1;
+        }
+        // Move the raised entry towards the front
+        while (at > 0 && better(productId, count, ids[at - 1], counts[at - 1])) {
+            ids[at] = ids[at - 1];
+            counts[at] = counts[at - 1];
+            at--;
+        }
+        ids[at] = productId;
+        counts[at] = count;
+        publish(row, ids, counts);
+    }
+
+    // Re-selects the row's top-n from all its counts with a bounded heap; the row's lock is held
+    private void selectTop(Row row) {
+        PriorityQueue<int[]> heap = new PriorityQueue<>(topN + 1, WORST_FIRST);
+        row.counts.forEach((productId, count) -> {
+            if (heap.size() < topN) {
+                heap.add(new int[] { productId, count });
+            } else if (better(productId, count, heap.peek()[0], heap.peek()[1])) {
+                heap.poll();
+                heap.add(new int[] { productId, count });
+            }
+        });
+        int[] ids = new int[heap.size()];
+        int[] counts = new int[heap.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            int[] entry = heap.poll();
+            ids[i] = entry[0];
+            counts[i] = entry[1];
+        }
+        publish(row, ids, counts);
+    }
+
+    private static void publish(Row row, int[] ids, int[] counts) {
+        row.topIds = ids;
+        row.topCounts = counts;
+        List<ProductCoPurchaseCountDTO> top = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            top.add(new ProductCoPurchaseCountDTO(ids[i], (long) counts[i]));
+        }
+        row.top = List.copyOf(top);
+    }
+
+    // More orders first, then the lower product id
+    private static boolean better(int productId, int count, int otherId, int otherCount) {
+        return count > otherCount || (count == otherCount && productId < otherId);
+    }
+
+    // A sale or cancellation recorded while a rebuild was reading
+    private static final class Replayed {
+        final Integer orderId;
+        final Set<Integer> basket;
+        final int delta;
+
+        Replayed(Integer orderId, Set<Integer> basket, int delta) {
+            this.orderId = orderId;
+            this.basket = basket;
+            this.delta = delta;
+        }
+    }
+
+    private static final class Row {
+        // Guarded by the row's monitor
+        final IntCountMap counts = new IntCountMap();
+        int[] topIds = new int[0];
+        int[] topCounts = new int[0];
+
+        volatile List<ProductCoPurchaseCountDTO> top = List.of();
+    }
+}
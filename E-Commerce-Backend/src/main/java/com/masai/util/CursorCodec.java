@@ -0,0 +1,50 @@
+package com.masai.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+/**
+ * Encodes keyset pagination positions as opaque, URL-safe cursor strings.
+ * A cursor is the sort key values of the last row returned, joined with '|'
+ * and base64url encoded, so clients cannot depend on its structure.
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Encodes the sort key values of the last row of a page.
+     *
+     * @param parts The sort key values, in the order they are compared
+     * @return The opaque cursor string
+     */
+    public static String encode(Object... parts) {
+        StringJoiner joiner = new StringJoiner(SEPARATOR);
+        for (Object part : parts) {
+            joiner.add(String.valueOf(part));
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode(Object...)}.
+     *
+     * @param cursor The opaque cursor string
+     * @param expectedParts The number of sort key values the cursor must hold
+     * @return The sort key values as strings
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = decoded.split("\\|", -1);
+        if (parts.length != expectedParts) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return parts;
+    }
+}
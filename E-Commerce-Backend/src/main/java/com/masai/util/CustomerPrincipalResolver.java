@@ -0,0 +1,69 @@
+package com.masai.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.masai.dto.CustomerPrincipal;
+import com.masai.exception.CustomerNotFoundException;
+import com.masai.models.UserSession;
+import com.masai.repository.CustomerRepository;
+
+/**
+ * Resolves a customer token to a {@link CustomerPrincipal}.
+ * The result is cached as a request attribute, so the session lookup and the
+ * principal projection run at most once per request even when several services
+ * are called with the same token.
+ */
+@Component
+public class CustomerPrincipalResolver {
+
+    private static final String PRINCIPAL_ATTRIBUTE = CustomerPrincipalResolver.class.getName() + ".PRINCIPAL";
+    private static final String TOKEN_ATTRIBUTE = CustomerPrincipalResolver.class.getName() + ".TOKEN";
+
+    @Autowired
+    private TokenValidationUtil tokenValidationUtil;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    /**
+     * Validates a customer token and returns the ids of the customer, their cart and wishlist.
+     *
+     * @param token The customer session token
+     * @return The principal for the logged-in customer
+     * @throws com.masai.exception.LoginException if the token is invalid
+     * @throws CustomerNotFoundException if the session's customer no longer exists
+     */
+    public CustomerPrincipal resolve(String token) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && token != null
+                && token.equals(attributes.getAttribute(TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))) {
+            return (CustomerPrincipal) attributes.getAttribute(PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        UserSession user = tokenValidationUtil.validateCustomerToken(token);
+
+        CustomerPrincipal principal = customerRepository.findPrincipalById(user.getUserId())
+                .orElseThrow(() -> new CustomerNotFoundException("Customer does not exist"));
+
+        if (attributes != null) {
+            attributes.setAttribute(TOKEN_ATTRIBUTE, token, RequestAttributes.SCOPE_REQUEST);
+            attributes.setAttribute(PRINCIPAL_ATTRIBUTE, principal, RequestAttributes.SCOPE_REQUEST);
+        }
+        return principal;
+    }
+
+    /**
+     * Replaces the cached principal for the current request, e.g. after a wishlist
+     * has been created lazily for the customer.
+     */
+    public void refresh(String token, CustomerPrincipal principal) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(TOKEN_ATTRIBUTE, token, RequestAttributes.SCOPE_REQUEST);
+            attributes.setAttribute(PRINCIPAL_ATTRIBUTE, principal, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.masai.util;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.exception.CartItemNotFound;
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+import com.masai.repository.CartItemRepository;
+import com.masai.repository.CartRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Reads and saves carts directly. This is the default store.
+ *
+ * Carts are versioned, so two requests changing the same cart cannot both win.
+ * A change made outside any transaction gets a transaction of its own, and if
+ * another request saved the cart first it is re-applied to a fresh read, up to
+ * max-attempts times. A change made inside a caller's transaction (checkout,
+ * wishlist moves) is applied once; a conflict then fails the caller at commit.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "database", matchIfMissing = true)
+public class DatabaseCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    private final Counter conflictCounter;
+    private final Counter retryCounter;
+
+    @Autowired
+    public DatabaseCartStore(CartRepository cartRepository,
+            CartItemRepository cartItemRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.cart.optimistic-lock.max-attempts:3}") int maxAttempts,
+            MeterRegistry meterRegistry) {
+
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+
+        this.conflictCounter = Counter.builder("cart.update.conflicts")
+                .description("Cart saves rejected because another request saved the cart first")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("cart.update.retries")
+                .description("Cart changes re-applied after a conflicting save")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Cart load(Integer cartId) {
+        return cartRepository.findById(cartId)
+                .orElseThrow(() -> new CartItemNotFound("cart Not found by Id"));
+    }
+
+    @Override
+    public Cart update(Integer cartId, Consumer<Cart> mutation) {
+        return update(cartId, removingNothing(mutation), true);
+    }
+
+    @Override
+    public Cart adjust(Integer cartId, Consumer<Cart> mutation) {
+        return update(cartId, removingNothing(mutation), false);
+    }
+
+    @Override
+    public Cart updateItems(Integer cartId, Function<Cart, Collection<CartItem>> mutation) {
+        return update(cartId, mutation, true);
+    }
+
+    @Override
+    public void flush(Integer cartId) {
+        // Every update is already saved in its own transaction
+    }
+
+    @Override
+    public void discard(Integer cartId) {
+        // Nothing is held outside the cart tables
+    }
+
+    private static Function<Cart, Collection<CartItem>> removingNothing(Consumer<Cart> mutation) {
+        return cart -> {
+            mutation.accept(cart);
+            return List.of();
+        };
+    }
+
+    private Cart update(Integer cartId, Function<Cart, Collection<CartItem>> mutation, boolean touch) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return apply(cartId, mutation, touch);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> apply(cartId, mutation, touch));
+            } catch (OptimisticLockingFailureException e) {
+                conflictCounter.increment();
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                retryCounter.increment();
+            }
+        }
+    }
+
+    // Removed rows are deleted in the save's transaction, and a retry deletes what the fresh read removed
+    private Cart apply(Integer cartId, Function<Cart, Collection<CartItem>> mutation, boolean touch) {
+        Cart cart = load(cartId);
+        Collection<CartItem> removed = mutation.apply(cart);
+        if (touch) {
+            cart.setLastModified(LocalDateTime.now());
+        }
+        Cart saved = cartRepository.save(cart);
+        if (!removed.isEmpty()) {
+            cartItemRepository.deleteAll(removed);
+        }
+        return saved;
+    }
+}
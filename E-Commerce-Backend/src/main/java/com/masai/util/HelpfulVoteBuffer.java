@@ -0,0 +1,217 @@
+package com.masai.util;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.repository.ReviewHelpfulVoteRepository;
+import com.masai.repository.ReviewRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Buffers "helpful" votes in memory and writes them to the database in batches.
+ *
+ * Each vote increments a LongAdder for its review and is queued for persistence.
+ * A scheduled flush inserts the queued vote rows and applies one UPDATE per review,
+ * so a viral review costs one counter write per flush instead of one per vote.
+ * Readers add {@link #pendingVotes(Long)} to the persisted count.
+ *
+ * Repeat votes are rejected by a per-review BitSet of customer ids, warmed from
+ * the vote table on first use and evicted once idle with nothing left to flush.
+ */
+@Component
+public class HelpfulVoteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(HelpfulVoteBuffer.class);
+
+    private final Map<Long, VoterSet> voters = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> pendingCounts = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingVote> pendingVotes = new ConcurrentLinkedQueue<>();
+
+    private final ReviewHelpfulVoteRepository voteRepository;
+    private final ReviewRepository reviewRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long idleTtlNanos;
+
+    private final Counter flushedCounter;
+
+    @Autowired
+    public HelpfulVoteBuffer(ReviewHelpfulVoteRepository voteRepository,
+            ReviewRepository reviewRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.reviews.helpful-votes.idle-ttl-ms:600000}") long idleTtlMillis,
+            MeterRegistry meterRegistry) {
+
+        this.voteRepository = voteRepository;
+        this.reviewRepository = reviewRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMillis);
+
+        this.flushedCounter = Counter.builder("reviews.helpful.flushed")
+                .description("Helpful votes written to the database")
+                .register(meterRegistry);
+        Gauge.builder("reviews.helpful.pending", pendingVotes, ConcurrentLinkedQueue::size)
+                .description("Helpful votes waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a customer's vote for a review unless they have already voted.
+     *
+     * @param reviewId The review being voted on
+     * @param customerId The voting customer
+     * @return true if the vote was new, false if it was a repeat
+     */
+    public boolean recordVote(Long reviewId, Integer customerId) {
+        // Warm outside the map lock when possible; the vote itself is applied under it,
+        // which serialises it with eviction of the same review's seen-set
+        VoterSet warmed = voters.containsKey(reviewId) ? null : loadVoters(reviewId);
+        boolean[] added = new boolean[1];
+
+        voters.compute(reviewId, (id, set) -> {
+            if (set == null) {
+                set = warmed != null ? warmed : loadVoters(id);
+            }
+            added[0] = set.add(customerId);
+            if (added[0]) {
+                pendingCounts.computeIfAbsent(id, k -> new LongAdder()).increment();
+                pendingVotes.add(new PendingVote(id, customerId));
+            }
+            return set;
+        });
+        return added[0];
+    }
+
+    /**
+     * @param reviewId The review id
+     * @return Votes recorded for the review that are not yet in its persisted helpfulCount
+     */
+    public int pendingVotes(Long reviewId) {
+        LongAdder adder = pendingCounts.get(reviewId);
+        return adder == null ? 0 : (int) adder.sum();
+    }
+
+    /**
+     * Writes all queued votes in one transaction: the vote rows, then one counter
+     * UPDATE per review. Only votes whose row was actually inserted are counted,
+     * so if the transaction fails the votes are queued again and retried by the
+     * next flush.
+     *
+     * @return The number of votes flushed
+     */
+    @Scheduled(fixedDelayString = "${app.reviews.helpful-votes.flush-interval-ms:2000}")
+    public synchronized int flush() {
+        List<PendingVote> batch = new ArrayList<>();
+        for (PendingVote vote; (vote = pendingVotes.poll()) != null; ) {
+            batch.add(vote);
+        }
+
+        Map<Long, Integer> queuedPerReview = new HashMap<>();
+        for (PendingVote vote : batch) {
+            queuedPerReview.merge(vote.reviewId, 1, Integer::sum);
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    Map<Long, Integer> insertedPerReview = new HashMap<>();
+                    for (PendingVote vote : batch) {
+                        insertedPerReview.merge(vote.reviewId,
+                                voteRepository.insertIfAbsent(vote.reviewId, vote.customerId, now), Integer::sum);
+                    }
+                    insertedPerReview.forEach((reviewId, delta) -> {
+                        if (delta > 0) {
+                            reviewRepository.incrementHelpfulCount(reviewId, delta);
+                        }
+                    });
+                });
+                flushedCounter.increment(batch.size());
+            } catch (RuntimeException e) {
+                // Pending counts and seen-sets still describe these votes, so only the rows are re-queued
+                log.error("Failed to flush {} helpful votes; they will be retried", batch.size(), e);
+                pendingVotes.addAll(batch);
+                evictIdle();
+                return 0;
+            }
+
+            queuedPerReview.forEach((reviewId, count) -> pendingCounts.get(reviewId).add(-count));
+        }
+
+        evictIdle();
+        return batch.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - idleTtlNanos;
+        for (Long reviewId : voters.keySet()) {
+            voters.computeIfPresent(reviewId, (id, set) -> {
+                if (set.lastTouchedNanos - cutoff > 0 || pendingVotes(id) > 0) {
+                    return set;
+                }
+                pendingCounts.remove(id);
+                return null;
+            });
+        }
+    }
+
+    private VoterSet loadVoters(Long reviewId) {
+        VoterSet set = new VoterSet();
+        for (Integer customerId : voteRepository.findVoterIds(reviewId)) {
+            set.add(customerId);
+        }
+        return set;
+    }
+
+    private static final class PendingVote {
+
+        private final Long reviewId;
+        private final Integer customerId;
+
+        private PendingVote(Long reviewId, Integer customerId) {
+            this.reviewId = reviewId;
+            this.customerId = customerId;
+        }
+    }
+
+    // Only mutated inside voters.compute for its review id
+    private static final class VoterSet {
+
+        private final BitSet customerIds = new BitSet();
+        private long lastTouchedNanos = System.nanoTime();
+
+        private boolean add(Integer customerId) {
+            lastTouchedNanos = System.nanoTime();
+            if (customerIds.get(customerId)) {
+                return false;
+            }
+            customerIds.set(customerId);
+            return true;
+        }
+    }
+}
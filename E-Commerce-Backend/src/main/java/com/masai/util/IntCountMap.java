@@ -0,0 +1,131 @@
+package com.masai.util;
+
+/**
+ * Counts keyed by positive int ids, in two parallel int arrays with open
+ * addressing and linear probing, so a cell costs 8 bytes and no boxing. Kept at
+ * most half full; a count that drops to zero is removed by shifting later
+ * entries of its probe run back, so lookups never need tombstones.
+ *
+ * Not thread-safe.
+ */
+final class IntCountMap {
+
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+
+    IntCountMap() {
+        this(8);
+    }
+
+    IntCountMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    interface Visitor {
+        void visit(int key, int count);
+    }
+
+    /**
+     * @param key A positive id
+     * @param delta The change to its count
+     * @return The new count; the key is removed once it reaches zero or less
+     */
+    int add(int key, int delta) {
+        if (key <= EMPTY) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                int count = counts[slot] + delta;
+                if (count > 0) {
+                    counts[slot] = count;
+                } else {
+                    removeAt(slot);
+                }
+                return Math.max(0, count);
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (delta <= 0) {
+            return 0;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return delta;
+    }
+
+    int get(int key) {
+        for (int slot = slot(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+        }
+        return 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                visitor.visit(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    // Object header and fields plus both arrays, on a 64-bit JVM with compressed oops
+    long estimatedBytes() {
+        return 32 + 2 * (16 + 4L * keys.length);
+    }
+
+    private int slot(int key) {
+        return (key * 0x9E3779B9 >>> 16 ^ key * 0x9E3779B9) & mask;
+    }
+
+    private void removeAt(int slot) {
+        size--;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            // Move an entry back into the gap unless its home slot lies after the gap, cyclically
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                counts[gap] = counts[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        counts[gap] = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
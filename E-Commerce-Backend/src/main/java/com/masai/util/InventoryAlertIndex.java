@@ -0,0 +1,221 @@
+package com.masai.util;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.masai.dto.InventoryAlertStateDTO;
+import com.masai.event.InventoryAlertDeletedEvent;
+import com.masai.event.InventoryAlertSavedEvent;
+import com.masai.event.InventoryAlertStatusChangedEvent;
+import com.masai.event.InventoryAlertTriggeredEvent;
+import com.masai.event.StockChangedEvent;
+import com.masai.repository.InventoryAlertDao;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory index of inventory alerts keyed by product id.
+ *
+ * Loaded once at startup and kept current from committed alert CRUD and stock
+ * change events, so a stock change is checked against its product's threshold
+ * with one map lookup, and triggered alerts are listed without querying the
+ * database. Each seller's currently triggered product ids are tracked alongside.
+ *
+ * Entries are immutable snapshots; every change replaces the entry inside
+ * {@code alerts.compute} for its product, which also serialises the triggered-set
+ * bookkeeping for that product. Any change that triggers, updates or clears a
+ * triggered alert is published as an InventoryAlertStatusChangedEvent once the
+ * compute has returned.
+ */
+@Component
+public class InventoryAlertIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryAlertIndex.class);
+
+    private final Map<Integer, InventoryAlertStateDTO> alerts = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> productByAlertId = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> triggeredBySeller = new ConcurrentHashMap<>();
+
+    private final InventoryAlertDao inventoryAlertDao;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public InventoryAlertIndex(InventoryAlertDao inventoryAlertDao,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry) {
+
+        this.inventoryAlertDao = inventoryAlertDao;
+        this.eventPublisher = eventPublisher;
+
+        Gauge.builder("inventory.alerts.indexed", alerts, Map::size)
+                .description("Inventory alerts held in the in-memory alert index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads every alert from the database. Runs once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<InventoryAlertStateDTO> states = inventoryAlertDao.findAllAlertStates();
+        states.forEach(this::put);
+        log.info("Indexed {} inventory alerts", states.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertSaved(InventoryAlertSavedEvent event) {
+        put(event.getAlert());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertDeleted(InventoryAlertDeletedEvent event) {
+        Integer productId = productByAlertId.remove(event.getAlertId());
+        if (productId != null) {
+            change(productId, current -> null);
+        }
+    }
+
+    /**
+     * Re-evaluates the product's alert against its new quantity. Publishes an
+     * InventoryAlertTriggeredEvent when the quantity crosses to at or below the
+     * threshold.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.getProductId() == null || event.getQuantity() == null) {
+            return;
+        }
+        InventoryAlertStateDTO[] change = change(event.getProductId(), current -> {
+            if (current == null) {
+                return null;
+            }
+            InventoryAlertStateDTO updated = current.withCurrentQuantity(event.getQuantity());
+            return event.getProductName() != null ? updated.withProductName(event.getProductName()) : updated;
+        });
+
+        InventoryAlertStateDTO before = change[0];
+        InventoryAlertStateDTO alert = change[1];
+        if (before != null && !before.isTriggered() && alert.isTriggered()) {
+            eventPublisher.publishEvent(new InventoryAlertTriggeredEvent(alert.getAlertId(), alert.getProductId(),
+                    alert.getProductName(), alert.getSellerId(), alert.getThresholdQuantity(),
+                    alert.getCurrentQuantity(), LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Mirrors a batch of delivered notifications onto the indexed entries.
+     *
+     * @param productIds Products whose alerts were delivered
+     * @param sentAt The delivery time
+     */
+    public void recordAlertsSent(Collection<Integer> productIds, LocalDateTime sentAt) {
+        for (Integer productId : productIds) {
+            change(productId, current -> current == null ? null : current.withLastAlertSentAt(sentAt)
+                    .withAlertCount((current.getAlertCount() == null ? 0 : current.getAlertCount()) + 1));
+        }
+    }
+
+    /**
+     * @param sellerId The seller id
+     * @return Snapshots of the seller's alerts whose product is at or below threshold
+     */
+    public List<InventoryAlertStateDTO> triggeredForSeller(Integer sellerId) {
+        List<InventoryAlertStateDTO> result = new ArrayList<>();
+        for (Integer productId : triggeredBySeller.getOrDefault(sellerId, Set.of())) {
+            InventoryAlertStateDTO alert = alerts.get(productId);
+            if (alert != null && alert.isTriggered()) {
+                result.add(alert);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Snapshots of every triggered alert across all sellers
+     */
+    public List<InventoryAlertStateDTO> allTriggered() {
+        List<InventoryAlertStateDTO> result = new ArrayList<>();
+        for (Integer sellerId : triggeredBySeller.keySet()) {
+            result.addAll(triggeredForSeller(sellerId));
+        }
+        return result;
+    }
+
+    /**
+     * @param productId The product id
+     * @return The indexed alert for the product, or null if it has none
+     */
+    public InventoryAlertStateDTO get(Integer productId) {
+        return alerts.get(productId);
+    }
+
+    private void put(InventoryAlertStateDTO alert) {
+        // An update may move an alert to another product; drop the old product's entry first
+        Integer previousProductId = productByAlertId.put(alert.getAlertId(), alert.getProductId());
+        if (previousProductId != null && !previousProductId.equals(alert.getProductId())) {
+            change(previousProductId, current -> null);
+        }
+        change(alert.getProductId(), current -> alert);
+    }
+
+    /**
+     * Replaces the product's entry with the result of the update (null removes it)
+     * and publishes the status change, if any, after the compute has returned.
+     *
+     * @return The entry before and after the update
+     */
+    private InventoryAlertStateDTO[] change(Integer productId, UnaryOperator<InventoryAlertStateDTO> update) {
+        InventoryAlertStateDTO[] change = new InventoryAlertStateDTO[2];
+        alerts.compute(productId, (id, current) -> {
+            change[0] = current;
+            change[1] = replace(current, update.apply(current));
+            return change[1];
+        });
+        publishStatusChange(change[0], change[1]);
+        return change;
+    }
+
+    private void publishStatusChange(InventoryAlertStateDTO before, InventoryAlertStateDTO after) {
+        boolean wasTriggered = before != null && before.isTriggered();
+        boolean isTriggered = after != null && after.isTriggered();
+        if (isTriggered && !after.equals(before)) {
+            eventPublisher.publishEvent(new InventoryAlertStatusChangedEvent(after, true));
+        } else if (wasTriggered && !isTriggered) {
+            eventPublisher.publishEvent(new InventoryAlertStatusChangedEvent(after != null ? after : before, false));
+        }
+    }
+
+    // Must be called inside alerts.compute for the product; returns the new entry
+    private InventoryAlertStateDTO replace(InventoryAlertStateDTO current, InventoryAlertStateDTO updated) {
+        if (current != null && current.isTriggered()) {
+            triggeredBySeller.computeIfPresent(current.getSellerId(), (sellerId, products) -> {
+                products.remove(current.getProductId());
+                return products.isEmpty() ? null : products;
+            });
+        }
+        if (updated != null && updated.isTriggered()) {
+            triggeredBySeller.compute(updated.getSellerId(), (sellerId, products) -> {
+                Set<Integer> set = products != null ? products : ConcurrentHashMap.newKeySet();
+                set.add(updated.getProductId());
+                return set;
+            });
+        }
+        return updated;
+    }
+}
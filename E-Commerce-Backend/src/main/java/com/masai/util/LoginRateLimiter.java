@@ -0,0 +1,169 @@
+package com.masai.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.masai.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory token-bucket limiter for login attempts.
+ * Keeps one bucket per mobile number and one per client address; an attempt is
+ * rejected as soon as either bucket is empty, before any database or bcrypt work.
+ *
+ * Buckets live in a ConcurrentHashMap and are guarded by a fixed set of striped
+ * locks. Buckets that have been idle longer than the configured TTL are evicted
+ * periodically so the map does not grow with every mobile number ever tried.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    private final BucketPolicy mobilePolicy;
+    private final BucketPolicy addressPolicy;
+    private final long idleTtlNanos;
+
+    private final Counter mobileRejections;
+    private final Counter addressRejections;
+
+    @Autowired
+    public LoginRateLimiter(
+            @Value("${app.security.login-throttle.mobile.capacity:5}") int mobileCapacity,
+            @Value("${app.security.login-throttle.mobile.refill-per-minute:5}") int mobileRefillPerMinute,
+            @Value("${app.security.login-throttle.address.capacity:30}") int addressCapacity,
+            @Value("${app.security.login-throttle.address.refill-per-minute:60}") int addressRefillPerMinute,
+            @Value("${app.security.login-throttle.idle-ttl-ms:600000}") long idleTtlMillis,
+            MeterRegistry meterRegistry) {
+
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mobilePolicy = new BucketPolicy(mobileCapacity, mobileRefillPerMinute);
+        this.addressPolicy = new BucketPolicy(addressCapacity, addressRefillPerMinute);
+        this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMillis);
+
+        this.mobileRejections = Counter.builder("login.throttle.rejected")
+                .description("Login attempts rejected by the token-bucket limiter")
+                .tag("key", "mobile")
+                .register(meterRegistry);
+        this.addressRejections = Counter.builder("login.throttle.rejected")
+                .description("Login attempts rejected by the token-bucket limiter")
+                .tag("key", "address")
+                .register(meterRegistry);
+        Gauge.builder("login.throttle.buckets", buckets, Map::size)
+                .description("Token buckets currently tracked by the login limiter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consumes one token from the client address bucket and one from the mobile
+     * number bucket.
+     *
+     * @param mobile The mobile number the login is attempted for
+     * @param clientAddress The remote address of the caller (may be null)
+     * @throws TooManyRequestsException if either bucket is exhausted
+     */
+    public void checkLoginAttempt(String mobile, String clientAddress) {
+        if (clientAddress != null && !tryAcquire("address:" + clientAddress, addressPolicy)) {
+            addressRejections.increment();
+            throw new TooManyRequestsException("Too many login attempts from this address. Please try again later.");
+        }
+        if (mobile != null && !tryAcquire("mobile:" + mobile, mobilePolicy)) {
+            mobileRejections.increment();
+            throw new TooManyRequestsException("Too many login attempts for this account. Please try again later.");
+        }
+    }
+
+    /**
+     * Drops buckets that have not been touched within the idle TTL. An idle bucket
+     * has refilled completely, so removing it does not change any future decision.
+     */
+    @Scheduled(fixedDelayString = "${app.security.login-throttle.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, TokenBucket>> it = buckets.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, TokenBucket> entry = it.next();
+            ReentrantLock lock = lockFor(entry.getKey());
+            lock.lock();
+            try {
+                if (now - entry.getValue().lastAccessNanos > idleTtlNanos) {
+                    it.remove();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    int trackedBuckets() {
+        return buckets.size();
+    }
+
+    private boolean tryAcquire(String key, BucketPolicy policy) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(policy.capacity, now));
+            bucket.refill(policy, now);
+            if (bucket.tokens < 1.0) {
+                return false;
+            }
+            bucket.tokens -= 1.0;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static final class BucketPolicy {
+
+        private final double capacity;
+        private final double tokensPerNano;
+
+        private BucketPolicy(int capacity, int refillPerMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        }
+    }
+
+    // Mutable state is only touched while holding the bucket's stripe lock
+    private static final class TokenBucket {
+
+        private double tokens;
+        private long lastRefillNanos;
+        private long lastAccessNanos;
+
+        private TokenBucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefillNanos = now;
+            this.lastAccessNanos = now;
+        }
+
+        private void refill(BucketPolicy policy, long now) {
+            tokens = Math.min(policy.capacity, tokens + (now - lastRefillNanos) * policy.tokensPerNano);
+            lastRefillNanos = now;
+            lastAccessNanos = now;
+        }
+    }
+}
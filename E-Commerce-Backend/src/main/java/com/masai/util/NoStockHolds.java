@@ -0,0 +1,31 @@
+package com.masai.util;
+
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.masai.models.Cart;
+
+/**
+ * Holds nothing; stock is only checked at checkout. This is the default.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.stock-holds.enabled", havingValue = "false", matchIfMissing = true)
+public class NoStockHolds implements StockHolds {
+
+    @Override
+    public void hold(Cart cart) {
+        // Every add is allowed; saveOrder still rejects lines that are out of stock
+    }
+
+    @Override
+    public void checkout(Integer cartId) {
+        // Nothing to convert
+    }
+
+    @Override
+    public void sell(Map<Integer, Integer> unitsByProduct) {
+        // Nothing is held, so the stock check in the order service is enough
+    }
+}
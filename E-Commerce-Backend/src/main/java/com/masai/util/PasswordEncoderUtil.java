@@ -1,36 +1,125 @@
 package com.masai.util;
 
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import com.masai.exception.ServiceBusyException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 /**
  * Utility class for password encoding and validation using bcrypt.
  * Provides secure password hashing with automatic salt generation.
+ *
+ * bcrypt runs on the calling thread, at most max-concurrent hashes at a time, so
+ * a burst of logins cannot take every CPU. A call that finds every permit in use
+ * fails at once with a ServiceBusyException (HTTP 503) instead of holding its
+ * request thread while it waits.
  */
 @Component
 public class PasswordEncoderUtil {
-    
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-    
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final int strength;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public PasswordEncoderUtil(
+            @Value("${app.security.bcrypt.strength:10}") int strength,
+            @Value("${app.security.bcrypt.max-concurrent:4}") int maxConcurrent,
+            MeterRegistry meterRegistry) {
+
+        this.strength = strength;
+        this.passwordEncoder = new BCryptPasswordEncoder(strength);
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+
+        this.encodeTimer = Timer.builder("password.hashing.duration")
+                .description("Time spent computing bcrypt hashes")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing.duration")
+                .description("Time spent computing bcrypt hashes")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Hashing requests shed because max-concurrent hashes were already running")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.in-flight", this, PasswordEncoderUtil::inFlight)
+                .description("bcrypt hashes currently running")
+                .register(meterRegistry);
+    }
+
     /**
      * Encodes a plaintext password using bcrypt with automatic salt generation.
-     * 
+     *
      * @param rawPassword The plaintext password to encode
      * @return The bcrypt hashed password
+     * @throws ServiceBusyException if max-concurrent hashes are already running
      */
     public String encodePassword(String rawPassword) {
-        return passwordEncoder.encode(rawPassword);
+        return withPermit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
     }
-    
+
     /**
      * Validates a plaintext password against a bcrypt hashed password.
      * Uses constant-time comparison to prevent timing attacks.
-     * 
+     *
      * @param rawPassword The plaintext password to check
      * @param encodedPassword The bcrypt hashed password to compare against
      * @return true if the password matches, false otherwise
+     * @throws ServiceBusyException if max-concurrent hashes are already running
      */
     public boolean matchesPassword(String rawPassword, String encodedPassword) {
-        return passwordEncoder.matches(rawPassword, encodedPassword);
+        return withPermit(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Returns true if the stored hash was produced with a cost factor other than the
+     * configured one. Callers re-encode the password after a successful login, so the
+     * cost factor can be tuned without forcing a password reset.
+     *
+     * @param encodedPassword The stored bcrypt hash
+     * @return true if the hash should be replaced with one at the current cost
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    int inFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    private <T> T withPermit(Supplier<T> hash) {
+        if (!permits.tryAcquire()) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("Server is busy processing logins. Please retry shortly.");
+        }
+        try {
+            return hash.get();
+        } finally {
+            permits.release();
+        }
     }
 }
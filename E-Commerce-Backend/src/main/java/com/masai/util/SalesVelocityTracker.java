@@ -0,0 +1,213 @@
+package com.masai.util;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.dto.DailyProductSalesDTO;
+import com.masai.event.ProductsSoldEvent;
+import com.masai.repository.OrderRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-product sales velocity: an exponentially weighted moving average of units
+ * sold per day, maintained incrementally from committed sales.
+ *
+ * Each product keeps the average over completed days plus the units of its
+ * latest sales day, which is folded in once a later day is seen; days without
+ * sales decay the average. A sale reported for an earlier day (a cancellation)
+ * is applied with the weight that day already carries, so replay order does not
+ * matter. At startup the configured history is streamed from the database as
+ * one row per product per day.
+ */
+@Component
+public class SalesVelocityTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesVelocityTracker.class);
+
+    // Below this many units per day a product is treated as not selling
+    private static final double MIN_DAILY_RATE = 0.01;
+
+    private final Map<Integer, Velocity> velocities = new ConcurrentHashMap<>();
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double alpha;
+    private final int historyDays;
+    private final int coverDays;
+
+    @Autowired
+    public SalesVelocityTracker(OrderRepository orderRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.inventory-alerts.forecast.half-life-days:7}") double halfLifeDays,
+            @Value("${app.inventory-alerts.forecast.history-days:365}") int historyDays,
+            @Value("${app.inventory-alerts.forecast.cover-days:30}") int coverDays,
+            MeterRegistry meterRegistry) {
+
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.alpha = 1 - Math.pow(0.5, 1 / halfLifeDays);
+        this.historyDays = historyDays;
+        this.coverDays = coverDays;
+
+        Gauge.builder("inventory.forecast.products", velocities, Map::size)
+                .description("Products with a tracked sales velocity")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Streams the configured history of confirmed sales. Runs once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        AtomicLong rows = new AtomicLong();
+        LocalDate since = LocalDate.now().minusDays(historyDays);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<DailyProductSalesDTO> sales = orderRepository.streamDailySalesSince(since)) {
+                sales.forEach(day -> {
+                    record(day.getProductId(), day.getDate(), day.getUnits());
+                    rows.incrementAndGet();
+                });
+            }
+        });
+        log.info("Loaded sales velocity for {} products from {} daily rows in {} ms", velocities.size(), rows.get(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsSold(ProductsSoldEvent event) {
+        event.getUnitsByProduct().forEach((productId, units) -> record(productId, event.getSoldOn(), units));
+    }
+
+    /**
+     * Folds every product up to today and forgets products whose velocity has
+     * decayed to nothing.
+     */
+    @Scheduled(cron = "${app.inventory-alerts.forecast.rollover-cron:0 5 0 * * *}")
+    public void rollOver() {
+        rollOver(LocalDate.now());
+    }
+
+    void rollOver(LocalDate today) {
+        long day = today.toEpochDay();
+        for (Integer productId : velocities.keySet()) {
+            velocities.computeIfPresent(productId, (id, velocity) -> {
+                velocity.add(day, 0, alpha);
+                return velocity.average < MIN_DAILY_RATE / 10 && velocity.openUnits == 0 ? null : velocity;
+            });
+        }
+    }
+
+    /**
+     * @param productId The product id
+     * @return Average units sold per day over completed days, 0 if the product has no recorded sales
+     */
+    public double dailyRate(Integer productId) {
+        return dailyRate(productId, LocalDate.now());
+    }
+
+    /**
+     * @param productId The product id
+     * @param quantity Units currently in stock
+     * @return The day stock runs out at the current velocity, or null if the product is not selling
+     */
+    public LocalDate projectedStockOutDate(Integer productId, int quantity) {
+        return projectedStockOutDate(productId, quantity, LocalDate.now());
+    }
+
+    /**
+     * @param productId The product id
+     * @param quantity Units currently in stock
+     * @return Units to order so stock covers the configured number of days at the current velocity
+     */
+    public int suggestedReorderQuantity(Integer productId, int quantity) {
+        return suggestedReorderQuantity(productId, quantity, LocalDate.now());
+    }
+
+    double dailyRate(Integer productId, LocalDate today) {
+        double[] rate = new double[1];
+        velocities.computeIfPresent(productId, (id, velocity) -> {
+            rate[0] = velocity.rateAsOf(today.toEpochDay(), alpha);
+            return velocity;
+        });
+        return rate[0];
+    }
+
+    LocalDate projectedStockOutDate(Integer productId, int quantity, LocalDate today) {
+        double rate = dailyRate(productId, today);
+        if (rate < MIN_DAILY_RATE) {
+            return null;
+        }
+        return today.plusDays((long) Math.floor(Math.max(0, quantity) / rate));
+    }
+
+    int suggestedReorderQuantity(Integer productId, int quantity, LocalDate today) {
+        double rate = dailyRate(productId, today);
+        return (int) Math.max(0, Math.ceil(rate * coverDays) - quantity);
+    }
+
+    void record(Integer productId, LocalDate day, long units) {
+        long epochDay = day.toEpochDay();
+        velocities.compute(productId, (id, velocity) -> {
+            Velocity updated = velocity != null ? velocity : new Velocity(epochDay);
+            updated.add(epochDay, units, alpha);
+            return updated;
+        });
+    }
+
+    int trackedProducts() {
+        return velocities.size();
+    }
+
+    // Only mutated inside velocities.compute for its product
+    private static final class Velocity {
+
+        private double average;
+        private long openDay;
+        private long openUnits;
+
+        private Velocity(long openDay) {
+            this.openDay = openDay;
+        }
+
+        private void add(long day, long units, double alpha) {
+            if (day > openDay) {
+                average = rateAsOf(day, alpha);
+                openDay = day;
+                openUnits = 0;
+            }
+            if (day == openDay) {
+                openUnits += units;
+            } else {
+                // A completed day's units carry weight alpha * (1 - alpha)^(days since)
+                average = Math.max(0, average + alpha * Math.pow(1 - alpha, openDay - 1 - day) * units);
+            }
+        }
+
+        // Average over every day before the given day, counting days without sales as zero
+        private double rateAsOf(long day, double alpha) {
+            if (day <= openDay) {
+                return average;
+            }
+            double folded = alpha * Math.max(0, openUnits) + (1 - alpha) * average;
+            return folded * Math.pow(1 - alpha, day - openDay - 1);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.masai.util;
+
+import java.util.Map;
+
+import com.masai.models.Cart;
+
+/**
+ * Soft reservations of stock for the units in customers' carts, so a launch
+ * sells out at add-to-cart rather than at checkout. Off by default;
+ * app.cart.stock-holds.enabled=true holds units in memory until they expire.
+ */
+public interface StockHolds {
+
+    /**
+     * Makes the cart's holds match its lines and restarts their time to live.
+     * Raised holds are checked and applied at once, all or none, and undone if
+     * the current transaction rolls back; lowered holds take effect when it
+     * commits. Checkout calls it again, so holds that expired are taken back if
+     * the units are still free.
+     *
+     * @param cart The cart, after a change to its lines
+     * @throws com.masai.exception.ProductNotFoundException if a line needs more units than are free to hold
+     */
+    void hold(Cart cart);
+
+    /**
+     * Turns the cart's holds into sold stock when the current transaction
+     * commits. Call it before the checkout publishes its stock changes.
+     *
+     * @param cartId The cart being checked out
+     */
+    void checkout(Integer cartId);
+
+    /**
+     * Checks units sold without a cart's holds, such as a pending order being
+     * confirmed, against the units no cart holds, and keeps them out of the
+     * free count until the current transaction completes.
+     *
+     * @param unitsByProduct The units sold per product
+     * @throws com.masai.exception.ProductNotFoundException if a product has fewer units free than are sold
+     */
+    void sell(Map<Integer, Integer> unitsByProduct);
+}
@@ -0,0 +1,583 @@
+package com.masai.util;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.event.StockChangedEvent;
+import com.masai.exception.ProductNotFoundException;
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+import com.masai.models.ProductStatus;
+import com.masai.models.StockHold;
+import com.masai.repository.ProductRepository;
+import com.masai.repository.StockHoldRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Holds cart units against an in-memory count of each product's free stock and
+ * lets them lapse after ttl-ms without a change to the cart.
+ *
+ * A product's count is read from the database when it first gets a hold, kept
+ * current from committed stock changes and dropped once nothing holds it. The
+ * count is registered before the read, so a stock change committed while the
+ * read is in flight lands on it and wins over the value read. Each
+ * hold sits in one bucket of a hashed timing wheel, wheel-size buckets of tick-ms
+ * each; a refreshed hold moves buckets in O(1), and each tick only visits the
+ * bucket whose time has come, expiring its holds that are on their last lap.
+ * Carts whose holds changed are rewritten to stock_hold in batches, which is
+ * read back at startup so holds survive a restart.
+ *
+ * All state is guarded by one lock, held only for in-memory work; holds must
+ * only be taken through one instance.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.stock-holds.enabled", havingValue = "true")
+public class TimingWheelStockHolds implements StockHolds {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheelStockHolds.class);
+
+    private final Object lock = new Object();
+
+    private final Map<Integer, Stock> stocks = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<Integer, Hold>> holdsByCart = new HashMap<>();
+    private final Set<Integer> dirty = new HashSet<>();
+    private final Hold[] wheel;
+    private final int mask;
+    private long tick;
+    private int heldUnits;
+
+    private final ProductRepository productRepository;
+    private final StockHoldRepository stockHoldRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMillis;
+    private final long ttlTicks;
+    private final int batchSize;
+    private final long startNanos = System.nanoTime();
+
+    private final Counter rejectedCounter;
+    private final Counter expiredCounter;
+    private final Counter convertedCounter;
+
+    @Autowired
+    public TimingWheelStockHolds(ProductRepository productRepository,
+            StockHoldRepository stockHoldRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.cart.stock-holds.ttl-ms:900000}") long ttlMillis,
+            @Value("${app.cart.stock-holds.tick-ms:1000}") long tickMillis,
+            @Value("${app.cart.stock-holds.wheel-size:512}") int wheelSize,
+            @Value("${app.cart.stock-holds.batch-size:200}") int batchSize,
+            MeterRegistry meterRegistry) {
+
+        this.productRepository = productRepository;
+        this.stockHoldRepository = stockHoldRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.tickMillis = tickMillis;
+        this.ttlTicks = Math.max(1, (ttlMillis + tickMillis - 1) / tickMillis);
+        this.batchSize = batchSize;
+
+        // A power of two, so a tick maps to its bucket with a mask
+        int buckets = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.wheel = new Hold[buckets];
+        this.mask = buckets - 1;
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new Hold(null, null);
+        }
+
+        this.rejectedCounter = holdCounter(meterRegistry, "rejected");
+        this.expiredCounter = holdCounter(meterRegistry, "expired");
+        this.convertedCounter = holdCounter(meterRegistry, "converted");
+        Gauge.builder("cart.stock-holds.units", this, TimingWheelStockHolds::heldUnits)
+                .description("Product units currently held in carts")
+                .register(meterRegistry);
+    }
+
+    private static Counter holdCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("cart.stock-holds.events")
+                .description("Stock holds rejected, expired or converted at checkout")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void hold(Cart cart) {
+        Integer cartId = cart.getCartId();
+        Map<Integer, Integer> targets = new HashMap<>();
+        for (CartItem item : cart.getCartItems()) {
+            targets.merge(item.getCartProduct().getProductId(), item.getCartItemQuantity(), Integer::sum);
+        }
+        Map<Integer, Integer> warmed = warm(targets.keySet());
+        Map<Integer, Integer> lowered = new HashMap<>();
+        Map<Integer, Integer> raisedFrom = new HashMap<>();
+
+        synchronized (lock) {
+            install(targets.keySet(), warmed);
+            Map<Integer, Hold> holds = holdsByCart.getOrDefault(cartId, Map.of());
+
+            // Every raise is checked before any is applied
+            for (Map.Entry<Integer, Integer> target : targets.entrySet()) {
+                Hold hold = holds.get(target.getKey());
+                int current = hold == null ? 0 : hold.units;
+                if (target.getValue() > current) {
+                    Stock stock = stocks.get(target.getKey());
+                    int free = stock.onHand - stock.held;
+                    if (target.getValue() - current > free) {
+                        rejectedCounter.increment();
+                        for (Integer productId : targets.keySet()) {
+                            evictIfUnheld(productId, stocks.get(productId));
+                        }
+                        throw new ProductNotFoundException("Only " + Math.max(0, free + current) + " units of product "
+                                + target.getKey() + " are available to hold");
+                    }
+                }
+            }
+
+            for (Map.Entry<Integer, Integer> target : targets.entrySet()) {
+                Hold hold = holds.get(target.getKey());
+                int current = hold == null ? 0 : hold.units;
+                if (target.getValue() > current) {
+                    raisedFrom.put(target.getKey(), current);
+                    setUnits(cartId, target.getKey(), target.getValue());
+                }
+            }
+            for (Hold hold : holdsByCart.getOrDefault(cartId, Map.of()).values()) {
+                int target = targets.getOrDefault(hold.productId, 0);
+                if (target < hold.units) {
+                    lowered.put(hold.productId, target);
+                }
+                schedule(hold, tick + ttlTicks);
+            }
+            for (Integer productId : targets.keySet()) {
+                evictIfUnheld(productId, stocks.get(productId));
+            }
+            dirty.add(cartId);
+        }
+
+        if (!raisedFrom.isEmpty()) {
+            afterRollback(() -> undoRaise(cartId, raisedFrom, targets));
+        }
+        if (!lowered.isEmpty()) {
+            afterCommit(() -> lower(cartId, lowered));
+        }
+    }
+
+    @Override
+    public void checkout(Integer cartId) {
+        afterCommit(() -> convert(cartId));
+    }
+
+    @Override
+    public void sell(Map<Integer, Integer> unitsByProduct) {
+        Map<Integer, Stock> claimed = new HashMap<>();
+        synchronized (lock) {
+            // Products nobody holds have no count here; the order's own stock check covers them
+            for (Map.Entry<Integer, Integer> units : unitsByProduct.entrySet()) {
+                Stock stock = stocks.get(units.getKey());
+                if (stock != null && stock.known && units.getValue() > stock.onHand - stock.held) {
+                    rejectedCounter.increment();
+                    throw new ProductNotFoundException("Only " + Math.max(0, stock.onHand - stock.held)
+                            + " units of product " + units.getKey() + " are not held in carts");
+                }
+            }
+            for (Map.Entry<Integer, Integer> units : unitsByProduct.entrySet()) {
+                Stock stock = stocks.get(units.getKey());
+                if (stock != null && stock.known) {
+                    stock.onHand -= units.getValue();
+                    claimed.put(units.getKey(), stock);
+                }
+            }
+        }
+        // On commit the stock change event sets the count; on rollback the units are free again
+        if (!claimed.isEmpty()) {
+            afterRollback(() -> {
+                synchronized (lock) {
+                    claimed.forEach((productId, stock) -> {
+                        if (stocks.get(productId) == stock) {
+                            stock.onHand += unitsByProduct.get(productId);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    /**
+     * Keeps a held product's count in step with its committed stock, including a
+     * product whose count is still being read.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.getProductId() == null || event.getQuantity() == null) {
+            return;
+        }
+        synchronized (lock) {
+            Stock stock = stocks.get(event.getProductId());
+            if (stock != null) {
+                stock.onHand = event.getQuantity();
+                stock.known = true;
+            }
+        }
+    }
+
+    /**
+     * Expires the holds whose time to live has run out.
+     *
+     * @return The number of holds expired
+     */
+    @Scheduled(fixedRateString = "${app.cart.stock-holds.tick-ms:1000}")
+    public int expire() {
+        return advanceTo(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) / tickMillis);
+    }
+
+    int advanceTo(long targetTick) {
+        int expired = 0;
+        synchronized (lock) {
+            while (tick < targetTick) {
+                tick++;
+                Hold bucket = wheel[(int) (tick & mask)];
+                for (Hold hold = bucket.next; hold != bucket; ) {
+                    Hold next = hold.next;
+                    // Holds further out share the bucket until their last lap
+                    if (hold.deadlineTick <= tick) {
+                        setUnits(hold.cartId, hold.productId, 0);
+                        dirty.add(hold.cartId);
+                        expired++;
+                    }
+                    hold = next;
+                }
+            }
+        }
+        expiredCounter.increment(expired);
+        return expired;
+    }
+
+    /**
+     * Rewrites the stored holds of every cart whose holds changed, batch-size
+     * carts per transaction. Carts in a failed batch are written again later.
+     *
+     * @return The number of carts written
+     */
+    @Scheduled(fixedDelayString = "${app.cart.stock-holds.flush-interval-ms:2000}")
+    public int persist() {
+        List<Integer> cartIds;
+        List<StockHold> rows = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (lock) {
+            if (dirty.isEmpty()) {
+                return 0;
+            }
+            cartIds = new ArrayList<>(dirty);
+            dirty.clear();
+            for (Integer cartId : cartIds) {
+                for (Hold hold : holdsByCart.getOrDefault(cartId, Map.of()).values()) {
+                    rows.add(new StockHold(cartId, hold.productId, hold.units,
+                            now.plus((hold.deadlineTick - tick) * tickMillis, ChronoUnit.MILLIS)));
+                }
+            }
+        }
+
+        Map<Integer, List<StockHold>> rowsByCart = new HashMap<>();
+        rows.forEach(row -> rowsByCart.computeIfAbsent(row.getCartId(), id -> new ArrayList<>()).add(row));
+
+        int written = 0;
+        try {
+            for (; written < cartIds.size(); written += batchSize) {
+                List<Integer> batch = cartIds.subList(written, Math.min(written + batchSize, cartIds.size()));
+                transactionTemplate.executeWithoutResult(status -> {
+                    stockHoldRepository.deleteByCartIds(batch);
+                    for (Integer cartId : batch) {
+                        for (StockHold row : rowsByCart.getOrDefault(cartId, List.of())) {
+                            stockHoldRepository.insertHold(row.getCartId(), row.getProductId(), row.getUnits(),
+                                    row.getExpiresAt());
+                        }
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to store stock holds for {} carts; they will be retried", cartIds.size() - written, e);
+            synchronized (lock) {
+                dirty.addAll(cartIds.subList(written, cartIds.size()));
+            }
+            return written;
+        }
+        return cartIds.size();
+    }
+
+    /**
+     * Restores the holds that had not expired when they were last stored. Runs
+     * once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockHold> rows = transactionTemplate.execute(status -> {
+            stockHoldRepository.deleteExpired(now);
+            return stockHoldRepository.findByExpiresAtAfter(now);
+        });
+        Set<Integer> productIds = new HashSet<>();
+        rows.forEach(row -> productIds.add(row.getProductId()));
+        Map<Integer, Integer> warmed = warm(productIds);
+
+        synchronized (lock) {
+            install(productIds, warmed);
+            for (StockHold row : rows) {
+                if (row.getUnits() <= 0) {
+                    continue;
+                }
+                Hold hold = setUnits(row.getCartId(), row.getProductId(), row.getUnits());
+                long remainingMillis = ChronoUnit.MILLIS.between(now, row.getExpiresAt());
+                schedule(hold, tick + Math.max(1, (remainingMillis + tickMillis - 1) / tickMillis));
+            }
+            for (Integer productId : productIds) {
+                evictIfUnheld(productId, stocks.get(productId));
+            }
+        }
+        log.info("Restored {} stock holds", rows.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persist();
+    }
+
+    int heldUnits() {
+        synchronized (lock) {
+            return heldUnits;
+        }
+    }
+
+    int freeUnits(Integer productId) {
+        synchronized (lock) {
+            Stock stock = stocks.get(productId);
+            return stock == null || !stock.known ? -1 : stock.onHand - stock.held;
+        }
+    }
+
+    /**
+     * Pins a count for each product until install() and reads the stock of those
+     * whose count is not known yet. Only the read runs outside the lock.
+     */
+    private Map<Integer, Integer> warm(Collection<Integer> productIds) {
+        List<Integer> missing = new ArrayList<>();
+        synchronized (lock) {
+            for (Integer productId : productIds) {
+                Stock stock = stocks.computeIfAbsent(productId, id -> new Stock());
+                stock.pins++;
+                if (!stock.known) {
+                    missing.add(productId);
+                }
+            }
+        }
+        Map<Integer, Integer> onHand = new HashMap<>();
+        if (missing.isEmpty()) {
+            return onHand;
+        }
+        try {
+            productRepository.findAllById(missing).forEach(product -> onHand.put(product.getProductId(),
+                    product.getStatus() == ProductStatus.OUTOFSTOCK || product.getQuantity() == null
+                            ? 0 : product.getQuantity()));
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                unpin(productIds);
+            }
+            throw e;
+        }
+        return onHand;
+    }
+
+    // Guarded by lock; a count set by a stock change during the read is newer than the read.
+    // The caller evicts the counts it does not go on to hold.
+    private void install(Collection<Integer> productIds, Map<Integer, Integer> warmed) {
+        for (Integer productId : productIds) {
+            Stock stock = stocks.get(productId);
+            stock.pins--;
+            if (!stock.known) {
+                stock.onHand = warmed.getOrDefault(productId, 0);
+                stock.known = true;
+            }
+        }
+    }
+
+    // Guarded by lock
+    private void unpin(Collection<Integer> productIds) {
+        for (Integer productId : productIds) {
+            Stock stock = stocks.get(productId);
+            stock.pins--;
+            evictIfUnheld(productId, stock);
+        }
+    }
+
+    private void lower(Integer cartId, Map<Integer, Integer> lowered) {
+        synchronized (lock) {
+            Map<Integer, Hold> holds = holdsByCart.getOrDefault(cartId, Map.of());
+            for (Map.Entry<Integer, Integer> target : lowered.entrySet()) {
+                Hold hold = holds.get(target.getKey());
+                if (hold != null && hold.units > target.getValue()) {
+                    setUnits(cartId, target.getKey(), target.getValue());
+                }
+            }
+            dirty.add(cartId);
+        }
+    }
+
+    // Only holds still at the units this change raised them to are put back
+    private void undoRaise(Integer cartId, Map<Integer, Integer> raisedFrom, Map<Integer, Integer> targets) {
+        synchronized (lock) {
+            Map<Integer, Hold> holds = holdsByCart.getOrDefault(cartId, Map.of());
+            for (Map.Entry<Integer, Integer> raise : raisedFrom.entrySet()) {
+                Hold hold = holds.get(raise.getKey());
+                if (hold != null && hold.units == targets.get(raise.getKey())) {
+                    setUnits(cartId, raise.getKey(), raise.getValue());
+                }
+            }
+            dirty.add(cartId);
+        }
+    }
+
+    // The sold units leave the free count with the hold, before the stock change event arrives
+    private void convert(Integer cartId) {
+        int converted = 0;
+        synchronized (lock) {
+            for (Hold hold : new ArrayList<>(holdsByCart.getOrDefault(cartId, Map.of()).values())) {
+                Stock stock = stocks.get(hold.productId);
+                stock.onHand = Math.max(0, stock.onHand - hold.units);
+                converted += hold.units;
+                setUnits(cartId, hold.productId, 0);
+            }
+            dirty.add(cartId);
+        }
+        convertedCounter.increment(converted);
+    }
+
+    // Changes a hold's units, keeping the product's held count in step; 0 removes the hold
+    private Hold setUnits(Integer cartId, Integer productId, int units) {
+        Map<Integer, Hold> holds = holdsByCart.computeIfAbsent(cartId, id -> new HashMap<>());
+        Hold hold = holds.get(productId);
+        if (hold == null) {
+            if (units == 0) {
+                return null;
+            }
+            hold = new Hold(cartId, productId);
+            holds.put(productId, hold);
+        }
+
+        Stock stock = stocks.get(productId);
+        stock.held += units - hold.units;
+        heldUnits += units - hold.units;
+        hold.units = units;
+
+        if (units == 0) {
+            unlink(hold);
+            holds.remove(productId);
+            if (holds.isEmpty()) {
+                holdsByCart.remove(cartId);
+            }
+            evictIfUnheld(productId, stock);
+        }
+        return hold;
+    }
+
+    private void evictIfUnheld(Integer productId, Stock stock) {
+        if (stock != null && stock.held == 0 && stock.pins == 0) {
+            stocks.remove(productId, stock);
+        }
+    }
+
+    private void schedule(Hold hold, long deadlineTick) {
+        unlink(hold);
+        hold.deadlineTick = deadlineTick;
+        Hold bucket = wheel[(int) (deadlineTick & mask)];
+        hold.prev = bucket.prev;
+        hold.next = bucket;
+        bucket.prev.next = hold;
+        bucket.prev = hold;
+    }
+
+    private static void unlink(Hold hold) {
+        if (hold.next != null && hold.next != hold) {
+            hold.prev.next = hold.next;
+            hold.next.prev = hold.prev;
+        }
+        hold.prev = hold.next = null;
+    }
+
+    // Runs in the commit phase, ahead of the after-commit stock change listeners
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Outside a transaction there is nothing to roll back
+    private static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    // Guarded by lock
+    private static final class Stock {
+        int onHand;
+        int held;
+        // False until the read or a stock change sets onHand
+        boolean known;
+        // Calls between warm() and install(); a pinned count is not evicted
+        int pins;
+    }
+
+    // An entry in a wheel bucket's circular list; each bucket's head is a sentinel
+    private static final class Hold {
+        final Integer cartId;
+        final Integer productId;
+        int units;
+        long deadlineTick;
+        Hold prev = this;
+        Hold next = this;
+
+        Hold(Integer cartId, Integer productId) {
+            this.cartId = cartId;
+            this.productId = productId;
+        }
+    }
+}
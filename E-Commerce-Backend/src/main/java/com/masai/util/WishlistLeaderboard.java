@@ -0,0 +1,211 @@
+package com.masai.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.masai.dto.ProductWishlistCountDTO;
+import com.masai.event.WishlistChangedEvent;
+import com.masai.models.CategoryEnum;
+import com.masai.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory ranking of products by the number of wishlists holding them, per
+ * category and overall, so the most-wishlisted rail is read without a query.
+ *
+ * Every wishlisted product sits in a skip list ordered by count, then product
+ * id, so the top K of any category is its first K entries and a decrement can
+ * let the next product in. Committed wishlist changes move a product by one;
+ * all changes to a product run inside {@code rankings.compute} for it. Counts are
+ * warmed from Product.wishlistCount at startup and reset by reconciliation,
+ * unless a wishlist change has moved them since reconciliation read them.
+ */
+@Component
+public class WishlistLeaderboard {
+
+    private static final Logger log = LoggerFactory.getLogger(WishlistLeaderboard.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private static final Comparator<Ranking> BY_COUNT_DESC = Comparator
+            .comparingLong((Ranking ranking) -> ranking.count).reversed()
+            .thenComparing(ranking -> ranking.productId);
+
+    private final Map<Integer, Ranking> rankings = new ConcurrentHashMap<>();
+    private final Map<CategoryEnum, NavigableSet<Ranking>> byCategory = new ConcurrentHashMap<>();
+    private final NavigableSet<Ranking> overall = new ConcurrentSkipListSet<>(BY_COUNT_DESC);
+
+    private final ProductRepository productRepository;
+
+    @Autowired
+    public WishlistLeaderboard(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+
+        Gauge.builder("wishlist.leaderboard.products", rankings, Map::size)
+                .description("Wishlisted products held in the leaderboard")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads every product's stored wishlist count. Runs once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Pageable batch = PageRequest.of(0, LOAD_BATCH_SIZE);
+        List<ProductWishlistCountDTO> page = productRepository.getWishlistCountsAfter(0, batch);
+        while (!page.isEmpty()) {
+            page.forEach(this::set);
+            page = productRepository.getWishlistCountsAfter(page.get(page.size() - 1).getProductId(), batch);
+        }
+        log.info("Loaded {} wishlisted products into the leaderboard", rankings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWishlistChanged(WishlistChangedEvent event) {
+        adjust(event.getProductId(), event.isAdded() ? 1 : -1);
+    }
+
+    /**
+     * @param category The category to rank, or null for all categories
+     * @param limit The number of products to return
+     * @return The most wishlisted products, highest count first
+     */
+    public List<ProductWishlistCountDTO> top(CategoryEnum category, int limit) {
+        NavigableSet<Ranking> ranked = category == null ? overall : byCategory.get(category);
+        List<ProductWishlistCountDTO> top = new ArrayList<>(limit);
+        if (ranked == null) {
+            return top;
+        }
+        for (Ranking ranking : ranked) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(new ProductWishlistCountDTO(ranking.productId, ranking.category, ranking.count));
+        }
+        return top;
+    }
+
+    /**
+     * Replaces a product's count, as read from the product or counted during reconciliation.
+     *
+     * @param count The product's category and wishlist count
+     */
+    public void set(ProductWishlistCountDTO count) {
+        if (count.getCategory() == null) {
+            return;
+        }
+        rankings.compute(count.getProductId(), (productId, current) ->
+                rank(current, new Ranking(productId, count.getCategory(), count.getWishlistCount())));
+    }
+
+    /**
+     * Replaces a product's count with one counted during reconciliation, unless
+     * it no longer holds the count read before counting. A wishlist change that
+     * committed meanwhile has already moved it, and the recount may not include it.
+     *
+     * @param count The product's category and counted wishlist count
+     * @param expected The product's count here before counting, from {@link #counts}
+     * @return Whether the count was replaced
+     */
+    public boolean set(ProductWishlistCountDTO count, long expected) {
+        if (count.getCategory() == null) {
+            return false;
+        }
+        boolean[] replaced = new boolean[1];
+        rankings.compute(count.getProductId(), (productId, current) -> {
+            if ((current == null ? 0 : current.count) != expected) {
+                return current;
+            }
+            replaced[0] = true;
+            return rank(current, new Ranking(productId, count.getCategory(), count.getWishlistCount()));
+        });
+        return replaced[0];
+    }
+
+    /**
+     * @param productIds The product ids
+     * @return Each product's current count, 0 for products not ranked
+     */
+    public Map<Integer, Long> counts(Collection<Integer> productIds) {
+        Map<Integer, Long> counts = new HashMap<>();
+        for (Integer productId : productIds) {
+            Ranking ranking = rankings.get(productId);
+            counts.put(productId, ranking == null ? 0L : ranking.count);
+        }
+        return counts;
+    }
+
+    void adjust(Integer productId, long delta) {
+        boolean[] ranked = new boolean[1];
+        rankings.computeIfPresent(productId, (id, current) -> {
+            ranked[0] = true;
+            return rank(current, new Ranking(id, current.category, current.count + delta));
+        });
+        if (ranked[0]) {
+            return;
+        }
+
+        // Only a product entering the leaderboard needs its category looked up. The lookup
+        // runs outside compute, so the product may have been ranked meanwhile.
+        Optional<CategoryEnum> category = productRepository.findCategoryByProductId(productId);
+        rankings.compute(productId, (id, current) -> {
+            if (current != null) {
+                return rank(current, new Ranking(id, current.category, current.count + delta));
+            }
+            return category.map(known -> rank(null, new Ranking(id, known, delta))).orElse(null);
+        });
+    }
+
+    int rankedProducts() {
+        return rankings.size();
+    }
+
+    private Ranking rank(Ranking current, Ranking updated) {
+        NavigableSet<Ranking> category = byCategory.computeIfAbsent(updated.category,
+                key -> new ConcurrentSkipListSet<>(BY_COUNT_DESC));
+        if (current != null) {
+            byCategory.get(current.category).remove(current);
+            overall.remove(current);
+        }
+        if (updated.count <= 0) {
+            return null;
+        }
+        category.add(updated);
+        overall.add(updated);
+        return updated;
+    }
+
+    // Immutable; a count change replaces the entry in both skip lists
+    private static final class Ranking {
+
+        private final Integer productId;
+        private final CategoryEnum category;
+        private final long count;
+
+        private Ranking(Integer productId, CategoryEnum category, long count) {
+            this.productId = productId;
+            this.category = category;
+            this.count = count;
+        }
+    }
+}
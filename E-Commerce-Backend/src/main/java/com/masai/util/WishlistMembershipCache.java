@@ -0,0 +1,149 @@
+package com.masai.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.masai.event.WishlistChangedEvent;
+import com.masai.repository.WishlistItemRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory wishlist membership per wishlist, held as a sorted int[] of product
+ * ids so a listing page's "is wishlisted" flags are answered with one binary
+ * search each and no query.
+ *
+ * A wishlist is loaded on first use inside {@code memberships.compute}, and
+ * committed adds/removes are applied to the loaded array in place under the same
+ * per-key lock. Applying a change is idempotent, so a load that already saw the
+ * change is not corrupted by it. Wishlists idle longer than the TTL are evicted.
+ */
+@Component
+public class WishlistMembershipCache {
+
+    private final Map<Integer, Membership> memberships = new ConcurrentHashMap<>();
+
+    private final WishlistItemRepository wishlistItemRepository;
+    private final long idleTtlNanos;
+
+    private final Counter loadCounter;
+
+    @Autowired
+    public WishlistMembershipCache(WishlistItemRepository wishlistItemRepository,
+            @Value("${app.wishlist.membership.idle-ttl-ms:900000}") long idleTtlMillis,
+            MeterRegistry meterRegistry) {
+
+        this.wishlistItemRepository = wishlistItemRepository;
+        this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMillis);
+
+        this.loadCounter = Counter.builder("wishlist.membership.loads")
+                .description("Wishlists loaded into the membership cache")
+                .register(meterRegistry);
+        Gauge.builder("wishlist.membership.cached", memberships, Map::size)
+                .description("Wishlists held in the membership cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param wishlistId The wishlist id
+     * @param productId The product id
+     * @return true if the product is in the wishlist
+     */
+    public boolean contains(Integer wishlistId, Integer productId) {
+        return productId != null && Arrays.binarySearch(productIds(wishlistId), productId) >= 0;
+    }
+
+    /**
+     * @param wishlistId The wishlist id
+     * @param productIds The products to check
+     * @return Each requested product id mapped to whether it is in the wishlist, in request order
+     */
+    public Map<Integer, Boolean> containsAll(Integer wishlistId, Collection<Integer> productIds) {
+        int[] members = productIds(wishlistId);
+        Map<Integer, Boolean> result = new LinkedHashMap<>();
+        for (Integer productId : productIds) {
+            if (productId != null) {
+                result.put(productId, Arrays.binarySearch(members, productId) >= 0);
+            }
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWishlistChanged(WishlistChangedEvent event) {
+        memberships.computeIfPresent(event.getWishlistId(), (id, membership) -> new Membership(
+                event.isAdded() ? with(membership.productIds, event.getProductId())
+                        : without(membership.productIds, event.getProductId())));
+    }
+
+    @Scheduled(fixedDelayString = "${app.wishlist.membership.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        memberships.values().removeIf(membership -> now - membership.lastAccessNanos > idleTtlNanos);
+    }
+
+    int cachedWishlists() {
+        return memberships.size();
+    }
+
+    private int[] productIds(Integer wishlistId) {
+        Membership membership = memberships.computeIfAbsent(wishlistId, this::load);
+        membership.lastAccessNanos = System.nanoTime();
+        return membership.productIds;
+    }
+
+    private Membership load(Integer wishlistId) {
+        List<Integer> productIds = wishlistItemRepository.findProductIdsByWishlistId(wishlistId);
+        int[] sorted = productIds.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        loadCounter.increment();
+        return new Membership(sorted);
+    }
+
+    private static int[] with(int[] productIds, int productId) {
+        int index = Arrays.binarySearch(productIds, productId);
+        if (index >= 0) {
+            return productIds;
+        }
+        int insertAt = -index - 1;
+        int[] updated = new int[productIds.length + 1];
+        System.arraycopy(productIds, 0, updated, 0, insertAt);
+        updated[insertAt] = productId;
+        System.arraycopy(productIds, insertAt, updated, insertAt + 1, productIds.length - insertAt);
+        return updated;
+    }
+
+    private static int[] without(int[] productIds, int productId) {
+        int index = Arrays.binarySearch(productIds, productId);
+        if (index < 0) {
+            return productIds;
+        }
+        int[] updated = new int[productIds.length - 1];
+        System.arraycopy(productIds, 0, updated, 0, index);
+        System.arraycopy(productIds, index + 1, updated, index, productIds.length - index - 1);
+        return updated;
+    }
+
+    // The array is never mutated; changes install a new Membership
+    private static final class Membership {
+
+        private final int[] productIds;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private Membership(int[] productIds) {
+            this.productIds = productIds;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package com.masai.util;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.exception.CartItemNotFound;
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+import com.masai.repository.CartItemRepository;
+import com.masai.repository.CartRepository;
+import com.masai.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps active carts in memory and writes changed carts to the cart tables in
+ * batches, so adding to a cart costs no database write on the request path.
+ *
+ * A cart is loaded on first use. Each change is applied under the cart's lock to
+ * a copy, which then replaces the published cart, so readers never see a half
+ * applied change and a failed change leaves nothing behind. Changed carts are
+ * marked dirty and written by a scheduled flush, one transaction per batch, that
+ * matches the stored items to the cart's by item id. Stored rows are only
+ * updated through the cart lines that carry their id, and a line without an id
+ * always gets a new row, because rows a checkout linked to an order stay on the
+ * stored cart until the next flush and must not be reused. Checkout flushes its cart
+ * first and shutdown flushes everything; a failed write marks its carts dirty
+ * again. Clean carts are evicted once idle.
+ *
+ * Changes are not rolled back with the request's transaction, and carts must
+ * only be changed through one instance.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "write-behind")
+public class WriteBehindCartStore implements CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private final Map<Integer, Entry> carts = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long idleTtlNanos;
+
+    private final Counter flushedCounter;
+    private final Counter failedCounter;
+
+    @Autowired
+    public WriteBehindCartStore(CartRepository cartRepository,
+            CartItemRepository cartItemRepository,
+            ProductRepository productRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.cart.write-behind.batch-size:200}") int batchSize,
+            @Value("${app.cart.write-behind.idle-ttl-ms:1800000}") long idleTtlMillis,
+            MeterRegistry meterRegistry) {
+
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMillis);
+
+        this.flushedCounter = flushCounter(meterRegistry, "written");
+        this.failedCounter = flushCounter(meterRegistry, "failed");
+        Gauge.builder("cart.store.cached", carts, Map::size)
+                .description("Carts held in memory")
+                .register(meterRegistry);
+        Gauge.builder("cart.store.dirty", dirty, Set::size)
+                .description("Carts with changes not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    private static Counter flushCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("cart.store.flushes")
+                .description("Carts written to the database, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Cart load(Integer cartId) {
+        Entry entry = entry(cartId);
+        entry.lastAccessNanos = System.nanoTime();
+        return entry.cart;
+    }
+
+    @Override
+    public Cart update(Integer cartId, Consumer<Cart> mutation) {
+        return update(cartId, removingNothing(mutation), true);
+    }
+
+    @Override
+    public Cart adjust(Integer cartId, Consumer<Cart> mutation) {
+        return update(cartId, removingNothing(mutation), false);
+    }
+
+    @Override
+    public Cart updateItems(Integer cartId, Function<Cart, Collection<CartItem>> mutation) {
+        return update(cartId, mutation, true);
+    }
+
+    private static Function<Cart, Collection<CartItem>> removingNothing(Consumer<Cart> mutation) {
+        return cart -> {
+            mutation.accept(cart);
+            return List.of();
+        };
+    }
+
+    private Cart update(Integer cartId, Function<Cart, Collection<CartItem>> mutation, boolean touch) {
+        return locked(cartId, entry -> {
+            Cart working = copy(entry.cart);
+            Collection<CartItem> removed = mutation.apply(working);
+            if (touch) {
+                working.setLastModified(LocalDateTime.now());
+            }
+            entry.cart = working;
+            // Lines never written have no row to delete
+            removed.stream().map(CartItem::getCartItemId).filter(Objects::nonNull).forEach(entry.pendingDeletes::add);
+            entry.lastAccessNanos = System.nanoTime();
+            dirty.add(cartId);
+            return working;
+        });
+    }
+
+    @Override
+    public void flush(Integer cartId) {
+        if (dirty.remove(cartId)) {
+            write(List.of(cartId));
+        }
+    }
+
+    @Override
+    public void discard(Integer cartId) {
+        Entry entry = carts.get(cartId);
+        if (entry == null) {
+            return;
+        }
+        entry.lock.lock();
+        try {
+            if (entry.flushing == 0 && !dirty.contains(cartId)) {
+                entry.evicted = true;
+                carts.remove(cartId, entry);
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes dirty carts, batch-size carts per transaction, stopping at the first
+     * failed batch.
+     *
+     * @return The number of carts written
+     */
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.flush-interval-ms:1000}")
+    public int flushDirty() {
+        int written = 0;
+        try {
+            while (!dirty.isEmpty()) {
+                List<Integer> batch = new ArrayList<>(batchSize);
+                for (Iterator<Integer> ids = dirty.iterator(); ids.hasNext() && batch.size() < batchSize; ) {
+                    batch.add(ids.next());
+                    ids.remove();
+                }
+                written += write(batch);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to write dirty carts; they will be retried", e);
+        }
+        evictIdle();
+        return written;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushDirty();
+    }
+
+    int cachedCarts() {
+        return carts.size();
+    }
+
+    int dirtyCarts() {
+        return dirty.size();
+    }
+
+    private Entry entry(Integer cartId) {
+        return carts.computeIfAbsent(cartId, this::read);
+    }
+
+    // Retries on a fresh entry if this one was evicted before its lock was taken
+    private <T> T locked(Integer cartId, Function<Entry, T> action) {
+        while (true) {
+            Entry entry = entry(cartId);
+            entry.lock.lock();
+            try {
+                if (!entry.evicted) {
+                    return action.apply(entry);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    private Entry read(Integer cartId) {
+        // The copy initialises the lazy item list while the session is open
+        return transactionTemplate.execute(status -> new Entry(copy(cartRepository.findById(cartId)
+                .orElseThrow(() -> new CartItemNotFound("cart Not found by Id")))));
+    }
+
+    // The caller has already taken the carts out of the dirty set
+    private int write(List<Integer> cartIds) {
+        List<Snapshot> snapshots = new ArrayList<>(cartIds.size());
+        for (Integer cartId : cartIds) {
+            Entry entry = carts.get(cartId);
+            if (entry == null) {
+                continue;
+            }
+            entry.lock.lock();
+            try {
+                snapshots.add(new Snapshot(cartId, entry, entry.cart, new HashSet<>(entry.pendingDeletes)));
+                entry.pendingDeletes.clear();
+                entry.flushing++;
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+
+        // Inside a checkout the write joins its transaction, so completion waits for that to commit
+        boolean[] registered = new boolean[1];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int completion) {
+                            completed(snapshots, completion == STATUS_COMMITTED);
+                        }
+                    });
+                    registered[0] = true;
+                }
+                snapshots.forEach(this::reconcile);
+            });
+        } catch (RuntimeException e) {
+            if (!registered[0]) {
+                completed(snapshots, false);
+            }
+            throw e;
+        }
+        if (!registered[0]) {
+            completed(snapshots, true);
+        }
+        return snapshots.size();
+    }
+
+    private void reconcile(Snapshot snapshot) {
+        Cart stored = cartRepository.findById(snapshot.cartId).orElse(null);
+        if (stored == null) {
+            log.warn("Cart {} no longer exists; its in-memory changes are dropped", snapshot.cartId);
+            return;
+        }
+
+        Map<Integer, CartItem> storedById = new HashMap<>();
+        for (CartItem row : stored.getCartItems()) {
+            storedById.put(row.getCartItemId(), row);
+        }
+
+        List<CartItem> rows = new ArrayList<>(snapshot.cart.getCartItems().size());
+        for (CartItem item : snapshot.cart.getCartItems()) {
+            CartItem row = item.getCartItemId() == null ? null : storedById.remove(item.getCartItemId());
+            if (row == null) {
+                row = new CartItem();
+                row.setCartProduct(productRepository.getReferenceById(item.getCartProduct().getProductId()));
+            }
+            row.setCartItemQuantity(item.getCartItemQuantity());
+            row.setUnitPriceCents(item.getUnitPriceCents());
+            rows.add(row);
+        }
+
+        stored.getCartItems().clear();
+        stored.getCartItems().addAll(rows);
+        stored.setCartTotal(snapshot.cart.getCartTotal());
+        stored.setLastModified(snapshot.cart.getLastModified());
+
+        // Rows dropped from the cart stay behind (orders share them) unless a delete was requested
+        for (CartItem row : storedById.values()) {
+            if (snapshot.deletes.contains(row.getCartItemId())) {
+                cartItemRepository.delete(row);
+            }
+        }
+        snapshot.rows = rows;
+    }
+
+    private void completed(List<Snapshot> snapshots, boolean committed) {
+        if (committed) {
+            flushedCounter.increment(snapshots.size());
+        } else {
+            failedCounter.increment(snapshots.size());
+        }
+        for (Snapshot snapshot : snapshots) {
+            Entry entry = snapshot.entry;
+            entry.lock.lock();
+            try {
+                entry.flushing--;
+                if (!committed) {
+                    entry.pendingDeletes.addAll(snapshot.deletes);
+                    dirty.add(snapshot.cartId);
+                } else if (snapshot.rows != null) {
+                    entry.cart = withItemIds(entry.cart, snapshot.cart, snapshot.rows);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - idleTtlNanos;
+        for (Entry entry : carts.values()) {
+            if (!entry.lock.tryLock()) {
+                continue;
+            }
+            try {
+                Integer cartId = entry.cart.getCartId();
+                if (entry.lastAccessNanos - cutoff > 0 || entry.flushing > 0 || dirty.contains(cartId)) {
+                    continue;
+                }
+                entry.evicted = true;
+                carts.remove(cartId, entry);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    // Items are copied so the published cart is never changed; products are shared
+    private static Cart copy(Cart cart) {
+        List<CartItem> items = new ArrayList<>(cart.getCartItems().size());
+        for (CartItem item : cart.getCartItems()) {
+            items.add(new CartItem(item.getCartItemId(), item.getCartProduct(), item.getCartItemQuantity(),
+                    item.getUnitPriceCents()));
+        }
+        return new Cart(cart.getCartId(), items, cart.getCartTotal(), cart.getCustomer(), cart.getVersion(),
+                cart.getLastModified());
+    }
+
+    // Lines written without an id get their new rows' ids, in order per product, without disturbing a later change;
+    // a LinkedList since an id is null until the row is inserted
+    private static Cart withItemIds(Cart cart, Cart written, List<CartItem> rows) {
+        Map<Integer, Deque<Integer>> newIdsByProduct = new HashMap<>();
+        List<CartItem> lines = written.getCartItems();
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).getCartItemId() == null) {
+                newIdsByProduct.computeIfAbsent(lines.get(i).getCartProduct().getProductId(), id -> new LinkedList<>())
+                        .add(rows.get(i).getCartItemId());
+            }
+        }
+
+        Cart updated = copy(cart);
+        for (CartItem item : updated.getCartItems()) {
+            Deque<Integer> ids = newIdsByProduct.get(item.getCartProduct().getProductId());
+            if (item.getCartItemId() == null && ids != null && !ids.isEmpty()) {
+                item.setCartItemId(ids.poll());
+            }
+        }
+        return updated;
+    }
+
+    // cart is replaced, never mutated; the rest is guarded by lock
+    private static final class Entry {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Set<Integer> pendingDeletes = new HashSet<>();
+        private volatile Cart cart;
+        private volatile long lastAccessNanos = System.nanoTime();
+        private int flushing;
+        private boolean evicted;
+
+        private Entry(Cart cart) {
+            this.cart = cart;
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final Integer cartId;
+        private final Entry entry;
+        private final Cart cart;
+        private final Set<Integer> deletes;
+        private List<CartItem> rows;
+
+        private Snapshot(Integer cartId, Entry entry, Cart cart, Set<Integer> deletes) {
+            this.cartId = cartId;
+            this.entry = entry;
+            this.cart = cart;
+            this.deletes = deletes;
+        }
+    }
+}
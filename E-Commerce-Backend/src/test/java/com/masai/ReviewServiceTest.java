@@ -1,12 +1,14 @@
 package com.masai;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,19 +16,34 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.masai.exception.LoginException;
 import com.masai.exception.ReviewException;
 import com.masai.models.Customer;
 import com.masai.models.Product;
 import com.masai.models.Review;
+import com.masai.models.ReviewModerationAction;
+import com.masai.dto.CursorPageDTO;
+import com.masai.dto.CustomerPrincipal;
+import com.masai.dto.ProductRatingAggregateDTO;
+import com.masai.dto.ReviewModerationRequestDTO;
+import com.masai.dto.ReviewModerationResultDTO;
+import com.masai.dto.ReviewModerationStateDTO;
 import com.masai.dto.ReviewRequestDTO;
 import com.masai.dto.ReviewResponseDTO;
+import com.masai.dto.ReviewSummaryDTO;
 import com.masai.models.UserSession;
 import com.masai.repository.CustomerRepository;
 import com.masai.repository.ProductRepository;
 import com.masai.repository.ReviewRepository;
 import com.masai.service.ReviewServiceImpl;
+import com.masai.util.CursorCodec;
+import com.masai.util.CustomerPrincipalResolver;
+import com.masai.util.HelpfulVoteBuffer;
 import com.masai.util.TokenValidationUtil;
 
 /**
@@ -48,6 +65,15 @@ class ReviewServiceTest {
     @Mock
     private TokenValidationUtil tokenValidationUtil;
 
+    @Mock
+    private CustomerPrincipalResolver customerPrincipalResolver;
+
+    @Mock
+    private HelpfulVoteBuffer helpfulVoteBuffer;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private ReviewServiceImpl reviewService;
 
@@ -55,6 +81,7 @@ class ReviewServiceTest {
     private Product product;
     private ReviewRequestDTO requestDTO;
     private UserSession userSession;
+    private CustomerPrincipal principal;
 
     @BeforeEach
     void setUp() {
@@ -75,14 +102,15 @@ class ReviewServiceTest {
         userSession = new UserSession();
         userSession.setUserId(1);
         userSession.setToken("customer_testtoken");
+
+        principal = new CustomerPrincipal(1, 1, 1);
     }
 
     @Test
     void testAddReview_Success() throws Exception {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
         when(productRepository.findById(1)).thenReturn(Optional.of(product));
-        when(reviewRepository.existsByCustomerAndProduct(any(), any())).thenReturn(false);
+        when(reviewRepository.existsByCustomer_CustomerIdAndProduct_ProductId(1, 1)).thenReturn(false);
 
         Review savedReview = new Review();
         savedReview.setId(10L);
@@ -101,10 +129,9 @@ class ReviewServiceTest {
 
     @Test
     void testAddReview_DuplicateReview_ThrowsException() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
         when(productRepository.findById(1)).thenReturn(Optional.of(product));
-        when(reviewRepository.existsByCustomerAndProduct(any(), any())).thenReturn(true);
+        when(reviewRepository.existsByCustomer_CustomerIdAndProduct_ProductId(1, 1)).thenReturn(true);
 
         assertThrows(ReviewException.class, () -> 
             reviewService.addReview(requestDTO, "customer_testtoken"));
@@ -114,15 +141,285 @@ class ReviewServiceTest {
     void testAddReview_InvalidRating_ThrowsException() {
         requestDTO.setRating(6);  // Invalid >5
 
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
         when(productRepository.findById(1)).thenReturn(Optional.of(product));
-        // Note: existsByCustomerAndProduct is not stubbed because the invalid rating
+        // Note: the duplicate check is not stubbed because the invalid rating
         // check happens before that call, making this stubbing unnecessary
 
         assertThrows(ReviewException.class, () ->
             reviewService.addReview(requestDTO, "customer_testtoken"));
     }
 
-    // Additional edge case tests (duplicate, invalid rating, etc.) follow similar mocking pattern...
+    @Test
+    void testApproveReview_AppliesRatingDelta() throws Exception {
+        Review review = pendingReview();
+        when(reviewRepository.findById(10L)).thenReturn(Optional.of(review));
+        when(reviewRepository.save(review)).thenReturn(review);
+
+        reviewService.approveReview(10L, "seller_testtoken");
+
+        verify(productRepository).applyRatingDelta(1, 4, 1, 0, 0, 0, 1, 0);
+    }
+
+    @Test
+    void testApproveReview_AlreadyApproved_NoDelta() throws Exception {
+        Review review = pendingReview();
+        review.setIsApproved(true);
+        when(reviewRepository.findById(10L)).thenReturn(Optional.of(review));
+        when(reviewRepository.save(review)).thenReturn(review);
+
+        reviewService.approveReview(10L, "seller_testtoken");
+
+        verify(productRepository, never()).applyRatingDelta(anyInt(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void testUpdateReview_ApprovedReview_ShiftsRatingSum() throws Exception {
+        Review review = pendingReview();
+        review.setIsApproved(true);
+        requestDTO.setRating(2);
+        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
+        when(reviewRepository.findById(10L)).thenReturn(Optional.of(review));
+        when(reviewRepository.save(review)).thenReturn(review);
+
+        reviewService.updateReview(10L, requestDTO, "customer_testtoken");
+
+        verify(productRepository).applyRatingDelta(1, -2, 0, 0, 1, 0, -1, 0);
+    }
+
+    @Test
+    void testDeleteReview_ApprovedReview_RemovesFromAggregates() throws Exception {
+        Review review = pendingReview();
+        review.setIsApproved(true);
+        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
+        when(reviewRepository.findById(10L)).thenReturn(Optional.of(review));
+        when(reviewRepository.save(review)).thenReturn(review);
+
+        reviewService.deleteReview(10L, "customer_testtoken");
+
+        verify(productRepository).applyRatingDelta(1, -4, -1, 0, 0, 0, -1, 0);
+    }
+
+    @Test
+    void testDeleteReview_PendingReview_NoDelta() throws Exception {
+        Review review = pendingReview();
+        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
+        when(reviewRepository.findById(10L)).thenReturn(Optional.of(review));
+        when(reviewRepository.save(review)).thenReturn(review);
+
+        reviewService.deleteReview(10L, "customer_testtoken");
+
+        verify(productRepository, never()).applyRatingDelta(anyInt(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void testCalculateProductRating_ReadsProductAggregates() {
+        when(productRepository.getReviewSummary(1))
+            .thenReturn(Optional.of(new ReviewSummaryDTO(4.5, 2L, 1, 0L, 0L, 0L, 1L, 1L)));
+
+        ReviewSummaryDTO summary = reviewService.calculateProductRating(1);
+
+        assertEquals(4.5, summary.getAverageRating());
+        assertEquals(2L, summary.getTotalReviews());
+        assertEquals(1L, summary.getRatingHistogram().get(5));
+        assertEquals(0L, summary.getRatingHistogram().get(1));
+        verify(reviewRepository, never()).calculateAverageRating(anyInt());
+    }
+
+    @Test
+    void testReconcileProductRatings_FixesDriftedCounters() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(productRepository.getRatingAggregatesAfter(eq(0), any(Pageable.class)))
+            .thenReturn(List.of(new ProductRatingAggregateDTO(1, 9L, 2L, 0L, 0L, 0L, 1L, 1L),
+                new ProductRatingAggregateDTO(2, 5L, 1L, 0L, 0L, 0L, 0L, 1L)));
+        when(productRepository.getRatingAggregatesAfter(eq(2), any(Pageable.class)))
+            .thenReturn(List.of(new ProductRatingAggregateDTO(3, 4L, 1L, 0L, 0L, 0L, 1L, 0L)));
+        when(productRepository.getRatingAggregatesAfter(eq(3), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+        when(reviewRepository.aggregateApprovedRatings(List.of(1, 2)))
+            .thenReturn(List.of(new ProductRatingAggregateDTO(1, 12L, 3L, 0L, 0L, 1L, 1L, 1L),
+                new ProductRatingAggregateDTO(2, 5L, 1L, 0L, 0L, 0L, 0L, 1L)));
+        when(reviewRepository.aggregateApprovedRatings(List.of(3)))
+            .thenReturn(List.of(new ProductRatingAggregateDTO(3, 4L, 1L, 0L, 0L, 0L, 1L, 0L)));
+
+        int corrected = reviewService.reconcileProductRatings();
+
+        assertEquals(1, corrected);
+        // Each batch is corrected in a transaction of its own
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(productRepository).setRatingAggregate(new ProductRatingAggregateDTO(1, 12L, 3L, 0L, 0L, 1L, 1L, 1L), 4.0);
+        verify(productRepository, times(1)).setRatingAggregate(any(ProductRatingAggregateDTO.class), anyDouble());
+    }
+
+    @Test
+    void testGetProductReviewsByCursor_FirstPageHasNextCursor() {
+        ReviewResponseDTO newest = reviewDTO(3L, LocalDateTime.of(2024, 5, 3, 10, 0), 0);
+        ReviewResponseDTO middle = reviewDTO(2L, LocalDateTime.of(2024, 5, 2, 10, 0), 0);
+        ReviewResponseDTO oldest = reviewDTO(1L, LocalDateTime.of(2024, 5, 1, 10, 0), 0);
+        when(reviewRepository.findNewestReviews(eq(1), any(Pageable.class)))
+            .thenReturn(List.of(newest, middle, oldest));
+
+        CursorPageDTO<ReviewResponseDTO> page = reviewService.getProductReviewsByCursor(1, "newest", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        verify(reviewRepository).findNewestReviews(1, PageRequest.of(0, 3));
+    }
+
+    @Test
+    void testGetProductReviewsByCursor_ContinuesFromCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 2, 10, 0);
+        String cursor = CursorCodec.encode(createdAt, 2L);
+        when(reviewRepository.findNewestReviewsAfter(eq(1), eq(createdAt), eq(2L), any(Pageable.class)))
+            .thenReturn(List.of(reviewDTO(1L, LocalDateTime.of(2024, 5, 1, 10, 0), 0)));
+
+        CursorPageDTO<ReviewResponseDTO> page = reviewService.getProductReviewsByCursor(1, "newest", cursor, 2);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetProductReviewsByCursor_HelpfulSort() {
+        String cursor = CursorCodec.encode(7, 5L);
+        when(reviewRepository.findMostHelpfulReviewsAfter(eq(1), eq(7), eq(5L), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+
+        CursorPageDTO<ReviewResponseDTO> page = reviewService.getProductReviewsByCursor(1, "helpful", cursor, 10);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetProductReviewsByCursor_InvalidCursor_ThrowsException() {
+        String cursor = CursorCodec.encode("not-a-date", 2L);
+
+        assertThrows(ReviewException.class, () ->
+            reviewService.getProductReviewsByCursor(1, "newest", cursor, 10));
+        verifyNoInteractions(reviewRepository);
+    }
+
+    @Test
+    void testGetProductReviewsByCursor_UnsupportedSort_ThrowsException() {
+        assertThrows(ReviewException.class, () ->
+            reviewService.getProductReviewsByCursor(1, "rating", null, 10));
+    }
+
+    @Test
+    void testMarkReviewHelpful_RecordsVoteAndMergesPendingCount() throws Exception {
+        Review review = pendingReview();
+        review.setIsApproved(true);
+        review.setHelpfulCount(3);
+        UserSession voter = new UserSession();
+        voter.setUserId(2);
+        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(voter);
+        when(reviewRepository.findById(10L)).thenReturn(Optional.of(review));
+        when(helpfulVoteBuffer.pendingVotes(10L)).thenReturn(2);
+
+        ReviewResponseDTO response = reviewService.markReviewHelpful(10L, "customer_voter");
+
+        verify(helpfulVoteBuffer).recordVote(10L, 2);
+        assertEquals(5, response.getHelpfulCount());
+        verify(reviewRepository, never()).save(any(Review.class));
+    }
+
+    @Test
+    void testMarkReviewHelpful_OwnReview_ThrowsException() {
+        Review review = pendingReview();
+        review.setIsApproved(true);
+        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
+        when(reviewRepository.findById(10L)).thenReturn(Optional.of(review));
+
+        assertThrows(ReviewException.class, () ->
+            reviewService.markReviewHelpful(10L, "customer_testtoken"));
+        verifyNoInteractions(helpfulVoteBuffer);
+    }
+
+    @Test
+    void testMarkReviewHelpful_PendingReview_ThrowsException() {
+        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
+        when(reviewRepository.findById(10L)).thenReturn(Optional.of(pendingReview()));
+
+        assertThrows(ReviewException.class, () ->
+            reviewService.markReviewHelpful(10L, "customer_testtoken"));
+    }
+
+    @Test
+    void testModerateReviews_ApproveGroupsDeltasPerProduct() throws Exception {
+        when(reviewRepository.findModerationStates(anyCollection())).thenReturn(List.of(
+            new ReviewModerationStateDTO(10L, 1, 5, false, false),
+            new ReviewModerationStateDTO(11L, 1, 3, false, false),
+            new ReviewModerationStateDTO(12L, 2, 4, false, false),
+            new ReviewModerationStateDTO(13L, 2, 2, true, false)));
+        when(reviewRepository.approveReviews(eq(List.of(10L, 11L, 12L)), any(LocalDateTime.class))).thenReturn(3);
+
+        ReviewModerationResultDTO result = reviewService.moderateReviews(
+            new ReviewModerationRequestDTO(List.of(10L, 11L, 12L, 13L, 11L, 99L), ReviewModerationAction.APPROVE),
+            "seller_testtoken");
+
+        verify(productRepository).applyRatingDelta(1, 8, 2, 0, 0, 1, 0, 1);
+        verify(productRepository).applyRatingDelta(2, 4, 1, 0, 0, 0, 1, 0);
+        verify(productRepository, times(2)).applyRatingDelta(anyInt(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+        verify(reviewRepository, never()).save(any(Review.class));
+        assertEquals(5, result.getRequestedReviews());
+        assertEquals(3, result.getUpdatedReviews());
+        assertEquals(2, result.getAffectedProducts());
+        assertEquals(List.of(99L), result.getNotFound());
+    }
+
+    @Test
+    void testModerateReviews_RejectRemovesOnlyCountedReviews() throws Exception {
+        when(reviewRepository.findModerationStates(anyCollection())).thenReturn(List.of(
+            new ReviewModerationStateDTO(10L, 1, 5, true, false),
+            new ReviewModerationStateDTO(11L, 1, 3, false, false),
+            new ReviewModerationStateDTO(12L, 1, 4, true, true)));
+        when(reviewRepository.softDeleteReviews(eq(List.of(10L, 11L)), any(LocalDateTime.class))).thenReturn(2);
+
+        ReviewModerationResultDTO result = reviewService.moderateReviews(
+            new ReviewModerationRequestDTO(List.of(10L, 11L, 12L), ReviewModerationAction.REJECT),
+            "seller_testtoken");
+
+        verify(productRepository).applyRatingDelta(1, -5, -1, 0, 0, 0, 0, -1);
+        assertEquals(2, result.getUpdatedReviews());
+    }
+
+    @Test
+    void testModerateReviews_ConcurrentChange_RecomputesAffectedProducts() throws Exception {
+        when(reviewRepository.findModerationStates(anyCollection())).thenReturn(List.of(
+            new ReviewModerationStateDTO(10L, 1, 5, false, false),
+            new ReviewModerationStateDTO(11L, 1, 3, false, false)));
+        when(reviewRepository.approveReviews(anyCollection(), any(LocalDateTime.class))).thenReturn(1);
+        when(reviewRepository.aggregateApprovedRatings(Set.of(1)))
+            .thenReturn(List.of(new ProductRatingAggregateDTO(1, 8L, 2L, 0L, 0L, 1L, 0L, 1L)));
+
+        reviewService.moderateReviews(
+            new ReviewModerationRequestDTO(List.of(10L, 11L), ReviewModerationAction.APPROVE), "seller_testtoken");
+
+        verify(productRepository).setRatingAggregate(new ProductRatingAggregateDTO(1, 8L, 2L, 0L, 0L, 1L, 0L, 1L), 4.0);
+        verify(productRepository, never()).applyRatingDelta(anyInt(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void testModerateReviews_EmptyBatch_ThrowsException() {
+        assertThrows(ReviewException.class, () -> reviewService.moderateReviews(
+            new ReviewModerationRequestDTO(List.of(), ReviewModerationAction.APPROVE), "seller_testtoken"));
+        verifyNoInteractions(reviewRepository);
+    }
+
+    private ReviewResponseDTO reviewDTO(Long id, LocalDateTime createdAt, Integer helpfulCount) {
+        return new ReviewResponseDTO(id, 4, "Title", "Comment", createdAt, createdAt, true, helpfulCount, 1, 1);
+    }
+
+    private Review pendingReview() {
+        Review review = new Review();
+        review.setId(10L);
+        review.setRating(4);
+        review.setIsApproved(false);
+        review.setIsDeleted(false);
+        review.setCustomer(customer);
+        review.setProduct(product);
+        return review;
+    }
 }
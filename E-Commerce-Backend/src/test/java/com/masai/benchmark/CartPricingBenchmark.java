@@ -0,0 +1,69 @@
+package com.masai.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+import com.masai.models.Product;
+import com.masai.util.CartPricing;
+
+/**
+ * Pricing a 200-line cart: a full re-total from line snapshots, and repricing
+ * one product's line. Not run by the test suite; after mvn test-compile, run
+ * org.openjdk.jmh.Main CartPricingBenchmark (or this class) on the test classpath,
+ * e.g. from mvn dependency:build-classpath -Dmdep.includeScope=test.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartPricingBenchmark {
+
+    private static final int LINES = 200;
+
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        cart = new Cart();
+        cart.setCartItems(new ArrayList<>(LINES));
+        for (int i = 1; i <= LINES; i++) {
+            Product product = new Product();
+            product.setProductId(i);
+            product.setPrice(i * 1.37);
+            cart.getCartItems().add(new CartItem(i, product, 1 + i % 5, null));
+        }
+        CartPricing.price(cart);
+    }
+
+    @Benchmark
+    public long priceCart() {
+        return CartPricing.price(cart);
+    }
+
+    @Benchmark
+    public boolean repriceOneProduct() {
+        return CartPricing.reprice(cart, LINES / 2, 12_345L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CartPricingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
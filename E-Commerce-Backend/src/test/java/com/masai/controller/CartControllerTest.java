@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,6 +17,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import com.masai.dto.CartDTO;
+import com.masai.dto.CartLineDTO;
+import com.masai.dto.CartUpdateDTO;
 import com.masai.models.Cart;
 import com.masai.service.CartService;
 
@@ -85,4 +89,16 @@ class CartControllerTest {
         assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
         assertNotNull(response.getBody());
     }
+
+    @Test
+    @DisplayName("Should update several cart lines")
+    void testUpdateCartHandler() {
+        CartUpdateDTO update = new CartUpdateDTO(Arrays.asList(new CartLineDTO(1, 3)));
+        when(cartService.updateCart(update, "token")).thenReturn(cart);
+
+        ResponseEntity<Cart> response = cartController.updateCartHandler(update, "token");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+    }
 }
@@ -16,7 +16,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.masai.dto.InventoryAlertBulkRequestDTO;
+import com.masai.dto.InventoryAlertBulkResultDTO;
 import com.masai.dto.InventoryAlertRequestDTO;
 import com.masai.dto.InventoryAlertResponseDTO;
 import com.masai.dto.InventoryAlertSummaryDTO;
@@ -118,6 +121,21 @@ class InventoryAlertControllerTest {
         assertNotNull(response.getBody());
     }
 
+    @Test
+    @DisplayName("Should bulk configure alerts")
+    void testBulkConfigureAlerts() {
+        InventoryAlertBulkRequestDTO bulkRequest = new InventoryAlertBulkRequestDTO();
+        bulkRequest.setThresholdQuantity(5);
+        when(inventoryAlertService.bulkConfigureAlerts(anyString(), any(InventoryAlertBulkRequestDTO.class)))
+            .thenReturn(new InventoryAlertBulkResultDTO(3, 1));
+
+        ResponseEntity<InventoryAlertBulkResultDTO> response =
+            inventoryAlertController.bulkConfigureAlerts("token", bulkRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody().getCreatedAlerts());
+    }
+
     @Test
     @DisplayName("Should get triggered alerts")
     void testGetTriggeredAlerts() {
@@ -131,6 +149,15 @@ class InventoryAlertControllerTest {
         assertNotNull(response.getBody());
     }
 
+    @Test
+    @DisplayName("Should stream triggered alerts")
+    void testStreamTriggeredAlerts() {
+        SseEmitter emitter = new SseEmitter();
+        when(inventoryAlertService.subscribeToTriggeredAlerts("token")).thenReturn(emitter);
+
+        assertSame(emitter, inventoryAlertController.streamTriggeredAlerts("token"));
+    }
+
     @Test
     @DisplayName("Should get alert by ID")
     void testGetAlertById() {
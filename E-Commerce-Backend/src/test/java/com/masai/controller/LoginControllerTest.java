@@ -13,6 +13,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 
 import com.masai.dto.CustomerDTO;
 import com.masai.dto.SellerDTO;
@@ -90,9 +91,11 @@ class LoginControllerTest {
     @Test
     @DisplayName("Should login customer successfully")
     void testLoginCustomerHandler() {
-        when(loginService.loginCustomer(any(CustomerDTO.class))).thenReturn(userSession);
+        when(loginService.loginCustomer(any(CustomerDTO.class), eq("10.0.0.7"))).thenReturn(userSession);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.7");
 
-        ResponseEntity<UserSession> response = loginController.loginCustomerHandler(customerDTO);
+        ResponseEntity<UserSession> response = loginController.loginCustomerHandler(customerDTO, request);
 
         assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -130,9 +133,11 @@ class LoginControllerTest {
         UserSession sellerSession = new UserSession();
         sellerSession.setToken("seller_token");
         sellerSession.setUserId(1);
-        when(loginService.loginSeller(any(SellerDTO.class))).thenReturn(sellerSession);
+        when(loginService.loginSeller(any(SellerDTO.class), eq("10.0.0.7"))).thenReturn(sellerSession);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.7");
 
-        ResponseEntity<UserSession> response = loginController.loginSellerHandler(sellerDTO);
+        ResponseEntity<UserSession> response = loginController.loginSellerHandler(sellerDTO, request);
 
         assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
         assertNotNull(response.getBody());
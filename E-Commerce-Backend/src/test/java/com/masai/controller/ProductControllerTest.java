@@ -19,6 +19,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import com.masai.dto.AlsoBoughtProductDTO;
+import com.masai.dto.MostWishlistedProductDTO;
 import com.masai.dto.ProductDTO;
 import com.masai.dto.ProductSearchFilterDTO;
 import com.masai.models.CategoryEnum;
@@ -131,6 +133,34 @@ class ProductControllerTest {
         assertNotNull(response.getBody());
     }
 
+    @Test
+    @DisplayName("Should get most wishlisted products of a category")
+    void testGetMostWishlistedHandler() {
+        MostWishlistedProductDTO top = new MostWishlistedProductDTO();
+        top.setProductId(1);
+        top.setWishlistCount(12L);
+        when(productService.getMostWishlisted(CategoryEnum.BOOKS, 10)).thenReturn(Arrays.asList(top));
+
+        ResponseEntity<List<MostWishlistedProductDTO>> response = productController.getMostWishlistedHandler("books", 10);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(12L, response.getBody().get(0).getWishlistCount());
+    }
+
+    @Test
+    @DisplayName("Should get products customers also bought")
+    void testGetAlsoBoughtHandler() {
+        AlsoBoughtProductDTO top = new AlsoBoughtProductDTO();
+        top.setProductId(2);
+        top.setBoughtTogetherCount(3L);
+        when(productService.getAlsoBought(1, 10)).thenReturn(Arrays.asList(top));
+
+        ResponseEntity<List<AlsoBoughtProductDTO>> response = productController.getAlsoBoughtHandler(1, 10);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3L, response.getBody().get(0).getBoughtTogetherCount());
+    }
+
     @Test
     @DisplayName("Should get products by status")
     void testGetProductsWithStatusHandler() {
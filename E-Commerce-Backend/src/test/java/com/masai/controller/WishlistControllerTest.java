@@ -18,6 +18,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import com.masai.dto.CursorPageDTO;
 import com.masai.dto.WishlistResponseDTO;
 import com.masai.models.Cart;
 import com.masai.service.WishlistService;
@@ -81,6 +82,18 @@ class WishlistControllerTest {
         assertEquals("Product removed", response.getBody().get("message"));
     }
 
+    @Test
+    @DisplayName("Should get one page of the wishlist")
+    void testGetWishlistPage() {
+        CursorPageDTO<WishlistResponseDTO> page = new CursorPageDTO<>(Arrays.asList(new WishlistResponseDTO()), "next");
+        when(wishlistService.getWishlistPage(null, 20, "token")).thenReturn(page);
+
+        ResponseEntity<CursorPageDTO<WishlistResponseDTO>> response = wishlistController.getWishlistPage(null, 20, "token");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("next", response.getBody().getNextCursor());
+    }
+
     @Test
     @DisplayName("Should move product to cart")
     void testMoveToCart() {
@@ -92,6 +105,17 @@ class WishlistControllerTest {
         assertNotNull(response.getBody());
     }
 
+    @Test
+    @DisplayName("Should move selected products to cart")
+    void testMoveAllToCart() {
+        when(wishlistService.moveAllToCart(Arrays.asList(1, 2), "token")).thenReturn(cart);
+
+        ResponseEntity<Cart> response = wishlistController.moveAllToCart(Arrays.asList(1, 2), "token");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+    }
+
     @Test
     @DisplayName("Should check if product is wishlisted")
     void testIsWishlisted() {
@@ -103,4 +127,17 @@ class WishlistControllerTest {
         assertNotNull(response.getBody());
         assertTrue(response.getBody().get("wishlisted"));
     }
+
+    @Test
+    @DisplayName("Should check a batch of products")
+    void testCheckWishlisted() {
+        List<Integer> productIds = Arrays.asList(1, 2);
+        when(wishlistService.checkWishlisted(productIds, "token")).thenReturn(Map.of(1, true, 2, false));
+
+        ResponseEntity<Map<Integer, Boolean>> response = wishlistController.checkWishlisted(productIds, "token");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().get(1));
+        assertFalse(response.getBody().get(2));
+    }
 }
@@ -0,0 +1,164 @@
+package com.masai.notification;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.dto.InventoryAlertDigestDTO;
+import com.masai.event.InventoryAlertTriggeredEvent;
+import com.masai.repository.InventoryAlertDao;
+import com.masai.util.InventoryAlertIndex;
+import com.masai.util.SalesVelocityTracker;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("AlertNotificationDispatcher Tests")
+@ExtendWith(MockitoExtension.class)
+class AlertNotificationDispatcherTest {
+
+    @Mock
+    private NotificationSink notificationSink;
+
+    @Mock
+    private InventoryAlertDao inventoryAlertDao;
+
+    @Mock
+    private InventoryAlertIndex inventoryAlertIndex;
+
+    @Mock
+    private SalesVelocityTracker salesVelocityTracker;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AlertNotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new AlertNotificationDispatcher(notificationSink, inventoryAlertDao, inventoryAlertIndex,
+                salesVelocityTracker, transactionTemplate, 600000, 60000, 3600000, meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private InventoryAlertTriggeredEvent trigger(Integer alertId, Integer productId, Integer sellerId, int quantity) {
+        return new InventoryAlertTriggeredEvent(alertId, productId, "Product " + productId, sellerId, 10, quantity,
+                LocalDateTime.now());
+    }
+
+    private double notifications(String outcome) {
+        return meterRegistry.get("inventory.alerts.notifications").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should send one digest per seller and record all alerts in one update")
+    void testDispatch_OneDigestPerSeller() {
+        runTransactionsInline();
+        dispatcher.onAlertTriggered(trigger(1, 100, 7, 9));
+        dispatcher.onAlertTriggered(trigger(2, 101, 7, 4));
+        dispatcher.onAlertTriggered(trigger(3, 102, 8, 0));
+
+        int delivered = dispatcher.dispatch();
+
+        assertEquals(3, delivered);
+        ArgumentCaptor<InventoryAlertDigestDTO> digests = ArgumentCaptor.forClass(InventoryAlertDigestDTO.class);
+        verify(notificationSink, times(2)).deliver(digests.capture());
+        InventoryAlertDigestDTO sellerSeven = digests.getAllValues().stream()
+                .filter(d -> d.getSellerId() == 7).findFirst().orElseThrow();
+        assertEquals(2, sellerSeven.getAlerts().size());
+        assertEquals(7, sellerSeven.getAlerts().get(1).getQuantityToRestock()); // 10 - 4 + 1
+
+        verify(inventoryAlertDao, times(1)).recordAlertsSent(argThat(ids -> ids.size() == 3), any(LocalDateTime.class));
+        verify(inventoryAlertIndex).recordAlertsSent(argThat(ids -> ids.containsAll(List.of(100, 101, 102))),
+                any(LocalDateTime.class));
+        assertEquals(3.0, notifications("delivered"));
+    }
+
+    @Test
+    @DisplayName("Should suppress repeat triggers within the debounce window")
+    void testDebounce() {
+        runTransactionsInline();
+        dispatcher.onAlertTriggered(trigger(1, 100, 7, 9));
+        dispatcher.onAlertTriggered(trigger(1, 100, 7, 10));
+        dispatcher.dispatch();
+        dispatcher.onAlertTriggered(trigger(1, 100, 7, 8));
+
+        assertEquals(0, dispatcher.dispatch());
+        verify(notificationSink, times(1)).deliver(any());
+        assertEquals(2.0, notifications("suppressed"));
+        assertEquals(1.0, notifications("delivered"));
+    }
+
+    @Test
+    @DisplayName("Should deliver every trigger when the debounce window is zero")
+    void testNoDebounce() {
+        runTransactionsInline();
+        AlertNotificationDispatcher eager = new AlertNotificationDispatcher(notificationSink, inventoryAlertDao,
+                inventoryAlertIndex, salesVelocityTracker, transactionTemplate, 0, 60000, 3600000, new SimpleMeterRegistry());
+        eager.onAlertTriggered(trigger(1, 100, 7, 9));
+        eager.dispatch();
+        eager.onAlertTriggered(trigger(1, 100, 7, 8));
+
+        assertEquals(1, eager.dispatch());
+        assertEquals(0, eager.debouncedAlerts());
+    }
+
+    @Test
+    @DisplayName("Should not record failed deliveries and hold them back until the retry backoff passes")
+    void testDispatch_SinkFailure() {
+        doThrow(new IllegalStateException("webhook down")).when(notificationSink).deliver(any());
+        dispatcher.onAlertTriggered(trigger(1, 100, 7, 9));
+
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(0, dispatcher.dispatch());
+
+        verify(notificationSink, times(1)).deliver(any());
+        verifyNoInteractions(inventoryAlertDao, inventoryAlertIndex);
+        assertEquals(1.0, notifications("failed"));
+        assertEquals(1, dispatcher.debouncedAlerts());
+    }
+
+    @Test
+    @DisplayName("Should retry a failed digest and record it once delivered")
+    void testDispatch_RetriesFailedDigest() {
+        AlertNotificationDispatcher retrying = new AlertNotificationDispatcher(notificationSink, inventoryAlertDao,
+                inventoryAlertIndex, salesVelocityTracker, transactionTemplate, 600000, 0, 0, new SimpleMeterRegistry());
+        doThrow(new IllegalStateException("webhook down")).doNothing().when(notificationSink).deliver(any());
+        retrying.onAlertTriggered(trigger(1, 100, 7, 9));
+
+        assertEquals(0, retrying.dispatch());
+        assertEquals(1, retrying.dispatch());
+
+        verify(notificationSink, times(2)).deliver(any());
+        verify(inventoryAlertIndex).recordAlertsSent(eq(List.of(100)), any());
+    }
+
+    @Test
+    @DisplayName("Should do nothing when no triggers are queued")
+    void testDispatch_Empty() {
+        assertEquals(0, dispatcher.dispatch());
+        verifyNoInteractions(notificationSink, transactionTemplate);
+    }
+}
@@ -0,0 +1,220 @@
+package com.masai.notification;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.masai.dto.InventoryAlertSummaryDTO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("SellerAlertStreamHub Tests")
+@ExtendWith(MockitoExtension.class)
+class SellerAlertStreamHubTest {
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private final List<Runnable> queuedDrains = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private SellerAlertStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(invocation -> queuedDrains.add(invocation.getArgument(0))).when(scheduler).execute(any());
+        meterRegistry = new SimpleMeterRegistry();
+        // Drains are queued on the mock and run by the test in order
+        hub = new SellerAlertStreamHub(scheduler, scheduler, 2, 60000, 25000, 1000, meterRegistry);
+    }
+
+    private void runDrains() {
+        while (!queuedDrains.isEmpty()) {
+            queuedDrains.remove(0).run();
+        }
+    }
+
+    private InventoryAlertSummaryDTO summary(Integer alertId, int quantity) {
+        return InventoryAlertSummaryDTO.builder()
+                .alertId(alertId)
+                .productId(100 + alertId)
+                .thresholdQuantity(10)
+                .currentQuantity(quantity)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should send a snapshot first, then the latest change per alert")
+    void testSnapshotThenCoalescedChanges() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.subscribe(7, () -> List.of(summary(1, 12)), emitter);
+        runDrains();
+
+        hub.publish(7, SellerAlertStreamHub.TRIGGERED, summary(1, 9));
+        hub.publish(7, SellerAlertStreamHub.TRIGGERED, summary(1, 4));
+        hub.publish(7, SellerAlertStreamHub.TRIGGERED, summary(2, 3));
+        runDrains();
+
+        assertEquals(List.of("snapshot", "triggered", "triggered"), emitter.events);
+        assertEquals(4, ((InventoryAlertSummaryDTO) emitter.payloads.get(1)).getCurrentQuantity());
+        verify(scheduler, times(2)).execute(any());
+    }
+
+    @Test
+    @DisplayName("Should resend a snapshot to a stream that falls behind")
+    void testOverflowResyncs() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        AtomicInteger snapshots = new AtomicInteger();
+        hub.subscribe(7, () -> {
+            snapshots.incrementAndGet();
+            return List.of();
+        }, emitter);
+        runDrains();
+
+        hub.publish(7, SellerAlertStreamHub.TRIGGERED, summary(1, 9));
+        hub.publish(7, SellerAlertStreamHub.TRIGGERED, summary(2, 8));
+        hub.publish(7, SellerAlertStreamHub.CLEARED, summary(3, 30));
+        hub.publish(7, SellerAlertStreamHub.TRIGGERED, summary(4, 1));
+        runDrains();
+
+        assertEquals(List.of("snapshot", "snapshot"), emitter.events);
+        assertEquals(2, snapshots.get());
+        assertEquals(1.0, meterRegistry.get("inventory.alerts.stream.resyncs").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should only deliver changes to the owning seller and heartbeat idle streams")
+    void testSellerIsolationAndHeartbeat() {
+        RecordingEmitter seven = new RecordingEmitter();
+        RecordingEmitter eight = new RecordingEmitter();
+        hub.subscribe(7, List::of, seven);
+        hub.subscribe(8, List::of, eight);
+        runDrains();
+
+        hub.publish(7, SellerAlertStreamHub.TRIGGERED, summary(1, 9));
+        runDrains();
+        hub.heartbeat();
+        runDrains();
+
+        assertEquals(List.of("snapshot", "triggered", ":heartbeat"), seven.events);
+        assertEquals(List.of("snapshot", ":heartbeat"), eight.events);
+    }
+
+    @Test
+    @DisplayName("Should drop a subscriber whose connection fails")
+    void testFailedWriteUnsubscribes() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.failing = true;
+        hub.subscribe(7, List::of, emitter);
+        assertEquals(1, hub.subscriberCount(7));
+
+        runDrains();
+        hub.publish(7, SellerAlertStreamHub.TRIGGERED, summary(1, 9));
+
+        assertEquals(0, hub.subscriberCount(7));
+        assertTrue(queuedDrains.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should close a stream whose write stays blocked without holding up other sellers")
+    void testStalledWriteCloses() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Connection reset");
+            }
+        };
+        RecordingEmitter healthy = new RecordingEmitter();
+        hub.subscribe(7, List::of, stalled);
+        hub.subscribe(8, List::of, healthy);
+
+        Thread writer = new Thread(queuedDrains.remove(0));
+        writer.start();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        runDrains();
+        assertEquals(List.of("snapshot"), healthy.events);
+
+        Thread.sleep(1100);
+        hub.closeStalled();
+
+        assertEquals(0, hub.subscriberCount(7));
+        assertEquals(1, hub.subscriberCount(8));
+        assertEquals(1.0, meterRegistry.get("inventory.alerts.stream.stalled").counter().count());
+        release.countDown();
+        writer.join(5000);
+    }
+
+    @Test
+    @DisplayName("Should close a stream when the writer pool is full instead of adding a thread")
+    void testRejectedDrainCloses() {
+        ExecutorService fullPool = mock(ExecutorService.class);
+        doThrow(new RejectedExecutionException("Queue full")).when(fullPool).execute(any());
+        SellerAlertStreamHub saturated = new SellerAlertStreamHub(scheduler, fullPool, 2, 60000, 25000, 1000, meterRegistry);
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        saturated.subscribe(7, List::of, emitter);
+
+        assertEquals(0, saturated.subscriberCount(7));
+        assertTrue(emitter.completedWithError);
+        assertEquals(1.0, meterRegistry.get("inventory.alerts.stream.rejected").counter().count());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new ArrayList<>();
+        private final List<Object> payloads = new ArrayList<>();
+        private boolean failing;
+        private boolean completedWithError;
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completedWithError = true;
+            super.completeWithError(ex);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            for (DataWithMediaType part : builder.build()) {
+                if (!(part.getData() instanceof String text)) {
+                    payloads.add(part.getData());
+                    continue;
+                }
+                for (String line : text.split("\n")) {
+                    if (line.startsWith("event:")) {
+                        events.add(line.substring("event:".length()));
+                    } else if (line.startsWith(":")) {
+                        events.add(line);
+                    }
+                }
+            }
+        }
+    }
+}
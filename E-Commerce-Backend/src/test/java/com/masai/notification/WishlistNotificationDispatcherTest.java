@@ -0,0 +1,154 @@
+package com.masai.notification;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import com.masai.dto.WishlistProductNotificationDTO;
+import com.masai.dto.WishlistWatcherDTO;
+import com.masai.event.ProductBackInStockEvent;
+import com.masai.event.ProductPriceDroppedEvent;
+import com.masai.repository.WishlistItemRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("WishlistNotificationDispatcher Tests")
+@ExtendWith(MockitoExtension.class)
+class WishlistNotificationDispatcherTest {
+
+    @Mock
+    private WishlistNotificationSink notificationSink;
+
+    @Mock
+    private WishlistItemRepository wishlistItemRepository;
+
+    @Mock
+    private ExecutorService worker;
+
+    private final List<Runnable> queuedDrains = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private WishlistNotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(invocation -> queuedDrains.add(invocation.getArgument(0))).when(worker).execute(any());
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new WishlistNotificationDispatcher(notificationSink, wishlistItemRepository, worker, 2, 60000, 3600000, 10, meterRegistry);
+    }
+
+    private void runDrains() {
+        while (!queuedDrains.isEmpty()) {
+            queuedDrains.remove(0).run();
+        }
+    }
+
+    @Test
+    @DisplayName("Should page through wishlists and deliver one notification per page")
+    void testBackInStockFanOut() {
+        when(wishlistItemRepository.findWatchersAfter(eq(100), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(new WishlistWatcherDTO(3, 30), new WishlistWatcherDTO(5, 50)));
+        when(wishlistItemRepository.findWatchersAfter(eq(100), eq(5), any(Pageable.class)))
+                .thenReturn(List.of(new WishlistWatcherDTO(9, 90)));
+
+        dispatcher.onBackInStock(new ProductBackInStockEvent(100, "Laptop", 999.0, 4));
+        runDrains();
+
+        ArgumentCaptor<WishlistProductNotificationDTO> sent = ArgumentCaptor.forClass(WishlistProductNotificationDTO.class);
+        verify(notificationSink, times(2)).deliver(sent.capture());
+        assertEquals(List.of(30, 50), sent.getAllValues().get(0).getCustomerIds());
+        assertEquals(List.of(90), sent.getAllValues().get(1).getCustomerIds());
+        assertEquals(WishlistProductNotificationDTO.BACK_IN_STOCK, sent.getValue().getType());
+        assertEquals(3.0, meterRegistry.get("wishlist.notifications").tag("outcome", "delivered").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should coalesce queued price drops into one drop from the earliest price")
+    void testCoalescesPriceDrops() {
+        when(wishlistItemRepository.findWatchersAfter(eq(100), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(new WishlistWatcherDTO(3, 30)));
+
+        dispatcher.onPriceDropped(new ProductPriceDroppedEvent(100, "Laptop", 999.0, 899.0));
+        dispatcher.onPriceDropped(new ProductPriceDroppedEvent(100, "Laptop", 899.0, 799.0));
+        assertEquals(1, dispatcher.pendingChanges());
+        runDrains();
+
+        ArgumentCaptor<WishlistProductNotificationDTO> sent = ArgumentCaptor.forClass(WishlistProductNotificationDTO.class);
+        verify(notificationSink).deliver(sent.capture());
+        assertEquals(999.0, sent.getValue().getPreviousPrice());
+        assertEquals(799.0, sent.getValue().getPrice());
+        verify(worker, times(1)).execute(any());
+    }
+
+    @Test
+    @DisplayName("Should keep fanning out after a failed delivery and retry from the failed page after a backoff")
+    void testFailedDeliveryRetries() {
+        when(wishlistItemRepository.findWatchersAfter(eq(100), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(new WishlistWatcherDTO(3, 30), new WishlistWatcherDTO(5, 50)));
+        when(wishlistItemRepository.findWatchersAfter(eq(100), eq(5), any(Pageable.class)))
+                .thenReturn(List.of(new WishlistWatcherDTO(9, 90)));
+        when(wishlistItemRepository.findWatchersAfter(eq(200), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(new WishlistWatcherDTO(4, 40)));
+        doNothing()
+                .doThrow(new IllegalStateException("Sink unavailable"))
+                .doNothing()
+                .when(notificationSink).deliver(any());
+
+        dispatcher.onBackInStock(new ProductBackInStockEvent(100, "Laptop", 999.0, 4));
+        dispatcher.onBackInStock(new ProductBackInStockEvent(200, "Phone", 499.0, 2));
+
+        assertEquals(3, dispatcher.dispatch());
+        assertEquals(1.0, meterRegistry.get("wishlist.notifications").tag("outcome", "failed").counter().count());
+        assertEquals(1, dispatcher.pendingChanges());
+        assertEquals(0, dispatcher.dueChanges());
+
+        // Without a backoff the failed page is retried at once, and only that page
+        SimpleMeterRegistry retryRegistry = new SimpleMeterRegistry();
+        WishlistNotificationDispatcher retrying = new WishlistNotificationDispatcher(notificationSink,
+                wishlistItemRepository, worker, 2, 0, 0, 10, retryRegistry);
+        doThrow(new IllegalStateException("Sink unavailable"))
+                .doNothing()
+                .when(notificationSink).deliver(any());
+
+        retrying.onBackInStock(new ProductBackInStockEvent(100, "Laptop", 999.0, 4));
+        assertEquals(3, retrying.dispatch());
+
+        ArgumentCaptor<WishlistProductNotificationDTO> sent = ArgumentCaptor.forClass(WishlistProductNotificationDTO.class);
+        verify(notificationSink, atLeastOnce()).deliver(sent.capture());
+        List<WishlistProductNotificationDTO> attempts = sent.getAllValues().subList(sent.getAllValues().size() - 3, sent.getAllValues().size());
+        assertEquals(List.of(30, 50), attempts.get(0).getCustomerIds());
+        assertEquals(List.of(30, 50), attempts.get(1).getCustomerIds());
+        assertEquals(List.of(90), attempts.get(2).getCustomerIds());
+        assertEquals(0, retrying.pendingChanges());
+    }
+
+    @Test
+    @DisplayName("Should drop a page that keeps failing once max-attempts is reached")
+    void testDropsAfterMaxAttempts() {
+        when(wishlistItemRepository.findWatchersAfter(eq(100), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(new WishlistWatcherDTO(3, 30), new WishlistWatcherDTO(5, 50)));
+        doThrow(new IllegalStateException("Sink unavailable")).when(notificationSink).deliver(any());
+        WishlistNotificationDispatcher limited = new WishlistNotificationDispatcher(notificationSink,
+                wishlistItemRepository, worker, 2, 0, 0, 3, meterRegistry);
+
+        limited.onBackInStock(new ProductBackInStockEvent(100, "Laptop", 999.0, 4));
+
+        assertEquals(0, limited.dispatch());
+        verify(notificationSink, times(3)).deliver(any());
+        assertEquals(0, limited.pendingChanges());
+        assertEquals(6.0, meterRegistry.get("wishlist.notifications").tag("outcome", "failed").counter().count());
+        assertEquals(2.0, meterRegistry.get("wishlist.notifications").tag("outcome", "dropped").counter().count());
+    }
+}
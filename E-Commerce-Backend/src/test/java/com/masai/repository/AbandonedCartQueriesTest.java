@@ -0,0 +1,99 @@
+package com.masai.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.masai.models.AbandonedCartItem;
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+import com.masai.models.Product;
+
+/**
+ * Runs the abandoned cart sweeper's native statements against SQLite.
+ */
+@DisplayName("Abandoned cart native query Tests")
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class AbandonedCartQueriesTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 30, 3, 30);
+    private static final LocalDateTime CUTOFF = NOW.minusDays(30);
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private AbandonedCartItemRepository abandonedCartItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Cart cart(LocalDateTime lastModified, CartItem... items) {
+        Cart cart = new Cart();
+        cart.setCartItems(new ArrayList<>(List.of(items)));
+        cart.setCartTotal(100.0);
+        cart.setLastModified(lastModified);
+        return cartRepository.save(cart);
+    }
+
+    @Test
+    @DisplayName("Should archive the lines of idle carts and empty only carts still idle")
+    void testSweepStatements() {
+        List<Product> products = productRepository.findAll();
+        Product first = products.get(0);
+        Product second = products.get(1);
+
+        Cart idle = cart(NOW.minusDays(40), new CartItem(null, first, 3, 1000L), new CartItem(null, second, 1, 2500L));
+        Cart active = cart(NOW.minusDays(1), new CartItem(null, products.get(2), 1, 1000L));
+        Cart untracked = cart(null, new CartItem(null, products.get(3), 1, 2500L));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(cartRepository.stampUntrackedCarts(NOW, 1000) >= 1);
+        List<Integer> idleCartIds = cartRepository.findIdleCartIds(CUTOFF, 1000);
+        assertTrue(idleCartIds.contains(idle.getCartId()));
+        assertFalse(idleCartIds.contains(active.getCartId()));
+        assertFalse(idleCartIds.contains(untracked.getCartId()));
+
+        List<Integer> batch = List.of(idle.getCartId(), active.getCartId(), untracked.getCartId());
+        assertEquals(2, abandonedCartItemRepository.archiveIdleCarts(batch, CUTOFF, NOW));
+        assertEquals(2, cartItemRepository.deleteIdleCartItems(batch, CUTOFF));
+        assertEquals(2, cartRepository.unlinkIdleCartItems(batch, CUTOFF));
+        assertEquals(1, cartRepository.resetIdleCarts(batch, CUTOFF));
+        entityManager.clear();
+
+        AbandonedCartItem archived = abandonedCartItemRepository
+                .findById(new AbandonedCartItem.LineKey(idle.getCartId(), first.getProductId(), NOW)).orElseThrow();
+        assertEquals(3, archived.getQuantity());
+        assertEquals(1000L, archived.getUnitPriceCents());
+        assertEquals(NOW.minusDays(40), archived.getLastModified());
+
+        Cart emptied = cartRepository.findById(idle.getCartId()).orElseThrow();
+        assertTrue(emptied.getCartItems().isEmpty());
+        assertEquals(0.0, emptied.getCartTotal());
+        assertEquals(idle.getVersion() + 1, emptied.getVersion());
+        assertEquals(1, cartRepository.findById(active.getCartId()).orElseThrow().getCartItems().size());
+        Cart stamped = cartRepository.findById(untracked.getCartId()).orElseThrow();
+        assertEquals(NOW, stamped.getLastModified());
+        assertEquals(1, stamped.getCartItems().size());
+    }
+}
@@ -0,0 +1,80 @@
+package com.masai.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.masai.dto.InventoryAlertStateDTO;
+import com.masai.models.CategoryEnum;
+import com.masai.models.Product;
+
+/**
+ * Runs the bulk inventory alert statements and their re-read against SQLite.
+ */
+@DisplayName("Inventory alert bulk query Tests")
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class InventoryAlertQueriesTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 30, 12, 0, 0, 123_456_789);
+
+    @Autowired
+    private InventoryAlertDao inventoryAlertDao;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Should create and update the seller's matching alerts and re-read exactly those")
+    void testBulkStatements() {
+        List<Product> products = productRepository.findAll();
+        Product book = products.stream().filter(p -> p.getCategory() == CategoryEnum.BOOKS).findFirst().orElseThrow();
+        Integer sellerId = book.getSeller().getSellerId();
+        List<Product> sellerProducts = products.stream()
+                .filter(p -> p.getSeller().getSellerId().equals(sellerId)).toList();
+        long sellerBooks = sellerProducts.stream().filter(p -> p.getCategory() == CategoryEnum.BOOKS).count();
+        Product otherSellers = products.stream()
+                .filter(p -> !p.getSeller().getSellerId().equals(sellerId)).findFirst().orElseThrow();
+        List<Integer> none = List.of(-1);
+
+        // Another seller's product is never matched
+        assertEquals(0, inventoryAlertDao.bulkInsertAlerts(sellerId, null, false,
+                List.of(otherSellers.getProductId()), 5, true, NOW));
+        assertEquals(1, inventoryAlertDao.bulkInsertAlerts(sellerId, null, false,
+                List.of(book.getProductId()), 5, true, NOW));
+        // Products that already have an alert are skipped
+        assertEquals(sellerProducts.size() - 1, inventoryAlertDao.bulkInsertAlerts(sellerId, null, true,
+                none, 7, true, NOW));
+        assertEquals(sellerBooks, inventoryAlertDao.bulkUpdateAlerts(sellerId, CategoryEnum.BOOKS.name(), true,
+                none, 9, false, NOW.plusNanos(1_000_000)));
+        entityManager.clear();
+
+        List<InventoryAlertStateDTO> books = inventoryAlertDao.findAlertStatesMatching(sellerId, CategoryEnum.BOOKS, true, none);
+        assertEquals(sellerBooks, books.size());
+        for (InventoryAlertStateDTO state : books) {
+            assertEquals(sellerId, state.getSellerId());
+            assertEquals(9, state.getThresholdQuantity());
+            assertFalse(state.getAlertEnabled());
+        }
+
+        List<InventoryAlertStateDTO> one = inventoryAlertDao.findAlertStatesMatching(sellerId, null, false,
+                List.of(book.getProductId(), otherSellers.getProductId()));
+        assertEquals(1, one.size());
+        assertEquals(book.getProductId(), one.get(0).getProductId());
+        assertEquals(sellerProducts.size(), inventoryAlertDao.findAlertStatesMatching(sellerId, null, true, none).size());
+    }
+}
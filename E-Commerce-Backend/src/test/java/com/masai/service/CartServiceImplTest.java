@@ -6,7 +6,11 @@ import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -17,38 +21,43 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.masai.dto.CartDTO;
+import com.masai.dto.CartLineDTO;
+import com.masai.dto.CartUpdateDTO;
+import com.masai.dto.CustomerPrincipal;
 import com.masai.exception.CartItemNotFound;
 import com.masai.exception.CustomerNotFoundException;
 import com.masai.models.Cart;
 import com.masai.models.CartItem;
-import com.masai.models.Customer;
 import com.masai.models.Product;
-import com.masai.models.UserSession;
-import com.masai.repository.CartRepository;
-import com.masai.repository.CustomerRepository;
-import com.masai.util.TokenValidationUtil;
+import com.masai.models.ProductStatus;
+import com.masai.repository.ProductRepository;
+import com.masai.util.CartStore;
+import com.masai.util.CustomerPrincipalResolver;
+import com.masai.util.StockHolds;
 
 @DisplayName("CartServiceImpl Tests")
 @ExtendWith(MockitoExtension.class)
 class CartServiceImplTest {
 
     @Mock
-    private CartRepository cartRepository;
+    private CartStore cartStore;
 
     @Mock
-    private TokenValidationUtil tokenValidationUtil;
+    private StockHolds stockHolds;
+
+    @Mock
+    private CustomerPrincipalResolver customerPrincipalResolver;
 
     @Mock
     private CartItemService cartItemService;
 
     @Mock
-    private CustomerRepository customerRepository;
+    private ProductRepository productRepository;
 
     @InjectMocks
     private CartServiceImpl cartService;
 
-    private UserSession userSession;
-    private Customer customer;
+    private CustomerPrincipal principal;
     private Cart cart;
     private Product product;
     private CartItem cartItem;
@@ -56,9 +65,7 @@ class CartServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        userSession = new UserSession();
-        userSession.setUserId(1);
-        userSession.setToken("customer_token");
+        principal = new CustomerPrincipal(1, 1, 1);
 
         cart = new Cart();
         cart.setCartId(1);
@@ -75,34 +82,39 @@ class CartServiceImplTest {
         cartItem.setCartProduct(product);
         cartItem.setCartItemQuantity(1);
 
-        customer = new Customer();
-        customer.setCustomerId(1);
-        customer.setCustomerCart(cart);
-
         cartDTO = new CartDTO();
         cartDTO.setProductId(1);
     }
 
+    // Applies cart changes to the given cart in place, as the database store does
+    @SuppressWarnings("unchecked")
+    private void storeHolds(Cart held) {
+        when(cartStore.update(eq(held.getCartId()), any())).thenAnswer(invocation -> {
+            ((Consumer<Cart>) invocation.getArgument(1)).accept(held);
+            return held;
+        });
+    }
+
     @Test
     @DisplayName("Should add product to empty cart successfully")
     void testAddProductToCart_EmptyCart() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        storeHolds(cart);
         when(cartItemService.createItemforCart(any(CartDTO.class))).thenReturn(cartItem);
-        when(cartRepository.save(any(Cart.class))).thenReturn(cart);
 
         Cart result = cartService.addProductToCart(cartDTO, "token");
 
         assertNotNull(result);
         assertEquals(1, result.getCartItems().size());
         assertEquals(100.0, result.getCartTotal());
+        verify(stockHolds).hold(cart);
     }
 
     @Test
     @DisplayName("Should throw exception when customer not found during add")
     void testAddProductToCart_CustomerNotFound() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.empty());
+        when(customerPrincipalResolver.resolve(anyString()))
+            .thenThrow(new CustomerNotFoundException("Customer does not exist"));
 
         assertThrows(CustomerNotFoundException.class, () ->
             cartService.addProductToCart(cartDTO, "token"));
@@ -111,9 +123,8 @@ class CartServiceImplTest {
     @Test
     @DisplayName("Should get cart product successfully")
     void testGetCartProduct_Success() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
-        when(cartRepository.findById(1)).thenReturn(Optional.of(cart));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(cartStore.load(1)).thenReturn(cart);
 
         Cart result = cartService.getCartProduct("token");
 
@@ -124,8 +135,8 @@ class CartServiceImplTest {
     @Test
     @DisplayName("Should throw exception when customer not found during get")
     void testGetCartProduct_CustomerNotFound() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.empty());
+        when(customerPrincipalResolver.resolve(anyString()))
+            .thenThrow(new CustomerNotFoundException("Customer does not exist"));
 
         assertThrows(CustomerNotFoundException.class, () ->
             cartService.getCartProduct("token"));
@@ -135,9 +146,8 @@ class CartServiceImplTest {
     @DisplayName("Should throw exception when cart not found")
     void testGetCartProduct_CartNotFound() {
         cart.setCartId(1);
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
-        when(cartRepository.findById(1)).thenReturn(Optional.empty());
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(cartStore.load(1)).thenThrow(new CartItemNotFound("cart Not found by Id"));
 
         assertThrows(CartItemNotFound.class, () ->
             cartService.getCartProduct("token"));
@@ -149,9 +159,8 @@ class CartServiceImplTest {
         cart.getCartItems().add(cartItem);
         cart.setCartTotal(100.0);
 
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
-        when(cartRepository.save(any(Cart.class))).thenReturn(cart);
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        storeHolds(cart);
 
         Cart result = cartService.removeProductFromCart(cartDTO, "token");
 
@@ -161,8 +170,8 @@ class CartServiceImplTest {
     @Test
     @DisplayName("Should throw exception when cart is empty during remove")
     void testRemoveProductFromCart_EmptyCart() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        storeHolds(cart);
 
         assertThrows(CartItemNotFound.class, () ->
             cartService.removeProductFromCart(cartDTO, "token"));
@@ -180,8 +189,8 @@ class CartServiceImplTest {
         
         cart.getCartItems().add(otherItem);
 
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        storeHolds(cart);
 
         assertThrows(CartItemNotFound.class, () ->
             cartService.removeProductFromCart(cartDTO, "token"));
@@ -193,9 +202,8 @@ class CartServiceImplTest {
         cart.getCartItems().add(cartItem);
         cart.setCartTotal(100.0);
 
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
-        when(cartRepository.save(any(Cart.class))).thenReturn(cart);
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        storeHolds(cart);
 
         Cart result = cartService.clearCart("token");
 
@@ -207,8 +215,8 @@ class CartServiceImplTest {
     @Test
     @DisplayName("Should throw exception when cart already empty")
     void testClearCart_AlreadyEmpty() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        storeHolds(cart);
 
         assertThrows(CartItemNotFound.class, () ->
             cartService.clearCart("token"));
@@ -217,10 +225,72 @@ class CartServiceImplTest {
     @Test
     @DisplayName("Should throw exception when customer not found during clear")
     void testClearCart_CustomerNotFound() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.empty());
+        when(customerPrincipalResolver.resolve(anyString()))
+            .thenThrow(new CustomerNotFoundException("Customer does not exist"));
 
         assertThrows(CustomerNotFoundException.class, () ->
             cartService.clearCart("token"));
     }
+
+    private Product stockedProduct(Integer productId, double price, int quantity) {
+        Product stocked = new Product();
+        stocked.setProductId(productId);
+        stocked.setPrice(price);
+        stocked.setQuantity(quantity);
+        stocked.setStatus(ProductStatus.AVAILABLE);
+        return stocked;
+    }
+
+    @Test
+    @DisplayName("Should set, add and remove cart lines in one save")
+    void testUpdateCart_Success() {
+        product.setQuantity(20);
+        product.setStatus(ProductStatus.AVAILABLE);
+        Product removedProduct = stockedProduct(2, 30.0, 5);
+        Product newProduct = stockedProduct(3, 10.0, 8);
+        CartItem removedItem = new CartItem(2, removedProduct, 2, 3000L);
+        cart.getCartItems().addAll(Arrays.asList(cartItem, removedItem));
+
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        AtomicReference<Collection<CartItem>> removed = new AtomicReference<>();
+        when(cartStore.updateItems(eq(1), any())).thenAnswer(invocation -> {
+            removed.set(invocation.<Function<Cart, Collection<CartItem>>>getArgument(1).apply(cart));
+            return cart;
+        });
+        when(productRepository.findAllById(any())).thenReturn(Arrays.asList(product, removedProduct, newProduct));
+
+        CartUpdateDTO update = new CartUpdateDTO(Arrays.asList(
+            new CartLineDTO(1, 10), new CartLineDTO(2, 0), new CartLineDTO(3, 8)));
+        Cart result = cartService.updateCart(update, "token");
+
+        assertEquals(2, result.getCartItems().size());
+        assertEquals(10, cartItem.getCartItemQuantity());
+        assertEquals(1080.0, result.getCartTotal());
+        assertEquals(List.of(removedItem), removed.get());
+        verify(cartStore, times(1)).updateItems(eq(1), any());
+        verifyNoInteractions(cartItemService);
+    }
+
+    @Test
+    @DisplayName("Should reject the whole update when a line exceeds stock")
+    void testUpdateCart_InsufficientStock() {
+        product.setQuantity(3);
+        product.setStatus(ProductStatus.AVAILABLE);
+
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(productRepository.findAllById(any())).thenReturn(Arrays.asList(product));
+
+        CartUpdateDTO update = new CartUpdateDTO(Arrays.asList(new CartLineDTO(1, 4)));
+        assertThrows(CartItemNotFound.class, () -> cartService.updateCart(update, "token"));
+        verify(cartStore, never()).updateItems(anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject a product listed twice")
+    void testUpdateCart_DuplicateLine() {
+        CartUpdateDTO update = new CartUpdateDTO(Arrays.asList(new CartLineDTO(1, 1), new CartLineDTO(1, 2)));
+
+        assertThrows(CartItemNotFound.class, () -> cartService.updateCart(update, "token"));
+        verifyNoInteractions(customerPrincipalResolver);
+    }
 }
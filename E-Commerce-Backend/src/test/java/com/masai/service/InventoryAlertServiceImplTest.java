@@ -4,31 +4,46 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.masai.dto.InventoryAlertBulkRequestDTO;
+import com.masai.dto.InventoryAlertBulkResultDTO;
 import com.masai.dto.InventoryAlertRequestDTO;
 import com.masai.dto.InventoryAlertResponseDTO;
+import com.masai.dto.InventoryAlertStateDTO;
 import com.masai.dto.InventoryAlertSummaryDTO;
+import com.masai.event.InventoryAlertDeletedEvent;
+import com.masai.event.InventoryAlertSavedEvent;
+import com.masai.event.InventoryAlertStatusChangedEvent;
 import com.masai.exception.InventoryAlertException;
 import com.masai.exception.ProductNotFoundException;
+import com.masai.models.CategoryEnum;
 import com.masai.models.InventoryAlert;
 import com.masai.models.Product;
 import com.masai.models.Seller;
 import com.masai.models.UserSession;
+import com.masai.notification.SellerAlertStreamHub;
 import com.masai.repository.InventoryAlertDao;
 import com.masai.repository.ProductRepository;
+import com.masai.util.InventoryAlertIndex;
+import com.masai.util.SalesVelocityTracker;
 import com.masai.util.TokenValidationUtil;
 
 /**
@@ -51,6 +66,18 @@ class InventoryAlertServiceImplTest {
     @Mock
     private TokenValidationUtil tokenValidationUtil;
 
+    @Mock
+    private InventoryAlertIndex inventoryAlertIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SellerAlertStreamHub sellerAlertStreamHub;
+
+    @Mock
+    private SalesVelocityTracker salesVelocityTracker;
+
     @InjectMocks
     private InventoryAlertServiceImpl inventoryAlertService;
 
@@ -130,6 +157,10 @@ class InventoryAlertServiceImplTest {
         assertTrue(response.getAlertTriggered()); // quantity 10 <= threshold 15
 
         verify(inventoryAlertDao).save(any(InventoryAlert.class));
+        ArgumentCaptor<InventoryAlertSavedEvent> event = ArgumentCaptor.forClass(InventoryAlertSavedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(PRODUCT_ID, event.getValue().getAlert().getProductId());
+        assertEquals(SELLER_ID, event.getValue().getAlert().getSellerId());
     }
 
     @Test
@@ -180,6 +211,60 @@ class InventoryAlertServiceImplTest {
             inventoryAlertService.createAlert(INVALID_TOKEN, requestDTO));
     }
 
+    // ==================== BULK CONFIGURE TESTS ====================
+
+    @Test
+    @DisplayName("Should bulk update then create alerts for a category and index them")
+    void testBulkConfigureAlerts_Category() {
+        InventoryAlertBulkRequestDTO bulkRequest = new InventoryAlertBulkRequestDTO(5, true, CategoryEnum.BOOKS, null, true);
+        when(tokenValidationUtil.validateSellerToken(VALID_SELLER_TOKEN)).thenReturn(sellerSession);
+        when(sellerService.getSellerById(SELLER_ID)).thenReturn(seller);
+        when(inventoryAlertDao.bulkUpdateAlerts(eq(SELLER_ID), eq("BOOKS"), eq(true), anyCollection(), eq(5), eq(true), any()))
+            .thenReturn(1);
+        when(inventoryAlertDao.bulkInsertAlerts(eq(SELLER_ID), eq("BOOKS"), eq(true), anyCollection(), eq(5), eq(true), any()))
+            .thenReturn(2);
+        when(inventoryAlertDao.findAlertStatesMatching(eq(SELLER_ID), eq(CategoryEnum.BOOKS), eq(true), anyCollection()))
+            .thenReturn(Arrays.asList(indexedAlert(), indexedAlert(), indexedAlert()));
+
+        InventoryAlertBulkResultDTO result = inventoryAlertService.bulkConfigureAlerts(VALID_SELLER_TOKEN, bulkRequest);
+
+        assertEquals(2, result.getCreatedAlerts());
+        assertEquals(1, result.getUpdatedAlerts());
+        verify(eventPublisher, times(3)).publishEvent(any(InventoryAlertSavedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should only create missing alerts when updateExisting is false")
+    void testBulkConfigureAlerts_CreateOnly() {
+        List<Integer> productIds = Arrays.asList(PRODUCT_ID, 101);
+        InventoryAlertBulkRequestDTO bulkRequest = new InventoryAlertBulkRequestDTO(5, null, null, productIds, false);
+        when(tokenValidationUtil.validateSellerToken(VALID_SELLER_TOKEN)).thenReturn(sellerSession);
+        when(sellerService.getSellerById(SELLER_ID)).thenReturn(seller);
+        when(inventoryAlertDao.bulkInsertAlerts(eq(SELLER_ID), isNull(), eq(false), eq(productIds), eq(5), eq(true), any()))
+            .thenReturn(0);
+
+        InventoryAlertBulkResultDTO result = inventoryAlertService.bulkConfigureAlerts(VALID_SELLER_TOKEN, bulkRequest);
+
+        assertEquals(0, result.getCreatedAlerts());
+        assertEquals(0, result.getUpdatedAlerts());
+        verify(inventoryAlertDao, never()).bulkUpdateAlerts(any(), any(), anyBoolean(), any(), any(), any(), any());
+        verify(inventoryAlertDao, never()).findAlertStatesMatching(any(), any(), anyBoolean(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Should do nothing for an empty product ID filter")
+    void testBulkConfigureAlerts_EmptyProductIds() {
+        InventoryAlertBulkRequestDTO bulkRequest = new InventoryAlertBulkRequestDTO(5, true, null, Collections.emptyList(), true);
+        when(tokenValidationUtil.validateSellerToken(VALID_SELLER_TOKEN)).thenReturn(sellerSession);
+        when(sellerService.getSellerById(SELLER_ID)).thenReturn(seller);
+
+        InventoryAlertBulkResultDTO result = inventoryAlertService.bulkConfigureAlerts(VALID_SELLER_TOKEN, bulkRequest);
+
+        assertEquals(0, result.getCreatedAlerts());
+        verifyNoInteractions(inventoryAlertDao);
+    }
+
     // ==================== UPDATE ALERT TESTS ====================
 
     @Test
@@ -238,6 +323,7 @@ class InventoryAlertServiceImplTest {
 
         assertEquals("Alert deleted successfully", result);
         verify(inventoryAlertDao).delete(inventoryAlert);
+        verify(eventPublisher).publishEvent(any(InventoryAlertDeletedEvent.class));
     }
 
     @Test
@@ -295,7 +381,7 @@ class InventoryAlertServiceImplTest {
     @DisplayName("Should get triggered alerts for seller")
     void testGetTriggeredAlertsForSeller_Success() {
         when(tokenValidationUtil.validateSellerToken(VALID_SELLER_TOKEN)).thenReturn(sellerSession);
-        when(inventoryAlertDao.findTriggeredAlertsBySellerId(SELLER_ID)).thenReturn(Arrays.asList(inventoryAlert));
+        when(inventoryAlertIndex.triggeredForSeller(SELLER_ID)).thenReturn(Arrays.asList(indexedAlert()));
 
         List<InventoryAlertSummaryDTO> alerts = inventoryAlertService.getTriggeredAlertsForSeller(VALID_SELLER_TOKEN);
 
@@ -305,6 +391,65 @@ class InventoryAlertServiceImplTest {
         assertEquals(6, alerts.get(0).getQuantityToRestock()); // threshold 15 - current 10 + 1 = 6
     }
 
+    @Test
+    @DisplayName("Should open a stream whose snapshot lists the seller's triggered alerts")
+    @SuppressWarnings("unchecked")
+    void testSubscribeToTriggeredAlerts_Success() {
+        SseEmitter emitter = new SseEmitter();
+        when(tokenValidationUtil.validateSellerToken(VALID_SELLER_TOKEN)).thenReturn(sellerSession);
+        when(sellerAlertStreamHub.subscribe(eq(SELLER_ID), any())).thenReturn(emitter);
+        when(inventoryAlertIndex.triggeredForSeller(SELLER_ID)).thenReturn(Arrays.asList(indexedAlert()));
+
+        assertSame(emitter, inventoryAlertService.subscribeToTriggeredAlerts(VALID_SELLER_TOKEN));
+
+        ArgumentCaptor<Supplier<List<InventoryAlertSummaryDTO>>> snapshot = ArgumentCaptor.forClass(Supplier.class);
+        verify(sellerAlertStreamHub).subscribe(eq(SELLER_ID), snapshot.capture());
+        List<InventoryAlertSummaryDTO> alerts = snapshot.getValue().get();
+        assertEquals(1, alerts.size());
+        assertEquals(ALERT_ID, alerts.get(0).getAlertId());
+    }
+
+    @Test
+    @DisplayName("Should reject a stream subscription with an invalid token")
+    void testSubscribeToTriggeredAlerts_InvalidToken() {
+        when(tokenValidationUtil.validateSellerToken(INVALID_TOKEN))
+            .thenThrow(new com.masai.exception.LoginException("Invalid session token"));
+
+        assertThrows(com.masai.exception.LoginException.class, () ->
+            inventoryAlertService.subscribeToTriggeredAlerts(INVALID_TOKEN));
+        verifyNoInteractions(sellerAlertStreamHub);
+    }
+
+    @Test
+    @DisplayName("Should forward a cleared alert to the seller's streams")
+    void testOnAlertStatusChanged_Cleared() {
+        InventoryAlertStateDTO restocked = indexedAlert().withCurrentQuantity(40);
+
+        inventoryAlertService.onAlertStatusChanged(new InventoryAlertStatusChangedEvent(restocked, false));
+
+        ArgumentCaptor<InventoryAlertSummaryDTO> summary = ArgumentCaptor.forClass(InventoryAlertSummaryDTO.class);
+        verify(sellerAlertStreamHub).publish(eq(SELLER_ID), eq(SellerAlertStreamHub.CLEARED), summary.capture());
+        assertEquals(ALERT_ID, summary.getValue().getAlertId());
+        assertEquals(0, summary.getValue().getQuantityToRestock());
+    }
+
+    @Test
+    @DisplayName("Should add the sales forecast to triggered alerts")
+    void testGetTriggeredAlertsForSeller_Forecast() {
+        LocalDate stockOut = LocalDate.now().plusDays(4);
+        when(tokenValidationUtil.validateSellerToken(VALID_SELLER_TOKEN)).thenReturn(sellerSession);
+        when(inventoryAlertIndex.triggeredForSeller(SELLER_ID)).thenReturn(Arrays.asList(indexedAlert()));
+        when(salesVelocityTracker.dailyRate(PRODUCT_ID)).thenReturn(2.5);
+        when(salesVelocityTracker.projectedStockOutDate(PRODUCT_ID, 10)).thenReturn(stockOut);
+        when(salesVelocityTracker.suggestedReorderQuantity(PRODUCT_ID, 10)).thenReturn(65);
+
+        InventoryAlertSummaryDTO alert = inventoryAlertService.getTriggeredAlertsForSeller(VALID_SELLER_TOKEN).get(0);
+
+        assertEquals(2.5, alert.getDailySalesVelocity());
+        assertEquals(stockOut, alert.getProjectedStockOutDate());
+        assertEquals(65, alert.getSuggestedReorderQuantity());
+    }
+
     @Test
     @DisplayName("Should get alert by ID")
     void testGetAlertById_Success() {
@@ -367,7 +512,7 @@ class InventoryAlertServiceImplTest {
     @Test
     @DisplayName("Should get all triggered alerts across all sellers")
     void testGetAllTriggeredAlerts_Success() {
-        when(inventoryAlertDao.findTriggeredAlerts()).thenReturn(Arrays.asList(inventoryAlert));
+        when(inventoryAlertIndex.allTriggered()).thenReturn(Arrays.asList(indexedAlert()));
 
         List<InventoryAlertSummaryDTO> alerts = inventoryAlertService.getAllTriggeredAlerts();
 
@@ -378,7 +523,7 @@ class InventoryAlertServiceImplTest {
     @Test
     @DisplayName("Should return empty list when no triggered alerts exist")
     void testGetAllTriggeredAlerts_Empty() {
-        when(inventoryAlertDao.findTriggeredAlerts()).thenReturn(Collections.emptyList());
+        when(inventoryAlertIndex.allTriggered()).thenReturn(Collections.emptyList());
 
         List<InventoryAlertSummaryDTO> alerts = inventoryAlertService.getAllTriggeredAlerts();
 
@@ -458,7 +603,7 @@ class InventoryAlertServiceImplTest {
         inventoryAlert.setThresholdQuantity(20);
 
         when(tokenValidationUtil.validateSellerToken(VALID_SELLER_TOKEN)).thenReturn(sellerSession);
-        when(inventoryAlertDao.findTriggeredAlertsBySellerId(SELLER_ID)).thenReturn(Arrays.asList(inventoryAlert));
+        when(inventoryAlertIndex.triggeredForSeller(SELLER_ID)).thenReturn(Arrays.asList(indexedAlert()));
 
         List<InventoryAlertSummaryDTO> alerts = inventoryAlertService.getTriggeredAlertsForSeller(VALID_SELLER_TOKEN);
 
@@ -507,4 +652,11 @@ class InventoryAlertServiceImplTest {
         assertNotNull(alerts);
         assertEquals(2, alerts.size());
     }
-}
\ No newline at end of file
+
+    // Snapshot of inventoryAlert as held by the alert index
+    private InventoryAlertStateDTO indexedAlert() {
+        return new InventoryAlertStateDTO(inventoryAlert.getAlertId(), product.getProductId(), product.getProductName(),
+                SELLER_ID, inventoryAlert.getThresholdQuantity(), inventoryAlert.getAlertEnabled(),
+                product.getQuantity(), inventoryAlert.getLastAlertSentAt(), inventoryAlert.getAlertCount());
+    }
+}
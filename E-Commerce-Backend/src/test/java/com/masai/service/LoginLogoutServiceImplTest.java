@@ -14,6 +14,7 @@ import java.util.Optional;
 import com.masai.exception.CustomerNotFoundException;
 import com.masai.exception.LoginException;
 import com.masai.exception.SellerNotFoundException;
+import com.masai.exception.TooManyRequestsException;
 import com.masai.models.Customer;
 import com.masai.dto.CustomerDTO;
 import com.masai.models.Seller;
@@ -23,6 +24,7 @@ import com.masai.models.UserSession;
 import com.masai.repository.CustomerRepository;
 import com.masai.repository.SellerRepository;
 import com.masai.repository.SessionRepository;
+import com.masai.util.LoginRateLimiter;
 import com.masai.util.PasswordEncoderUtil;
 import com.masai.util.TokenValidationUtil;
 
@@ -49,6 +51,9 @@ class LoginLogoutServiceImplTest {
     @Mock
     private TokenValidationUtil tokenValidationUtil;
 
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
     @InjectMocks
     private LoginLogoutServiceImpl loginLogoutService;
 
@@ -82,7 +87,7 @@ class LoginLogoutServiceImplTest {
         when(passwordEncoderUtil.matchesPassword("TestPassword123", testCustomer.getPassword())).thenReturn(true);
         when(sessionRepository.save(any(UserSession.class))).thenReturn(testSession);
 
-        UserSession result = loginLogoutService.loginCustomer(testCustomerDTO);
+        UserSession result = loginLogoutService.loginCustomer(testCustomerDTO, "127.0.0.1");
 
         assertNotNull(result);
         assertEquals(1, result.getUserId());
@@ -90,13 +95,41 @@ class LoginLogoutServiceImplTest {
         verify(sessionRepository, times(1)).save(any(UserSession.class));
     }
 
+    @Test
+    @DisplayName("Should rehash customer password when cost factor changed")
+    void testLoginCustomerRehashesLegacyHash() {
+        when(customerRepository.findByMobileNo("9876543210")).thenReturn(Optional.of(testCustomer));
+        when(sessionRepository.findByUserId(1)).thenReturn(Optional.empty());
+        when(passwordEncoderUtil.matchesPassword("TestPassword123", testCustomer.getPassword())).thenReturn(true);
+        when(passwordEncoderUtil.needsRehash(testCustomer.getPassword())).thenReturn(true);
+        when(passwordEncoderUtil.encodePassword("TestPassword123")).thenReturn("$2a$12$rehashed");
+        when(sessionRepository.save(any(UserSession.class))).thenReturn(testSession);
+
+        loginLogoutService.loginCustomer(testCustomerDTO, "127.0.0.1");
+
+        assertEquals("$2a$12$rehashed", testCustomer.getPassword());
+        verify(customerRepository, times(1)).save(testCustomer);
+    }
+
+    @Test
+    @DisplayName("Should reject throttled customer login before touching the database")
+    void testLoginCustomerThrottled() {
+        doThrow(new TooManyRequestsException("Too many login attempts for this account. Please try again later."))
+            .when(loginRateLimiter).checkLoginAttempt("9876543210", "127.0.0.1");
+
+        assertThrows(TooManyRequestsException.class, () -> {
+            loginLogoutService.loginCustomer(testCustomerDTO, "127.0.0.1");
+        });
+        verifyNoInteractions(customerRepository, sessionRepository, passwordEncoderUtil);
+    }
+
     @Test
     @DisplayName("Should throw exception for customer not found")
     void testLoginCustomerNotFound() {
         when(customerRepository.findByMobileNo("9876543210")).thenReturn(Optional.empty());
 
         assertThrows(CustomerNotFoundException.class, () -> {
-            loginLogoutService.loginCustomer(testCustomerDTO);
+            loginLogoutService.loginCustomer(testCustomerDTO, "127.0.0.1");
         });
     }
 
@@ -108,7 +141,7 @@ class LoginLogoutServiceImplTest {
         when(passwordEncoderUtil.matchesPassword(anyString(), anyString())).thenReturn(false);
 
         assertThrows(LoginException.class, () -> {
-            loginLogoutService.loginCustomer(testCustomerDTO);
+            loginLogoutService.loginCustomer(testCustomerDTO, "127.0.0.1");
         });
     }
 
@@ -119,7 +152,7 @@ class LoginLogoutServiceImplTest {
         when(sessionRepository.findByUserId(1)).thenReturn(Optional.of(testSession));
 
         assertThrows(LoginException.class, () -> {
-            loginLogoutService.loginCustomer(testCustomerDTO);
+            loginLogoutService.loginCustomer(testCustomerDTO, "127.0.0.1");
         });
     }
 
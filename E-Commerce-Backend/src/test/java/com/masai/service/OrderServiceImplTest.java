@@ -8,20 +8,24 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.masai.dto.CartDTO;
 import com.masai.dto.OrderDTO;
 import com.masai.exception.LoginException;
 import com.masai.exception.OrderException;
+import com.masai.exception.ProductNotFoundException;
 import com.masai.models.Address;
 import com.masai.models.Cart;
 import com.masai.models.CartItem;
@@ -32,6 +36,10 @@ import com.masai.models.OrderStatusValues;
 import com.masai.models.Product;
 import com.masai.models.ProductStatus;
 import com.masai.repository.OrderRepository;
+import com.masai.util.CartStore;
+import com.masai.util.StockHolds;
+import com.masai.event.ProductsSoldEvent;
+import com.masai.event.StockChangedEvent;
 
 @DisplayName("OrderServiceImpl Tests")
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +54,15 @@ class OrderServiceImplTest {
     @Mock
     private CartService cartService;
 
+    @Mock
+    private CartStore cartStore;
+
+    @Mock
+    private StockHolds stockHolds;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -161,6 +178,7 @@ class OrderServiceImplTest {
     @DisplayName("Should cancel success order and restore inventory")
     void testCancelOrderByOrderId_Success() {
         order.setOrderStatus(OrderStatusValues.SUCCESS);
+        order.setDate(LocalDate.now().minusDays(2));
         order.setOrdercartItems(Arrays.asList(cartItem));
         when(orderRepository.findById(1)).thenReturn(Optional.of(order));
         when(customerService.getLoggedInCustomerDetails(anyString())).thenReturn(customer);
@@ -170,6 +188,59 @@ class OrderServiceImplTest {
 
         assertNotNull(result);
         assertEquals(OrderStatusValues.CANCELLED, result.getOrderStatus());
+        verify(eventPublisher).publishEvent(any(StockChangedEvent.class));
+        ArgumentCaptor<ProductsSoldEvent> sold = ArgumentCaptor.forClass(ProductsSoldEvent.class);
+        verify(eventPublisher).publishEvent(sold.capture());
+        assertEquals(order.getDate(), sold.getValue().getSoldOn());
+        assertEquals(-2, sold.getValue().getUnitsByProduct().get(1));
+    }
+
+    @Test
+    @DisplayName("Should reject a checkout whose lines can no longer be held")
+    void testSaveOrder_HoldFails() {
+        when(customerService.getLoggedInCustomerDetails(anyString())).thenReturn(customer);
+        doThrow(new ProductNotFoundException("Only 1 units of product 1 are available to hold"))
+            .when(stockHolds).hold(cart);
+
+        assertThrows(OrderException.class, () -> orderService.saveOrder(orderDTO, "token"));
+
+        verify(stockHolds, never()).checkout(any());
+        verify(eventPublisher, never()).publishEvent(any());
+        assertEquals(10, product.getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should count an order as sold when it is confirmed, not when it is updated again")
+    void testUpdateOrderByOrder_SoldOnce() {
+        order.setOrderStatus(OrderStatusValues.PENDING);
+        order.setOrdercartItems(Arrays.asList(cartItem));
+        when(orderRepository.findById(1)).thenReturn(Optional.of(order));
+        when(customerService.getLoggedInCustomerDetails(anyString())).thenReturn(customer);
+        when(orderRepository.save(order)).thenReturn(order);
+
+        orderService.updateOrderByOrder(orderDTO, 1, "token");
+        orderService.updateOrderByOrder(orderDTO, 1, "token");
+
+        assertEquals(OrderStatusValues.SUCCESS, order.getOrderStatus());
+        ArgumentCaptor<ProductsSoldEvent> sold = ArgumentCaptor.forClass(ProductsSoldEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(sold.capture());
+        assertEquals(2, sold.getValue().getUnitsByProduct().get(1));
+    }
+
+    @Test
+    @DisplayName("Should reject confirming a pending order with units other carts hold")
+    void testUpdateOrderByOrder_UnitsHeld() {
+        order.setOrderStatus(OrderStatusValues.PENDING);
+        order.setOrdercartItems(Arrays.asList(cartItem));
+        when(orderRepository.findById(1)).thenReturn(Optional.of(order));
+        when(customerService.getLoggedInCustomerDetails(anyString())).thenReturn(customer);
+        doThrow(new ProductNotFoundException("Only 1 units of product 1 are not held in carts"))
+            .when(stockHolds).sell(Map.of(1, 2));
+
+        assertThrows(OrderException.class, () -> orderService.updateOrderByOrder(orderDTO, 1, "token"));
+
+        assertEquals(10, product.getQuantity());
+        verify(orderRepository, never()).save(any());
     }
 
     @Test
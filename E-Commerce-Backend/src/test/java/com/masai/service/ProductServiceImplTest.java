@@ -14,14 +14,20 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import com.masai.dto.AlsoBoughtProductDTO;
+import com.masai.dto.MostWishlistedProductDTO;
+import com.masai.dto.ProductCoPurchaseCountDTO;
 import com.masai.dto.ProductDTO;
+import com.masai.dto.ProductWishlistCountDTO;
 import com.masai.dto.ProductSearchFilterDTO;
 import com.masai.dto.ProductSearchResponseDTO;
 import com.masai.exception.CategoryNotFoundException;
@@ -32,6 +38,12 @@ import com.masai.models.ProductStatus;
 import com.masai.models.Seller;
 import com.masai.repository.ProductRepository;
 import com.masai.repository.SellerRepository;
+import com.masai.event.ProductBackInStockEvent;
+import com.masai.event.ProductPriceChangedEvent;
+import com.masai.event.ProductPriceDroppedEvent;
+import com.masai.event.StockChangedEvent;
+import com.masai.util.CoPurchaseMatrix;
+import com.masai.util.WishlistLeaderboard;
 
 @DisplayName("ProductServiceImpl Tests")
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +58,15 @@ class ProductServiceImplTest {
     @Mock
     private SellerRepository sellerRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WishlistLeaderboard wishlistLeaderboard;
+
+    @Mock
+    private CoPurchaseMatrix coPurchaseMatrix;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -132,6 +153,31 @@ class ProductServiceImplTest {
         assertEquals(1, result.getProductId());
     }
 
+    @Test
+    @DisplayName("Should publish a price drop when a catalog update lowers the price")
+    void testUpdateProductIncatalog_PriceDrop() {
+        Product updated = new Product();
+        updated.setProductId(1);
+        updated.setProductName("Test Product");
+        updated.setPrice(79.99);
+        updated.setQuantity(10);
+        updated.setStatus(ProductStatus.AVAILABLE);
+
+        when(productRepository.findById(1)).thenReturn(Optional.of(product));
+        when(productRepository.save(updated)).thenReturn(updated);
+
+        productService.updateProductIncatalog(updated);
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        ProductPriceDroppedEvent drop = (ProductPriceDroppedEvent) events.getAllValues().get(1);
+        assertEquals(99.99, drop.getPreviousPrice());
+        assertEquals(79.99, drop.getPrice());
+        ProductPriceChangedEvent change = (ProductPriceChangedEvent) events.getAllValues().get(2);
+        assertEquals(1, change.getProductId());
+        assertEquals(79.99, change.getPrice());
+    }
+
     @Test
     @DisplayName("Should throw exception when updating non-existent product")
     void testUpdateProductIncatalog_NotFound() {
@@ -219,6 +265,71 @@ class ProductServiceImplTest {
         assertNotNull(result);
         assertEquals(15, result.getQuantity()); // 10 + 5
         assertEquals(ProductStatus.AVAILABLE, result.getStatus());
+
+        ArgumentCaptor<StockChangedEvent> event = ArgumentCaptor.forClass(StockChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(1, event.getValue().getProductId());
+        assertEquals(15, event.getValue().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should publish back in stock when a restock makes the product available")
+    void testUpdateProductQuantityWithId_BackInStock() {
+        product.setQuantity(0);
+        product.setStatus(ProductStatus.OUTOFSTOCK);
+        ProductDTO updateDTO = new ProductDTO();
+        updateDTO.setQuantity(5);
+
+        when(productRepository.findById(1)).thenReturn(Optional.of(product));
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+
+        productService.updateProductQuantityWithId(1, updateDTO);
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        ProductBackInStockEvent restock = (ProductBackInStockEvent) events.getAllValues().get(1);
+        assertEquals(1, restock.getProductId());
+        assertEquals(5, restock.getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should return the most wishlisted products in leaderboard order")
+    void testGetMostWishlisted() {
+        Product second = new Product();
+        second.setProductId(2);
+        second.setProductName("Second Product");
+        second.setCategory(CategoryEnum.ELECTRONICS);
+
+        when(wishlistLeaderboard.top(CategoryEnum.ELECTRONICS, 50)).thenReturn(Arrays.asList(
+            new ProductWishlistCountDTO(2, CategoryEnum.ELECTRONICS, 9L),
+            new ProductWishlistCountDTO(1, CategoryEnum.ELECTRONICS, 4L)));
+        when(productRepository.findAllById(Arrays.asList(2, 1))).thenReturn(Arrays.asList(product, second));
+
+        List<MostWishlistedProductDTO> result = productService.getMostWishlisted(CategoryEnum.ELECTRONICS, 500);
+
+        assertEquals(2, result.size());
+        assertEquals("Second Product", result.get(0).getProductName());
+        assertEquals(9L, result.get(0).getWishlistCount());
+        assertEquals(1, result.get(1).getProductId());
+    }
+
+    @Test
+    @DisplayName("Should return products bought together in co-purchase order, skipping deleted ones")
+    void testGetAlsoBought() {
+        Product second = new Product();
+        second.setProductId(2);
+        second.setProductName("Second Product");
+
+        when(coPurchaseMatrix.alsoBought(1, 20)).thenReturn(Arrays.asList(
+            new ProductCoPurchaseCountDTO(2, 7L),
+            new ProductCoPurchaseCountDTO(3, 5L)));
+        when(productRepository.findAllById(Arrays.asList(2, 3))).thenReturn(Arrays.asList(second));
+
+        List<AlsoBoughtProductDTO> result = productService.getAlsoBought(1, 100);
+
+        assertEquals(1, result.size());
+        assertEquals("Second Product", result.get(0).getProductName());
+        assertEquals(7L, result.get(0).getBoughtTogetherCount());
     }
 
     @Test
@@ -7,7 +7,10 @@ import static org.mockito.Mockito.*;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,31 +19,44 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.dto.CursorPageDTO;
+import com.masai.dto.CustomerPrincipal;
+import com.masai.dto.ProductWishlistCountDTO;
 import com.masai.dto.WishlistResponseDTO;
+import com.masai.event.WishlistChangedEvent;
 import com.masai.exception.CustomerNotFoundException;
 import com.masai.exception.ProductNotFoundException;
 import com.masai.exception.WishlistException;
 import com.masai.models.Cart;
 import com.masai.models.CartItem;
+import com.masai.models.CategoryEnum;
 import com.masai.models.Customer;
 import com.masai.models.Product;
-import com.masai.models.UserSession;
+import com.masai.models.ProductStatus;
 import com.masai.models.Wishlist;
 import com.masai.models.WishlistItem;
-import com.masai.repository.CartRepository;
 import com.masai.repository.CustomerRepository;
 import com.masai.repository.ProductRepository;
 import com.masai.repository.WishlistItemRepository;
 import com.masai.repository.WishlistRepository;
-import com.masai.util.TokenValidationUtil;
+import com.masai.util.CartStore;
+import com.masai.util.CursorCodec;
+import com.masai.util.CustomerPrincipalResolver;
+import com.masai.util.StockHolds;
+import com.masai.util.WishlistLeaderboard;
+import com.masai.util.WishlistMembershipCache;
 
 @DisplayName("WishlistServiceImpl Tests")
 @ExtendWith(MockitoExtension.class)
 class WishlistServiceImplTest {
 
     @Mock
-    private TokenValidationUtil tokenValidationUtil;
+    private CustomerPrincipalResolver customerPrincipalResolver;
 
     @Mock
     private CustomerRepository customerRepository;
@@ -55,15 +71,30 @@ class WishlistServiceImplTest {
     private WishlistItemRepository wishlistItemRepository;
 
     @Mock
-    private CartRepository cartRepository;
+    private CartStore cartStore;
+
+    @Mock
+    private StockHolds stockHolds;
 
     @Mock
     private CartItemService cartItemService;
 
+    @Mock
+    private WishlistMembershipCache wishlistMembershipCache;
+
+    @Mock
+    private WishlistLeaderboard wishlistLeaderboard;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private WishlistServiceImpl wishlistService;
 
-    private UserSession userSession;
+    private CustomerPrincipal principal;
     private Customer customer;
     private Wishlist wishlist;
     private Product product;
@@ -71,9 +102,7 @@ class WishlistServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        userSession = new UserSession();
-        userSession.setUserId(1);
-        userSession.setToken("customer_token");
+        principal = new CustomerPrincipal(1, 1, 1);
 
         wishlist = new Wishlist();
         wishlist.setWishlistId(1);
@@ -103,8 +132,7 @@ class WishlistServiceImplTest {
     @Test
     @DisplayName("Should add product to wishlist successfully")
     void testAddToWishlist_Success() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
         when(wishlistItemRepository.findByWishlist_WishlistIdAndProduct_ProductId(anyInt(), anyInt()))
             .thenReturn(Optional.empty());
         when(productRepository.findById(1)).thenReturn(Optional.of(product));
@@ -114,13 +142,15 @@ class WishlistServiceImplTest {
 
         assertNotNull(result);
         assertEquals(1, result.getProductId());
+        verify(productRepository).adjustWishlistCounts(List.of(1), 1);
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+            event instanceof WishlistChangedEvent changed && changed.isAdded() && changed.getProductId() == 1));
     }
 
     @Test
     @DisplayName("Should throw exception when product already in wishlist")
     void testAddToWishlist_Duplicate() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
         when(wishlistItemRepository.findByWishlist_WishlistIdAndProduct_ProductId(anyInt(), anyInt()))
             .thenReturn(Optional.of(wishlistItem));
 
@@ -131,8 +161,7 @@ class WishlistServiceImplTest {
     @Test
     @DisplayName("Should throw exception when product not found")
     void testAddToWishlist_ProductNotFound() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
         when(wishlistItemRepository.findByWishlist_WishlistIdAndProduct_ProductId(anyInt(), anyInt()))
             .thenReturn(Optional.empty());
         when(productRepository.findById(1)).thenReturn(Optional.empty());
@@ -144,8 +173,8 @@ class WishlistServiceImplTest {
     @Test
     @DisplayName("Should throw exception when customer not found")
     void testAddToWishlist_CustomerNotFound() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.empty());
+        when(customerPrincipalResolver.resolve(anyString()))
+            .thenThrow(new CustomerNotFoundException("Customer does not exist"));
 
         assertThrows(CustomerNotFoundException.class, () ->
             wishlistService.addToWishlist(1, "token"));
@@ -154,10 +183,9 @@ class WishlistServiceImplTest {
     @Test
     @DisplayName("Should get wishlist successfully")
     void testGetWishlist_Success() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
-        when(wishlistItemRepository.findByWishlist_WishlistIdOrderByAddedAtDesc(anyInt()))
-            .thenReturn(Arrays.asList(wishlistItem));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(wishlistItemRepository.findNewestItems(anyInt(), eq(Pageable.unpaged())))
+            .thenReturn(Arrays.asList(itemDTO(1, LocalDateTime.now())));
 
         var result = wishlistService.getWishlist("token");
 
@@ -165,11 +193,54 @@ class WishlistServiceImplTest {
         assertEquals(1, result.size());
     }
 
+    private WishlistResponseDTO itemDTO(Integer wishlistItemId, LocalDateTime addedAt) {
+        WishlistResponseDTO dto = new WishlistResponseDTO();
+        dto.setWishlistItemId(wishlistItemId);
+        dto.setProductId(wishlistItemId);
+        dto.setAddedAt(addedAt);
+        return dto;
+    }
+
+    @Test
+    @DisplayName("Should return a wishlist page with a cursor to the next one")
+    void testGetWishlistPage_FirstPage() {
+        LocalDateTime now = LocalDateTime.of(2024, 6, 30, 12, 0);
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(wishlistItemRepository.findNewestItems(eq(1), any(Pageable.class)))
+            .thenReturn(new java.util.ArrayList<>(Arrays.asList(itemDTO(9, now), itemDTO(7, now.minusDays(1)), itemDTO(4, now.minusDays(2)))));
+
+        CursorPageDTO<WishlistResponseDTO> page = wishlistService.getWishlistPage(null, 2, "token");
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(CursorCodec.encode(now.minusDays(1), 7), page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should continue a wishlist page from the cursor position")
+    void testGetWishlistPage_AfterCursor() {
+        LocalDateTime addedAt = LocalDateTime.of(2024, 6, 29, 12, 0);
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(wishlistItemRepository.findNewestItemsAfter(eq(1), eq(addedAt), eq(7), any(Pageable.class)))
+            .thenReturn(Arrays.asList(itemDTO(4, addedAt.minusDays(1))));
+
+        CursorPageDTO<WishlistResponseDTO> page = wishlistService.getWishlistPage(CursorCodec.encode(addedAt, 7), 2, "token");
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed wishlist cursor")
+    void testGetWishlistPage_InvalidCursor() {
+        assertThrows(WishlistException.class, () ->
+            wishlistService.getWishlistPage("not-a-cursor", 20, "token"));
+        verifyNoInteractions(customerPrincipalResolver);
+    }
+
     @Test
     @DisplayName("Should remove product from wishlist successfully")
     void testRemoveFromWishlist_Success() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
         when(wishlistItemRepository.findByWishlist_WishlistIdAndProduct_ProductId(anyInt(), anyInt()))
             .thenReturn(Optional.of(wishlistItem));
         doNothing().when(wishlistItemRepository).delete(any(WishlistItem.class));
@@ -177,13 +248,14 @@ class WishlistServiceImplTest {
         String result = wishlistService.removeFromWishlist(1, "token");
 
         assertEquals("Product removed from wishlist successfully", result);
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+            event instanceof WishlistChangedEvent changed && !changed.isAdded() && changed.getWishlistId() == 1));
     }
 
     @Test
     @DisplayName("Should throw exception when product not in wishlist for removal")
     void testRemoveFromWishlist_NotInWishlist() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
         when(wishlistItemRepository.findByWishlist_WishlistIdAndProduct_ProductId(anyInt(), anyInt()))
             .thenReturn(Optional.empty());
 
@@ -191,6 +263,15 @@ class WishlistServiceImplTest {
             wishlistService.removeFromWishlist(1, "token"));
     }
 
+    // Applies cart changes to the given cart in place, as the database store does
+    @SuppressWarnings("unchecked")
+    private void storeHolds(Cart held) {
+        when(cartStore.update(eq(1), any())).thenAnswer(invocation -> {
+            ((Consumer<Cart>) invocation.getArgument(1)).accept(held);
+            return held;
+        });
+    }
+
     @Test
     @DisplayName("Should move product to cart successfully")
     void testMoveToCart_Success() {
@@ -198,24 +279,23 @@ class WishlistServiceImplTest {
         cartItem.setCartProduct(product);
         cartItem.setCartItemQuantity(1);
 
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
         when(wishlistItemRepository.findByWishlist_WishlistIdAndProduct_ProductId(anyInt(), anyInt()))
             .thenReturn(Optional.of(wishlistItem));
         doNothing().when(wishlistItemRepository).delete(any(WishlistItem.class));
         when(cartItemService.createItemforCart(any())).thenReturn(cartItem);
-        when(cartRepository.save(any(Cart.class))).thenReturn(customer.getCustomerCart());
+        storeHolds(customer.getCustomerCart());
 
         Cart result = wishlistService.moveToCart(1, "token");
 
         assertNotNull(result);
+        verify(eventPublisher).publishEvent(any(WishlistChangedEvent.class));
     }
 
     @Test
     @DisplayName("Should throw exception when product not in wishlist for move")
     void testMoveToCart_NotInWishlist() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
         when(wishlistItemRepository.findByWishlist_WishlistIdAndProduct_ProductId(anyInt(), anyInt()))
             .thenReturn(Optional.empty());
 
@@ -223,13 +303,61 @@ class WishlistServiceImplTest {
             wishlistService.moveToCart(1, "token"));
     }
 
+    @Test
+    @DisplayName("Should move the whole wishlist to cart, merging into existing cart items")
+    void testMoveAllToCart_Success() {
+        product.setQuantity(5);
+        product.setStatus(ProductStatus.AVAILABLE);
+        Product second = new Product();
+        second.setProductId(2);
+        second.setPrice(50.0);
+        second.setQuantity(3);
+        second.setStatus(ProductStatus.AVAILABLE);
+        Product soldOut = new Product();
+        soldOut.setProductId(3);
+        soldOut.setPrice(20.0);
+        soldOut.setQuantity(0);
+        soldOut.setStatus(ProductStatus.OUTOFSTOCK);
+
+        Cart cart = customer.getCustomerCart();
+        CartItem existing = new CartItem();
+        existing.setCartProduct(product);
+        existing.setCartItemQuantity(1);
+        cart.getCartItems().add(existing);
+        cart.setCartTotal(100.0);
+
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(wishlistItemRepository.findProductIdsByWishlistId(1)).thenReturn(Arrays.asList(1, 2, 3));
+        when(productRepository.findAllById(any())).thenReturn(Arrays.asList(product, second, soldOut));
+        storeHolds(cart);
+
+        Cart result = wishlistService.moveAllToCart(null, "token");
+
+        assertEquals(2, result.getCartItems().size());
+        assertEquals(2, existing.getCartItemQuantity());
+        assertEquals(250.0, result.getCartTotal());
+        verify(productRepository).adjustWishlistCounts(Arrays.asList(1, 2), -1);
+        verify(wishlistItemRepository).deleteByWishlistIdAndProductIds(1, Arrays.asList(1, 2));
+        verify(eventPublisher, times(2)).publishEvent(any(WishlistChangedEvent.class));
+        verify(cartStore, times(1)).update(eq(1), any());
+    }
+
+    @Test
+    @DisplayName("Should reject moving a selected product that is not in the wishlist")
+    void testMoveAllToCart_NotInWishlist() {
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(wishlistItemRepository.findProductIdsByWishlistId(1)).thenReturn(Arrays.asList(1));
+
+        assertThrows(WishlistException.class, () ->
+            wishlistService.moveAllToCart(Arrays.asList(1, 9), "token"));
+        verify(wishlistItemRepository, never()).deleteByWishlistIdAndProductIds(anyInt(), any());
+    }
+
     @Test
     @DisplayName("Should check if product is wishlisted - true")
     void testIsWishlisted_True() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
-        when(wishlistItemRepository.findByWishlist_WishlistIdAndProduct_ProductId(anyInt(), anyInt()))
-            .thenReturn(Optional.of(wishlistItem));
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(wishlistMembershipCache.contains(1, 1)).thenReturn(true);
 
         boolean result = wishlistService.isWishlisted(1, "token");
 
@@ -239,16 +367,38 @@ class WishlistServiceImplTest {
     @Test
     @DisplayName("Should check if product is wishlisted - false")
     void testIsWishlisted_False() {
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
-        when(wishlistItemRepository.findByWishlist_WishlistIdAndProduct_ProductId(anyInt(), anyInt()))
-            .thenReturn(Optional.empty());
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(wishlistMembershipCache.contains(1, 1)).thenReturn(false);
 
         boolean result = wishlistService.isWishlisted(1, "token");
 
         assertFalse(result);
     }
 
+    @Test
+    @DisplayName("Should check a batch of products against the wishlist")
+    void testCheckWishlisted_Batch() {
+        List<Integer> productIds = Arrays.asList(1, 2, 3);
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(principal);
+        when(wishlistMembershipCache.containsAll(1, productIds)).thenReturn(Map.of(1, true, 2, false, 3, false));
+
+        Map<Integer, Boolean> result = wishlistService.checkWishlisted(productIds, "token");
+
+        assertEquals(3, result.size());
+        assertTrue(result.get(1));
+        verifyNoInteractions(wishlistItemRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject an oversized membership check")
+    void testCheckWishlisted_TooMany() {
+        List<Integer> productIds = Collections.nCopies(501, 1);
+
+        assertThrows(WishlistException.class, () ->
+            wishlistService.checkWishlisted(productIds, "token"));
+        verifyNoInteractions(customerPrincipalResolver);
+    }
+
     @Test
     @DisplayName("Should lazily initialize wishlist when null")
     void testResolveCustomer_LazyInitWishlist() {
@@ -256,16 +406,45 @@ class WishlistServiceImplTest {
         Wishlist newWishlist = new Wishlist();
         newWishlist.setWishlistId(2);
         
-        when(tokenValidationUtil.validateCustomerToken(anyString())).thenReturn(userSession);
+        when(customerPrincipalResolver.resolve(anyString())).thenReturn(new CustomerPrincipal(1, 1, null));
         when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
         when(wishlistRepository.save(any(Wishlist.class))).thenReturn(newWishlist);
         when(customerRepository.save(any(Customer.class))).thenReturn(customer);
-        when(wishlistItemRepository.findByWishlist_WishlistIdOrderByAddedAtDesc(anyInt()))
+        when(wishlistItemRepository.findNewestItems(2, Pageable.unpaged()))
             .thenReturn(Collections.emptyList());
 
         var result = wishlistService.getWishlist("token");
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
+        verify(customerPrincipalResolver).refresh(eq("token"), any(CustomerPrincipal.class));
+    }
+
+    @Test
+    @DisplayName("Should correct drifted wishlist counts and reset the leaderboard after each batch commits")
+    void testReconcileWishlistCounts() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            // Nothing reaches the leaderboard until the batch's transaction has finished
+            verify(wishlistLeaderboard, never()).set(any(ProductWishlistCountDTO.class), anyLong());
+            return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+        });
+        when(productRepository.getWishlistCountsAfter(eq(0), any(Pageable.class))).thenReturn(Arrays.asList(
+            new ProductWishlistCountDTO(1, CategoryEnum.BOOKS, 3L),
+            new ProductWishlistCountDTO(2, CategoryEnum.BOOKS, 5L)));
+        when(productRepository.getWishlistCountsAfter(eq(2), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(wishlistLeaderboard.counts(Arrays.asList(1, 2))).thenReturn(Map.of(1, 3L, 2, 6L));
+        when(wishlistItemRepository.countWishlistsByProductIds(Arrays.asList(1, 2))).thenReturn(Arrays.asList(
+            new ProductWishlistCountDTO(2, CategoryEnum.BOOKS, 5L)));
+
+        int corrected = wishlistService.reconcileWishlistCounts();
+
+        assertEquals(1, corrected);
+        verify(productRepository).setWishlistCount(1, 0L);
+        verify(productRepository, never()).setWishlistCount(eq(2), anyLong());
+        verify(wishlistLeaderboard, times(2)).set(any(ProductWishlistCountDTO.class), anyLong());
+        verify(wishlistLeaderboard).set(argThat(count -> count.getProductId() == 1 && count.getWishlistCount() == 0L), eq(3L));
+        // Each product is replaced only if it still holds the count read before the recount
+        verify(wishlistLeaderboard).set(argThat(count -> count.getProductId() == 2 && count.getWishlistCount() == 5L), eq(6L));
+        verify(transactionTemplate, times(1)).execute(any());
     }
 }
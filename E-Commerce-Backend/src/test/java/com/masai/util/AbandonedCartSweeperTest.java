@@ -0,0 +1,99 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.repository.AbandonedCartItemRepository;
+import com.masai.repository.CartItemRepository;
+import com.masai.repository.CartRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("AbandonedCartSweeper Tests")
+@ExtendWith(MockitoExtension.class)
+class AbandonedCartSweeperTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 30, 3, 30);
+    private static final LocalDateTime CUTOFF = NOW.minusDays(30);
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
+    @Mock
+    private AbandonedCartItemRepository abandonedCartItemRepository;
+
+    @Mock
+    private CartStore cartStore;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AbandonedCartSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new AbandonedCartSweeper(cartRepository, cartItemRepository, abandonedCartItemRepository,
+                cartStore, transactionTemplate, 30, 2, meterRegistry);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(cartRepository.stampUntrackedCarts(NOW, 2)).thenReturn(2, 1);
+    }
+
+    @Test
+    @DisplayName("Should archive and clear idle carts one batch per transaction until a short batch")
+    void testSweepInBatches() {
+        when(cartRepository.findIdleCartIds(CUTOFF, 2)).thenReturn(List.of(1, 2), List.of(3));
+        when(abandonedCartItemRepository.archiveIdleCarts(anyCollection(), eq(CUTOFF), eq(NOW))).thenReturn(3, 1);
+        when(cartItemRepository.deleteIdleCartItems(anyCollection(), eq(CUTOFF))).thenReturn(2, 1);
+        when(cartRepository.unlinkIdleCartItems(anyCollection(), eq(CUTOFF))).thenReturn(3, 1);
+        when(cartRepository.resetIdleCarts(anyCollection(), eq(CUTOFF))).thenReturn(2, 1);
+
+        assertEquals(7, sweeper.sweep(NOW));
+
+        verify(transactionTemplate, times(4)).execute(any());
+        verify(cartRepository).resetIdleCarts(List.of(1, 2), CUTOFF);
+        verify(cartRepository).resetIdleCarts(List.of(3), CUTOFF);
+        verify(cartStore).discard(1);
+        verify(cartStore).discard(2);
+        verify(cartStore).discard(3);
+        assertEquals(3.0, meterRegistry.counter("cart.abandoned.carts").count());
+        assertEquals(4.0, meterRegistry.counter("cart.abandoned.archived").count());
+        assertEquals(7.0, meterRegistry.counter("cart.abandoned.reclaimed").count());
+    }
+
+    @Test
+    @DisplayName("Should stop at a failed batch and keep what earlier batches reclaimed")
+    void testStopsOnFailure() {
+        when(cartRepository.findIdleCartIds(CUTOFF, 2)).thenReturn(List.of(1, 2), List.of(3, 4));
+        when(abandonedCartItemRepository.archiveIdleCarts(anyCollection(), eq(CUTOFF), eq(NOW)))
+                .thenReturn(2).thenThrow(new IllegalStateException("database is locked"));
+        when(cartItemRepository.deleteIdleCartItems(List.of(1, 2), CUTOFF)).thenReturn(2);
+        when(cartRepository.unlinkIdleCartItems(List.of(1, 2), CUTOFF)).thenReturn(2);
+        when(cartRepository.resetIdleCarts(List.of(1, 2), CUTOFF)).thenReturn(2);
+
+        assertEquals(4, sweeper.sweep(NOW));
+
+        verify(cartStore, never()).discard(3);
+        verify(cartRepository, times(2)).findIdleCartIds(CUTOFF, 2);
+        assertEquals(2.0, meterRegistry.counter("cart.abandoned.carts").count());
+    }
+}
@@ -0,0 +1,67 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+import com.masai.models.Product;
+
+@DisplayName("CartPricing Tests")
+class CartPricingTest {
+
+    private static Product product(Integer productId, double price) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setPrice(price);
+        return product;
+    }
+
+    private static Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setCartItems(new ArrayList<>());
+        for (CartItem item : items) {
+            cart.getCartItems().add(item);
+        }
+        return cart;
+    }
+
+    @Test
+    @DisplayName("Should total in whole cents without floating point drift")
+    void testPriceWithoutDrift() {
+        CartItem item = new CartItem(null, product(1, 0.1), 1, null);
+        Cart cart = cart(item, new CartItem(null, product(2, 0.2), 1, null));
+
+        double drifted = 0.1 + 0.2;
+        for (int i = 0; i < 1000; i++) {
+            item.setCartItemQuantity(item.getCartItemQuantity() + 1);
+            drifted += 0.1;
+            CartPricing.price(cart);
+        }
+
+        assertEquals(10030L, CartPricing.price(cart));
+        assertEquals(100.3, cart.getCartTotal());
+        assertNotEquals(100.3, drifted);
+    }
+
+    @Test
+    @DisplayName("Should keep a line's snapshot price until it is repriced")
+    void testSnapshotAndReprice() {
+        Product product = product(1, 19.99);
+        CartItem line = new CartItem(null, product, 3, null);
+        Cart cart = cart(line, new CartItem(null, product(2, 5.0), 1, null));
+
+        assertEquals(6497L, CartPricing.price(cart));
+        product.setPrice(24.99);
+        assertEquals(6497L, CartPricing.price(cart));
+
+        assertTrue(CartPricing.reprice(cart, 1, CartPricing.toCents(product.getPrice())));
+        assertEquals(2499L, line.getUnitPriceCents());
+        assertEquals(79.97, cart.getCartTotal());
+        assertFalse(CartPricing.reprice(cart, 9, 100L));
+    }
+}
@@ -0,0 +1,89 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.masai.event.ProductPriceChangedEvent;
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+import com.masai.models.Product;
+import com.masai.repository.CartRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("CartRepricer Tests")
+@ExtendWith(MockitoExtension.class)
+class CartRepricerTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private CartStore cartStore;
+
+    private CartRepricer cartRepricer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        cartRepricer = new CartRepricer(cartRepository, cartStore, 2, new SimpleMeterRegistry());
+        product = new Product();
+        product.setProductId(7);
+        product.setPrice(10.0);
+    }
+
+    private Cart cart(Integer cartId) {
+        Cart cart = new Cart();
+        cart.setCartId(cartId);
+        cart.setCartItems(new ArrayList<>(List.of(new CartItem(null, product, 2, 1000L))));
+        return cart;
+    }
+
+    @Test
+    @DisplayName("Should reprice every cart holding the product, page by page, at the latest price")
+    @SuppressWarnings("unchecked")
+    void testRepricePending() {
+        List<Cart> carts = List.of(cart(1), cart(2), cart(3));
+        when(cartRepository.findCartIdsWithProductAfter(eq(7), eq(0), any())).thenReturn(List.of(1, 2));
+        when(cartRepository.findCartIdsWithProductAfter(eq(7), eq(2), any())).thenReturn(List.of(3));
+        when(cartStore.adjust(anyInt(), any())).thenAnswer(invocation -> {
+            Cart cart = carts.get(invocation.<Integer>getArgument(0) - 1);
+            ((Consumer<Cart>) invocation.getArgument(1)).accept(cart);
+            return cart;
+        });
+
+        cartRepricer.onPriceChanged(new ProductPriceChangedEvent(7, 10.0, 12.5));
+        cartRepricer.onPriceChanged(new ProductPriceChangedEvent(7, 12.5, 11.25));
+
+        assertEquals(3, cartRepricer.repricePending());
+        for (Cart cart : carts) {
+            assertEquals(22.5, cart.getCartTotal());
+        }
+        assertEquals(0, cartRepricer.pendingProducts());
+    }
+
+    @Test
+    @DisplayName("Should queue the product again when a cart cannot be repriced")
+    void testFailedCartRequeuesProduct() {
+        when(cartRepository.findCartIdsWithProductAfter(eq(7), eq(0), any())).thenReturn(List.of(1));
+        when(cartStore.adjust(eq(1), any())).thenThrow(new ObjectOptimisticLockingFailureException(Cart.class, 1));
+
+        cartRepricer.onPriceChanged(new ProductPriceChangedEvent(7, 10.0, 12.5));
+
+        assertEquals(0, cartRepricer.repricePending());
+        assertEquals(1, cartRepricer.pendingProducts());
+    }
+}
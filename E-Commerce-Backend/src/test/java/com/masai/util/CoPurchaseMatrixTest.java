@@ -0,0 +1,136 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.masai.dto.OrderProductDTO;
+import com.masai.dto.ProductCoPurchaseCountDTO;
+import com.masai.event.ProductsSoldEvent;
+import com.masai.repository.OrderRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("CoPurchaseMatrix Tests")
+@ExtendWith(MockitoExtension.class)
+class CoPurchaseMatrixTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CoPurchaseMatrix matrix;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Top 2 per product, baskets of up to 3 products, 2 orders per rebuild read
+        matrix = new CoPurchaseMatrix(orderRepository, 2, 3, 2, meterRegistry);
+    }
+
+    private int nextOrderId = 1000;
+
+    private void sold(Map<Integer, Integer> unitsByProduct) {
+        sold(nextOrderId++, unitsByProduct);
+    }
+
+    private void sold(Integer orderId, Map<Integer, Integer> unitsByProduct) {
+        matrix.onProductsSold(new ProductsSoldEvent(orderId, LocalDate.now(), unitsByProduct));
+    }
+
+    private List<Integer> alsoBought(Integer productId) {
+        return matrix.alsoBought(productId, 10).stream()
+                .map(ProductCoPurchaseCountDTO::getProductId)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Should keep each product's top co-purchases as orders are confirmed and cancelled")
+    void testIncrementalTop() {
+        sold(Map.of(1, 2, 2, 1));
+        sold(Map.of(1, 1, 3, 1));
+        sold(Map.of(1, 1, 3, 4, 4, 1));
+
+        assertEquals(List.of(3, 2), alsoBought(1));
+        assertEquals(2L, matrix.alsoBought(1, 10).get(0).getOrderCount());
+        assertEquals(List.of(1, 4), alsoBought(3));
+
+        // Cancelling takes 3 and 4 out of the top until 4 is bought with 1 again
+        sold(Map.of(1, -1, 3, -4, 4, -1));
+        sold(Map.of(1, -1, 3, -1));
+        sold(Map.of(1, 1, 4, 1));
+
+        assertEquals(List.of(2, 4), alsoBought(1));
+        assertTrue(alsoBought(3).isEmpty());
+        assertEquals(List.of(2), matrix.alsoBought(1, 1).stream()
+                .map(ProductCoPurchaseCountDTO::getProductId).collect(Collectors.toList()));
+
+        // Single products and oversized baskets say nothing about co-purchases
+        sold(Map.of(5, 1));
+        sold(Map.of(5, 1, 6, 1, 7, 1, 8, 1));
+        assertTrue(alsoBought(5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should rebuild from confirmed orders read in batches and report its size")
+    void testRebuild() {
+        sold(Map.of(8, 1, 9, 1));
+        when(orderRepository.findMaxOrderId()).thenReturn(12);
+        when(orderRepository.findSuccessfulOrderIdsBetween(eq(0), eq(12), any())).thenReturn(List.of(10, 11));
+        when(orderRepository.findSuccessfulOrderIdsBetween(eq(11), eq(12), any())).thenReturn(List.of(12));
+        when(orderRepository.findOrderProducts(List.of(10, 11))).thenReturn(List.of(
+                new OrderProductDTO(10, 1), new OrderProductDTO(10, 2),
+                new OrderProductDTO(11, 1), new OrderProductDTO(11, 2), new OrderProductDTO(11, 3)));
+        when(orderRepository.findOrderProducts(List.of(12))).thenReturn(List.of(
+                new OrderProductDTO(12, 3), new OrderProductDTO(12, 1)));
+
+        matrix.rebuild();
+
+        assertEquals(List.of(2, 3), alsoBought(1));
+        assertEquals(2L, matrix.alsoBought(1, 10).get(1).getOrderCount());
+        assertTrue(alsoBought(8).isEmpty());
+        assertEquals(3.0, meterRegistry.get("recommendations.also-bought.products").gauge().value());
+        assertEquals(6.0, meterRegistry.get("recommendations.also-bought.pairs").gauge().value());
+        assertTrue(meterRegistry.get("recommendations.also-bought.bytes").gauge().value() > 0);
+
+        // A failed rebuild keeps the current matrix
+        when(orderRepository.findSuccessfulOrderIdsBetween(eq(0), eq(12), any())).thenThrow(new IllegalStateException("database is locked"));
+        matrix.rebuild();
+        assertEquals(List.of(2, 3), alsoBought(1));
+    }
+
+    @Test
+    @DisplayName("Should replay only orders above the rebuild's bound onto the rebuilt matrix")
+    void testRebuildReplaysOnlyNewOrders() {
+        when(orderRepository.findMaxOrderId()).thenReturn(12);
+        when(orderRepository.findSuccessfulOrderIdsBetween(eq(0), eq(12), any())).thenReturn(List.of(10, 11));
+        // Order 12 was cancelled before its batch was read
+        when(orderRepository.findSuccessfulOrderIdsBetween(eq(11), eq(12), any())).thenReturn(List.of());
+        when(orderRepository.findOrderProducts(List.of(10, 11))).thenAnswer(invocation -> {
+            // 11 was confirmed just before this read, 12 cancelled and 13 placed while the rebuild runs
+            sold(11, Map.of(1, 1, 2, 1));
+            sold(12, Map.of(3, -1, 4, -1));
+            sold(13, Map.of(1, 1, 2, 1));
+            return List.of(new OrderProductDTO(10, 1), new OrderProductDTO(10, 2),
+                    new OrderProductDTO(11, 1), new OrderProductDTO(11, 2));
+        });
+
+        matrix.rebuild();
+
+        assertEquals(3L, matrix.alsoBought(1, 10).get(0).getOrderCount());
+        assertTrue(alsoBought(3).isEmpty());
+        assertEquals(2.0, meterRegistry.get("recommendations.also-bought.pairs").gauge().value());
+    }
+}
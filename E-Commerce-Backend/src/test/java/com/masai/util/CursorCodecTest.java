@@ -0,0 +1,46 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("CursorCodec Tests")
+class CursorCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip sort key values")
+    void testEncodeDecodeRoundTrip() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123456000);
+
+        String cursor = CursorCodec.encode(createdAt, 42L);
+        String[] parts = CursorCodec.decode(cursor, 2);
+
+        assertEquals(createdAt, LocalDateTime.parse(parts[0]));
+        assertEquals("42", parts[1]);
+    }
+
+    @Test
+    @DisplayName("Should produce URL-safe cursors")
+    void testEncodeIsUrlSafe() {
+        String cursor = CursorCodec.encode("??>>~~", 1);
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    @DisplayName("Should reject cursors with the wrong number of parts")
+    void testDecodeRejectsWrongShape() {
+        String cursor = CursorCodec.encode(1, 2, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode(cursor, 2));
+    }
+
+    @Test
+    @DisplayName("Should reject cursors that are not base64url")
+    void testDecodeRejectsGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode("not base64!", 2));
+    }
+}
@@ -0,0 +1,91 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.masai.dto.CustomerPrincipal;
+import com.masai.exception.CustomerNotFoundException;
+import com.masai.models.UserSession;
+import com.masai.repository.CustomerRepository;
+
+@DisplayName("CustomerPrincipalResolver Tests")
+@ExtendWith(MockitoExtension.class)
+class CustomerPrincipalResolverTest {
+
+    @Mock
+    private TokenValidationUtil tokenValidationUtil;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @InjectMocks
+    private CustomerPrincipalResolver customerPrincipalResolver;
+
+    private UserSession userSession;
+
+    @BeforeEach
+    void setUp() {
+        userSession = new UserSession();
+        userSession.setUserId(1);
+        userSession.setToken("customer_token");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Should resolve principal once per request")
+    void testResolve_CachedWithinRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(tokenValidationUtil.validateCustomerToken("customer_token")).thenReturn(userSession);
+        when(customerRepository.findPrincipalById(1)).thenReturn(Optional.of(new CustomerPrincipal(1, 2, 3)));
+
+        CustomerPrincipal first = customerPrincipalResolver.resolve("customer_token");
+        CustomerPrincipal second = customerPrincipalResolver.resolve("customer_token");
+
+        assertSame(first, second);
+        assertEquals(2, first.getCartId());
+        assertEquals(3, first.getWishlistId());
+        verify(tokenValidationUtil, times(1)).validateCustomerToken("customer_token");
+        verify(customerRepository, times(1)).findPrincipalById(1);
+        verify(customerRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    @DisplayName("Should resolve principal without a request context")
+    void testResolve_NoRequestContext() {
+        when(tokenValidationUtil.validateCustomerToken("customer_token")).thenReturn(userSession);
+        when(customerRepository.findPrincipalById(1)).thenReturn(Optional.of(new CustomerPrincipal(1, 2, 3)));
+
+        customerPrincipalResolver.resolve("customer_token");
+        customerPrincipalResolver.resolve("customer_token");
+
+        verify(customerRepository, times(2)).findPrincipalById(1);
+    }
+
+    @Test
+    @DisplayName("Should throw exception when customer no longer exists")
+    void testResolve_CustomerNotFound() {
+        when(tokenValidationUtil.validateCustomerToken("customer_token")).thenReturn(userSession);
+        when(customerRepository.findPrincipalById(1)).thenReturn(Optional.empty());
+
+        assertThrows(CustomerNotFoundException.class, () ->
+            customerPrincipalResolver.resolve("customer_token"));
+    }
+}
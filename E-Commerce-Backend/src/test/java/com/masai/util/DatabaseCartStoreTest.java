@@ -0,0 +1,170 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+import com.masai.repository.CartItemRepository;
+import com.masai.repository.CartRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("DatabaseCartStore Tests")
+@ExtendWith(MockitoExtension.class)
+class DatabaseCartStoreTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DatabaseCartStore cartStore;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cartStore = new DatabaseCartStore(cartRepository, cartItemRepository, transactionTemplate, 3, meterRegistry);
+    }
+
+    private static Cart cart(double total) {
+        return new Cart(1, new ArrayList<>(), total, null, 0L, null);
+    }
+
+    // Each attempt commits inline; the listed attempts fail as if another request saved the cart first
+    @SuppressWarnings("unchecked")
+    private void conflictOnAttempts(int... attempts) {
+        int[] attempt = new int[1];
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            Object result = ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null);
+            attempt[0]++;
+            for (int conflicting : attempts) {
+                if (conflicting == attempt[0]) {
+                    throw new ObjectOptimisticLockingFailureException(Cart.class, 1);
+                }
+            }
+            return result;
+        });
+    }
+
+    @Test
+    @DisplayName("Should re-apply a conflicting change to a fresh read of the cart")
+    void testRetryAfterConflict() {
+        Cart stale = cart(100.0);
+        Cart fresh = cart(150.0);
+        when(cartRepository.findById(1)).thenReturn(Optional.of(stale), Optional.of(fresh));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        conflictOnAttempts(1);
+
+        Cart result = cartStore.update(1, cart -> cart.setCartTotal(cart.getCartTotal() + 10.0));
+
+        assertSame(fresh, result);
+        assertEquals(160.0, result.getCartTotal());
+        assertEquals(1.0, meterRegistry.counter("cart.update.conflicts").count());
+        assertEquals(1.0, meterRegistry.counter("cart.update.retries").count());
+    }
+
+    @Test
+    @DisplayName("Should give up after the configured number of attempts")
+    void testRetriesExhausted() {
+        when(cartRepository.findById(1)).thenAnswer(invocation -> Optional.of(cart(100.0)));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        conflictOnAttempts(1, 2, 3);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () ->
+                cartStore.update(1, cart -> cart.setCartTotal(0.0)));
+
+        verify(transactionTemplate, times(3)).execute(any());
+        assertEquals(3.0, meterRegistry.counter("cart.update.conflicts").count());
+        assertEquals(2.0, meterRegistry.counter("cart.update.retries").count());
+    }
+
+    @Test
+    @DisplayName("Should delete the rows a change removed in the transaction that saves it")
+    void testRemovedItemsDeletedWithSave() {
+        CartItem line = new CartItem(7, null, 1, 1000L);
+        Cart stored = cart(100.0);
+        stored.getCartItems().add(line);
+        when(cartRepository.findById(1)).thenReturn(Optional.of(stored));
+        when(cartRepository.save(stored)).thenReturn(stored);
+        boolean[] inTransaction = new boolean[1];
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            inTransaction[0] = true;
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            } finally {
+                inTransaction[0] = false;
+            }
+        });
+        doAnswer(invocation -> {
+            assertTrue(inTransaction[0]);
+            return null;
+        }).when(cartItemRepository).deleteAll(List.of(line));
+
+        cartStore.updateItems(1, cart -> {
+            cart.getCartItems().remove(line);
+            return List.of(line);
+        });
+
+        assertTrue(stored.getCartItems().isEmpty());
+        InOrder inOrder = inOrder(cartRepository, cartItemRepository);
+        inOrder.verify(cartRepository).save(stored);
+        inOrder.verify(cartItemRepository).deleteAll(List.of(line));
+    }
+
+    @Test
+    @DisplayName("Should apply a change once inside the caller's transaction")
+    void testJoinsCallerTransaction() {
+        Cart stored = cart(100.0);
+        when(cartRepository.findById(1)).thenReturn(Optional.of(stored));
+        when(cartRepository.save(stored)).thenReturn(stored);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            cartStore.update(1, cart -> cart.setCartTotal(0.0));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertEquals(0.0, stored.getCartTotal());
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("Should stamp customer changes but not system adjustments")
+    void testOnlyCustomerChangesStampLastModified() {
+        Cart stored = cart(100.0);
+        when(cartRepository.findById(1)).thenReturn(Optional.of(stored));
+        when(cartRepository.save(stored)).thenReturn(stored);
+        conflictOnAttempts();
+
+        cartStore.adjust(1, cart -> cart.setCartTotal(90.0));
+        assertEquals(90.0, stored.getCartTotal());
+        assertNull(stored.getLastModified());
+
+        cartStore.update(1, cart -> cart.setCartTotal(80.0));
+        assertNotNull(stored.getLastModified());
+    }
+}
@@ -0,0 +1,138 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.repository.ReviewHelpfulVoteRepository;
+import com.masai.repository.ReviewRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("HelpfulVoteBuffer Tests")
+@ExtendWith(MockitoExtension.class)
+class HelpfulVoteBufferTest {
+
+    @Mock
+    private ReviewHelpfulVoteRepository voteRepository;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private HelpfulVoteBuffer helpfulVoteBuffer;
+
+    @BeforeEach
+    void setUp() {
+        helpfulVoteBuffer = new HelpfulVoteBuffer(voteRepository, reviewRepository, transactionTemplate,
+                600000, new SimpleMeterRegistry());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @DisplayName("Should count a customer's vote only once")
+    void testRecordVote_Deduplicates() {
+        when(voteRepository.findVoterIds(10L)).thenReturn(List.of());
+
+        assertTrue(helpfulVoteBuffer.recordVote(10L, 1));
+        assertFalse(helpfulVoteBuffer.recordVote(10L, 1));
+        assertTrue(helpfulVoteBuffer.recordVote(10L, 2));
+
+        assertEquals(2, helpfulVoteBuffer.pendingVotes(10L));
+        verify(voteRepository, times(1)).findVoterIds(10L);
+    }
+
+    @Test
+    @DisplayName("Should reject votes already stored in the database")
+    void testRecordVote_WarmsSeenSetFromDatabase() {
+        when(voteRepository.findVoterIds(10L)).thenReturn(List.of(7));
+
+        assertFalse(helpfulVoteBuffer.recordVote(10L, 7));
+        assertEquals(0, helpfulVoteBuffer.pendingVotes(10L));
+    }
+
+    @Test
+    @DisplayName("Should flush votes with one counter update per review")
+    void testFlush_BatchesCounterUpdates() {
+        runTransactionsInline();
+        when(voteRepository.findVoterIds(anyLong())).thenReturn(List.of());
+        when(voteRepository.insertIfAbsent(anyLong(), anyInt(), any())).thenReturn(1);
+        helpfulVoteBuffer.recordVote(10L, 1);
+        helpfulVoteBuffer.recordVote(10L, 2);
+        helpfulVoteBuffer.recordVote(10L, 3);
+        helpfulVoteBuffer.recordVote(11L, 1);
+
+        int flushed = helpfulVoteBuffer.flush();
+
+        assertEquals(4, flushed);
+        verify(reviewRepository).incrementHelpfulCount(10L, 3);
+        verify(reviewRepository).incrementHelpfulCount(11L, 1);
+        assertEquals(0, helpfulVoteBuffer.pendingVotes(10L));
+        assertEquals(0, helpfulVoteBuffer.pendingVotes(11L));
+    }
+
+    @Test
+    @DisplayName("Should only count votes whose row was inserted")
+    void testFlush_SkipsVotesAlreadyStored() {
+        runTransactionsInline();
+        when(voteRepository.findVoterIds(10L)).thenReturn(List.of());
+        when(voteRepository.insertIfAbsent(eq(10L), eq(1), any())).thenReturn(1);
+        when(voteRepository.insertIfAbsent(eq(10L), eq(2), any())).thenReturn(0);
+        helpfulVoteBuffer.recordVote(10L, 1);
+        helpfulVoteBuffer.recordVote(10L, 2);
+
+        helpfulVoteBuffer.flush();
+
+        verify(reviewRepository).incrementHelpfulCount(10L, 1);
+    }
+
+    @Test
+    @DisplayName("Should keep votes from a failed flush and write them on the next one")
+    @SuppressWarnings("unchecked")
+    void testFlush_FailureRetries() {
+        doThrow(new IllegalStateException("database is locked")).doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(voteRepository.findVoterIds(10L)).thenReturn(List.of());
+        when(voteRepository.insertIfAbsent(eq(10L), eq(1), any())).thenReturn(1);
+        helpfulVoteBuffer.recordVote(10L, 1);
+
+        assertEquals(0, helpfulVoteBuffer.flush());
+        assertEquals(1, helpfulVoteBuffer.pendingVotes(10L));
+        assertFalse(helpfulVoteBuffer.recordVote(10L, 1));
+
+        assertEquals(1, helpfulVoteBuffer.flush());
+        assertEquals(0, helpfulVoteBuffer.pendingVotes(10L));
+        verify(reviewRepository).incrementHelpfulCount(10L, 1);
+        verify(voteRepository, times(1)).findVoterIds(10L);
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when nothing is pending")
+    void testFlush_Empty() {
+        assertEquals(0, helpfulVoteBuffer.flush());
+        verifyNoInteractions(transactionTemplate, reviewRepository);
+    }
+}
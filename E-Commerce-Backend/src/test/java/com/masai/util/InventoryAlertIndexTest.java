@@ -0,0 +1,172 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.masai.dto.InventoryAlertStateDTO;
+import com.masai.event.InventoryAlertDeletedEvent;
+import com.masai.event.InventoryAlertSavedEvent;
+import com.masai.event.InventoryAlertStatusChangedEvent;
+import com.masai.event.InventoryAlertTriggeredEvent;
+import com.masai.event.StockChangedEvent;
+import com.masai.models.Product;
+import com.masai.repository.InventoryAlertDao;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("InventoryAlertIndex Tests")
+@ExtendWith(MockitoExtension.class)
+class InventoryAlertIndexTest {
+
+    @Mock
+    private InventoryAlertDao inventoryAlertDao;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private InventoryAlertIndex inventoryAlertIndex;
+
+    @BeforeEach
+    void setUp() {
+        inventoryAlertIndex = new InventoryAlertIndex(inventoryAlertDao, eventPublisher, new SimpleMeterRegistry());
+    }
+
+    private InventoryAlertStateDTO alert(Integer alertId, Integer productId, Integer sellerId, int threshold, int quantity) {
+        return new InventoryAlertStateDTO(alertId, productId, "Product " + productId, sellerId, threshold, true,
+                quantity, null, 0);
+    }
+
+    private StockChangedEvent stockChanged(Integer productId, int quantity) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setProductName("Product " + productId);
+        product.setQuantity(quantity);
+        return new StockChangedEvent(product);
+    }
+
+    private <T> List<T> published(Class<T> type) {
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(events.capture());
+        return events.getAllValues().stream().filter(type::isInstance).map(type::cast).toList();
+    }
+
+    @Test
+    @DisplayName("Should load alerts at startup and list triggered ones per seller")
+    void testLoad() {
+        when(inventoryAlertDao.findAllAlertStates()).thenReturn(List.of(
+                alert(1, 100, 7, 10, 5), alert(2, 101, 7, 10, 50), alert(3, 102, 8, 10, 10)));
+
+        inventoryAlertIndex.load();
+
+        assertEquals(List.of(100), inventoryAlertIndex.triggeredForSeller(7).stream()
+                .map(InventoryAlertStateDTO::getProductId).toList());
+        assertEquals(2, inventoryAlertIndex.allTriggered().size());
+    }
+
+    @Test
+    @DisplayName("Should fire once when stock crosses the threshold")
+    void testStockCrossesThreshold() {
+        inventoryAlertIndex.onAlertSaved(new InventoryAlertSavedEvent(alert(1, 100, 7, 10, 12)));
+
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 11));
+        verifyNoInteractions(eventPublisher);
+
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 9));
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 8));
+
+        List<InventoryAlertTriggeredEvent> triggered = published(InventoryAlertTriggeredEvent.class);
+        assertEquals(1, triggered.size());
+        assertEquals(1, triggered.get(0).getAlertId());
+        assertEquals(9, triggered.get(0).getCurrentQuantity());
+
+        assertEquals(8, inventoryAlertIndex.get(100).getCurrentQuantity());
+        assertEquals(1, inventoryAlertIndex.triggeredForSeller(7).size());
+    }
+
+    @Test
+    @DisplayName("Should mirror delivered notifications onto indexed entries")
+    void testRecordAlertsSent() {
+        inventoryAlertIndex.onAlertSaved(new InventoryAlertSavedEvent(alert(1, 100, 7, 10, 5)));
+        LocalDateTime sentAt = LocalDateTime.now();
+
+        inventoryAlertIndex.recordAlertsSent(List.of(100, 999), sentAt);
+
+        assertEquals(sentAt, inventoryAlertIndex.get(100).getLastAlertSentAt());
+        assertEquals(1, inventoryAlertIndex.get(100).getAlertCount());
+        assertNull(inventoryAlertIndex.get(999));
+    }
+
+    @Test
+    @DisplayName("Should clear the triggered state after a restock")
+    void testRestockClearsTrigger() {
+        inventoryAlertIndex.onAlertSaved(new InventoryAlertSavedEvent(alert(1, 100, 7, 10, 5)));
+
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 40));
+
+        assertTrue(inventoryAlertIndex.triggeredForSeller(7).isEmpty());
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 3));
+        verify(eventPublisher).publishEvent(any(InventoryAlertTriggeredEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should ignore disabled alerts and products without alerts")
+    void testDisabledAndUnknown() {
+        inventoryAlertIndex.onAlertSaved(new InventoryAlertSavedEvent(alert(1, 100, 7, 10, 20).withAlertEnabled(false)));
+
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 1));
+        inventoryAlertIndex.onStockChanged(stockChanged(999, 1));
+
+        verifyNoInteractions(eventPublisher);
+        assertTrue(inventoryAlertIndex.allTriggered().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should move an alert to its new product and forget deleted alerts")
+    void testMoveAndDelete() {
+        inventoryAlertIndex.onAlertSaved(new InventoryAlertSavedEvent(alert(1, 100, 7, 10, 5)));
+        inventoryAlertIndex.onAlertSaved(new InventoryAlertSavedEvent(alert(1, 101, 7, 10, 4)));
+
+        assertNull(inventoryAlertIndex.get(100));
+        assertEquals(List.of(101), inventoryAlertIndex.triggeredForSeller(7).stream()
+                .map(InventoryAlertStateDTO::getProductId).toList());
+
+        inventoryAlertIndex.onAlertDeleted(new InventoryAlertDeletedEvent(1));
+
+        assertNull(inventoryAlertIndex.get(101));
+        assertTrue(inventoryAlertIndex.allTriggered().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should publish status changes while triggered and when cleared")
+    void testStatusChangedEvents() {
+        inventoryAlertIndex.onAlertSaved(new InventoryAlertSavedEvent(alert(1, 100, 7, 10, 12)));
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 12));
+        verifyNoInteractions(eventPublisher);
+
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 9));
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 9));
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 4));
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 30));
+        inventoryAlertIndex.onStockChanged(stockChanged(100, 2));
+        inventoryAlertIndex.onAlertDeleted(new InventoryAlertDeletedEvent(1));
+
+        List<InventoryAlertStatusChangedEvent> changes = published(InventoryAlertStatusChangedEvent.class);
+        assertEquals(List.of(true, true, false, true, false),
+                changes.stream().map(InventoryAlertStatusChangedEvent::isTriggered).toList());
+        assertEquals(List.of(9, 4, 30, 2, 2),
+                changes.stream().map(change -> change.getAlert().getCurrentQuantity()).toList());
+    }
+}
@@ -0,0 +1,70 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.masai.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("LoginRateLimiter Tests")
+class LoginRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginRateLimiter loginRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loginRateLimiter = new LoginRateLimiter(3, 1, 5, 1, 600000, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should reject attempts once the mobile bucket is empty")
+    void testMobileBucketExhausted() {
+        for (int i = 0; i < 3; i++) {
+            loginRateLimiter.checkLoginAttempt("9876543210", "10.0.0." + i);
+        }
+
+        assertThrows(TooManyRequestsException.class,
+                () -> loginRateLimiter.checkLoginAttempt("9876543210", "10.0.0.9"));
+        assertEquals(1.0, meterRegistry.get("login.throttle.rejected").tag("key", "mobile").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should reject attempts once the address bucket is empty")
+    void testAddressBucketExhausted() {
+        for (int i = 0; i < 5; i++) {
+            loginRateLimiter.checkLoginAttempt("900000000" + i, "10.0.0.1");
+        }
+
+        assertThrows(TooManyRequestsException.class,
+                () -> loginRateLimiter.checkLoginAttempt("9000000009", "10.0.0.1"));
+        assertEquals(1.0, meterRegistry.get("login.throttle.rejected").tag("key", "address").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep buckets for different mobile numbers independent")
+    void testIndependentBuckets() {
+        for (int i = 0; i < 3; i++) {
+            loginRateLimiter.checkLoginAttempt("9876543210", null);
+        }
+
+        assertDoesNotThrow(() -> loginRateLimiter.checkLoginAttempt("9123456780", null));
+    }
+
+    @Test
+    @DisplayName("Should evict idle buckets")
+    void testEvictIdleBuckets() {
+        LoginRateLimiter shortLived = new LoginRateLimiter(3, 1, 5, 1, 0, new SimpleMeterRegistry());
+        shortLived.checkLoginAttempt("9876543210", "10.0.0.1");
+        assertEquals(2, shortLived.trackedBuckets());
+
+        shortLived.evictIdleBuckets();
+
+        assertEquals(0, shortLived.trackedBuckets());
+    }
+}
@@ -2,19 +2,29 @@ package com.masai.util;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.masai.exception.ServiceBusyException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @DisplayName("PasswordEncoderUtil Tests")
-@ExtendWith(MockitoExtension.class)
 class PasswordEncoderUtilTest {
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+
     private PasswordEncoderUtil passwordEncoderUtil;
 
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordEncoderUtil = new PasswordEncoderUtil(10, 2, meterRegistry);
+    }
+
     @Test
     @DisplayName("Should encode password successfully")
     void testEncodePassword() {
@@ -62,4 +72,47 @@ class PasswordEncoderUtilTest {
         assertTrue(passwordEncoderUtil.matchesPassword(rawPassword, encoded1));
         assertTrue(passwordEncoderUtil.matchesPassword(rawPassword, encoded2));
     }
+
+    @Test
+    @DisplayName("Should record encode timings")
+    void testEncodePassword_RecordsTimer() {
+        passwordEncoderUtil.encodePassword("testPassword123");
+
+        assertEquals(1, meterRegistry.get("password.hashing.duration").tag("operation", "encode").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should flag hashes created with a different cost factor for rehash")
+    void testNeedsRehash() {
+        PasswordEncoderUtil weakerEncoder = new PasswordEncoderUtil(4, 1, new SimpleMeterRegistry());
+        String legacyHash = weakerEncoder.encodePassword("testPassword123");
+
+        assertTrue(passwordEncoderUtil.needsRehash(legacyHash));
+        assertFalse(passwordEncoderUtil.needsRehash(passwordEncoderUtil.encodePassword("testPassword123")));
+        assertFalse(passwordEncoderUtil.needsRehash("plainTextPwd"));
+        assertFalse(passwordEncoderUtil.needsRehash(null));
+    }
+
+    @Test
+    @DisplayName("Should fail fast with ServiceBusyException when max-concurrent hashes are running")
+    void testEncodePassword_AllPermitsInUse() {
+        SimpleMeterRegistry singleRegistry = new SimpleMeterRegistry();
+        PasswordEncoderUtil single = new PasswordEncoderUtil(14, 1, singleRegistry);
+        CompletableFuture<String> inFlight = CompletableFuture.supplyAsync(() -> single.encodePassword("testPassword123"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (single.inFlight() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        long started = System.nanoTime();
+        assertThrows(ServiceBusyException.class, () -> single.encodePassword("testPassword123"));
+        // Rejected without waiting for the running hash
+        assertFalse(inFlight.isDone());
+        assertTrue(System.nanoTime() - started < 500_000_000L);
+        assertEquals(1.0, singleRegistry.get("password.hashing.rejected").counter().count());
+        assertEquals(1.0, singleRegistry.get("password.hashing.in-flight").gauge().value());
+
+        assertNotNull(inFlight.join());
+        assertEquals(0, single.inFlight());
+    }
 }
@@ -0,0 +1,127 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.dto.DailyProductSalesDTO;
+import com.masai.event.ProductsSoldEvent;
+import com.masai.repository.OrderRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("SalesVelocityTracker Tests")
+@ExtendWith(MockitoExtension.class)
+class SalesVelocityTrackerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 30);
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SalesVelocityTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new SalesVelocityTracker(orderRepository, transactionTemplate, 7, 365, 30, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should converge on a steady daily rate and forecast from it")
+    void testSteadySales() {
+        for (int day = 120; day >= 1; day--) {
+            tracker.record(100, TODAY.minusDays(day), 10);
+        }
+
+        assertEquals(10.0, tracker.dailyRate(100, TODAY), 0.01);
+        assertEquals(TODAY.plusDays(5), tracker.projectedStockOutDate(100, 50, TODAY));
+        assertEquals(250, tracker.suggestedReorderQuantity(100, 50, TODAY));
+    }
+
+    @Test
+    @DisplayName("Should halve the rate after a half-life without sales")
+    void testDecayWithoutSales() {
+        tracker.record(100, TODAY.minusDays(8), 10);
+        double dayAfterSale = tracker.dailyRate(100, TODAY.minusDays(7));
+
+        assertEquals(dayAfterSale / 2, tracker.dailyRate(100, TODAY), 1e-9);
+        assertEquals(0.0, tracker.dailyRate(100, TODAY.minusDays(8)));
+    }
+
+    @Test
+    @DisplayName("Should give the same rate whatever order days are recorded in")
+    void testOutOfOrderDays() {
+        int[] units = {4, 0, 7, 2, 9, 1, 5};
+        for (int day = 0; day < units.length; day++) {
+            tracker.record(100, TODAY.minusDays(units.length - day), units[day]);
+        }
+        for (int day = units.length - 1; day >= 0; day--) {
+            tracker.record(200, TODAY.minusDays(units.length - day), units[day]);
+        }
+
+        assertEquals(tracker.dailyRate(100, TODAY), tracker.dailyRate(200, TODAY), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should reverse a cancelled sale on its original day")
+    void testCancellationReversesSale() {
+        tracker.record(100, TODAY.minusDays(3), 6);
+        tracker.record(100, TODAY.minusDays(1), 4);
+        tracker.record(200, TODAY.minusDays(1), 4);
+
+        tracker.onProductsSold(new ProductsSoldEvent(7, TODAY.minusDays(3), Map.of(100, -6)));
+
+        assertEquals(tracker.dailyRate(200, TODAY), tracker.dailyRate(100, TODAY), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should not forecast products without sales and evict decayed ones")
+    void testNoSalesAndRollOver() {
+        assertEquals(0.0, tracker.dailyRate(999, TODAY));
+        assertNull(tracker.projectedStockOutDate(999, 5, TODAY));
+        assertEquals(0, tracker.suggestedReorderQuantity(999, 5, TODAY));
+
+        tracker.record(100, TODAY.minusDays(200), 1);
+        tracker.record(200, TODAY.minusDays(1), 1);
+        tracker.rollOver(TODAY);
+
+        assertEquals(1, tracker.trackedProducts());
+    }
+
+    @Test
+    @DisplayName("Should warm from the streamed sales history")
+    @SuppressWarnings("unchecked")
+    void testLoad() {
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(orderRepository.streamDailySalesSince(any())).thenReturn(Stream.of(
+                new DailyProductSalesDTO(LocalDate.now().minusDays(2), 100, 3L),
+                new DailyProductSalesDTO(LocalDate.now().minusDays(1), 100, 5L),
+                new DailyProductSalesDTO(LocalDate.now().minusDays(1), 101, 2L)));
+
+        tracker.load();
+
+        assertEquals(2, tracker.trackedProducts());
+        assertTrue(tracker.dailyRate(100) > tracker.dailyRate(101));
+        verify(orderRepository).streamDailySalesSince(LocalDate.now().minusDays(365));
+    }
+}
@@ -0,0 +1,197 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.event.StockChangedEvent;
+import com.masai.exception.ProductNotFoundException;
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+import com.masai.models.Product;
+import com.masai.models.ProductStatus;
+import com.masai.models.StockHold;
+import com.masai.repository.ProductRepository;
+import com.masai.repository.StockHoldRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("TimingWheelStockHolds Tests")
+@ExtendWith(MockitoExtension.class)
+class TimingWheelStockHoldsTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StockHoldRepository stockHoldRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TimingWheelStockHolds stockHolds;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // A 10 tick time to live on an 8 bucket wheel, so holds go round more than once
+        stockHolds = new TimingWheelStockHolds(productRepository, stockHoldRepository, transactionTemplate,
+                10000, 1000, 8, 200, meterRegistry);
+
+        product = new Product();
+        product.setProductId(1);
+        product.setPrice(100.0);
+        product.setQuantity(5);
+        product.setStatus(ProductStatus.AVAILABLE);
+        lenient().when(productRepository.findAllById(List.of(1))).thenReturn(List.of(product));
+    }
+
+    private Cart cart(Integer cartId, int units) {
+        List<CartItem> items = new ArrayList<>();
+        if (units > 0) {
+            items.add(new CartItem(null, product, units, 10000L));
+        }
+        return new Cart(cartId, items, 0.0, null, 0L, null);
+    }
+
+    @Test
+    @DisplayName("Should reject units held by other carts and free them when the holds expire")
+    void testHoldRejectAndExpire() {
+        stockHolds.hold(cart(1, 3));
+        stockHolds.advanceTo(5);
+        stockHolds.hold(cart(2, 2));
+
+        assertThrows(ProductNotFoundException.class, () -> stockHolds.hold(cart(3, 1)));
+        assertEquals(0, stockHolds.freeUnits(1));
+
+        // Cart 1's holds lapse at tick 10, cart 2's at tick 15
+        assertEquals(1, stockHolds.advanceTo(10));
+        assertEquals(3, stockHolds.freeUnits(1));
+        stockHolds.hold(cart(3, 1));
+
+        assertEquals(1, stockHolds.advanceTo(15));
+        assertEquals(4, stockHolds.freeUnits(1));
+        assertEquals(1.0, meterRegistry.counter("cart.stock-holds.events", "outcome", "rejected").count());
+        assertEquals(2.0, meterRegistry.counter("cart.stock-holds.events", "outcome", "expired").count());
+    }
+
+    @Test
+    @DisplayName("Should restart a hold's time to live when its cart changes")
+    void testRefreshMovesHold() {
+        stockHolds.hold(cart(1, 2));
+        stockHolds.advanceTo(8);
+        stockHolds.hold(cart(1, 3));
+
+        assertEquals(0, stockHolds.advanceTo(17));
+        assertEquals(3, stockHolds.heldUnits());
+        assertEquals(1, stockHolds.advanceTo(18));
+        assertEquals(0, stockHolds.heldUnits());
+    }
+
+    @Test
+    @DisplayName("Should turn a cart's holds into sold stock at checkout and release emptied carts")
+    void testCheckoutAndRelease() {
+        stockHolds.hold(cart(1, 2));
+        stockHolds.hold(cart(2, 2));
+
+        stockHolds.checkout(1);
+        stockHolds.hold(cart(1, 0));
+        assertEquals(1, stockHolds.freeUnits(1));
+        product.setQuantity(3);
+        stockHolds.onStockChanged(new StockChangedEvent(product));
+        assertEquals(1, stockHolds.freeUnits(1));
+
+        stockHolds.hold(cart(2, 0));
+        assertEquals(-1, stockHolds.freeUnits(1));
+        assertEquals(2.0, meterRegistry.counter("cart.stock-holds.events", "outcome", "converted").count());
+    }
+
+    @Test
+    @DisplayName("Should undo raised holds and sold units when the transaction rolls back")
+    void testRollbackFreesUnits() {
+        stockHolds.hold(cart(1, 1));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            stockHolds.hold(cart(1, 3));
+            stockHolds.sell(Map.of(1, 2));
+            assertEquals(0, stockHolds.freeUnits(1));
+            assertThrows(ProductNotFoundException.class, () -> stockHolds.sell(Map.of(1, 1)));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, stockHolds.heldUnits());
+        assertEquals(4, stockHolds.freeUnits(1));
+    }
+
+    @Test
+    @DisplayName("Should keep a stock change that commits while the product's stock is being read")
+    void testStockChangeDuringWarmUp() {
+        Product sold = new Product();
+        sold.setProductId(1);
+        sold.setQuantity(2);
+        // The read saw 5 units, but a sale of 3 committed before the count was installed
+        when(productRepository.findAllById(List.of(1))).thenAnswer(invocation -> {
+            stockHolds.onStockChanged(new StockChangedEvent(sold));
+            return List.of(product);
+        });
+
+        stockHolds.hold(cart(1, 2));
+
+        assertEquals(0, stockHolds.freeUnits(1));
+        assertThrows(ProductNotFoundException.class, () -> stockHolds.hold(cart(2, 1)));
+        verify(productRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Should store changed carts' holds and restore unexpired ones at startup")
+    @SuppressWarnings("unchecked")
+    void testPersistAndLoad() {
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        stockHolds.hold(cart(1, 2));
+
+        assertEquals(1, stockHolds.persist());
+        verify(stockHoldRepository).deleteByCartIds(List.of(1));
+        verify(stockHoldRepository).insertHold(eq(1), eq(1), eq(2), any(LocalDateTime.class));
+        assertEquals(0, stockHolds.persist());
+
+        TimingWheelStockHolds restarted = new TimingWheelStockHolds(productRepository, stockHoldRepository,
+                transactionTemplate, 10000, 1000, 8, 200, new SimpleMeterRegistry());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        when(stockHoldRepository.findByExpiresAtAfter(any(LocalDateTime.class)))
+                .thenReturn(List.of(new StockHold(1, 1, 2, LocalDateTime.now().plusSeconds(4))));
+
+        restarted.load();
+
+        assertEquals(3, restarted.freeUnits(1));
+        assertEquals(0, restarted.advanceTo(3));
+        assertEquals(1, restarted.advanceTo(4));
+    }
+}
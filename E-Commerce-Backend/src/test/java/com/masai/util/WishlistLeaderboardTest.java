@@ -0,0 +1,130 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import com.masai.dto.ProductWishlistCountDTO;
+import com.masai.event.WishlistChangedEvent;
+import com.masai.models.CategoryEnum;
+import com.masai.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("WishlistLeaderboard Tests")
+@ExtendWith(MockitoExtension.class)
+class WishlistLeaderboardTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private WishlistLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new WishlistLeaderboard(productRepository, new SimpleMeterRegistry());
+    }
+
+    private static List<Integer> ids(List<ProductWishlistCountDTO> top) {
+        return top.stream().map(ProductWishlistCountDTO::getProductId).toList();
+    }
+
+    @Test
+    @DisplayName("Should rank per category and overall, highest count first")
+    void testTopPerCategory() {
+        leaderboard.set(new ProductWishlistCountDTO(1, CategoryEnum.BOOKS, 5L));
+        leaderboard.set(new ProductWishlistCountDTO(2, CategoryEnum.BOOKS, 9L));
+        leaderboard.set(new ProductWishlistCountDTO(3, CategoryEnum.FASHION, 7L));
+        leaderboard.set(new ProductWishlistCountDTO(4, CategoryEnum.BOOKS, 5L));
+
+        assertEquals(List.of(2, 1), ids(leaderboard.top(CategoryEnum.BOOKS, 2)));
+        assertEquals(List.of(2, 3, 1, 4), ids(leaderboard.top(null, 10)));
+        assertTrue(leaderboard.top(CategoryEnum.GROCERIES, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should move products on wishlist changes and drop them at zero")
+    void testWishlistChanges() {
+        leaderboard.set(new ProductWishlistCountDTO(1, CategoryEnum.BOOKS, 2L));
+        leaderboard.set(new ProductWishlistCountDTO(2, CategoryEnum.BOOKS, 1L));
+
+        leaderboard.onWishlistChanged(new WishlistChangedEvent(10, 2, true));
+        leaderboard.onWishlistChanged(new WishlistChangedEvent(11, 2, true));
+        leaderboard.onWishlistChanged(new WishlistChangedEvent(12, 1, false));
+        leaderboard.onWishlistChanged(new WishlistChangedEvent(13, 1, false));
+
+        List<ProductWishlistCountDTO> top = leaderboard.top(CategoryEnum.BOOKS, 10);
+        assertEquals(List.of(2), ids(top));
+        assertEquals(3L, top.get(0).getWishlistCount());
+        assertEquals(1, leaderboard.rankedProducts());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    @DisplayName("Should look up the category only when a product first enters")
+    void testNewProductEnters() {
+        when(productRepository.findCategoryByProductId(5)).thenReturn(Optional.of(CategoryEnum.FURNITURE));
+
+        leaderboard.onWishlistChanged(new WishlistChangedEvent(10, 5, true));
+        leaderboard.onWishlistChanged(new WishlistChangedEvent(11, 5, true));
+
+        assertEquals(2L, leaderboard.top(CategoryEnum.FURNITURE, 1).get(0).getWishlistCount());
+        verify(productRepository, times(1)).findCategoryByProductId(5);
+    }
+
+    @Test
+    @DisplayName("Should keep a change to a product ranked while its category was looked up")
+    void testProductRankedDuringLookup() {
+        when(productRepository.findCategoryByProductId(5)).thenAnswer(invocation -> {
+            leaderboard.set(new ProductWishlistCountDTO(5, CategoryEnum.FURNITURE, 4L));
+            return Optional.of(CategoryEnum.FURNITURE);
+        });
+
+        leaderboard.onWishlistChanged(new WishlistChangedEvent(10, 5, true));
+
+        assertEquals(5L, leaderboard.top(CategoryEnum.FURNITURE, 1).get(0).getWishlistCount());
+        assertEquals(1, leaderboard.rankedProducts());
+    }
+
+    @Test
+    @DisplayName("Should not let a reconciled count overwrite a wishlist change made while it was counted")
+    void testReconciledCountComparedAndSet() {
+        leaderboard.set(new ProductWishlistCountDTO(1, CategoryEnum.BOOKS, 5L));
+        Map<Integer, Long> seen = leaderboard.counts(List.of(1, 2));
+        assertEquals(Map.of(1, 5L, 2, 0L), seen);
+
+        // Committed after the recount read 5 wishlists
+        leaderboard.onWishlistChanged(new WishlistChangedEvent(10, 1, true));
+
+        assertFalse(leaderboard.set(new ProductWishlistCountDTO(1, CategoryEnum.BOOKS, 5L), seen.get(1)));
+        assertEquals(6L, leaderboard.top(CategoryEnum.BOOKS, 1).get(0).getWishlistCount());
+        assertTrue(leaderboard.set(new ProductWishlistCountDTO(2, CategoryEnum.BOOKS, 7L), seen.get(2)));
+        assertEquals(List.of(2, 1), ids(leaderboard.top(null, 10)));
+    }
+
+    @Test
+    @DisplayName("Should warm from stored counts page by page")
+    void testLoad() {
+        when(productRepository.getWishlistCountsAfter(eq(0), any(Pageable.class))).thenReturn(List.of(
+                new ProductWishlistCountDTO(1, CategoryEnum.BOOKS, 0L),
+                new ProductWishlistCountDTO(2, CategoryEnum.BOOKS, 4L)));
+        when(productRepository.getWishlistCountsAfter(eq(2), any(Pageable.class))).thenReturn(List.of());
+
+        leaderboard.load();
+
+        assertEquals(1, leaderboard.rankedProducts());
+        assertEquals(List.of(2), ids(leaderboard.top(CategoryEnum.BOOKS, 10)));
+    }
+}
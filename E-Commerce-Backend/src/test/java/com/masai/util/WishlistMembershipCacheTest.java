@@ -0,0 +1,84 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.masai.event.WishlistChangedEvent;
+import com.masai.repository.WishlistItemRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("WishlistMembershipCache Tests")
+@ExtendWith(MockitoExtension.class)
+class WishlistMembershipCacheTest {
+
+    @Mock
+    private WishlistItemRepository wishlistItemRepository;
+
+    private WishlistMembershipCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new WishlistMembershipCache(wishlistItemRepository, 600000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should load a wishlist once and answer batch checks in request order")
+    void testContainsAll() {
+        when(wishlistItemRepository.findProductIdsByWishlistId(1)).thenReturn(Arrays.asList(42, 7, 19));
+
+        Map<Integer, Boolean> result = cache.containsAll(1, List.of(19, 8, 42));
+
+        assertEquals(List.of(19, 8, 42), List.copyOf(result.keySet()));
+        assertEquals(List.of(true, false, true), List.copyOf(result.values()));
+        assertTrue(cache.contains(1, 7));
+        verify(wishlistItemRepository, times(1)).findProductIdsByWishlistId(1);
+    }
+
+    @Test
+    @DisplayName("Should apply committed adds and removes to a cached wishlist")
+    void testAppliesChanges() {
+        when(wishlistItemRepository.findProductIdsByWishlistId(1)).thenReturn(Arrays.asList(5, 10));
+        cache.contains(1, 5);
+
+        cache.onWishlistChanged(new WishlistChangedEvent(1, 7, true));
+        cache.onWishlistChanged(new WishlistChangedEvent(1, 7, true));
+        cache.onWishlistChanged(new WishlistChangedEvent(1, 5, false));
+
+        assertEquals(List.of(false, true, true), List.copyOf(cache.containsAll(1, List.of(5, 7, 10)).values()));
+        verify(wishlistItemRepository, times(1)).findProductIdsByWishlistId(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore changes to wishlists that are not cached")
+    void testIgnoresUncachedWishlists() {
+        cache.onWishlistChanged(new WishlistChangedEvent(2, 7, true));
+
+        assertEquals(0, cache.cachedWishlists());
+        verifyNoInteractions(wishlistItemRepository);
+    }
+
+    @Test
+    @DisplayName("Should evict idle wishlists")
+    void testEvictIdle() {
+        WishlistMembershipCache shortLived = new WishlistMembershipCache(wishlistItemRepository, 0, new SimpleMeterRegistry());
+        when(wishlistItemRepository.findProductIdsByWishlistId(1)).thenReturn(List.of());
+        shortLived.contains(1, 5);
+        assertEquals(1, shortLived.cachedWishlists());
+
+        shortLived.evictIdle();
+
+        assertEquals(0, shortLived.cachedWishlists());
+    }
+}
@@ -0,0 +1,201 @@
+package com.masai.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masai.exception.CartItemNotFound;
+import com.masai.models.Cart;
+import com.masai.models.CartItem;
+import com.masai.models.Product;
+import com.masai.repository.CartItemRepository;
+import com.masai.repository.CartRepository;
+import com.masai.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("WriteBehindCartStore Tests")
+@ExtendWith(MockitoExtension.class)
+class WriteBehindCartStoreTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private WriteBehindCartStore cartStore;
+    private Cart stored;
+    private Product product;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        cartStore = new WriteBehindCartStore(cartRepository, cartItemRepository, productRepository,
+                transactionTemplate, 200, 1800000, new SimpleMeterRegistry());
+
+        product = product(1, 100.0);
+        stored = new Cart(1, new ArrayList<>(List.of(new CartItem(10, product, 1, 10000L))), 100.0, null, 0L, null);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(cartRepository.findById(1)).thenReturn(Optional.of(stored));
+    }
+
+    private static Product product(Integer productId, double price) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setPrice(price);
+        return product;
+    }
+
+    @Test
+    @DisplayName("Should hold changes in memory until the flush writes them to the stored cart")
+    void testUpdateThenFlush() {
+        Product added = product(2, 50.0);
+        when(productRepository.getReferenceById(2)).thenReturn(added);
+
+        Cart updated = cartStore.update(1, cart -> {
+            cart.getCartItems().get(0).setCartItemQuantity(3);
+            cart.getCartItems().add(new CartItem(null, added, 1, 5000L));
+            cart.setCartTotal(350.0);
+        });
+
+        assertEquals(2, cartStore.load(1).getCartItems().size());
+        assertSame(updated, cartStore.load(1));
+        assertEquals(1, stored.getCartItems().get(0).getCartItemQuantity());
+        assertEquals(1, cartStore.dirtyCarts());
+
+        assertEquals(1, cartStore.flushDirty());
+
+        assertEquals(2, stored.getCartItems().size());
+        assertEquals(3, stored.getCartItems().get(0).getCartItemQuantity());
+        assertSame(added, stored.getCartItems().get(1).getCartProduct());
+        assertEquals(5000L, stored.getCartItems().get(1).getUnitPriceCents());
+        assertEquals(350.0, stored.getCartTotal());
+        assertEquals(0, cartStore.dirtyCarts());
+        verify(cartRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should leave the cart untouched when a change throws")
+    void testFailedChangeLeavesCart() {
+        Cart before = cartStore.load(1);
+
+        assertThrows(CartItemNotFound.class, () -> cartStore.update(1, cart -> {
+            cart.getCartItems().clear();
+            throw new CartItemNotFound("Cart is empty now");
+        }));
+
+        assertSame(before, cartStore.load(1));
+        assertEquals(1, before.getCartItems().size());
+        assertEquals(0, cartStore.dirtyCarts());
+    }
+
+    @Test
+    @DisplayName("Should give a re-added product a new row and leave the row an order shares untouched")
+    void testReAddAfterCheckoutGetsNewRow() {
+        CartItem ordered = stored.getCartItems().get(0);
+        when(productRepository.getReferenceById(1)).thenReturn(product);
+
+        cartStore.update(1, cart -> cart.getCartItems().clear());
+        cartStore.update(1, cart -> cart.getCartItems().add(new CartItem(null, product, 4, 9000L)));
+        cartStore.flushDirty();
+
+        assertEquals(1, stored.getCartItems().size());
+        assertNotSame(ordered, stored.getCartItems().get(0));
+        assertEquals(4, stored.getCartItems().get(0).getCartItemQuantity());
+        assertEquals(1, ordered.getCartItemQuantity());
+        assertEquals(10000L, ordered.getUnitPriceCents());
+        verify(cartItemRepository, never()).delete(any());
+    }
+
+    @Test
+    @DisplayName("Should delete requested rows and keep the cart dirty while writes fail")
+    void testDeleteAndRetry() {
+        CartItem row = stored.getCartItems().get(0);
+        Cart updated = cartStore.updateItems(1, cart -> {
+            List<CartItem> removed = new ArrayList<>(cart.getCartItems());
+            cart.getCartItems().clear();
+            return removed;
+        });
+        when(cartRepository.findById(1)).thenThrow(new IllegalStateException("database is locked"))
+                .thenReturn(Optional.of(stored));
+
+        assertEquals(0, cartStore.flushDirty());
+        assertEquals(1, cartStore.dirtyCarts());
+        assertEquals(1, stored.getCartItems().size());
+
+        assertEquals(1, cartStore.flushDirty());
+        assertTrue(stored.getCartItems().isEmpty());
+        assertTrue(updated.getCartItems().isEmpty());
+        verify(cartItemRepository).delete(row);
+    }
+
+    @Test
+    @DisplayName("Should write a single cart on a forced flush only when it has changes")
+    void testForcedFlush() {
+        cartStore.load(1);
+        cartStore.flush(1);
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+
+        cartStore.update(1, cart -> cart.setCartTotal(200.0));
+        cartStore.flush(1);
+
+        assertEquals(200.0, stored.getCartTotal());
+        assertEquals(0, cartStore.dirtyCarts());
+        assertEquals(1, cartStore.cachedCarts());
+    }
+
+    @Test
+    @DisplayName("Should write a system adjustment without stamping the cart as changed")
+    void testAdjustKeepsLastModified() {
+        cartStore.adjust(1, cart -> cart.setCartTotal(90.0));
+        assertNull(cartStore.load(1).getLastModified());
+
+        assertEquals(1, cartStore.flushDirty());
+        assertEquals(90.0, stored.getCartTotal());
+        assertNull(stored.getLastModified());
+    }
+
+    @Test
+    @DisplayName("Should discard a clean cart and keep one with unsaved changes")
+    void testDiscard() {
+        cartStore.update(1, cart -> cart.setCartTotal(200.0));
+        cartStore.discard(1);
+        assertEquals(1, cartStore.cachedCarts());
+        assertNotNull(cartStore.load(1).getLastModified());
+
+        cartStore.flushDirty();
+        cartStore.discard(1);
+
+        assertEquals(0, cartStore.cachedCarts());
+        assertEquals(200.0, stored.getCartTotal());
+        assertNotNull(stored.getLastModified());
+    }
+}